@@ -0,0 +1,47 @@
+-- Datos sintéticos para medir la búsqueda de texto completo: 1.000.000 de eventos
+-- con títulos, localizaciones y descripciones formados a partir de un vocabulario
+-- en español, con tildes, para que el stemming y el plegado de acentos trabajen.
+-- Se ejecuta sobre una base de datos de pruebas con el esquema y las migraciones aplicadas.
+\set eventos 1000000
+
+INSERT INTO "Rol" (nombre)
+SELECT 'Benchmark'
+WHERE NOT EXISTS (SELECT 1 FROM "Rol" WHERE nombre = 'Benchmark');
+
+INSERT INTO "Usuario" (nombre, apellidos, fecha_nacimiento, email, telefono, password, id_rol)
+SELECT 'Benchmark', 'Busqueda', DATE '1990-01-01', 'benchmark@eventvsmerida.es', '600000000', 'x',
+       (SELECT id FROM "Rol" WHERE nombre = 'Benchmark')
+WHERE NOT EXISTS (SELECT 1 FROM "Usuario" WHERE email = 'benchmark@eventvsmerida.es');
+
+INSERT INTO "Categoria" (nombre)
+SELECT c
+FROM unnest(ARRAY['Música', 'Teatro', 'Deporte', 'Gastronomía', 'Exposición', 'Infantil', 'Cine', 'Fiestas']) AS c
+WHERE NOT EXISTS (SELECT 1 FROM "Categoria" WHERE nombre = c);
+
+WITH vocabulario AS (
+    SELECT ARRAY['Concierto', 'Festival', 'Teatro', 'Exposición', 'Ruta', 'Mercado', 'Taller', 'Maratón',
+                 'Cine de verano', 'Degustación', 'Jornadas', 'Recital', 'Espectáculo', 'Feria', 'Visita guiada'] AS tipos,
+           ARRAY['de flamenco', 'de música clásica', 'de jazz', 'romano', 'de artesanía', 'gastronómico',
+                 'infantil', 'de fotografía', 'nocturno', 'solidario', 'medieval', 'de danza', 'de poesía'] AS temas,
+           ARRAY['Teatro Romano', 'Plaza de España', 'Anfiteatro', 'Templo de Diana', 'Puente Romano',
+                 'Alcazaba', 'Museo Nacional de Arte Romano', 'Parque de las Méridas Romanas',
+                 'Palacio de Congresos', 'Circo Romano', 'Calle Santa Eulalia', 'Acueducto de los Milagros'] AS lugares,
+           ARRAY['Una cita imprescindible para toda la familia.', 'Entrada libre hasta completar aforo.',
+                 'Actividad organizada por el Ayuntamiento de Mérida.', 'Con la participación de artistas extremeños.',
+                 'Se recomienda llegar con antelación.', 'Incluye degustación de productos típicos.',
+                 'Apto para personas con movilidad reducida.', 'Edición especial del festival de teatro clásico.'] AS frases,
+           ARRAY(SELECT id FROM "Categoria" ORDER BY id) AS categorias
+)
+INSERT INTO "Evento" (titulo, descripcion, fecha_hora, localizacion, foto, estado_foto, id_usuario, id_categoria)
+SELECT
+    tipos[1 + (i * 7) % array_length(tipos, 1)] || ' ' || temas[1 + (i * 11) % array_length(temas, 1)] || ' #' || i,
+    frases[1 + (i * 3) % array_length(frases, 1)] || ' ' || frases[1 + (i * 5) % array_length(frases, 1)],
+    TIMESTAMP '2025-01-01' + (i % 730) * INTERVAL '1 day' + (i % 24) * INTERVAL '1 hour',
+    lugares[1 + (i * 13) % array_length(lugares, 1)] || ', Mérida',
+    'https://example.com/foto-' || (i % 1000) || '.jpg',
+    'COMPLETADA',
+    (SELECT id FROM "Usuario" WHERE email = 'benchmark@eventvsmerida.es'),
+    categorias[1 + i % array_length(categorias, 1)]
+FROM vocabulario, generate_series(1, :eventos) AS i;
+
+ANALYZE "Evento";
@@ -0,0 +1,36 @@
+#!/usr/bin/env bash
+# Mide la latencia de la búsqueda de texto completo con pgbench y muestra los percentiles.
+# Uso: PGDATABASE=eventvsmerida_bench ./ejecutar.sh [--sembrar]
+#   --sembrar  Carga antes los datos de datos.sql (1.000.000 de eventos).
+# Variables opcionales: CLIENTES (8), HILOS (4), DURACION en segundos (60).
+set -euo pipefail
+
+DIRECTORIO="$(cd "$(dirname "$0")" && pwd)"
+CLIENTES="${CLIENTES:-8}"
+HILOS="${HILOS:-4}"
+DURACION="${DURACION:-60}"
+LOGS="$(mktemp -d)"
+trap 'rm -rf "$LOGS"' EXIT
+
+if [[ "${1:-}" == "--sembrar" ]]; then
+    psql -v ON_ERROR_STOP=1 -f "$DIRECTORIO/datos.sql"
+fi
+
+# Plan de la consulta, para comprobar que se usa idx_evento_busqueda
+psql -c "EXPLAIN (ANALYZE, BUFFERS)
+         SELECT e.id FROM \"Evento\" e, websearch_to_tsquery('es_unaccent', 'teatro romano') q
+         WHERE e.busqueda @@ q ORDER BY ts_rank_cd(e.busqueda, q) DESC, e.id LIMIT 21"
+
+(cd "$LOGS" && pgbench -n -c "$CLIENTES" -j "$HILOS" -T "$DURACION" -f "$DIRECTORIO/busqueda.pgbench" --log --log-prefix=busqueda)
+
+# La tercera columna del log de pgbench es la latencia de cada transacción en microsegundos
+cat "$LOGS"/busqueda* | awk '{ print $3 }' | sort -n | awk '
+    { latencias[NR] = $1 }
+    END {
+        if (NR == 0) { print "Sin transacciones registradas"; exit 1 }
+        printf "transacciones: %d\n", NR
+        printf "p50: %.2f ms\n", latencias[int(NR * 0.50) > 0 ? int(NR * 0.50) : 1] / 1000
+        printf "p95: %.2f ms\n", latencias[int(NR * 0.95) > 0 ? int(NR * 0.95) : 1] / 1000
+        printf "p99: %.2f ms\n", latencias[int(NR * 0.99) > 0 ? int(NR * 0.99) : 1] / 1000
+        printf "max: %.2f ms\n", latencias[NR] / 1000
+    }'
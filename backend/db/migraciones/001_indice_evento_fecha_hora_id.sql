@@ -0,0 +1,3 @@
+-- Indice para la paginacion por clave (keyset) del listado de eventos,
+-- ordenado por (fecha_hora, id).
+CREATE INDEX IF NOT EXISTS idx_evento_fecha_hora_id ON "Evento" (fecha_hora, id);
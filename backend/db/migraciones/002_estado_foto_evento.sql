@@ -0,0 +1,3 @@
+-- Estado de la ingesta de la foto de cada evento. Los eventos existentes
+-- ya tienen su foto almacenada en el bucket, por lo que se marcan como completados.
+ALTER TABLE "Evento" ADD COLUMN IF NOT EXISTS estado_foto text NOT NULL DEFAULT 'COMPLETADA';
@@ -0,0 +1,4 @@
+-- URLs de las variantes reducidas de la foto de cada evento (miniatura y tarjeta).
+-- Los eventos existentes no tienen variantes: la API devuelve la foto original en su lugar.
+ALTER TABLE "Evento" ADD COLUMN IF NOT EXISTS foto_miniatura text;
+ALTER TABLE "Evento" ADD COLUMN IF NOT EXISTS foto_tarjeta text;
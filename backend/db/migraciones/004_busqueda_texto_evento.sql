@@ -0,0 +1,24 @@
+-- Búsqueda de texto completo sobre titulo, localizacion y descripcion de los eventos.
+-- La configuración es_unaccent parte de la española (stemming) y elimina las tildes,
+-- de modo que "musica" encuentra "Música" y "conciertos" encuentra "concierto".
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_ts_config WHERE cfgname = 'es_unaccent') THEN
+        CREATE TEXT SEARCH CONFIGURATION es_unaccent (COPY = spanish);
+        ALTER TEXT SEARCH CONFIGURATION es_unaccent
+            ALTER MAPPING FOR hword, hword_part, word WITH unaccent, spanish_stem;
+    END IF;
+END
+$$;
+
+-- Columna generada con los pesos de cada campo: el título pesa más que la localización
+-- y esta más que la descripción al ordenar por relevancia.
+ALTER TABLE "Evento" ADD COLUMN IF NOT EXISTS busqueda tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('es_unaccent', coalesce(titulo, '')), 'A') ||
+    setweight(to_tsvector('es_unaccent', coalesce(localizacion, '')), 'B') ||
+    setweight(to_tsvector('es_unaccent', coalesce(descripcion, '')), 'C')
+) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_evento_busqueda ON "Evento" USING gin (busqueda);
@@ -0,0 +1,4 @@
+-- Índice para las consultas del calendario filtradas por categoría: eventos de una
+-- categoría en un rango de fechas y su número por día. Sin filtro de categoría se usa
+-- idx_evento_fecha_hora_id (001), que ya empieza por fecha_hora.
+CREATE INDEX IF NOT EXISTS idx_evento_categoria_fecha_hora ON "Evento" (id_categoria, fecha_hora);
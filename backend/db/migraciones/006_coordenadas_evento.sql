@@ -0,0 +1,8 @@
+-- Coordenadas de la localización de cada evento, obtenidas en segundo plano por geocodificación.
+-- Quedan a NULL hasta que se geocodifica el evento o si la localización no se encuentra.
+ALTER TABLE "Evento" ADD COLUMN IF NOT EXISTS latitud double precision;
+ALTER TABLE "Evento" ADD COLUMN IF NOT EXISTS longitud double precision;
+
+-- Índice para las consultas por recuadro del mapa: rango sobre latitud y filtro sobre
+-- longitud dentro del propio índice. Los eventos sin coordenadas no se indexan.
+CREATE INDEX IF NOT EXISTS idx_evento_latitud_longitud ON "Evento" (latitud, longitud) WHERE latitud IS NOT NULL;
@@ -0,0 +1,18 @@
+-- Número de usuarios que han guardado cada evento, mantenido por la aplicación con incrementos
+-- atómicos al guardar y al quitar un evento, para no tener que contar "Usuario-Evento" en cada consulta.
+ALTER TABLE "Evento" ADD COLUMN IF NOT EXISTS guardados integer NOT NULL DEFAULT 0;
+
+-- Carga inicial a partir de las filas existentes. Es idempotente y se puede volver a ejecutar
+-- para recalcular los contadores si alguna vez se desajustan (por ejemplo, tras borrar usuarios a mano).
+UPDATE "Evento" e
+SET guardados = c.total
+FROM (SELECT id_evento, COUNT(*) AS total FROM "Usuario-Evento" GROUP BY id_evento) c
+WHERE e.id = c.id_evento AND e.guardados <> c.total;
+
+UPDATE "Evento" e
+SET guardados = 0
+WHERE e.guardados <> 0
+  AND NOT EXISTS (SELECT 1 FROM "Usuario-Evento" ue WHERE ue.id_evento = e.id);
+
+-- Índice para el ranking de los más guardados: se lee en orden y se corta en el límite.
+CREATE INDEX IF NOT EXISTS idx_evento_guardados_id ON "Evento" (guardados DESC, id);
@@ -0,0 +1,17 @@
+-- Instante de la última modificación de cada evento, para que la app pueda pedir solo los
+-- eventos que han cambiado desde su última sincronización. Lo mantiene la aplicación con la
+-- hora de la base de datos, tanto al guardar la entidad como en las actualizaciones masivas.
+-- Los eventos existentes toman la hora de la migración, así que todos entran en la primera sincronización.
+ALTER TABLE "Evento" ADD COLUMN IF NOT EXISTS actualizado_en timestamptz NOT NULL DEFAULT now();
+
+-- Índice para leer los cambios en orden (actualizado_en, id) a partir del token del cliente.
+CREATE INDEX IF NOT EXISTS idx_evento_actualizado_en_id ON "Evento" (actualizado_en, id);
+
+-- Marcas de los eventos eliminados, para que la app pueda quitarlos de su copia local.
+-- No tienen clave foránea porque el evento ya no existe cuando se insertan.
+CREATE TABLE IF NOT EXISTS "EventoEliminado" (
+    id_evento    bigint      PRIMARY KEY,
+    eliminado_en timestamptz NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_evento_eliminado_eliminado_en_id ON "EventoEliminado" (eliminado_en, id_evento);
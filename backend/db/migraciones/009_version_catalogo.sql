@@ -0,0 +1,9 @@
+-- Versión de los catálogos pequeños (categorías, roles) para los GET condicionales. La aplicación
+-- incrementa la revisión de su fila en cada escritura, así que todas las instancias comparten el ETag.
+CREATE TABLE IF NOT EXISTS "VersionCatalogo" (
+    recurso        text        PRIMARY KEY,
+    revision       bigint      NOT NULL DEFAULT 0,
+    actualizado_en timestamptz NOT NULL DEFAULT now()
+);
+
+INSERT INTO "VersionCatalogo" (recurso) VALUES ('categorias'), ('roles') ON CONFLICT DO NOTHING;
@@ -0,0 +1,3 @@
+-- Versión de las credenciales de cada usuario. La aplicación la incrementa al cambiar el email,
+-- la contraseña o el rol, y los tokens de refresco que llevan una versión anterior dejan de valer.
+ALTER TABLE "Usuario" ADD COLUMN IF NOT EXISTS version_credenciales integer NOT NULL DEFAULT 0;
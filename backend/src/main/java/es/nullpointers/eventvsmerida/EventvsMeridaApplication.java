@@ -2,18 +2,22 @@ package es.nullpointers.eventvsmerida;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.PropertySource;
 
 /**
  * Main para iniciar la aplicación Spring Boot.
+ * Los valores por defecto de valores-por-defecto.properties se aplican también en las pruebas
+ * y se pueden sobrescribir en el application.properties.
  *
  * @author Eva Retamar
  * @author David Muñoz
  * @author Adrián Pérez
  */
 @SpringBootApplication
+@PropertySource("classpath:valores-por-defecto.properties")
 public class EventvsMeridaApplication {
 
     public static void main(String[] args) {
         SpringApplication.run(EventvsMeridaApplication.class, args);
     }
-}
\ No newline at end of file
+}
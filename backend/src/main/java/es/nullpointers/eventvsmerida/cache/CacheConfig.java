@@ -0,0 +1,66 @@
+package es.nullpointers.eventvsmerida.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuración de las cachés en memoria de la aplicación.
+ * Se usan para los catálogos de categorías y roles, que tienen pocas filas
+ * y casi nunca cambian, evitando consultar la base de datos en cada petición,
+ * y para los datos de autenticación de los usuarios, indexados por email.
+ * Las respuestas de los catálogos se indexan por la versión del catálogo, así que un cambio
+ * hecho en otra instancia se ve en cuanto cambia la versión, sin esperar a que caduquen.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String CATEGORIAS = "categorias";
+    public static final String CATEGORIAS_RESPONSE = "categoriasResponse";
+    public static final String ROLES = "roles";
+    public static final String ROLES_RESPONSE = "rolesResponse";
+    public static final String USUARIOS_AUTENTICADOS = "usuariosAutenticados";
+
+    /**
+     * Bean del gestor de cachés basado en Caffeine. Las cachés están acotadas en tamaño,
+     * caducan tras un tiempo para limitar datos obsoletos entre varias instancias y
+     * registran estadísticas de aciertos y fallos.
+     * La caché de usuarios tiene su propio tamaño y una expiración más corta, porque un cambio
+     * de contraseña o de rol hecho en otra instancia solo se ve aquí cuando caduca la entrada.
+     *
+     * @param tamanioMaximo Número máximo de entradas por caché de catálogo.
+     * @param expiracion Tiempo que se mantiene una entrada de catálogo desde que se escribe.
+     * @param tamanioMaximoUsuarios Número máximo de usuarios en la caché de autenticación.
+     * @param expiracionUsuarios Tiempo que se mantiene un usuario desde que se escribe.
+     * @return un CacheManager con las cachés de los catálogos y de autenticación.
+     */
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${cache.catalogos.tamanio-maximo:500}") long tamanioMaximo,
+            @Value("${cache.catalogos.expiracion:10m}") Duration expiracion,
+            @Value("${cache.usuarios.tamanio-maximo:10000}") long tamanioMaximoUsuarios,
+            @Value("${cache.usuarios.expiracion:5m}") Duration expiracionUsuarios
+    ) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(CATEGORIAS, CATEGORIAS_RESPONSE, ROLES, ROLES_RESPONSE);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(tamanioMaximo)
+                .expireAfterWrite(expiracion)
+                .recordStats());
+        cacheManager.registerCustomCache(USUARIOS_AUTENTICADOS, Caffeine.newBuilder()
+                .maximumSize(tamanioMaximoUsuarios)
+                .expireAfterWrite(expiracionUsuarios)
+                .recordStats()
+                .build());
+        return cacheManager;
+    }
+}
@@ -3,12 +3,14 @@ package es.nullpointers.eventvsmerida.controller;
 import es.nullpointers.eventvsmerida.dto.request.CategoriaRequest;
 import es.nullpointers.eventvsmerida.dto.response.CategoriaResponse;
 import es.nullpointers.eventvsmerida.service.CategoriaService;
+import es.nullpointers.eventvsmerida.utils.PeticionCondicionalUtils;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -34,24 +36,26 @@ public class CategoriaController {
     /**
      * Metodo GET que llama al servicio para obtener todas las categorias.
      *
+     * @param request Petición, con las cabeceras condicionales del cliente.
      * @return ResponseEntity con la categoria creada y el estado HTTP 200 (OK).
      */
     @GetMapping("/all")
-    public ResponseEntity<List<CategoriaResponse>> obtenerCategorias() {
-        List<CategoriaResponse> categorias = categoriaService.obtenerCategorias();
-        return ResponseEntity.ok(categorias);
+    public ResponseEntity<List<CategoriaResponse>> obtenerCategorias(WebRequest request) {
+        PeticionCondicionalUtils.Version version = categoriaService.obtenerVersion();
+        return PeticionCondicionalUtils.responder(request, version, () -> categoriaService.obtenerCategorias(version));
     }
 
     /**
      * Metodo GET que llama al servicio para obtener una categoria por su ID.
      *
      * @param id ID de la categoria a obtener.
+     * @param request Petición, con las cabeceras condicionales del cliente.
      * @return ResponseEntity con la categoria encontrada y el estado HTTP 200 (OK).
      */
     @GetMapping("/{id}")
-    public ResponseEntity<CategoriaResponse> obtenerCategoriaPorId(@PathVariable Long id) {
-        CategoriaResponse categoriaObtenida = categoriaService.obtenerCategoriaPorId(id);
-        return ResponseEntity.ok(categoriaObtenida);
+    public ResponseEntity<CategoriaResponse> obtenerCategoriaPorId(@PathVariable Long id, WebRequest request) {
+        PeticionCondicionalUtils.Version version = categoriaService.obtenerVersion();
+        return PeticionCondicionalUtils.responder(request, version, () -> categoriaService.obtenerCategoriaPorId(id, version));
     }
 
     /**
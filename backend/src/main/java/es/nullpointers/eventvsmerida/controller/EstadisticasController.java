@@ -0,0 +1,51 @@
+package es.nullpointers.eventvsmerida.controller;
+
+import es.nullpointers.eventvsmerida.dto.response.CacheEstadisticasResponse;
+import es.nullpointers.eventvsmerida.dto.response.ImagenesEstadisticasResponse;
+import es.nullpointers.eventvsmerida.service.EstadisticasService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Controlador REST que expone las estadísticas internas de la aplicación
+ * para su supervisión por parte de los administradores.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/estadisticas")
+public class EstadisticasController {
+    private final EstadisticasService estadisticasService;
+
+    /**
+     * Metodo GET que llama al servicio para obtener las estadísticas de las cachés.
+     *
+     * @return ResponseEntity con las estadísticas de cada caché y el estado HTTP 200 (OK).
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<List<CacheEstadisticasResponse>> obtenerEstadisticasCache() {
+        List<CacheEstadisticasResponse> estadisticas = estadisticasService.obtenerEstadisticasCache();
+        return ResponseEntity.ok(estadisticas);
+    }
+
+    /**
+     * Metodo GET que llama al servicio para obtener las estadísticas de deduplicación de imágenes.
+     *
+     * @return ResponseEntity con las estadísticas de las imágenes y el estado HTTP 200 (OK).
+     */
+    @GetMapping("/imagenes")
+    public ResponseEntity<ImagenesEstadisticasResponse> obtenerEstadisticasImagenes() {
+        ImagenesEstadisticasResponse estadisticas = estadisticasService.obtenerEstadisticasImagenes();
+        return ResponseEntity.ok(estadisticas);
+    }
+}
@@ -1,16 +1,25 @@
 package es.nullpointers.eventvsmerida.controller;
 
 import es.nullpointers.eventvsmerida.dto.request.EventoCrearRequest;
+import es.nullpointers.eventvsmerida.dto.response.CambiosEventosResponse;
+import es.nullpointers.eventvsmerida.dto.response.EventoBusquedaResponse;
+import es.nullpointers.eventvsmerida.dto.response.EventoPaginaResponse;
 import es.nullpointers.eventvsmerida.dto.response.EventoResponse;
+import es.nullpointers.eventvsmerida.dto.response.EventosDiaResponse;
+import es.nullpointers.eventvsmerida.dto.response.MapaResponse;
 import es.nullpointers.eventvsmerida.dto.request.EventoActualizarRequest;
 import es.nullpointers.eventvsmerida.service.EventoService;
+import es.nullpointers.eventvsmerida.utils.PeticionCondicionalUtils;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -35,24 +44,163 @@ public class EventoController {
     /**
      * Método GET que llama a EventoService para obtener todos los eventos.
      *
+     * @param request Petición, con las cabeceras condicionales del cliente.
      * @return ResponseEntity con la lista de eventos y el estado HTTP 200 (OK).
      */
     @GetMapping("/all")
-    public ResponseEntity<List<EventoResponse>> obtenerEventos() {
-        List<EventoResponse> eventos = eventoService.obtenerEventos();
-        return ResponseEntity.ok(eventos);
+    public ResponseEntity<List<EventoResponse>> obtenerEventos(WebRequest request) {
+        return PeticionCondicionalUtils.responder(request, eventoService.obtenerVersionEventos(), () -> eventoService.obtenerEventos());
+    }
+
+    /**
+     * Método GET que llama a EventoService para obtener una página del listado
+     * de eventos ordenado por fecha, usando paginación por cursor.
+     *
+     * @param cursor Cursor devuelto en la página anterior (opcional, se omite en la primera página).
+     * @param tamanio Número de eventos por página (opcional).
+     * @param request Petición, con las cabeceras condicionales del cliente.
+     * @return ResponseEntity con la página de eventos y el estado HTTP 200 (OK).
+     */
+    @GetMapping("/feed")
+    public ResponseEntity<EventoPaginaResponse> obtenerPaginaEventos(@RequestParam(required = false) String cursor, @RequestParam(required = false) Integer tamanio, WebRequest request) {
+        return PeticionCondicionalUtils.responder(request, eventoService.obtenerVersionEventos(), () -> eventoService.obtenerPaginaEventos(cursor, tamanio));
+    }
+
+    /**
+     * Método GET que llama a EventoService para obtener los eventos creados, modificados
+     * y eliminados desde la última sincronización de la app.
+     *
+     * @param token Token devuelto en la sincronización anterior (opcional, se omite en la primera).
+     * @param tamanio Número máximo de cambios a devolver (opcional).
+     * @return ResponseEntity con los cambios, el token para la siguiente sincronización y el estado HTTP 200 (OK),
+     *         o 410 (GONE) si el token es tan antiguo que hay que volver a descargar todos los eventos.
+     */
+    @GetMapping("/cambios")
+    public ResponseEntity<CambiosEventosResponse> obtenerCambios(@RequestParam(required = false) String token, @RequestParam(required = false) Integer tamanio) {
+        CambiosEventosResponse cambios = eventoService.obtenerCambios(token, tamanio);
+        return ResponseEntity.ok(cambios);
+    }
+
+    /**
+     * Método GET que llama a EventoService para obtener los eventos de un rango de fechas,
+     * por ejemplo el mes que muestra el calendario.
+     *
+     * @param desde Inicio del rango (incluido), en formato ISO (2026-05-01T00:00:00).
+     * @param hasta Fin del rango (excluido), en formato ISO.
+     * @param idCategoria ID de la categoría por la que filtrar (opcional).
+     * @param request Petición, con las cabeceras condicionales del cliente.
+     * @return ResponseEntity con la lista de eventos del rango y el estado HTTP 200 (OK).
+     */
+    @GetMapping("/rango")
+    public ResponseEntity<List<EventoResponse>> obtenerEventosEnRango(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @RequestParam(required = false) Long idCategoria,
+            WebRequest request
+    ) {
+        return PeticionCondicionalUtils.responder(request, eventoService.obtenerVersionEventos(), () -> eventoService.obtenerEventosEnRango(desde, hasta, idCategoria));
+    }
+
+    /**
+     * Método GET que llama a EventoService para obtener el número de eventos de cada día
+     * de un rango de fechas, para pintar el mapa de calor del calendario.
+     *
+     * @param desde Inicio del rango (incluido), en formato ISO (2026-05-01T00:00:00).
+     * @param hasta Fin del rango (excluido), en formato ISO.
+     * @param idCategoria ID de la categoría por la que filtrar (opcional).
+     * @param request Petición, con las cabeceras condicionales del cliente.
+     * @return ResponseEntity con el número de eventos por día y el estado HTTP 200 (OK).
+     */
+    @GetMapping("/por-dia")
+    public ResponseEntity<List<EventosDiaResponse>> contarEventosPorDia(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @RequestParam(required = false) Long idCategoria,
+            WebRequest request
+    ) {
+        return PeticionCondicionalUtils.responder(request, eventoService.obtenerVersionEventos(), () -> eventoService.contarEventosPorDia(desde, hasta, idCategoria));
+    }
+
+    /**
+     * Método GET que llama a EventoService para obtener los eventos de la zona visible del mapa,
+     * como marcadores o agrupados en clusters si son demasiados.
+     *
+     * @param latitudMin Latitud del borde sur.
+     * @param latitudMax Latitud del borde norte.
+     * @param longitudMin Longitud del borde oeste.
+     * @param longitudMax Longitud del borde este.
+     * @param zoom Nivel de zoom del mapa.
+     * @param request Petición, con las cabeceras condicionales del cliente.
+     * @return ResponseEntity con los marcadores o clusters de la zona y el estado HTTP 200 (OK).
+     */
+    @GetMapping("/mapa")
+    public ResponseEntity<MapaResponse> obtenerMapa(
+            @RequestParam double latitudMin,
+            @RequestParam double latitudMax,
+            @RequestParam double longitudMin,
+            @RequestParam double longitudMax,
+            @RequestParam int zoom,
+            WebRequest request
+    ) {
+        return PeticionCondicionalUtils.responder(request, eventoService.obtenerVersionEventos(), () -> eventoService.obtenerMapa(latitudMin, latitudMax, longitudMin, longitudMax, zoom));
+    }
+
+    /**
+     * Método GET que llama a EventoService para obtener los eventos cercanos a un punto.
+     *
+     * @param latitud Latitud del punto.
+     * @param longitud Longitud del punto.
+     * @param radio Distancia máxima en kilómetros (opcional, 2 km por defecto).
+     * @param request Petición, con las cabeceras condicionales del cliente.
+     * @return ResponseEntity con los eventos ordenados por distancia y el estado HTTP 200 (OK).
+     */
+    @GetMapping("/cercanos")
+    public ResponseEntity<List<EventoResponse>> obtenerEventosCercanos(
+            @RequestParam double latitud,
+            @RequestParam double longitud,
+            @RequestParam(defaultValue = "2") double radio,
+            WebRequest request
+    ) {
+        return PeticionCondicionalUtils.responder(request, eventoService.obtenerVersionEventos(), () -> eventoService.obtenerEventosCercanos(latitud, longitud, radio));
+    }
+
+    /**
+     * Método GET que llama a EventoService para obtener los eventos más guardados por los usuarios.
+     *
+     * @param tamanio Número de eventos a devolver (opcional).
+     * @param request Petición, con las cabeceras condicionales del cliente.
+     * @return ResponseEntity con los eventos ordenados de más a menos guardados y el estado HTTP 200 (OK).
+     */
+    @GetMapping("/mas-guardados")
+    public ResponseEntity<List<EventoResponse>> obtenerEventosMasGuardados(@RequestParam(required = false) Integer tamanio, WebRequest request) {
+        return PeticionCondicionalUtils.responder(request, eventoService.obtenerVersionEventos(), () -> eventoService.obtenerEventosMasGuardados(tamanio));
+    }
+
+    /**
+     * Método GET que llama a EventoService para buscar eventos por texto,
+     * ordenados por relevancia y paginados.
+     *
+     * @param q Texto a buscar en el título, la localización y la descripción.
+     * @param pagina Número de página, empezando en 0 (opcional).
+     * @param tamanio Número de eventos por página (opcional).
+     * @param request Petición, con las cabeceras condicionales del cliente.
+     * @return ResponseEntity con la página de resultados y el estado HTTP 200 (OK).
+     */
+    @GetMapping("/buscar")
+    public ResponseEntity<EventoBusquedaResponse> buscarEventos(@RequestParam String q, @RequestParam(required = false) Integer pagina, @RequestParam(required = false) Integer tamanio, WebRequest request) {
+        return PeticionCondicionalUtils.responder(request, eventoService.obtenerVersionEventos(), () -> eventoService.buscarEventos(q, pagina, tamanio));
     }
 
     /**
      * Método GET que llama al servicio para obtener un evento por su ID.
      *
      * @param id ID del evento a obtener.
+     * @param request Petición, con las cabeceras condicionales del cliente.
      * @return ResponseEntity con el evento encontrado y el estado HTTP 200 (OK).
      */
     @GetMapping("/{id}")
-    public ResponseEntity<EventoResponse> obtenerEventoPorId(@PathVariable Long id) {
-        EventoResponse eventoObtenido = eventoService.obtenerEventoPorId(id);
-        return ResponseEntity.ok(eventoObtenido);
+    public ResponseEntity<EventoResponse> obtenerEventoPorId(@PathVariable Long id, WebRequest request) {
+        return PeticionCondicionalUtils.responder(request, eventoService.obtenerVersionEvento(id), () -> eventoService.obtenerEventoPorId(id));
     }
 
     /**
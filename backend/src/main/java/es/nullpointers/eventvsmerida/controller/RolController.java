@@ -3,12 +3,14 @@ package es.nullpointers.eventvsmerida.controller;
 import es.nullpointers.eventvsmerida.dto.request.RolRequest;
 import es.nullpointers.eventvsmerida.dto.response.RolResponse;
 import es.nullpointers.eventvsmerida.service.RolService;
+import es.nullpointers.eventvsmerida.utils.PeticionCondicionalUtils;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -34,24 +36,26 @@ public class RolController {
     /**
      * Metodo GET que llama al servicio para obtener todos los roles.
      *
+     * @param request Petición, con las cabeceras condicionales del cliente.
      * @return ResponseEntity con la lista de roles y el estado HTTP 200 (OK).
      */
     @GetMapping("/all")
-    public ResponseEntity<List<RolResponse>> obtenerRoles() {
-        List<RolResponse> roles = rolService.obtenerRoles();
-        return ResponseEntity.ok(roles);
+    public ResponseEntity<List<RolResponse>> obtenerRoles(WebRequest request) {
+        PeticionCondicionalUtils.Version version = rolService.obtenerVersion();
+        return PeticionCondicionalUtils.responder(request, version, () -> rolService.obtenerRoles(version));
     }
 
     /**
      * Metodo GET que llama al servicio para obtener un rol por su ID.
      *
      * @param id ID del rol a obtener.
+     * @param request Petición, con las cabeceras condicionales del cliente.
      * @return ResponseEntity con el rol encontrado y el estado HTTP 200 (OK).
      */
     @GetMapping("/{id}")
-    public ResponseEntity<RolResponse> obtenerRolPorId(@PathVariable Long id) {
-        RolResponse rolObtenido = rolService.obtenerRolPorId(id);
-        return ResponseEntity.ok(rolObtenido);
+    public ResponseEntity<RolResponse> obtenerRolPorId(@PathVariable Long id, WebRequest request) {
+        PeticionCondicionalUtils.Version version = rolService.obtenerVersion();
+        return PeticionCondicionalUtils.responder(request, version, () -> rolService.obtenerRolPorId(id, version));
     }
 
     /**
@@ -1,10 +1,13 @@
 package es.nullpointers.eventvsmerida.controller;
 
 import es.nullpointers.eventvsmerida.dto.request.LoginRequest;
+import es.nullpointers.eventvsmerida.dto.request.RefrescoTokenRequest;
 import es.nullpointers.eventvsmerida.dto.request.UsuarioActualizarRequest;
 import es.nullpointers.eventvsmerida.dto.request.UsuarioCrearRequest;
+import es.nullpointers.eventvsmerida.dto.response.LoginResponse;
 import es.nullpointers.eventvsmerida.dto.response.UsuarioResponse;
 import es.nullpointers.eventvsmerida.service.UsuarioService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -101,11 +104,24 @@ public class UsuarioController {
      * Metodo POST que llama al servicio para iniciar sesión a un usuario con su email y contraseña.
      *
      * @param loginRequest DTO con el email y la contraseña del usuario que intenta iniciar sesión.
-     * @return ResponseEntity con el usuario logeado y el estado HTTP 200 (OK).
+     * @param request Petición HTTP, de la que se toma la IP del cliente para limitar los intentos.
+     * @return ResponseEntity con el usuario logeado, sus tokens y el estado HTTP 200 (OK).
      */
     @PostMapping("/login")
-    public ResponseEntity<UsuarioResponse> login(@Valid @RequestBody LoginRequest loginRequest) {
-        UsuarioResponse usuarioLogeado = usuarioService.login(loginRequest.email(), loginRequest.password());
+    public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest loginRequest, HttpServletRequest request) {
+        LoginResponse usuarioLogeado = usuarioService.login(loginRequest.email(), loginRequest.password(), request.getRemoteAddr());
         return ResponseEntity.ok(usuarioLogeado);
     }
+
+    /**
+     * Metodo POST que llama al servicio para renovar los tokens a partir del token de refresco.
+     *
+     * @param refrescoTokenRequest DTO con el token de refresco.
+     * @return ResponseEntity con el usuario, sus nuevos tokens y el estado HTTP 200 (OK).
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<LoginResponse> refrescarSesion(@Valid @RequestBody RefrescoTokenRequest refrescoTokenRequest) {
+        LoginResponse sesion = usuarioService.refrescarSesion(refrescoTokenRequest.tokenRefresco());
+        return ResponseEntity.ok(sesion);
+    }
 }
\ No newline at end of file
@@ -1,7 +1,9 @@
 package es.nullpointers.eventvsmerida.controller;
 
+import es.nullpointers.eventvsmerida.dto.request.LoteGuardadosRequest;
 import es.nullpointers.eventvsmerida.dto.request.UsuarioEventoRequest;
 import es.nullpointers.eventvsmerida.dto.response.EventoResponse;
+import es.nullpointers.eventvsmerida.dto.response.ResultadoGuardadoResponse;
 import es.nullpointers.eventvsmerida.service.UsuarioEventoService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -38,6 +40,24 @@ public class UsuarioEventoController {
         return ResponseEntity.noContent().build();
     }
 
+    @PutMapping("/{idUsuario}/{idEvento}")
+    public ResponseEntity<Void> guardarEventoPorId(@PathVariable Long idUsuario, @PathVariable Long idEvento) {
+        usuarioEventoService.guardarEventoPorId(idUsuario, idEvento);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/{idUsuario}/{idEvento}")
+    public ResponseEntity<Void> quitarEventoPorId(@PathVariable Long idUsuario, @PathVariable Long idEvento) {
+        usuarioEventoService.quitarEventoPorId(idUsuario, idEvento);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/{idUsuario}/lote")
+    public ResponseEntity<List<ResultadoGuardadoResponse>> aplicarLoteGuardados(@PathVariable Long idUsuario, @Valid @RequestBody LoteGuardadosRequest request) {
+        List<ResultadoGuardadoResponse> resultados = usuarioEventoService.aplicarLoteGuardados(idUsuario, request);
+        return ResponseEntity.ok(resultados);
+    }
+
     @GetMapping("/guardados")
     public ResponseEntity<List<EventoResponse>> obtenerEventosGuardadosPorUsuario(@RequestParam String emailUsuario) {
         List<EventoResponse> eventos = usuarioEventoService.obtenerEventosGuardadosPorUsuario(emailUsuario);
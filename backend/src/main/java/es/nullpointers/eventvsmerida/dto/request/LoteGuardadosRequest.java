@@ -0,0 +1,36 @@
+package es.nullpointers.eventvsmerida.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+/**
+ * DTO para la solicitud de un lote de operaciones sobre los eventos guardados de un usuario,
+ * por ejemplo las que la app acumula sin conexión y envía al recuperarla.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+public record LoteGuardadosRequest(
+        @NotEmpty
+        List<@Valid @NotNull Operacion> operaciones
+) {
+    /**
+     * Operación de guardar o quitar un evento.
+     */
+    public record Operacion(
+            @NotNull
+            Long idEvento,
+
+            @NotNull
+            Accion accion
+    ) {}
+
+    public enum Accion {
+        GUARDAR,
+        QUITAR
+    }
+}
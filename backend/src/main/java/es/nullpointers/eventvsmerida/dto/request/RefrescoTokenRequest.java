@@ -0,0 +1,15 @@
+package es.nullpointers.eventvsmerida.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+
+/**
+ * DTO para la solicitud de un nuevo par de tokens a partir del token de refresco.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+public record RefrescoTokenRequest(
+        @NotBlank
+        String tokenRefresco
+) {}
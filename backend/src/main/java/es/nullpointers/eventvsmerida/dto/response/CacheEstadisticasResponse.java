@@ -0,0 +1,17 @@
+package es.nullpointers.eventvsmerida.dto.response;
+
+/**
+ * DTO para devolver las estadísticas de uso de una caché.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+public record CacheEstadisticasResponse(
+        String nombre,
+        long aciertos,
+        long fallos,
+        double tasaAciertos,
+        long desalojos,
+        long entradas
+) {}
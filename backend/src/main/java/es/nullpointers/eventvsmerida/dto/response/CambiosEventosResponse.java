@@ -0,0 +1,18 @@
+package es.nullpointers.eventvsmerida.dto.response;
+
+import java.util.List;
+
+/**
+ * DTO para devolver los eventos creados, modificados y eliminados desde la
+ * última sincronización de la app, junto con el token para la siguiente.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+public record CambiosEventosResponse(
+        List<EventoResponse> eventos,
+        List<Long> eliminados,
+        String token,
+        boolean hayMas
+) {}
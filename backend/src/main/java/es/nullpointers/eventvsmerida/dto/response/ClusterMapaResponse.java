@@ -0,0 +1,15 @@
+package es.nullpointers.eventvsmerida.dto.response;
+
+/**
+ * DTO para devolver un grupo de eventos cercanos en el mapa, representado
+ * por el centro de sus posiciones y el número de eventos que contiene.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+public record ClusterMapaResponse(
+        double latitud,
+        double longitud,
+        long eventos
+) {}
@@ -0,0 +1,17 @@
+package es.nullpointers.eventvsmerida.dto.response;
+
+import java.util.List;
+
+/**
+ * DTO para devolver una página de resultados de la búsqueda de eventos,
+ * ordenados por relevancia.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+public record EventoBusquedaResponse(
+        List<EventoResponse> eventos,
+        int pagina,
+        boolean hayMas
+) {}
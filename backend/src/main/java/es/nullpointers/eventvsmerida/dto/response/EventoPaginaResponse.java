@@ -0,0 +1,16 @@
+package es.nullpointers.eventvsmerida.dto.response;
+
+import java.util.List;
+
+/**
+ * DTO para devolver una pagina del listado de eventos junto con
+ * el cursor necesario para solicitar la siguiente.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+public record EventoPaginaResponse(
+        List<EventoResponse> eventos,
+        String siguienteCursor
+) {}
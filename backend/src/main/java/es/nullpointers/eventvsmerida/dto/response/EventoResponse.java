@@ -1,5 +1,6 @@
 package es.nullpointers.eventvsmerida.dto.response;
 
+import es.nullpointers.eventvsmerida.entity.EstadoFoto;
 import java.time.Instant;
 import java.time.LocalDateTime;
 
@@ -11,11 +12,18 @@ import java.time.LocalDateTime;
  * @author Adrián Pérez
  */
 public record EventoResponse(
+        Long id,
         String titulo,
         String descripcion,
         LocalDateTime fechaHora,
         String localizacion,
+        Double latitud,
+        Double longitud,
         String foto,
+        String fotoMiniatura,
+        String fotoTarjeta,
+        EstadoFoto estadoFoto,
         String emailUsuario,
-        String nombreCategoria
+        String nombreCategoria,
+        int guardados
 ) {}
\ No newline at end of file
@@ -0,0 +1,15 @@
+package es.nullpointers.eventvsmerida.dto.response;
+
+import java.time.LocalDate;
+
+/**
+ * DTO para devolver el número de eventos de un día, usado en la vista mensual del calendario.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+public record EventosDiaResponse(
+        LocalDate dia,
+        long eventos
+) {}
@@ -0,0 +1,17 @@
+package es.nullpointers.eventvsmerida.dto.response;
+
+/**
+ * DTO para devolver las estadísticas de deduplicación de las imágenes almacenadas.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+public record ImagenesEstadisticasResponse(
+        long consultas,
+        long aciertosUrl,
+        long aciertosContenido,
+        double tasaAciertos,
+        long bytesAhorrados,
+        long imagenesIndexadas
+) {}
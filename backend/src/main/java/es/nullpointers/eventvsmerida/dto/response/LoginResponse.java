@@ -0,0 +1,13 @@
+package es.nullpointers.eventvsmerida.dto.response;
+
+/**
+ * DTO para devolver el usuario que ha iniciado sesión junto con sus tokens.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+public record LoginResponse(
+        UsuarioResponse usuario,
+        TokensResponse tokens
+) {}
@@ -0,0 +1,16 @@
+package es.nullpointers.eventvsmerida.dto.response;
+
+import java.util.List;
+
+/**
+ * DTO para devolver el contenido de una zona del mapa: los eventos como marcadores
+ * individuales o, si son demasiados para la zona visible, agrupados en clusters.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+public record MapaResponse(
+        List<EventoResponse> eventos,
+        List<ClusterMapaResponse> clusters
+) {}
@@ -0,0 +1,25 @@
+package es.nullpointers.eventvsmerida.dto.response;
+
+import es.nullpointers.eventvsmerida.dto.request.LoteGuardadosRequest;
+
+/**
+ * DTO para devolver el resultado de una operación de un lote de eventos guardados.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+public record ResultadoGuardadoResponse(
+        Long idEvento,
+        LoteGuardadosRequest.Accion accion,
+        Resultado resultado
+) {
+    public enum Resultado {
+        // La operación ha cambiado el estado: el evento se ha guardado o se ha quitado
+        APLICADA,
+        // El evento ya estaba en el estado pedido
+        SIN_CAMBIOS,
+        // El evento no existe y la operación se ha omitido
+        EVENTO_NO_ENCONTRADO
+    }
+}
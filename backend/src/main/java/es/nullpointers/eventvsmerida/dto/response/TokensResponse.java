@@ -0,0 +1,15 @@
+package es.nullpointers.eventvsmerida.dto.response;
+
+/**
+ * DTO para devolver los tokens de la autenticación sin sesión.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+public record TokensResponse(
+        String tokenAcceso,
+        String tokenRefresco,
+        String tipo,
+        long expiraEn
+) {}
@@ -0,0 +1,20 @@
+package es.nullpointers.eventvsmerida.entity;
+
+/**
+ * Estados por los que pasa la foto de un evento mientras se descarga
+ * de su URL de origen y se almacena en el bucket de Supabase.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+public enum EstadoFoto {
+    /** La foto está en la cola de ingesta y todavía apunta a la URL de origen. */
+    PENDIENTE,
+    /** La foto se está descargando y subiendo al bucket. */
+    PROCESANDO,
+    /** La foto ya apunta a la copia almacenada en el bucket. */
+    COMPLETADA,
+    /** Se agotaron los reintentos; la foto sigue apuntando a la URL de origen. */
+    ERROR
+}
@@ -4,16 +4,28 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.CurrentTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
+import org.hibernate.annotations.SourceType;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
 
+// Al guardar solo se escriben las columnas modificadas, para no pisar las que actualizan en segundo
+// plano la ingesta de imágenes (foto, estadoFoto y variantes) y la geocodificación (coordenadas)
+@DynamicUpdate
 @Getter
 @Setter
 @Entity
-@Table(name = "\"Evento\"")
+@Table(name = "\"Evento\"", indexes = {
+        @Index(name = "idx_evento_fecha_hora_id", columnList = "fecha_hora, id"),
+        @Index(name = "idx_evento_categoria_fecha_hora", columnList = "id_categoria, fecha_hora"),
+        @Index(name = "idx_evento_latitud_longitud", columnList = "latitud, longitud"),
+        @Index(name = "idx_evento_guardados_id", columnList = "guardados DESC, id"),
+        @Index(name = "idx_evento_actualizado_en_id", columnList = "actualizado_en, id")
+})
 public class Evento {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -36,10 +48,38 @@ public class Evento {
     @Column(name = "localizacion", nullable = false, length = Integer.MAX_VALUE)
     private String localizacion;
 
+    @Column(name = "latitud")
+    private Double latitud;
+
+    @Column(name = "longitud")
+    private Double longitud;
+
+    // Solo se modifica con EventoRepository.sumarGuardados, nunca al guardar la entidad,
+    // para que una actualización del evento no sobrescriba los incrementos hechos mientras tanto
+    @Column(name = "guardados", nullable = false, updatable = false)
+    private int guardados;
+
+    // Hora de la base de datos en la última modificación, para la sincronización por cambios.
+    // Las actualizaciones masivas de EventoRepository la ponen a INSTANT (la hora actual de la base de datos) ellas mismas
+    @CurrentTimestamp(source = SourceType.DB)
+    @Column(name = "actualizado_en", nullable = false)
+    private Instant actualizadoEn;
+
     @NotNull
     @Column(name = "foto", nullable = false, length = Integer.MAX_VALUE)
     private String foto;
 
+    @Column(name = "foto_miniatura", length = Integer.MAX_VALUE)
+    private String fotoMiniatura;
+
+    @Column(name = "foto_tarjeta", length = Integer.MAX_VALUE)
+    private String fotoTarjeta;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado_foto", nullable = false, length = Integer.MAX_VALUE)
+    private EstadoFoto estadoFoto;
+
     @NotNull
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @OnDelete(action = OnDeleteAction.SET_DEFAULT)
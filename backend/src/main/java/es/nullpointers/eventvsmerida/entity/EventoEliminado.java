@@ -0,0 +1,33 @@
+package es.nullpointers.eventvsmerida.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CurrentTimestamp;
+import org.hibernate.annotations.SourceType;
+import org.hibernate.generator.EventType;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "\"EventoEliminado\"", indexes = {
+        @Index(name = "idx_evento_eliminado_eliminado_en_id", columnList = "eliminado_en, id_evento")
+})
+public class EventoEliminado {
+    // ID del evento eliminado, sin clave foránea porque el evento ya no existe
+    @Id
+    @Column(name = "id_evento", nullable = false)
+    private Long idEvento;
+
+    @CurrentTimestamp(event = EventType.INSERT, source = SourceType.DB)
+    @Column(name = "eliminado_en", nullable = false, updatable = false)
+    private Instant eliminadoEn;
+
+    public EventoEliminado(Long idEvento) {
+        this.idEvento = idEvento;
+    }
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 
@@ -43,6 +44,11 @@ public class Usuario {
     @Column(name = "password", nullable = false, length = Integer.MAX_VALUE)
     private String password;
 
+    // Se incrementa al cambiar el email, la contraseña o el rol, y deja sin validez los tokens de refresco anteriores
+    @ColumnDefault("0")
+    @Column(name = "version_credenciales", nullable = false)
+    private int versionCredenciales;
+
     @NotNull
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @OnDelete(action = OnDeleteAction.SET_DEFAULT)
@@ -0,0 +1,34 @@
+package es.nullpointers.eventvsmerida.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CurrentTimestamp;
+import org.hibernate.annotations.SourceType;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "\"VersionCatalogo\"")
+public class VersionCatalogo {
+    // Nombre del catálogo: categorias o roles
+    @Id
+    @Column(name = "recurso", nullable = false)
+    private String recurso;
+
+    // Se incrementa en cada alta, baja o modificación del catálogo, desde cualquier instancia
+    @Column(name = "revision", nullable = false)
+    private long revision;
+
+    @CurrentTimestamp(source = SourceType.DB)
+    @Column(name = "actualizado_en", nullable = false)
+    private Instant actualizadoEn;
+
+    public VersionCatalogo(String recurso) {
+        this.recurso = recurso;
+    }
+}
@@ -0,0 +1,47 @@
+package es.nullpointers.eventvsmerida.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Códigos de los errores de dominio que lanzan los servicios, con el estado HTTP con el que
+ * se responden y la plantilla de su mensaje. La plantilla solo se formatea si alguien lee el
+ * mensaje, así que lanzar el error no construye ninguna cadena.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+public enum CodigoError {
+    EVENTO_NO_ENCONTRADO(HttpStatus.NOT_FOUND, "No se encontró el evento con id %s"),
+    EVENTO_TITULO_NO_ENCONTRADO(HttpStatus.NOT_FOUND, "No se encontró el evento con título '%s' y fechaHora %s"),
+    EVENTOS_NO_ENCONTRADOS(HttpStatus.NOT_FOUND, "No se encontraron eventos en la base de datos"),
+    USUARIO_NO_ENCONTRADO(HttpStatus.NOT_FOUND, "No se encontró el usuario con id %s"),
+    USUARIO_EMAIL_NO_ENCONTRADO(HttpStatus.NOT_FOUND, "No se encontró el usuario con email %s"),
+    USUARIO_O_EVENTO_NO_ENCONTRADO(HttpStatus.NOT_FOUND, "No existe el usuario con id %s o el evento con id %s"),
+    EVENTO_NO_GUARDADO(HttpStatus.NOT_FOUND, "El usuario no tenía guardado este evento"),
+    SIN_EVENTOS_GUARDADOS(HttpStatus.NOT_FOUND, "El usuario con email %s no tiene eventos guardados"),
+    ROL_NO_ENCONTRADO(HttpStatus.NOT_FOUND, "No se encontró el rol con id %s"),
+    CATEGORIA_NO_ENCONTRADA(HttpStatus.NOT_FOUND, "No se encontró la categoría con id %s");
+
+    private final HttpStatus estado;
+    private final String plantilla;
+
+    CodigoError(HttpStatus estado, String plantilla) {
+        this.estado = estado;
+        this.plantilla = plantilla;
+    }
+
+    public HttpStatus getEstado() {
+        return estado;
+    }
+
+    /**
+     * Método que construye el mensaje del error sustituyendo los argumentos en la plantilla.
+     *
+     * @param argumentos Valores de la plantilla, en orden.
+     * @return El mensaje formateado.
+     */
+    public String formatear(Object... argumentos) {
+        return argumentos.length == 0 ? plantilla : plantilla.formatted(argumentos);
+    }
+}
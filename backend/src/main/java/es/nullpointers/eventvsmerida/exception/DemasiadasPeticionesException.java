@@ -0,0 +1,29 @@
+package es.nullpointers.eventvsmerida.exception;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+
+/**
+ * Excepción que se responde con un 429 Too Many Requests y la cabecera Retry-After,
+ * que indica al cliente cuántos segundos debe esperar antes de reintentar.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+public class DemasiadasPeticionesException extends ResponseStatusException {
+    private final HttpHeaders headers = new HttpHeaders();
+
+    public DemasiadasPeticionesException(String mensaje, Duration reintentarEn) {
+        super(HttpStatus.TOO_MANY_REQUESTS, mensaje);
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, reintentarEn.toSeconds())));
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+}
@@ -1,4 +1,19 @@
 package es.nullpointers.eventvsmerida.exception;
 
-public record ErrorResponse(String error) {
-}
\ No newline at end of file
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * DTO con el error que se devuelve al cliente. El código solo se incluye en los errores
+ * de dominio ({@link CodigoError}), para que la app pueda distinguirlos sin leer el mensaje.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ErrorResponse(String error, String codigo) {
+
+    public ErrorResponse(String error) {
+        this(error, null);
+    }
+}
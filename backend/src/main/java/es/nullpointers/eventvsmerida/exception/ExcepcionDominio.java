@@ -0,0 +1,48 @@
+package es.nullpointers.eventvsmerida.exception;
+
+/**
+ * Excepción base de los errores de dominio, que el manejador global responde con el estado
+ * de su {@link CodigoError}. No captura el stack trace, porque son errores esperados (un ID
+ * que no existe) y recorrer la pila de una petición es lo más caro de crear una excepción;
+ * el origen se guarda como "Clase.metodo" y el mensaje se formatea la primera vez que se lee.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+public abstract class ExcepcionDominio extends RuntimeException {
+    private final CodigoError codigo;
+    private final String origen;
+    private final Object[] argumentos;
+
+    private String mensaje;
+
+    protected ExcepcionDominio(CodigoError codigo, String origen, Object... argumentos) {
+        super(null, null, false, false);
+        this.codigo = codigo;
+        this.origen = origen;
+        this.argumentos = argumentos;
+    }
+
+    public CodigoError getCodigo() {
+        return codigo;
+    }
+
+    public String getOrigen() {
+        return origen;
+    }
+
+    /**
+     * Método que devuelve el mensaje con el formato "Error en Clase.metodo: detalle",
+     * formateándolo solo la primera vez.
+     *
+     * @return El mensaje del error.
+     */
+    @Override
+    public String getMessage() {
+        if (mensaje == null) {
+            mensaje = "Error en " + origen + ": " + codigo.formatear(argumentos);
+        }
+        return mensaje;
+    }
+}
@@ -1,7 +1,12 @@
 package es.nullpointers.eventvsmerida.exception;
 
+import es.nullpointers.eventvsmerida.metricas.MetricasConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.persistence.NoResultException;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -17,8 +22,8 @@ import java.util.NoSuchElementException;
 
 /**
  * Manejador global de excepciones para la aplicación.
- * Captura excepciones específicas y generales, registrando los errores
- * y devolviendo respuestas HTTP adecuadas.
+ * Captura excepciones específicas y generales, registrando los errores,
+ * contándolos por manejador en la métrica api.errores y devolviendo respuestas HTTP adecuadas.
  *
  * @author Eva Retamar
  * @author David Muñoz
@@ -26,9 +31,12 @@ import java.util.NoSuchElementException;
  */
 @Slf4j
 @ControllerAdvice
+@RequiredArgsConstructor
 public class ManejadorGlobalExcepciones {
+    private final MeterRegistry meterRegistry;
 
-    private static final Map<String, String> ERRORES = Map.ofEntries(
+    // Prefijo del mensaje de validación, por nombre del método del controlador
+    private static final Map<String, String> ERRORES_VALIDACION = Map.ofEntries(
             Map.entry("crearRol", "Error en RolService.crearRol: "),
             Map.entry("actualizarRol", "Error en RolService.actualizarRol: "),
             Map.entry("crearUsuario", "Error en UsuarioService.crearUsuario: "),
@@ -36,7 +44,11 @@ public class ManejadorGlobalExcepciones {
             Map.entry("crearCategoria", "Error en CategoriaService.crearCategoria: "),
             Map.entry("actualizarCategoria", "Error en CategoriaService.actualizarCategoria: "),
             Map.entry("login", "Error en UsuarioService.login: "),
-            Map.entry("guardarUsuarioEvento",  "Error en UsuarioService.guardarUsuarioEvento: "),
+            Map.entry("guardarUsuarioEvento",  "Error en UsuarioService.guardarUsuarioEvento: ")
+    );
+
+    // Mensaje de las restricciones de unicidad, por nombre de la restricción
+    private static final Map<String, String> ERRORES_INTEGRIDAD = Map.ofEntries(
             Map.entry("Rol_nombre_key", "Nombre duplicado introducido"),
             Map.entry("Usuario_email_key", "Email duplicado introducido"),
             Map.entry("Usuario_telefono_key", "Teléfono duplicado introducido"),
@@ -47,6 +59,26 @@ public class ManejadorGlobalExcepciones {
     // Métodos ExceptionHandler
     // ========================
 
+    /**
+     * Maneja las excepciones de dominio que lanzan los servicios, como un recurso que no existe.
+     * Responde con el estado de su código de error y solo formatea el mensaje para la respuesta.
+     * Se registran con nivel debug porque son errores del cliente esperados, que ya se cuentan en
+     * la métrica api.errores, y escribir cada uno en el log encarece una ráfaga de 404.
+     *
+     * @param e La excepción capturada.
+     * @return Una respuesta HTTP con el estado del código de error, el mensaje y el código.
+     */
+    @ExceptionHandler(ExcepcionDominio.class)
+    public ResponseEntity<ErrorResponse> manejadorExcepcionDominio(ExcepcionDominio e) {
+        CodigoError codigo = e.getCodigo();
+        contarError("manejadorExcepcionDominio", e, codigo.getEstado().value());
+        String mensajeError = e.getMessage();
+        log.debug(mensajeError);
+        return ResponseEntity
+                .status(codigo.getEstado())
+                .body(new ErrorResponse(mensajeError, codigo.name()));
+    }
+
     /**
      * Maneja la excepción NoResultException.
      *
@@ -55,6 +87,7 @@ public class ManejadorGlobalExcepciones {
      */
     @ExceptionHandler(NoResultException.class)
     public ResponseEntity<ErrorResponse> manejadorNoResultException(NoResultException e) {
+        contarError("manejadorNoResultException", e, 204);
         String mensajeError = e.getMessage();
         log.error(mensajeError);
         return ResponseEntity
@@ -70,6 +103,7 @@ public class ManejadorGlobalExcepciones {
      */
     @ExceptionHandler(NoSuchElementException.class)
     public ResponseEntity<ErrorResponse> manejadorNoSuchElementException(NoSuchElementException e) {
+        contarError("manejadorNoSuchElementException", e, 404);
         String mensajeError = e.getMessage();
         log.error(mensajeError);
         return ResponseEntity
@@ -87,9 +121,9 @@ public class ManejadorGlobalExcepciones {
      */
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> manejadorMethodArgumentNotValidException(MethodArgumentNotValidException e) {
-        String mensaje = e.getMessage();
-        String errores = construirErroresValidacion(e);
-        String mensajeError = obtenerMensajePersonalizado(mensaje, errores);
+        contarError("manejadorMethodArgumentNotValidException", e, 400);
+        String prefijo = ERRORES_VALIDACION.get(e.getParameter().getExecutable().getName());
+        String mensajeError = prefijo != null ? prefijo + construirErroresValidacion(e) : e.getMessage();
         log.error(mensajeError);
         return ResponseEntity
                 .badRequest()
@@ -106,10 +140,9 @@ public class ManejadorGlobalExcepciones {
      */
     @ExceptionHandler(DataIntegrityViolationException.class)
     public ResponseEntity<ErrorResponse> manejadorDataIntegrityViolationException(DataIntegrityViolationException e) {
-        String mensaje = e.getMessage();
+        contarError("manejadorDataIntegrityViolationException", e, 400);
         String claseMetodo = obtenerClaseMetodoDesdeStackTrace(e.getStackTrace());
-        String logMsg = obtenerMensajePersonalizado(mensaje, null);
-        String mensajeError = "Error en " + claseMetodo + ": " + logMsg;
+        String mensajeError = "Error en " + claseMetodo + ": " + obtenerMensajeIntegridad(e);
         log.error(mensajeError);
         return ResponseEntity
                 .badRequest()
@@ -126,6 +159,7 @@ public class ManejadorGlobalExcepciones {
      */
     @ExceptionHandler(HttpMessageNotReadableException.class)
     public ResponseEntity<ErrorResponse> manejadorHttpMessageNotReadableException(HttpMessageNotReadableException e) {
+        contarError("manejadorHttpMessageNotReadableException", e, 400);
         Throwable causa = e.getMostSpecificCause();
         String metodo = e.getStackTrace().length > 0 ? e.getStackTrace()[0].getMethodName() : "desconocido";
         String mensajeError;
@@ -151,6 +185,7 @@ public class ManejadorGlobalExcepciones {
      */
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> manejadoreGeneralException(Exception e) {
+        contarError("manejadoreGeneralException", e, 500);
         String mensajeError = e.getMessage();
         log.error(mensajeError);
         return ResponseEntity
@@ -165,15 +200,34 @@ public class ManejadorGlobalExcepciones {
      */
     @ExceptionHandler(ResponseStatusException.class)
     public ResponseEntity<ErrorResponse> manejadorResponseStatus(ResponseStatusException e) {
+        contarError("manejadorResponseStatus", e, e.getStatusCode().value());
         String mensaje = e.getReason() != null ? e.getReason() : e.getMessage();
         log.error("Error en " + obtenerClaseMetodoDesdeStackTrace(e.getStackTrace()) + ": " + mensaje);
-        return ResponseEntity.status(e.getStatusCode()).body(new ErrorResponse(mensaje));
+        return ResponseEntity.status(e.getStatusCode()).headers(e.getHeaders()).body(new ErrorResponse(mensaje));
     }
 
     // ================
     // Métodos Privados
     // ================
 
+    /**
+     * Método auxiliar que cuenta el error en la métrica api.errores, etiquetado con el
+     * manejador que lo ha atendido, la clase de la excepción y el estado HTTP devuelto.
+     *
+     * @param manejador Nombre del método manejador.
+     * @param e La excepción capturada.
+     * @param estado Código de estado HTTP de la respuesta.
+     */
+    private void contarError(String manejador, Exception e, int estado) {
+        Counter.builder(MetricasConfig.ERRORES_API)
+                .description("Errores devueltos por la API, por manejador de excepciones")
+                .tag("manejador", manejador)
+                .tag("excepcion", e.getClass().getSimpleName())
+                .tag("estado", String.valueOf(estado))
+                .register(meterRegistry)
+                .increment();
+    }
+
     /**
      * Método auxiliar para construir un mensaje de error detallado
      * a partir de una excepción MethodArgumentNotValidException.
@@ -194,11 +248,12 @@ public class ManejadorGlobalExcepciones {
     /**
      * Método auxiliar para obtener la clase y el método
      * desde el stack trace de una excepción.
+     * Es pública y estática para poder medirla en ManejadorExcepcionesBenchmark.
      *
      * @param stackTrace El stack trace de la excepción.
      * @return Una cadena con el formato "Clase.Método" o "desconocido" si no se encuentra.
      */
-    private String obtenerClaseMetodoDesdeStackTrace(StackTraceElement[] stackTrace) {
+    public static String obtenerClaseMetodoDesdeStackTrace(StackTraceElement[] stackTrace) {
         for (StackTraceElement ste : stackTrace) {
             String className = ste.getClassName();
 
@@ -212,20 +267,20 @@ public class ManejadorGlobalExcepciones {
     }
 
     /**
-     * Método auxiliar para obtener un mensaje personalizado
-     * basado en el mensaje original y un mapa de errores conocidos.
+     * Método auxiliar para obtener el mensaje de una violación de integridad a partir del nombre
+     * de la restricción que informa Hibernate, o el mensaje original si no es una de las conocidas.
      *
-     * @param mensaje El mensaje original de la excepción.
-     * @param errores Detalles adicionales de errores, si los hay.
-     * @return Un mensaje personalizado si se encuentra una coincidencia, o el mensaje original.
+     * @param e La excepción capturada.
+     * @return Un mensaje personalizado si la restricción es conocida, o el mensaje original.
      */
-    private String obtenerMensajePersonalizado(String mensaje, String errores) {
-        for (Map.Entry<String, String> entry : ERRORES.entrySet()) {
-            if (mensaje.contains(entry.getKey())) {
-                return entry.getValue() + (errores != null ? errores : "");
+    private String obtenerMensajeIntegridad(DataIntegrityViolationException e) {
+        if (e.getCause() instanceof ConstraintViolationException violacion && violacion.getConstraintName() != null) {
+            String mensaje = ERRORES_INTEGRIDAD.get(violacion.getConstraintName());
+            if (mensaje != null) {
+                return mensaje;
             }
         }
 
-        return mensaje;
+        return e.getMessage();
     }
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package es.nullpointers.eventvsmerida.exception;
+
+/**
+ * Excepción que se lanza cuando no existe el recurso pedido (evento, usuario, rol, categoría...).
+ * Se responde con un 404 Not Found.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+public class RecursoNoEncontradoException extends ExcepcionDominio {
+
+    public RecursoNoEncontradoException(CodigoError codigo, String origen, Object... argumentos) {
+        super(codigo, origen, argumentos);
+    }
+}
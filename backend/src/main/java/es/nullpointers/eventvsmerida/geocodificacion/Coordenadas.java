@@ -0,0 +1,9 @@
+package es.nullpointers.eventvsmerida.geocodificacion;
+
+/**
+ * Posición geográfica en grados decimales (WGS84).
+ *
+ * @param latitud Latitud, entre -90 y 90.
+ * @param longitud Longitud, entre -180 y 180.
+ */
+public record Coordenadas(double latitud, double longitud) {}
@@ -0,0 +1,16 @@
+package es.nullpointers.eventvsmerida.geocodificacion;
+
+import java.util.Optional;
+
+/**
+ * Interfaz que abstrae la traducción de una dirección en texto libre a coordenadas.
+ */
+public interface Geocodificador {
+
+    /**
+     * Método que busca las coordenadas de una dirección.
+     * @param direccion Dirección o nombre del lugar, tal y como lo escribe el organizador.
+     * @return Coordenadas del mejor resultado, o vacío si la dirección no se encuentra.
+     */
+    Optional<Coordenadas> geocodificar(String direccion);
+}
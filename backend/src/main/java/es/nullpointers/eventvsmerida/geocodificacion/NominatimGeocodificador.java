@@ -0,0 +1,81 @@
+package es.nullpointers.eventvsmerida.geocodificacion;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Clase que geocodifica direcciones con la API de búsqueda de Nominatim (OpenStreetMap).
+ * Las búsquedas se limitan a España y dan preferencia a los resultados dentro de Mérida.
+ * La política de uso de Nominatim exige identificarse con un User-Agent propio y no superar
+ * una petición por segundo, algo que controla quien llama a esta clase.
+ */
+@Component
+public class NominatimGeocodificador implements Geocodificador {
+    // Recuadro de Mérida (oeste, norte, este, sur) para priorizar los resultados cercanos
+    private static final String RECUADRO_MERIDA = "-6.45,38.99,-6.25,38.85";
+
+    private final RestClient nominatimClient;
+
+    // Constructor que con @Value obtiene las propiedades del application.properties
+    public NominatimGeocodificador(
+            @Value("${geocodificacion.nominatim.url:https://nominatim.openstreetmap.org}") String nominatimUrl,
+            @Value("${geocodificacion.nominatim.user-agent:EventvsMerida/1.0}") String userAgent,
+            @Value("${geocodificacion.nominatim.timeout:10s}") Duration timeout
+    ) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(
+                HttpClient.newBuilder().connectTimeout(timeout).build()
+        );
+        requestFactory.setReadTimeout(timeout);
+
+        this.nominatimClient = RestClient.builder()
+                .baseUrl(nominatimUrl)
+                .requestFactory(requestFactory)
+                .defaultHeader("User-Agent", userAgent)
+                .build();
+    }
+
+    /**
+     * Método que realiza la búsqueda en Nominatim y devuelve el primer resultado.
+     * @param direccion Dirección o nombre del lugar.
+     * @return Coordenadas del mejor resultado, o vacío si no hay resultados.
+     */
+    @Override
+    public Optional<Coordenadas> geocodificar(String direccion) {
+        List<ResultadoNominatim> resultados = nominatimClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/search")
+                        .queryParam("q", direccion)
+                        .queryParam("format", "jsonv2")
+                        .queryParam("limit", 1)
+                        .queryParam("countrycodes", "es")
+                        .queryParam("viewbox", RECUADRO_MERIDA)
+                        .build())
+                .retrieve()
+                .body(new ParameterizedTypeReference<>() {});
+
+        if (resultados == null || resultados.isEmpty()) {
+            return Optional.empty();
+        }
+
+        ResultadoNominatim resultado = resultados.getFirst();
+        return Optional.of(new Coordenadas(Double.parseDouble(resultado.lat()), Double.parseDouble(resultado.lon())));
+    }
+
+    /**
+     * Resultado de la búsqueda de Nominatim. Las coordenadas llegan como texto.
+     *
+     * @param lat Latitud.
+     * @param lon Longitud.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record ResultadoNominatim(String lat, String lon) {}
+}
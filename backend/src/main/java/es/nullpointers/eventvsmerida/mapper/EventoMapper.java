@@ -3,9 +3,9 @@ package es.nullpointers.eventvsmerida.mapper;
 import es.nullpointers.eventvsmerida.dto.request.EventoCrearRequest;
 import es.nullpointers.eventvsmerida.dto.response.EventoResponse;
 import es.nullpointers.eventvsmerida.entity.Categoria;
+import es.nullpointers.eventvsmerida.entity.EstadoFoto;
 import es.nullpointers.eventvsmerida.entity.Evento;
 import es.nullpointers.eventvsmerida.entity.Usuario;
-import es.nullpointers.eventvsmerida.supabase.SupabaseStorage;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -22,21 +22,23 @@ public class EventoMapper {
 
     /**
      * Metodo que convierte un objeto EventoCrearRequest a una entidad Evento.
+     * La foto apunta provisionalmente a la URL de origen hasta que la ingesta
+     * de imagenes la sustituya por la copia almacenada en Supabase.
      *
      * @param request Objeto DTO con los datos del evento a crear.
      * @param usuario Usuario organizador del evento.
      * @param categoria Categoria del evento.
-     * @param storageUploader Para subir la imagen al bucket de Supabase
      * @return Entidad Evento creada a partir del DTO y las entidades relacionadas.
      */
-    public static Evento convertirAEntidad(EventoCrearRequest request, Usuario usuario, Categoria categoria, SupabaseStorage storageUploader) {
+    public static Evento convertirAEntidad(EventoCrearRequest request, Usuario usuario, Categoria categoria) {
         Evento evento = new Evento();
 
         evento.setTitulo(request.titulo());
         evento.setDescripcion(request.descripcion());
         evento.setFechaHora(request.fecha());
         evento.setLocalizacion(request.localizacion());
-        evento.setFoto(storageUploader.subirImagen(request.foto()));
+        evento.setFoto(request.foto());
+        evento.setEstadoFoto(EstadoFoto.PENDIENTE);
         evento.setUsuario(usuario);
         evento.setCategoria(categoria);
 
@@ -50,14 +52,21 @@ public class EventoMapper {
      * @return Objeto DTO con los datos del evento.
      */
     public static EventoResponse convertirAResponse(Evento evento) {
+        Long id = evento.getId();
         String titulo = evento.getTitulo();
         String descripcion = evento.getDescripcion();
         LocalDateTime fechaHora = evento.getFechaHora();
         String localizacion = evento.getLocalizacion();
+        Double latitud = evento.getLatitud();
+        Double longitud = evento.getLongitud();
         String urlFoto = evento.getFoto();
+        String urlMiniatura = evento.getFotoMiniatura() != null ? evento.getFotoMiniatura() : urlFoto;
+        String urlTarjeta = evento.getFotoTarjeta() != null ? evento.getFotoTarjeta() : urlFoto;
+        EstadoFoto estadoFoto = evento.getEstadoFoto();
         String emailOrganizador = evento.getUsuario().getEmail();
         String categoria = evento.getCategoria().getNombre();
+        int guardados = evento.getGuardados();
 
-        return new EventoResponse(titulo, descripcion, fechaHora, localizacion, urlFoto, emailOrganizador, categoria);
+        return new EventoResponse(id, titulo, descripcion, fechaHora, localizacion, latitud, longitud, urlFoto, urlMiniatura, urlTarjeta, estadoFoto, emailOrganizador, categoria, guardados);
     }
 }
\ No newline at end of file
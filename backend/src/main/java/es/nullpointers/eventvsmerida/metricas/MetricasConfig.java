@@ -0,0 +1,77 @@
+package es.nullpointers.eventvsmerida.metricas;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Configuración de las métricas que se exponen en /actuator/prometheus.
+ * Spring ya mide cada petición HTTP (http.server.requests, por método, URI y estado) y cada
+ * llamada a los repositorios (spring.data.repository.invocations, por repositorio, método y
+ * resultado); aquí se les añaden histogramas con cubetas fijas para poder calcular percentiles
+ * por endpoint en Prometheus, junto a las métricas propias de la ingesta de imágenes.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+@Configuration
+public class MetricasConfig {
+    public static final String PETICIONES_HTTP = "http.server.requests";
+    public static final String LLAMADAS_REPOSITORIO = "spring.data.repository.invocations";
+    public static final String DESCARGA_IMAGENES = "imagenes.descarga";
+    public static final String BYTES_DESCARGA_IMAGENES = "imagenes.descarga.bytes";
+    public static final String SUBIDA_IMAGENES = "imagenes.subida";
+    public static final String ERRORES_API = "api.errores";
+
+    private static final Set<String> TEMPORIZADORES_CON_HISTOGRAMA = Set.of(PETICIONES_HTTP, LLAMADAS_REPOSITORIO, DESCARGA_IMAGENES, SUBIDA_IMAGENES);
+
+    // Cubetas de latencia: de pocos milisegundos (consultas con índice) a segundos (descargas de imágenes)
+    private static final double[] CUBETAS_LATENCIA = Arrays.stream(new Duration[]{
+            Duration.ofMillis(5), Duration.ofMillis(10), Duration.ofMillis(25), Duration.ofMillis(50),
+            Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofMillis(500), Duration.ofSeconds(1),
+            Duration.ofMillis(2500), Duration.ofSeconds(5), Duration.ofSeconds(10), Duration.ofSeconds(30)
+    }).mapToDouble(Duration::toNanos).toArray();
+
+    // Cubetas de tamaño de imagen, en bytes: de 16 KB a 10 MB (el máximo de descarga por defecto)
+    private static final double[] CUBETAS_BYTES = {
+            16 * 1024, 64 * 1024, 256 * 1024, 512 * 1024, 1024 * 1024, 2 * 1024 * 1024, 5 * 1024 * 1024, 10 * 1024 * 1024
+    };
+
+    /**
+     * Bean que añade histogramas a las latencias de las peticiones, de los repositorios y de la
+     * ingesta de imágenes, y al tamaño de las imágenes descargadas. Se usan cubetas fijas en lugar
+     * de las que calcula Micrometer para acotar el número de series por cada URI.
+     *
+     * @return un MeterFilter con la configuración de los histogramas.
+     */
+    @Bean
+    public MeterFilter histogramasMetricas() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (id.getType() == Meter.Type.TIMER && TEMPORIZADORES_CON_HISTOGRAMA.contains(id.getName())) {
+                    return DistributionStatisticConfig.builder()
+                            .serviceLevelObjectives(CUBETAS_LATENCIA)
+                            .build()
+                            .merge(config);
+                }
+
+                if (id.getType() == Meter.Type.DISTRIBUTION_SUMMARY && BYTES_DESCARGA_IMAGENES.equals(id.getName())) {
+                    return DistributionStatisticConfig.builder()
+                            .serviceLevelObjectives(CUBETAS_BYTES)
+                            .build()
+                            .merge(config);
+                }
+
+                return config;
+            }
+        };
+    }
+}
@@ -0,0 +1,44 @@
+package es.nullpointers.eventvsmerida.repository;
+
+import es.nullpointers.eventvsmerida.entity.EventoEliminado;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Repositorio que establece la comunicacion con la base de datos
+ * para las marcas de los eventos eliminados.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+@Repository
+public interface EventoEliminadoRepository extends JpaRepository<EventoEliminado, Long> {
+    // Sincronizacion por cambios: eventos eliminados despues de la posicion (eliminadoEn, idEvento) del token
+    @Query("""
+            SELECT e FROM EventoEliminado e
+            WHERE (e.eliminadoEn > :eliminadoEn OR (e.eliminadoEn = :eliminadoEn AND e.idEvento > :idEvento))
+              AND e.eliminadoEn <= :hasta
+            ORDER BY e.eliminadoEn, e.idEvento
+            """)
+    List<EventoEliminado> findEliminadosDespuesDe(@Param("eliminadoEn") Instant eliminadoEn, @Param("idEvento") Long idEvento,
+                                                  @Param("hasta") Instant hasta, Limit limite);
+
+    // Sello de version de los listados de eventos para los GET condicionales
+    @Query("SELECT MAX(e.eliminadoEn) FROM EventoEliminado e")
+    Instant findMaxEliminadoEn();
+
+    // Purga de las marcas que ya no puede pedir ningun token aceptado
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM EventoEliminado e WHERE e.eliminadoEn < :limite")
+    int eliminarAnterioresA(@Param("limite") Instant limite);
+}
@@ -1,11 +1,21 @@
 package es.nullpointers.eventvsmerida.repository;
 
+import es.nullpointers.eventvsmerida.dto.response.EventosDiaResponse;
+import es.nullpointers.eventvsmerida.entity.EstadoFoto;
 import es.nullpointers.eventvsmerida.entity.Evento;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -20,4 +30,206 @@ import java.util.Optional;
 public interface EventoRepository extends JpaRepository<Evento, Long> {
     boolean existsByTituloAndFechaHora(String titulo, LocalDateTime fechaHora);
     Optional<Evento> findByTituloAndFechaHora(String titulo, LocalDateTime fechaHora);
-}
\ No newline at end of file
+
+    // Se cargan el usuario y la categoria en la misma consulta para evitar
+    // las consultas N+1 al convertir los eventos a EventoResponse
+    @Override
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
+    List<Evento> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
+    Optional<Evento> findById(Long id);
+
+    // Paginacion por clave (keyset) ordenada por (fechaHora, id)
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
+    List<Evento> findAllByOrderByFechaHoraAscIdAsc(Limit limite);
+
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
+    @Query("""
+            SELECT e FROM Evento e
+            WHERE (e.fechaHora, e.id) > (:fechaHora, :id)
+            ORDER BY e.fechaHora ASC, e.id ASC
+            """)
+    List<Evento> findPaginaDespuesDe(@Param("fechaHora") LocalDateTime fechaHora, @Param("id") Long id, Limit limite);
+
+    // Consultas por rango de fechas [desde, hasta) para el calendario. Sin categoria se resuelven con
+    // idx_evento_fecha_hora_id y con categoria con idx_evento_categoria_fecha_hora
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
+    @Query("""
+            SELECT e FROM Evento e
+            WHERE e.fechaHora >= :desde AND e.fechaHora < :hasta
+            ORDER BY e.fechaHora ASC, e.id ASC
+            """)
+    List<Evento> findEnRango(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
+    @Query("""
+            SELECT e FROM Evento e
+            WHERE e.categoria.id = :idCategoria AND e.fechaHora >= :desde AND e.fechaHora < :hasta
+            ORDER BY e.fechaHora ASC, e.id ASC
+            """)
+    List<Evento> findEnRangoPorCategoria(@Param("idCategoria") Long idCategoria, @Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+    @Query("""
+            SELECT new es.nullpointers.eventvsmerida.dto.response.EventosDiaResponse(CAST(e.fechaHora AS LocalDate), COUNT(e))
+            FROM Evento e
+            WHERE e.fechaHora >= :desde AND e.fechaHora < :hasta
+            GROUP BY CAST(e.fechaHora AS LocalDate)
+            ORDER BY CAST(e.fechaHora AS LocalDate)
+            """)
+    List<EventosDiaResponse> contarPorDia(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+    @Query("""
+            SELECT new es.nullpointers.eventvsmerida.dto.response.EventosDiaResponse(CAST(e.fechaHora AS LocalDate), COUNT(e))
+            FROM Evento e
+            WHERE e.categoria.id = :idCategoria AND e.fechaHora >= :desde AND e.fechaHora < :hasta
+            GROUP BY CAST(e.fechaHora AS LocalDate)
+            ORDER BY CAST(e.fechaHora AS LocalDate)
+            """)
+    List<EventosDiaResponse> contarPorDiaYCategoria(@Param("idCategoria") Long idCategoria, @Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+    // Consultas por zona del mapa (recuadro de latitud y longitud), resueltas con idx_evento_latitud_longitud
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
+    @Query("""
+            SELECT e FROM Evento e
+            WHERE e.latitud BETWEEN :latitudMin AND :latitudMax
+              AND e.longitud BETWEEN :longitudMin AND :longitudMax
+            ORDER BY e.fechaHora ASC, e.id ASC
+            """)
+    List<Evento> findEnRecuadro(@Param("latitudMin") double latitudMin, @Param("latitudMax") double latitudMax,
+                                @Param("longitudMin") double longitudMin, @Param("longitudMax") double longitudMax, Limit limite);
+
+    // IDs de los eventos del recuadro, para contarlos hasta un límite sin cargarlos
+    @Query("""
+            SELECT e.id FROM Evento e
+            WHERE e.latitud BETWEEN :latitudMin AND :latitudMax
+              AND e.longitud BETWEEN :longitudMin AND :longitudMax
+            """)
+    List<Long> findIdsEnRecuadro(@Param("latitudMin") double latitudMin, @Param("latitudMax") double latitudMax,
+                                 @Param("longitudMin") double longitudMin, @Param("longitudMax") double longitudMax, Limit limite);
+
+    // Eventos del recuadro ordenados por cercanía a un punto, con la distancia aproximada en el plano
+    // (la longitud se escala por el coseno de la latitud al cuadrado) para poder limitarlos en la consulta
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
+    @Query("""
+            SELECT e FROM Evento e
+            WHERE e.latitud BETWEEN :latitudMin AND :latitudMax
+              AND e.longitud BETWEEN :longitudMin AND :longitudMax
+            ORDER BY (e.latitud - :latitud) * (e.latitud - :latitud)
+                   + (e.longitud - :longitud) * (e.longitud - :longitud) * :factorLongitud ASC, e.id ASC
+            """)
+    List<Evento> findCercanosEnRecuadro(@Param("latitud") double latitud, @Param("longitud") double longitud,
+                                        @Param("factorLongitud") double factorLongitud,
+                                        @Param("latitudMin") double latitudMin, @Param("latitudMax") double latitudMax,
+                                        @Param("longitudMin") double longitudMin, @Param("longitudMax") double longitudMax, Limit limite);
+
+    // Ranking de los eventos más guardados, leído en orden del índice idx_evento_guardados_id
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
+    List<Evento> findAllByOrderByGuardadosDescIdAsc(Limit limite);
+
+    // Contador de guardados: incremento atómico en la propia fila, sin leer el valor anterior
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Evento e SET e.guardados = e.guardados + :incremento, e.actualizadoEn = INSTANT WHERE e.id = :id")
+    int sumarGuardados(@Param("id") Long id, @Param("incremento") int incremento);
+
+    // Sincronizacion por cambios: eventos modificados despues de la posicion (actualizadoEn, id) del token
+    // y hasta un instante limite, en el orden del indice idx_evento_actualizado_en_id
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
+    @Query("""
+            SELECT e FROM Evento e
+            WHERE (e.actualizadoEn > :actualizadoEn OR (e.actualizadoEn = :actualizadoEn AND e.id > :id))
+              AND e.actualizadoEn <= :hasta
+            ORDER BY e.actualizadoEn, e.id
+            """)
+    List<Evento> findCambiosDespuesDe(@Param("actualizadoEn") Instant actualizadoEn, @Param("id") Long id,
+                                      @Param("hasta") Instant hasta, Limit limite);
+
+    // Sellos de version para los GET condicionales: maximo del indice y columna de un solo evento
+    @Query("SELECT MAX(e.actualizadoEn) FROM Evento e")
+    Instant findMaxActualizadoEn();
+
+    @Query("SELECT e.actualizadoEn FROM Evento e WHERE e.id = :id")
+    Optional<Instant> findActualizadoEnById(@Param("id") Long id);
+
+    // Hora de la base de datos, la misma que sella actualizadoEn, para no depender del reloj de cada instancia
+    @Query("SELECT INSTANT")
+    Instant obtenerInstanteBaseDatos();
+
+    // El email del organizador y el nombre de la categoria forman parte de EventoResponse,
+    // asi que al cambiarlos se marcan sus eventos como modificados
+    @Transactional
+    @Modifying
+    @Query("UPDATE Evento e SET e.actualizadoEn = INSTANT WHERE e.usuario.id = :idUsuario")
+    int marcarActualizadosPorUsuario(@Param("idUsuario") Long idUsuario);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Evento e SET e.actualizadoEn = INSTANT WHERE e.categoria.id = :idCategoria")
+    int marcarActualizadosPorCategoria(@Param("idCategoria") Long idCategoria);
+
+    // Coordenadas de todos los eventos geocodificados, para construir la rejilla de ClusterMapaService
+    List<CoordenadasEvento> findByLatitudIsNotNull();
+
+    // Geocodificacion en segundo plano
+    List<Evento> findByLatitudIsNull();
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE Evento e
+            SET e.latitud = :latitud, e.longitud = :longitud, e.actualizadoEn = INSTANT
+            WHERE e.id = :id AND e.localizacion = :localizacion
+            """)
+    int actualizarCoordenadas(@Param("id") Long id, @Param("localizacion") String localizacion,
+                              @Param("latitud") double latitud, @Param("longitud") double longitud);
+
+    /**
+     * Proyección con el ID y las coordenadas de un evento.
+     */
+    interface CoordenadasEvento {
+        Long getId();
+        Double getLatitud();
+        Double getLongitud();
+    }
+
+    // Busqueda de texto completo sobre la columna generada "busqueda" (indice GIN).
+    // Devuelve solo los IDs ordenados por relevancia; los eventos se cargan despues con findByIdIn
+    @Query(value = """
+            SELECT e.id
+            FROM "Evento" e, websearch_to_tsquery('es_unaccent', :texto) q
+            WHERE e.busqueda @@ q
+            ORDER BY ts_rank_cd(e.busqueda, q) DESC, e.id
+            LIMIT :limite OFFSET :desplazamiento
+            """, nativeQuery = true)
+    List<Long> buscarIdsPorTexto(@Param("texto") String texto, @Param("limite") int limite, @Param("desplazamiento") long desplazamiento);
+
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
+    List<Evento> findByIdIn(Collection<Long> ids);
+
+    // Comprueba en una consulta qué IDs de una lista existen
+    @Query("SELECT e.id FROM Evento e WHERE e.id IN :ids")
+    List<Long> findIdsExistentes(@Param("ids") Collection<Long> ids);
+
+    // Ingesta de imagenes en segundo plano. Las actualizaciones solo se aplican si la foto sigue siendo
+    // la URL de origen de la tarea: si ha cambiado mientras tanto, ya hay otra tarea en la cola
+    List<Evento> findByEstadoFotoIn(Collection<EstadoFoto> estados);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Evento e SET e.estadoFoto = :estado, e.actualizadoEn = INSTANT WHERE e.id = :id AND e.foto = :fotoOrigen")
+    int actualizarEstadoFoto(@Param("id") Long id, @Param("fotoOrigen") String fotoOrigen, @Param("estado") EstadoFoto estado);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE Evento e
+            SET e.foto = :foto, e.fotoMiniatura = :fotoMiniatura, e.fotoTarjeta = :fotoTarjeta, e.estadoFoto = :estado,
+                e.actualizadoEn = INSTANT
+            WHERE e.id = :id AND e.foto = :fotoOrigen
+            """)
+    int actualizarFoto(@Param("id") Long id, @Param("fotoOrigen") String fotoOrigen, @Param("foto") String foto,
+                       @Param("fotoMiniatura") String fotoMiniatura, @Param("fotoTarjeta") String fotoTarjeta,
+                       @Param("estado") EstadoFoto estado);
+}
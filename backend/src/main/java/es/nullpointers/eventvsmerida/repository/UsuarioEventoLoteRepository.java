@@ -0,0 +1,62 @@
+package es.nullpointers.eventvsmerida.repository;
+
+import es.nullpointers.eventvsmerida.dto.request.LoteGuardadosRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repositorio que aplica por lotes JDBC las operaciones de guardar y quitar eventos
+ * de un usuario, con las mismas sentencias que UsuarioEventoRepository. Cada operación
+ * es una sentencia del lote y se envían todas juntas al servidor.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+@Repository
+@RequiredArgsConstructor
+public class UsuarioEventoLoteRepository {
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Método que ejecuta las operaciones en orden. Las operaciones consecutivas del mismo
+     * tipo van en el mismo lote JDBC; al cambiar de tipo se envía el lote y empieza otro,
+     * para que el resultado sea el mismo que aplicarlas una a una.
+     *
+     * @param idUsuario ID del usuario.
+     * @param operaciones Operaciones a aplicar. Las de eventos que no existen no cambian nada.
+     * @return Filas afectadas por cada operación, en el mismo orden (1 si ha cambiado algo, 0 si no).
+     */
+    public int[] aplicar(Long idUsuario, List<LoteGuardadosRequest.Operacion> operaciones) {
+        int[] filas = new int[operaciones.size()];
+        int inicio = 0;
+
+        while (inicio < operaciones.size()) {
+            LoteGuardadosRequest.Accion accion = operaciones.get(inicio).accion();
+            int fin = inicio;
+            while (fin < operaciones.size() && operaciones.get(fin).accion() == accion) {
+                fin++;
+            }
+
+            SqlParameterSource[] parametros = new SqlParameterSource[fin - inicio];
+            for (int i = inicio; i < fin; i++) {
+                parametros[i - inicio] = new MapSqlParameterSource()
+                        .addValue("idUsuario", idUsuario)
+                        .addValue("idEvento", operaciones.get(i).idEvento());
+            }
+
+            String sql = accion == LoteGuardadosRequest.Accion.GUARDAR ? UsuarioEventoRepository.SQL_GUARDAR : UsuarioEventoRepository.SQL_QUITAR;
+            int[] resultado = jdbcTemplate.batchUpdate(sql, parametros);
+            System.arraycopy(resultado, 0, filas, inicio, resultado.length);
+
+            inicio = fin;
+        }
+
+        return filas;
+    }
+}
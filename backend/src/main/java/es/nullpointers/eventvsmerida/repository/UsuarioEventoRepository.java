@@ -2,7 +2,12 @@ package es.nullpointers.eventvsmerida.repository;
 
 import es.nullpointers.eventvsmerida.entity.UsuarioEvento;
 import es.nullpointers.eventvsmerida.entity.UsuarioEventoId;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -17,5 +22,51 @@ import java.util.List;
  */
 @Repository
 public interface UsuarioEventoRepository extends JpaRepository<UsuarioEvento, UsuarioEventoId> {
+    // Guarda el evento y suma uno a su contador en una sola sentencia. Si ya estaba guardado o el
+    // evento no existe, el INSERT no devuelve filas y no se actualiza nada. Afecta a 1 fila si se ha
+    // guardado ahora. El evento se bloquea con FOR KEY SHARE para que no se borre entre la comprobación
+    // y el INSERT: así un evento borrado no hace fallar la clave foránea ni aborta el lote entero.
+    // También la usa UsuarioEventoLoteRepository para los lotes
+    String SQL_GUARDAR = """
+            WITH insertada AS (
+                INSERT INTO "Usuario-Evento" (id_usuario, id_evento)
+                SELECT :idUsuario, :idEvento
+                WHERE EXISTS (SELECT 1 FROM "Evento" WHERE id = :idEvento FOR KEY SHARE)
+                ON CONFLICT DO NOTHING
+                RETURNING id_evento
+            )
+            UPDATE "Evento" SET guardados = guardados + 1, actualizado_en = now()
+            WHERE id IN (SELECT id_evento FROM insertada)
+            """;
+
+    // Quita el evento y resta uno a su contador en una sola sentencia. Afecta a 1 fila si estaba guardado
+    String SQL_QUITAR = """
+            WITH borrada AS (
+                DELETE FROM "Usuario-Evento"
+                WHERE id_usuario = :idUsuario AND id_evento = :idEvento
+                RETURNING id_evento
+            )
+            UPDATE "Evento" SET guardados = guardados - 1, actualizado_en = now()
+            WHERE id IN (SELECT id_evento FROM borrada)
+            """;
+
+    // Se cargan el evento, su organizador y su categoria en la misma consulta
+    // para evitar las consultas N+1 al convertir los eventos a EventoResponse
+    @EntityGraph(attributePaths = {"evento", "evento.usuario", "evento.categoria"})
     List<UsuarioEvento> findByIdIdUsuario(Long idUsuario);
+
+    // Borrado condicional: devuelve 0 si la relación no existía o la ha borrado antes otra petición
+    @Modifying
+    @Query("DELETE FROM UsuarioEvento ue WHERE ue.id.idUsuario = :idUsuario AND ue.id.idEvento = :idEvento")
+    int eliminar(@Param("idUsuario") Long idUsuario, @Param("idEvento") Long idEvento);
+
+    @Transactional
+    @Modifying
+    @Query(value = SQL_GUARDAR, nativeQuery = true)
+    int guardar(@Param("idUsuario") Long idUsuario, @Param("idEvento") Long idEvento);
+
+    @Transactional
+    @Modifying
+    @Query(value = SQL_QUITAR, nativeQuery = true)
+    int quitar(@Param("idUsuario") Long idUsuario, @Param("idEvento") Long idEvento);
 }
\ No newline at end of file
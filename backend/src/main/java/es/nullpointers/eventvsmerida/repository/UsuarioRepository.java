@@ -1,9 +1,11 @@
 package es.nullpointers.eventvsmerida.repository;
 
 import es.nullpointers.eventvsmerida.entity.Usuario;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -16,5 +18,17 @@ import java.util.Optional;
  */
 @Repository
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
+    // Se carga el rol en la misma consulta porque la autenticación siempre lo necesita
+    @EntityGraph(attributePaths = "rol")
     Optional<Usuario> findByEmail(String email);
+
+    // Sin open-in-view el rol no se puede cargar al convertir el usuario a UsuarioResponse,
+    // así que se trae en la misma consulta
+    @Override
+    @EntityGraph(attributePaths = "rol")
+    List<Usuario> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = "rol")
+    Optional<Usuario> findById(Long id);
 }
\ No newline at end of file
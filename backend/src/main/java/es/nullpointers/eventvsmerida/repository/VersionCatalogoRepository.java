@@ -0,0 +1,26 @@
+package es.nullpointers.eventvsmerida.repository;
+
+import es.nullpointers.eventvsmerida.entity.VersionCatalogo;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repositorio que establece la comunicacion con la base de datos
+ * para la version de los catalogos (categorias y roles).
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+@Repository
+public interface VersionCatalogoRepository extends JpaRepository<VersionCatalogo, String> {
+    // Incremento atómico con la hora de la base de datos, para que todas las instancias vean la misma versión
+    @Modifying
+    @Transactional
+    @Query("UPDATE VersionCatalogo v SET v.revision = v.revision + 1, v.actualizadoEn = INSTANT WHERE v.recurso = :recurso")
+    int incrementar(@Param("recurso") String recurso);
+}
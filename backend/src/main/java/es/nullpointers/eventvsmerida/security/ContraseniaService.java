@@ -0,0 +1,180 @@
+package es.nullpointers.eventvsmerida.security;
+
+import es.nullpointers.eventvsmerida.exception.DemasiadasPeticionesException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Servicio que codifica y verifica las contraseñas en un grupo de hilos propio y acotado.
+ * BCrypt es costoso a propósito, así que una ráfaga de inicios de sesión (o un ataque de
+ * relleno de credenciales) podría ocupar todos los núcleos y dejar sin CPU al resto de
+ * peticiones. Con un número fijo de hilos y una cola limitada, cuando se llenan se
+ * rechaza la operación con un 429 en lugar de acumular trabajo.
+ * Es también el PasswordEncoder de la aplicación, de modo que el formulario de login y el
+ * HTTP Basic de Actuator verifican las contraseñas en el mismo grupo de hilos.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+@Slf4j
+@Service
+public class ContraseniaService implements PasswordEncoder {
+    // Cabecera de un hash de BCrypt: $2a$, $2b$ o $2y$ seguido del coste con dos cifras
+    private static final Pattern COSTE_BCRYPT = Pattern.compile("^\\$2[aby]?\\$(\\d{2})\\$");
+
+    private final PasswordEncoder passwordEncoder;
+    private final int coste;
+    private final Duration esperaMaxima;
+    private final ThreadPoolExecutor ejecutor;
+
+    // Constructor que con @Value obtiene el coste de BCrypt y la configuración del grupo de hilos del application.properties
+    @Autowired
+    public ContraseniaService(
+            @Value("${seguridad.bcrypt.coste:10}") int coste,
+            @Value("${seguridad.bcrypt.hilos:0}") int hilos,
+            @Value("${seguridad.bcrypt.capacidad-cola:50}") int capacidadCola,
+            @Value("${seguridad.bcrypt.espera-maxima:5s}") Duration esperaMaxima
+    ) {
+        this(new BCryptPasswordEncoder(coste), coste, hilos, capacidadCola, esperaMaxima);
+    }
+
+    // Constructor para las pruebas, que pueden usar otro codificador
+    ContraseniaService(PasswordEncoder passwordEncoder, int coste, int hilos, int capacidadCola, Duration esperaMaxima) {
+        this.passwordEncoder = passwordEncoder;
+        this.coste = coste;
+        this.esperaMaxima = esperaMaxima;
+
+        // Por defecto se reserva la mitad de los núcleos para el resto de la aplicación
+        int numeroHilos = hilos > 0 ? hilos : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.ejecutor = new ThreadPoolExecutor(
+                numeroHilos, numeroHilos,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadCola),
+                Thread.ofPlatform().name("bcrypt-", 0).daemon().factory()
+        );
+    }
+
+    /**
+     * Método que codifica una contraseña.
+     *
+     * @param contrasenia Contraseña en claro.
+     * @return Hash de la contraseña.
+     */
+    public String codificar(String contrasenia) {
+        return ejecutar(() -> passwordEncoder.encode(contrasenia));
+    }
+
+    /**
+     * Método que comprueba si una contraseña corresponde a un hash.
+     *
+     * @param contrasenia Contraseña en claro.
+     * @param hash Hash almacenado.
+     * @return true si la contraseña es correcta.
+     */
+    public boolean coincide(String contrasenia, String hash) {
+        return ejecutar(() -> passwordEncoder.matches(contrasenia, hash));
+    }
+
+    /**
+     * Método que indica si un hash se generó con un coste distinto del configurado, mayor o
+     * menor, y debe volver a calcularse. No es costoso: solo lee la cabecera del hash.
+     *
+     * @param hash Hash almacenado.
+     * @return true si hay que recalcular el hash.
+     */
+    public boolean necesitaRehash(String hash) {
+        Matcher cabecera = COSTE_BCRYPT.matcher(hash);
+        return !cabecera.find() || Integer.parseInt(cabecera.group(1)) != coste;
+    }
+
+    /**
+     * Método que detiene los hilos al cerrar la aplicación.
+     */
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdownNow();
+    }
+
+    // ==========================
+    // Métodos de PasswordEncoder
+    // ==========================
+
+    /**
+     * Codificación que usa Spring Security, en el mismo grupo de hilos que {@link #codificar(String)}.
+     */
+    @Override
+    public String encode(CharSequence contrasenia) {
+        return codificar(contrasenia.toString());
+    }
+
+    /**
+     * Verificación que usa Spring Security en el formulario de login y en HTTP Basic. Si el grupo
+     * de hilos está saturado, el intento se rechaza como un fallo de autenticación del servicio.
+     */
+    @Override
+    public boolean matches(CharSequence contrasenia, String hash) {
+        try {
+            return coincide(contrasenia.toString(), hash);
+        } catch (DemasiadasPeticionesException e) {
+            throw new AuthenticationServiceException(e.getReason(), e);
+        }
+    }
+
+    /**
+     * Indica a Spring Security si el hash debe recalcularse, igual que {@link #necesitaRehash(String)}.
+     */
+    @Override
+    public boolean upgradeEncoding(String hash) {
+        return necesitaRehash(hash);
+    }
+
+    // ================
+    // Métodos Privados
+    // ================
+
+    /**
+     * Método auxiliar que ejecuta una operación en el grupo de hilos y espera su resultado.
+     * Si la cola está llena o la espera supera el máximo, se responde con un 429.
+     */
+    private <T> T ejecutar(Callable<T> operacion) {
+        Future<T> futuro;
+        try {
+            futuro = ejecutor.submit(operacion);
+        } catch (RejectedExecutionException e) {
+            log.warn("Error en ContraseniaService.ejecutar: cola de BCrypt llena ({} tareas)", ejecutor.getQueue().size());
+            throw saturado();
+        }
+
+        try {
+            return futuro.get(esperaMaxima.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            futuro.cancel(true);
+            throw saturado();
+        } catch (InterruptedException e) {
+            futuro.cancel(true);
+            Thread.currentThread().interrupt();
+            throw saturado();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private DemasiadasPeticionesException saturado() {
+        return new DemasiadasPeticionesException("Demasiadas peticiones de autenticación, inténtalo de nuevo en unos segundos", esperaMaxima);
+    }
+}
@@ -1,10 +1,11 @@
 package es.nullpointers.eventvsmerida.security;
 
+import es.nullpointers.eventvsmerida.cache.CacheConfig;
 import es.nullpointers.eventvsmerida.entity.Usuario;
 import es.nullpointers.eventvsmerida.repository.UsuarioRepository;
-import jakarta.transaction.Transactional;
-import lombok.RequiredArgsConstructor;
 import org.jspecify.annotations.NullMarked;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -15,34 +16,47 @@ import org.springframework.stereotype.Service;
  * Servicio personalizado para cargar los detalles del usuario desde la base de datos.
  * Implementa la interfaz UserDetailsService de Spring Security para proporcionar
  * lógica de autenticación personalizada.
+ * Los usuarios cargados se guardan en la caché de autenticación, que UsuarioService
+ * invalida cuando cambia el email, la contraseña o el rol de un usuario, o se elimina.
  *
  * @author Eva Retamar
  * @author David Muñoz
  * @author Adrián Pérez
  */
 @Service
-@RequiredArgsConstructor
 public class CustomUserDetailsService implements UserDetailsService {
     private final UsuarioRepository usuarioRepository;
+    private final Cache usuariosAutenticados;
+
+    public CustomUserDetailsService(UsuarioRepository usuarioRepository, CacheManager cacheManager) {
+        this.usuarioRepository = usuarioRepository;
+        this.usuariosAutenticados = cacheManager.getCache(CacheConfig.USUARIOS_AUTENTICADOS);
+    }
 
     /**
-     * Carga los detalles del usuario por su email.
+     * Carga los detalles del usuario por su email, consultando la base de datos solo si
+     * no están en la caché. Se devuelve siempre una copia, porque Spring Security borra
+     * la contraseña del objeto tras autenticar y eso no debe afectar a la entrada cacheada.
      *
      * @param email el email del usuario que se desea cargar.
      * @return un objeto UserDetails que contiene la información del usuario para la autenticación.
      * @throws UsernameNotFoundException si el usuario con el email proporcionado no se encuentra en la base de datos.
      */
     @NullMarked
-    @Transactional
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        Usuario usuario = usuarioRepository.findByEmail(email).orElseThrow(() -> new UsernameNotFoundException("Credenciales inválidas"));
-        String rol = usuario.getRol().getNombre();
+        UserDetails cacheado = usuariosAutenticados.get(email, UserDetails.class);
+
+        if (cacheado == null) {
+            Usuario usuario = usuarioRepository.findByEmail(email).orElseThrow(() -> new UsernameNotFoundException("Credenciales inválidas"));
+            cacheado = User.builder()
+                    .username(usuario.getEmail())
+                    .password(usuario.getPassword())
+                    .authorities(usuario.getRol().getNombre())
+                    .build();
+            usuariosAutenticados.put(email, cacheado);
+        }
 
-        return User.builder()
-                .username(usuario.getEmail())
-                .password(usuario.getPassword())
-                .authorities(rol)
-                .build();
+        return User.withUserDetails(cacheado).build();
     }
-}
\ No newline at end of file
+}
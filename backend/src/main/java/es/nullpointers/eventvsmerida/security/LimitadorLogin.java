@@ -0,0 +1,95 @@
+package es.nullpointers.eventvsmerida.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import es.nullpointers.eventvsmerida.exception.DemasiadasPeticionesException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limitador de intentos de inicio de sesión por cuenta y por IP, en ventanas de tiempo fijas
+ * que empiezan con el primer intento. Por cuenta se cuentan los fallos desde cada IP, que se
+ * reinician al acertar: así quien falla la contraseña de otro solo se bloquea a sí mismo, y no
+ * puede dejar sin acceso al dueño de la cuenta. Por IP se cuentan todos los intentos, para
+ * frenar a quien prueba muchas cuentas. Los contadores son locales a cada instancia.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+@Slf4j
+@Component
+public class LimitadorLogin {
+    private final Cache<String, AtomicInteger> fallosPorCuentaEIp;
+    private final Cache<String, AtomicInteger> intentosPorIp;
+    private final int maximoFallosCuenta;
+    private final int maximoIntentosIp;
+    private final Duration ventana;
+
+    // Constructor que con @Value obtiene los límites del application.properties
+    public LimitadorLogin(
+            @Value("${seguridad.login.fallos-por-cuenta:5}") int maximoFallosCuenta,
+            @Value("${seguridad.login.intentos-por-ip:30}") int maximoIntentosIp,
+            @Value("${seguridad.login.ventana:5m}") Duration ventana,
+            @Value("${seguridad.login.tamanio-maximo:100000}") long tamanioMaximo
+    ) {
+        this.maximoFallosCuenta = maximoFallosCuenta;
+        this.maximoIntentosIp = maximoIntentosIp;
+        this.ventana = ventana;
+        this.fallosPorCuentaEIp = Caffeine.newBuilder().maximumSize(tamanioMaximo).expireAfterWrite(ventana).build();
+        this.intentosPorIp = Caffeine.newBuilder().maximumSize(tamanioMaximo).expireAfterWrite(ventana).build();
+    }
+
+    /**
+     * Método que registra un intento de inicio de sesión y lo rechaza con un 429 si la IP,
+     * o la cuenta desde esa IP, han superado su límite. Se llama antes de verificar la contraseña.
+     *
+     * @param email Email de la cuenta.
+     * @param ip Dirección IP del cliente.
+     */
+    public void comprobar(String email, String ip) {
+        int intentos = intentosPorIp.get(ip, k -> new AtomicInteger()).incrementAndGet();
+        if (intentos > maximoIntentosIp) {
+            log.warn("Error en LimitadorLogin.comprobar: la IP {} ha superado los {} intentos de login", ip, maximoIntentosIp);
+            throw limiteSuperado();
+        }
+
+        AtomicInteger fallos = fallosPorCuentaEIp.getIfPresent(clave(email, ip));
+        if (fallos != null && fallos.get() >= maximoFallosCuenta) {
+            log.warn("Error en LimitadorLogin.comprobar: la cuenta {} ha superado los {} fallos de login desde la IP {}", email, maximoFallosCuenta, ip);
+            throw limiteSuperado();
+        }
+    }
+
+    /**
+     * Método que registra un inicio de sesión fallido para la cuenta desde una IP.
+     *
+     * @param email Email de la cuenta.
+     * @param ip Dirección IP del cliente.
+     */
+    public void registrarFallo(String email, String ip) {
+        fallosPorCuentaEIp.get(clave(email, ip), k -> new AtomicInteger()).incrementAndGet();
+    }
+
+    /**
+     * Método que reinicia los fallos de la cuenta desde una IP tras un inicio de sesión correcto.
+     *
+     * @param email Email de la cuenta.
+     * @param ip Dirección IP del cliente.
+     */
+    public void registrarExito(String email, String ip) {
+        fallosPorCuentaEIp.invalidate(clave(email, ip));
+    }
+
+    private static String clave(String email, String ip) {
+        return ip + "|" + email;
+    }
+
+    private DemasiadasPeticionesException limiteSuperado() {
+        return new DemasiadasPeticionesException("Demasiados intentos de inicio de sesión, inténtalo más tarde", ventana);
+    }
+}
@@ -1,16 +1,24 @@
 package es.nullpointers.eventvsmerida.security;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
 import org.springframework.security.web.SecurityFilterChain;
 
 /**
  * Configuración de seguridad para la aplicación.
+ * Con seguridad.modo=sesion se usa el formulario de login con sesión HTTP en el servidor.
+ * Con seguridad.modo=token no se crean sesiones: cada petición se autentica con el token
+ * de acceso de la cabecera Authorization, así que cualquier instancia puede atenderla.
+ * El codificador de contraseñas es {@link ContraseniaService}, que ejecuta BCrypt en su propio
+ * grupo de hilos acotado también para el formulario de login y el HTTP Basic de Actuator.
  *
  * @author Eva Retamar
  * @author David Muñoz
@@ -20,23 +28,40 @@ import org.springframework.security.web.SecurityFilterChain;
 public class SecurityConfig {
 
     /**
-     * Bean para el codificador de contraseñas utilizando BCrypt.
+     * Configura la cadena de filtros de los endpoints de Actuator, que se evalúa antes que la
+     * de la aplicación. El estado de salud es público y el resto, como /actuator/prometheus,
+     * solo lo pueden leer los administradores. Se autentican con HTTP Basic y sin sesión en
+     * ambos modos, porque es lo que admite Prometheus al recoger las métricas.
      *
-     * @return un PasswordEncoder que utiliza BCrypt para codificar las contraseñas.
+     * @param http el objeto HttpSecurity utilizado para configurar la seguridad HTTP.
+     * @return un SecurityFilterChain que solo se aplica a las rutas /actuator/**.
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    @Order(1)
+    public SecurityFilterChain actuatorFilterChain(HttpSecurity http) {
+        http
+                .securityMatcher("/actuator/**")
+                .csrf(AbstractHttpConfigurer::disable)
+                .authorizeHttpRequests(auth -> auth
+                        .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                        .anyRequest().hasAuthority("Administrador")
+                )
+                .sessionManagement(sesion -> sesion.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .httpBasic(Customizer.withDefaults());
+
+        return http.build();
     }
 
     /**
      * Configura la cadena de filtros de seguridad para la aplicación.
      *
      * @param http el objeto HttpSecurity utilizado para configurar la seguridad HTTP.
+     * @param tokenService servicio que verifica los tokens de acceso.
+     * @param modo modo de autenticación: "sesion" o "token".
      * @return un SecurityFilterChain que define las reglas de seguridad para las solicitudes HTTP.
      */
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) {
+    public SecurityFilterChain filterChain(HttpSecurity http, TokenService tokenService, @Value("${seguridad.modo:sesion}") String modo) {
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
@@ -44,11 +69,39 @@ public class SecurityConfig {
                                 "/swagger-ui/**",
                                 "/swagger-ui.html",
                                 "/v3/api-docs/**",
-                                "/api/usuarios/all"
+                                "/api/usuarios/all",
+                                "/api/estadisticas/**"
                         ).hasAuthority("Administrador")
                         .anyRequest().permitAll()
-                )
-                .formLogin(Customizer.withDefaults());
+                );
+
+        if ("token".equals(modo)) {
+            http
+                    .sessionManagement(sesion -> sesion.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                    .oauth2ResourceServer(oauth2 -> oauth2.jwt(jwt -> jwt
+                            .decoder(tokenService.getDecodificadorAcceso())
+                            .jwtAuthenticationConverter(convertidorRoles())
+                    ));
+        } else {
+            http.formLogin(Customizer.withDefaults());
+        }
+
         return http.build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Método auxiliar que toma las autoridades del claim de roles del token, sin prefijo,
+     * para que coincidan con los nombres de rol que usa la sesión (por ejemplo "Administrador").
+     *
+     * @return un convertidor del token de acceso a la autenticación de Spring Security.
+     */
+    private static JwtAuthenticationConverter convertidorRoles() {
+        JwtGrantedAuthoritiesConverter autoridades = new JwtGrantedAuthoritiesConverter();
+        autoridades.setAuthoritiesClaimName(TokenService.CLAIM_ROLES);
+        autoridades.setAuthorityPrefix("");
+
+        JwtAuthenticationConverter convertidor = new JwtAuthenticationConverter();
+        convertidor.setJwtGrantedAuthoritiesConverter(autoridades);
+        return convertidor;
+    }
+}
@@ -0,0 +1,197 @@
+package es.nullpointers.eventvsmerida.security;
+
+import es.nullpointers.eventvsmerida.dto.response.TokensResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.*;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Servicio que emite y verifica los tokens firmados (JWT con HMAC-SHA256) de la autenticación sin sesión.
+ * El token de acceso es de corta duración y lleva el email y el rol del usuario, de modo que se
+ * puede verificar en cualquier instancia sin consultar la base de datos ni una sesión compartida.
+ * El token de refresco dura más y solo sirve para pedir un nuevo par de tokens. Lleva la versión
+ * de las credenciales del usuario, de modo que cambiar el email, la contraseña o el rol lo revoca.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+@Slf4j
+@Service
+public class TokenService {
+    public static final String CLAIM_ROLES = "roles";
+
+    private static final String EMISOR = "eventvsmerida";
+    private static final String CLAIM_TIPO = "tipo";
+    private static final String TIPO_ACCESO = "acceso";
+    private static final String TIPO_REFRESCO = "refresco";
+    private static final String CLAIM_VERSION_CREDENCIALES = "version";
+
+    private final JwtEncoder codificador;
+    private final JwtDecoder decodificadorAcceso;
+    private final JwtDecoder decodificadorRefresco;
+    private final Duration duracionAcceso;
+    private final Duration duracionRefresco;
+    private final Clock reloj;
+
+    // Constructor que con @Value obtiene la clave y la duración de los tokens del application.properties
+    @Autowired
+    public TokenService(
+            @Value("${seguridad.token.secreto:}") String secreto,
+            @Value("${seguridad.token.duracion-acceso:15m}") Duration duracionAcceso,
+            @Value("${seguridad.token.duracion-refresco:7d}") Duration duracionRefresco,
+            @Value("${seguridad.modo:sesion}") String modo
+    ) {
+        this(secreto, duracionAcceso, duracionRefresco, Clock.systemUTC(), "token".equals(modo));
+    }
+
+    // Constructor que permite fijar el reloj con el que se emiten los tokens
+    TokenService(String secreto, Duration duracionAcceso, Duration duracionRefresco, Clock reloj, boolean secretoObligatorio) {
+        SecretKey clave = obtenerClave(secreto, secretoObligatorio);
+        this.codificador = NimbusJwtEncoder.withSecretKey(clave).algorithm(MacAlgorithm.HS256).build();
+        this.decodificadorAcceso = crearDecodificador(clave, TIPO_ACCESO);
+        this.decodificadorRefresco = crearDecodificador(clave, TIPO_REFRESCO);
+        this.duracionAcceso = duracionAcceso;
+        this.duracionRefresco = duracionRefresco;
+        this.reloj = reloj;
+    }
+
+    /**
+     * Contenido de un token de refresco válido.
+     *
+     * @param email Email del usuario.
+     * @param versionCredenciales Versión de las credenciales del usuario cuando se emitió.
+     */
+    public record Refresco(String email, int versionCredenciales) {}
+
+    /**
+     * Método que emite un token de acceso y uno de refresco para un usuario.
+     *
+     * @param email Email del usuario, que se guarda como sujeto del token.
+     * @param rol Nombre del rol del usuario.
+     * @param versionCredenciales Versión actual de las credenciales del usuario.
+     * @return Tokens emitidos y segundos de validez del token de acceso.
+     */
+    public TokensResponse emitir(String email, String rol, int versionCredenciales) {
+        Instant ahora = reloj.instant();
+
+        String tokenAcceso = firmar(JwtClaimsSet.builder()
+                .issuer(EMISOR)
+                .subject(email)
+                .issuedAt(ahora)
+                .expiresAt(ahora.plus(duracionAcceso))
+                .claim(CLAIM_TIPO, TIPO_ACCESO)
+                .claim(CLAIM_ROLES, List.of(rol))
+                .build());
+
+        String tokenRefresco = firmar(JwtClaimsSet.builder()
+                .issuer(EMISOR)
+                .subject(email)
+                .issuedAt(ahora)
+                .expiresAt(ahora.plus(duracionRefresco))
+                .claim(CLAIM_TIPO, TIPO_REFRESCO)
+                .claim(CLAIM_VERSION_CREDENCIALES, versionCredenciales)
+                .build());
+
+        return new TokensResponse(tokenAcceso, tokenRefresco, "Bearer", duracionAcceso.toSeconds());
+    }
+
+    /**
+     * Método que verifica un token de refresco y devuelve el usuario y la versión de credenciales con que se emitió.
+     * Quien lo usa debe comprobar que la versión sigue siendo la actual del usuario.
+     *
+     * @param tokenRefresco Token de refresco recibido.
+     * @return Email del usuario y versión de sus credenciales.
+     */
+    public Refresco validarRefresco(String tokenRefresco) {
+        Jwt jwt;
+        try {
+            jwt = decodificadorRefresco.decode(tokenRefresco);
+        } catch (JwtException e) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Token de refresco inválido o caducado");
+        }
+
+        // Los tokens emitidos antes de existir la versión no la llevan y se rechazan
+        Object version = jwt.getClaims().get(CLAIM_VERSION_CREDENCIALES);
+        if (!(version instanceof Number numero)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Token de refresco inválido o caducado");
+        }
+        return new Refresco(jwt.getSubject(), numero.intValue());
+    }
+
+    /**
+     * Método que devuelve el decodificador de los tokens de acceso, que usa el filtro de seguridad.
+     * Rechaza los tokens caducados, los de otro emisor y los de refresco.
+     *
+     * @return Decodificador de tokens de acceso.
+     */
+    public JwtDecoder getDecodificadorAcceso() {
+        return decodificadorAcceso;
+    }
+
+    // ================
+    // Métodos Privados
+    // ================
+
+    /**
+     * Método auxiliar que firma el contenido de un token.
+     */
+    private String firmar(JwtClaimsSet claims) {
+        JwsHeader cabecera = JwsHeader.with(MacAlgorithm.HS256).build();
+        return codificador.encode(JwtEncoderParameters.from(cabecera, claims)).getTokenValue();
+    }
+
+    /**
+     * Método auxiliar que crea un decodificador que solo acepta los tokens del tipo indicado.
+     */
+    private static JwtDecoder crearDecodificador(SecretKey clave, String tipo) {
+        NimbusJwtDecoder decodificador = NimbusJwtDecoder.withSecretKey(clave).macAlgorithm(MacAlgorithm.HS256).build();
+        decodificador.setJwtValidator(new DelegatingOAuth2TokenValidator<>(
+                JwtValidators.createDefaultWithIssuer(EMISOR),
+                new JwtClaimValidator<String>(CLAIM_TIPO, tipo::equals)
+        ));
+        return decodificador;
+    }
+
+    /**
+     * Método auxiliar que obtiene la clave de firma a partir del secreto en Base64.
+     * Con seguridad.modo=token el secreto es obligatorio y la aplicación no arranca sin él.
+     * En el modo de sesión se genera una clave aleatoria, que solo vale para una instancia
+     * y deja sin validez los tokens emitidos antes de reiniciar.
+     */
+    private static SecretKey obtenerClave(String secreto, boolean secretoObligatorio) {
+        byte[] bytes;
+
+        if (secreto == null || secreto.isBlank()) {
+            if (secretoObligatorio) {
+                // Con una clave aleatoria cada instancia rechazaría los tokens de las demás y cada reinicio cerraría todas las sesiones
+                throw new IllegalStateException("seguridad.token.secreto es obligatorio con seguridad.modo=token");
+            }
+            log.warn("No se ha configurado seguridad.token.secreto: se usará una clave aleatoria que no comparten las demás instancias");
+            bytes = new byte[32];
+            new SecureRandom().nextBytes(bytes);
+        } else {
+            bytes = Base64.getDecoder().decode(secreto);
+            if (bytes.length < 32) {
+                throw new IllegalStateException("seguridad.token.secreto debe tener al menos 256 bits");
+            }
+        }
+
+        return new SecretKeySpec(bytes, "HmacSHA256");
+    }
+}
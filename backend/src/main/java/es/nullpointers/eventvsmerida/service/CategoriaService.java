@@ -1,22 +1,31 @@
 package es.nullpointers.eventvsmerida.service;
 
+import es.nullpointers.eventvsmerida.cache.CacheConfig;
 import es.nullpointers.eventvsmerida.dto.request.CategoriaRequest;
 import es.nullpointers.eventvsmerida.dto.response.CategoriaResponse;
 import es.nullpointers.eventvsmerida.entity.Categoria;
+import es.nullpointers.eventvsmerida.exception.CodigoError;
+import es.nullpointers.eventvsmerida.exception.RecursoNoEncontradoException;
 import es.nullpointers.eventvsmerida.mapper.CategoriaMapper;
 import es.nullpointers.eventvsmerida.repository.CategoriaRepository;
+import es.nullpointers.eventvsmerida.repository.EventoRepository;
+import es.nullpointers.eventvsmerida.utils.PeticionCondicionalUtils;
 import jakarta.persistence.NoResultException;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.NoSuchElementException;
 
 /**
  * Servicio para gestionar la logica de negocio relacionada con la
  * entidad Categoria.
+ * Las lecturas se sirven desde caché y las escrituras la invalidan.
  *
  * @author Eva Retamar
  * @author David Muñoz
@@ -27,6 +36,11 @@ import java.util.NoSuchElementException;
 @Service
 public class CategoriaService {
     private final CategoriaRepository categoriaRepository;
+    private final EventoRepository eventoRepository;
+
+    // Versión del catálogo para los GET condicionales. Las respuestas se guardan en caché por versión:
+    // la versión se lee antes que los datos, así que un ETag nunca acompaña a datos más antiguos que él
+    private final VersionCatalogoService versionCatalogoService;
 
     // ============
     // Metodos CRUD
@@ -35,9 +49,11 @@ public class CategoriaService {
     /**
      * Metodo para obtener todas las categorias.
      *
+     * @param version Versión del catálogo leída antes de cargar los datos, que identifica la entrada de la caché.
      * @return Lista de categorias.
      */
-    public List<CategoriaResponse> obtenerCategorias() {
+    @Cacheable(cacheNames = CacheConfig.CATEGORIAS_RESPONSE, key = "#version.etag()")
+    public List<CategoriaResponse> obtenerCategorias(PeticionCondicionalUtils.Version version) {
         List<Categoria> categorias = categoriaRepository.findAll();
         List<CategoriaResponse> categoriasResponse = new ArrayList<>();
 
@@ -56,10 +72,12 @@ public class CategoriaService {
      * Metodo para obtener una categoria por su ID.
      *
      * @param id ID de la categoria a obtener.
+     * @param version Versión del catálogo leída antes de cargar los datos, que identifica la entrada de la caché.
      * @return Categoria encontrada.
      */
-    public CategoriaResponse obtenerCategoriaPorId(Long id) {
-        Categoria categoriaObtenida = obtenerCategoriaPorIdOExcepcion(id, "Error en CategoriaService.obtenerCategoriaPorId: No se encontró la categoria con id " + id);
+    @Cacheable(cacheNames = CacheConfig.CATEGORIAS_RESPONSE, key = "#version.etag() + '|' + #id")
+    public CategoriaResponse obtenerCategoriaPorId(Long id, PeticionCondicionalUtils.Version version) {
+        Categoria categoriaObtenida = obtenerCategoriaPorIdOExcepcion(id, "CategoriaService.obtenerCategoriaPorId");
         return CategoriaMapper.convertirAResponse(categoriaObtenida);
     }
 
@@ -69,9 +87,12 @@ public class CategoriaService {
      * @param categoriaRequest Datos de la categoria a crear.
      * @return Categoria creada.
      */
+    @CacheEvict(cacheNames = CacheConfig.CATEGORIAS_RESPONSE, allEntries = true, beforeInvocation = true)
+    @Transactional
     public CategoriaResponse crearCategoria(CategoriaRequest categoriaRequest) {
         Categoria categoriaNueva = CategoriaMapper.convertirAEntidad(categoriaRequest);
         Categoria categoriaCreada = categoriaRepository.save(categoriaNueva);
+        versionCatalogoService.incrementar(VersionCatalogoService.CATEGORIAS);
         return CategoriaMapper.convertirAResponse(categoriaCreada);
     }
 
@@ -80,9 +101,17 @@ public class CategoriaService {
      *
      * @param id ID de la categoria a eliminar.
      */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CATEGORIAS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.CATEGORIAS_RESPONSE, allEntries = true, beforeInvocation = true)
+    })
+    @Transactional
     public void eliminarCategoria(Long id) {
-        Categoria categoria = obtenerCategoriaPorIdOExcepcion(id, "Error en CategoriaService.eliminarCategoria: No se encontró la categoria con id " + id);
+        Categoria categoria = obtenerCategoriaPorIdOExcepcion(id, "CategoriaService.eliminarCategoria");
+        // La base de datos pasa sus eventos a la categoría por defecto sin tocar actualizadoEn
+        eventoRepository.marcarActualizadosPorCategoria(id);
         categoriaRepository.delete(categoria);
+        versionCatalogoService.incrementar(VersionCatalogoService.CATEGORIAS);
     }
 
     /**
@@ -92,15 +121,37 @@ public class CategoriaService {
      * @param categoriaRequest Datos de la categoria a actualizar.
      * @return Categoria actualizada.
      */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CATEGORIAS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.CATEGORIAS_RESPONSE, allEntries = true, beforeInvocation = true)
+    })
+    @Transactional
     public CategoriaResponse actualizarCategoria(Long id, CategoriaRequest categoriaRequest) {
-        Categoria categoriaExistente = obtenerCategoriaPorIdOExcepcion(id, "Error en CategoriaService.actualizarCategoria: No se encontró la categoria con id: " + id);
+        Categoria categoriaExistente = obtenerCategoriaPorIdOExcepcion(id, "CategoriaService.actualizarCategoria");
 
+        boolean nombreCambiado = !categoriaRequest.nombre().equals(categoriaExistente.getNombre());
         categoriaExistente.setNombre(categoriaRequest.nombre());
         Categoria categoriaActualizada = categoriaRepository.save(categoriaExistente);
+        versionCatalogoService.incrementar(VersionCatalogoService.CATEGORIAS);
+
+        // El nombre de la categoría aparece en sus eventos, que tienen que volver a sincronizarse
+        if (nombreCambiado) {
+            eventoRepository.marcarActualizadosPorCategoria(id);
+        }
 
         return CategoriaMapper.convertirAResponse(categoriaActualizada);
     }
 
+    /**
+     * Metodo para obtener la version actual del catalogo de categorias, para los GET condicionales.
+     * Sirve tanto para el listado como para cada categoria.
+     *
+     * @return Version con el ETag y el instante de la ultima modificacion.
+     */
+    public PeticionCondicionalUtils.Version obtenerVersion() {
+        return versionCatalogoService.obtener(VersionCatalogoService.CATEGORIAS);
+    }
+
     // ==================
     // Metodos Auxiliares
     // ==================
@@ -109,10 +160,11 @@ public class CategoriaService {
      * Metodo privado para obtener una categoria por su ID o lanzar una excepcion si no se encuentra.
      *
      * @param id ID de la categoria a obtener.
-     * @param mensajeError Mensaje de error para la excepcion.
+     * @param origen Clase y método que la pide (por ejemplo "CategoriaService.obtenerCategoriaPorId"), para el mensaje de error.
      * @return Categoria encontrada.
      */
-    public Categoria obtenerCategoriaPorIdOExcepcion(Long id, String mensajeError) {
-        return categoriaRepository.findById(id).orElseThrow(() -> new NoSuchElementException(mensajeError));
+    @Cacheable(cacheNames = CacheConfig.CATEGORIAS, key = "#id")
+    public Categoria obtenerCategoriaPorIdOExcepcion(Long id, String origen) {
+        return categoriaRepository.findById(id).orElseThrow(() -> new RecursoNoEncontradoException(CodigoError.CATEGORIA_NO_ENCONTRADA, origen, id));
     }
 }
\ No newline at end of file
@@ -0,0 +1,309 @@
+package es.nullpointers.eventvsmerida.service;
+
+import es.nullpointers.eventvsmerida.dto.response.ClusterMapaResponse;
+import es.nullpointers.eventvsmerida.repository.EventoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Servicio que agrupa en memoria las coordenadas de los eventos para dibujar el mapa
+ * cuando la zona visible tiene demasiados eventos para mostrarlos uno a uno.
+ * Mantiene una rejilla por nivel de zoom: en el nivel z cada celda mide
+ * 360 / 2^z / celdasPorTesela grados y cada celda del nivel z - 1 contiene exactamente
+ * cuatro del nivel z, así que añadir, mover o quitar un evento solo actualiza una celda
+ * por nivel. Cada celda guarda el número de eventos y la suma de sus coordenadas, de
+ * donde sale el centro del cluster.
+ * La rejilla se construye al arrancar y se mantiene con los cambios que hace esta instancia.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+@Slf4j
+@Service
+public class ClusterMapaService {
+    private final EventoRepository eventoRepository;
+
+    private final int zoomMaximo;
+    private final int celdasPorTesela;
+
+    // Celdas ocupadas de cada nivel, por clave (x << 32 | y), y posición de cada evento en el nivel más fino
+    private final List<Map<Long, Celda>> niveles;
+    private final Map<Long, Posicion> posiciones = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Constructor que con @Value obtiene la configuración de la rejilla del application.properties
+    public ClusterMapaService(
+            EventoRepository eventoRepository,
+            @Value("${eventos.mapa.zoom-maximo-agrupacion:16}") int zoomMaximo,
+            @Value("${eventos.mapa.celdas-por-tesela:4}") int celdasPorTesela
+    ) {
+        this.eventoRepository = eventoRepository;
+        this.zoomMaximo = zoomMaximo;
+        this.celdasPorTesela = celdasPorTesela;
+
+        this.niveles = new ArrayList<>(zoomMaximo + 1);
+        for (int z = 0; z <= zoomMaximo; z++) {
+            niveles.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * Método que carga en la rejilla, al arrancar la aplicación, todos los eventos con coordenadas.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruir() {
+        List<EventoRepository.CoordenadasEvento> eventos = eventoRepository.findByLatitudIsNotNull();
+
+        lock.writeLock().lock();
+        try {
+            posiciones.clear();
+            niveles.forEach(Map::clear);
+            for (EventoRepository.CoordenadasEvento evento : eventos) {
+                agregarSinBloqueo(evento.getId(), evento.getLatitud(), evento.getLongitud());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Rejilla del mapa construida con {} eventos", eventos.size());
+    }
+
+    /**
+     * Método que añade un evento a la rejilla o lo mueve si ya estaba.
+     *
+     * @param idEvento ID del evento.
+     * @param latitud Latitud del evento.
+     * @param longitud Longitud del evento.
+     */
+    public void actualizar(Long idEvento, double latitud, double longitud) {
+        lock.writeLock().lock();
+        try {
+            eliminarSinBloqueo(idEvento);
+            agregarSinBloqueo(idEvento, latitud, longitud);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Método que quita un evento de la rejilla. No hace nada si el evento no estaba.
+     *
+     * @param idEvento ID del evento.
+     */
+    public void eliminar(Long idEvento) {
+        lock.writeLock().lock();
+        try {
+            eliminarSinBloqueo(idEvento);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Método que devuelve los clusters de un nivel de zoom cuyas celdas tocan el recuadro.
+     * Si el nivel pedido es mayor que el máximo de la rejilla, se usa el máximo.
+     *
+     * @param latitudMin Latitud del borde sur.
+     * @param latitudMax Latitud del borde norte.
+     * @param longitudMin Longitud del borde oeste.
+     * @param longitudMax Longitud del borde este.
+     * @param zoom Nivel de zoom del mapa.
+     * @return Centro y número de eventos de cada celda ocupada.
+     */
+    public List<ClusterMapaResponse> agrupar(double latitudMin, double latitudMax, double longitudMin, double longitudMax, int zoom) {
+        int nivel = Math.min(Math.max(zoom, 0), zoomMaximo);
+        int desplazamiento = zoomMaximo - nivel;
+        double celda = tamanioCelda(zoomMaximo);
+
+        // Los índices se calculan en el nivel más fino y se desplazan, igual que al insertar
+        long x0 = indice(longitudMin + 180, celda) >> desplazamiento;
+        long x1 = indice(longitudMax + 180, celda) >> desplazamiento;
+        long y0 = indice(latitudMin + 90, celda) >> desplazamiento;
+        long y1 = indice(latitudMax + 90, celda) >> desplazamiento;
+
+        List<ClusterMapaResponse> clusters = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            recorrerCeldas(niveles.get(nivel), x0, x1, y0, y1, c -> clusters.add(c.aResponse()));
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return clusters;
+    }
+
+    /**
+     * Método que cuenta los eventos de las celdas de un nivel de zoom que quedan por completo dentro
+     * del recuadro, es decir, todas menos las del borde. Es una cota inferior del número de eventos
+     * del recuadro, igual que la suma de los clusters de {@link #agrupar} es una cota superior.
+     *
+     * @param latitudMin Latitud del borde sur.
+     * @param latitudMax Latitud del borde norte.
+     * @param longitudMin Longitud del borde oeste.
+     * @param longitudMax Longitud del borde este.
+     * @param zoom Nivel de zoom del mapa.
+     * @return Número de eventos de las celdas interiores del recuadro.
+     */
+    public long contarEnCeldasInteriores(double latitudMin, double latitudMax, double longitudMin, double longitudMax, int zoom) {
+        int nivel = Math.min(Math.max(zoom, 0), zoomMaximo);
+        int desplazamiento = zoomMaximo - nivel;
+        double celda = tamanioCelda(zoomMaximo);
+
+        long x0 = indice(longitudMin + 180, celda) >> desplazamiento;
+        long x1 = indice(longitudMax + 180, celda) >> desplazamiento;
+        long y0 = indice(latitudMin + 90, celda) >> desplazamiento;
+        long y1 = indice(latitudMax + 90, celda) >> desplazamiento;
+
+        // Solo las celdas interiores: sin la primera ni la última fila y columna
+        long[] eventos = new long[1];
+
+        lock.readLock().lock();
+        try {
+            recorrerCeldas(niveles.get(nivel), x0 + 1, x1 - 1, y0 + 1, y1 - 1, c -> eventos[0] += c.eventos);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return eventos[0];
+    }
+
+    /**
+     * Método que devuelve el nivel de zoom más fino que mantiene la rejilla.
+     *
+     * @return Nivel de zoom máximo.
+     */
+    public int getZoomMaximo() {
+        return zoomMaximo;
+    }
+
+    // ================
+    // Métodos Privados
+    // ================
+
+    /**
+     * Método auxiliar que añade un evento a la celda que le corresponde en cada nivel.
+     * Debe llamarse con el bloqueo de escritura adquirido.
+     */
+    private void agregarSinBloqueo(Long idEvento, double latitud, double longitud) {
+        double celda = tamanioCelda(zoomMaximo);
+        Posicion posicion = new Posicion(indice(longitud + 180, celda), indice(latitud + 90, celda), latitud, longitud);
+        posiciones.put(idEvento, posicion);
+
+        for (int nivel = 0; nivel <= zoomMaximo; nivel++) {
+            int desplazamiento = zoomMaximo - nivel;
+            long clave = clave(posicion.x() >> desplazamiento, posicion.y() >> desplazamiento);
+            niveles.get(nivel).computeIfAbsent(clave, k -> new Celda()).sumar(latitud, longitud);
+        }
+    }
+
+    /**
+     * Método auxiliar que quita un evento de la celda que le corresponde en cada nivel,
+     * borrando las celdas que se quedan vacías. Debe llamarse con el bloqueo de escritura adquirido.
+     */
+    private void eliminarSinBloqueo(Long idEvento) {
+        Posicion posicion = posiciones.remove(idEvento);
+        if (posicion == null) {
+            return;
+        }
+
+        for (int nivel = 0; nivel <= zoomMaximo; nivel++) {
+            int desplazamiento = zoomMaximo - nivel;
+            long clave = clave(posicion.x() >> desplazamiento, posicion.y() >> desplazamiento);
+            Map<Long, Celda> celdas = niveles.get(nivel);
+            Celda c = celdas.get(clave);
+            if (c.restar(posicion.latitud(), posicion.longitud())) {
+                celdas.remove(clave);
+            }
+        }
+    }
+
+    /**
+     * Método auxiliar que aplica una acción a las celdas ocupadas de un rango de índices, recorriendo
+     * lo que sea menor: las celdas del rango o las celdas ocupadas del nivel. Debe llamarse con el
+     * bloqueo de lectura adquirido.
+     */
+    private static void recorrerCeldas(Map<Long, Celda> celdas, long x0, long x1, long y0, long y1, Consumer<Celda> accion) {
+        if (x0 > x1 || y0 > y1) {
+            return;
+        }
+
+        if ((x1 - x0 + 1) * (y1 - y0 + 1) <= celdas.size()) {
+            for (long x = x0; x <= x1; x++) {
+                for (long y = y0; y <= y1; y++) {
+                    Celda c = celdas.get(clave(x, y));
+                    if (c != null) {
+                        accion.accept(c);
+                    }
+                }
+            }
+        } else {
+            for (Map.Entry<Long, Celda> entrada : celdas.entrySet()) {
+                long x = entrada.getKey() >>> 32;
+                long y = entrada.getKey() & 0xFFFFFFFFL;
+                if (x >= x0 && x <= x1 && y >= y0 && y <= y1) {
+                    accion.accept(entrada.getValue());
+                }
+            }
+        }
+    }
+
+    private double tamanioCelda(int nivel) {
+        return 360.0 / (1L << nivel) / celdasPorTesela;
+    }
+
+    private static long indice(double gradosDesdeOrigen, double celda) {
+        return Math.max(0, (long) Math.floor(gradosDesdeOrigen / celda));
+    }
+
+    private static long clave(long x, long y) {
+        return (x << 32) | y;
+    }
+
+    /**
+     * Posición de un evento: su celda en el nivel más fino y sus coordenadas.
+     */
+    private record Posicion(long x, long y, double latitud, double longitud) {}
+
+    /**
+     * Celda de la rejilla con el número de eventos y la suma de sus coordenadas.
+     */
+    private static final class Celda {
+        private long eventos;
+        private double sumaLatitud;
+        private double sumaLongitud;
+
+        void sumar(double latitud, double longitud) {
+            eventos++;
+            sumaLatitud += latitud;
+            sumaLongitud += longitud;
+        }
+
+        /**
+         * Resta un evento de la celda.
+         * @return true si la celda se ha quedado vacía.
+         */
+        boolean restar(double latitud, double longitud) {
+            eventos--;
+            sumaLatitud -= latitud;
+            sumaLongitud -= longitud;
+            return eventos == 0;
+        }
+
+        ClusterMapaResponse aResponse() {
+            return new ClusterMapaResponse(sumaLatitud / eventos, sumaLongitud / eventos, eventos);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package es.nullpointers.eventvsmerida.service;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import es.nullpointers.eventvsmerida.dto.response.CacheEstadisticasResponse;
+import es.nullpointers.eventvsmerida.dto.response.ImagenesEstadisticasResponse;
+import es.nullpointers.eventvsmerida.supabase.IndiceImagenes;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Servicio para consultar las estadísticas internas de la aplicación.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class EstadisticasService {
+    private final CacheManager cacheManager;
+    private final IndiceImagenes indiceImagenes;
+
+    /**
+     * Método para obtener los aciertos, fallos y desalojos de cada caché.
+     *
+     * @return Lista con las estadísticas de cada caché.
+     */
+    public List<CacheEstadisticasResponse> obtenerEstadisticasCache() {
+        List<CacheEstadisticasResponse> estadisticas = new ArrayList<>();
+
+        for (String nombre : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(nombre);
+
+            if (cache instanceof CaffeineCache caffeineCache) {
+                CacheStats stats = caffeineCache.getNativeCache().stats();
+                long entradas = caffeineCache.getNativeCache().estimatedSize();
+                estadisticas.add(new CacheEstadisticasResponse(nombre, stats.hitCount(), stats.missCount(), stats.hitRate(), stats.evictionCount(), entradas));
+            }
+        }
+
+        return estadisticas;
+    }
+
+    /**
+     * Método para obtener la tasa de aciertos y los bytes ahorrados por la deduplicación de imágenes.
+     *
+     * @return Estadísticas del índice de imágenes almacenadas.
+     */
+    public ImagenesEstadisticasResponse obtenerEstadisticasImagenes() {
+        return indiceImagenes.obtenerEstadisticas();
+    }
+}
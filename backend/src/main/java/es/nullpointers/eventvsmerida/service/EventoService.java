@@ -1,20 +1,50 @@
 package es.nullpointers.eventvsmerida.service;
 
 import es.nullpointers.eventvsmerida.dto.request.EventoCrearRequest;
+import es.nullpointers.eventvsmerida.dto.response.CambiosEventosResponse;
+import es.nullpointers.eventvsmerida.dto.response.ClusterMapaResponse;
+import es.nullpointers.eventvsmerida.dto.response.EventoBusquedaResponse;
+import es.nullpointers.eventvsmerida.dto.response.EventoPaginaResponse;
 import es.nullpointers.eventvsmerida.dto.response.EventoResponse;
+import es.nullpointers.eventvsmerida.dto.response.EventosDiaResponse;
+import es.nullpointers.eventvsmerida.dto.response.MapaResponse;
 import es.nullpointers.eventvsmerida.dto.request.EventoActualizarRequest;
 import es.nullpointers.eventvsmerida.entity.Categoria;
+import es.nullpointers.eventvsmerida.entity.EstadoFoto;
 import es.nullpointers.eventvsmerida.entity.Evento;
+import es.nullpointers.eventvsmerida.entity.EventoEliminado;
 import es.nullpointers.eventvsmerida.entity.Usuario;
+import es.nullpointers.eventvsmerida.exception.CodigoError;
+import es.nullpointers.eventvsmerida.exception.RecursoNoEncontradoException;
 import es.nullpointers.eventvsmerida.mapper.EventoMapper;
+import es.nullpointers.eventvsmerida.repository.EventoEliminadoRepository;
 import es.nullpointers.eventvsmerida.repository.EventoRepository;
-import es.nullpointers.eventvsmerida.supabase.SupabaseStorage;
+import es.nullpointers.eventvsmerida.utils.CursorUtils;
+import es.nullpointers.eventvsmerida.utils.GeoUtils;
+import es.nullpointers.eventvsmerida.utils.PeticionCondicionalUtils;
+import jakarta.annotation.PreDestroy;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Servicio para gestionar la lógica de negocio relacionada con la
@@ -29,9 +59,43 @@ import java.util.*;
 @Service
 public class EventoService {
     private final EventoRepository eventoRepository;
+    private final EventoEliminadoRepository eventoEliminadoRepository;
     private final UsuarioService usuarioService;
     private final CategoriaService categoriaService;
-    private final SupabaseStorage storageUploader;
+    private final IngestaImagenesService ingestaImagenesService;
+    private final GeocodificacionService geocodificacionService;
+    private final ClusterMapaService clusterMapaService;
+
+    @Value("${eventos.feed.tamanio-pagina:20}")
+    private int tamanioPaginaPorDefecto;
+
+    @Value("${eventos.feed.tamanio-maximo:100}")
+    private int tamanioPaginaMaximo;
+
+    @Value("${eventos.rango.dias-maximo:92}")
+    private long rangoDiasMaximo;
+
+    @Value("${eventos.cambios.tamanio-maximo:500}")
+    private int tamanioCambiosMaximo;
+
+    @Value("${eventos.cambios.margen:5s}")
+    private Duration margenCambios;
+
+    @Value("${eventos.cambios.antiguedad-maxima:30d}")
+    private Duration antiguedadMaximaCambios;
+
+    @Value("${eventos.cambios.intervalo-purga:1h}")
+    private Duration intervaloPurgaEliminados;
+
+    private final ScheduledExecutorService planificadorPurga = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("purga-eventos-eliminados").daemon().factory()
+    );
+
+    @Value("${eventos.mapa.maximo-marcadores:300}")
+    private int maximoMarcadores;
+
+    @Value("${eventos.mapa.radio-maximo-km:50}")
+    private double radioMaximoKm;
 
     // ============
     // Metodos CRUD
@@ -47,9 +111,190 @@ public class EventoService {
         List<EventoResponse> eventosResponse = new ArrayList<>();
 
         if (eventos.isEmpty()) {
-            throw new NoSuchElementException("Error en EventoService.obtenerEventos: No se encontraron eventos en la base de datos");
+            throw new RecursoNoEncontradoException(CodigoError.EVENTOS_NO_ENCONTRADOS, "EventoService.obtenerEventos");
+        }
+
+        for (Evento evento : eventos) {
+            eventosResponse.add(EventoMapper.convertirAResponse(evento));
+        }
+
+        return eventosResponse;
+    }
+
+    /**
+     * Método para obtener una página de eventos ordenados por (fechaHora, id)
+     * mediante paginación por clave, de forma que el coste de cada página no
+     * depende de lo avanzado que esté el cliente en el listado.
+     *
+     * @param cursor Cursor opaco devuelto en la página anterior, o null para la primera.
+     * @param tamanio Número de eventos por página, o null para usar el valor por defecto.
+     * @return Página de eventos y cursor para solicitar la siguiente (null si no hay más).
+     */
+    public EventoPaginaResponse obtenerPaginaEventos(String cursor, Integer tamanio) {
+        int tamanioPagina = resolverTamanioPagina(tamanio);
+
+        // Se pide un evento de más para saber si existe una página siguiente
+        Limit limite = Limit.of(tamanioPagina + 1);
+        List<Evento> eventos;
+
+        if (cursor == null || cursor.isBlank()) {
+            eventos = eventoRepository.findAllByOrderByFechaHoraAscIdAsc(limite);
+        } else {
+            CursorUtils.Cursor posicion = decodificarCursor(cursor);
+            eventos = eventoRepository.findPaginaDespuesDe(posicion.fechaHora(), posicion.id(), limite);
+        }
+
+        boolean hayMas = eventos.size() > tamanioPagina;
+        if (hayMas) {
+            eventos = eventos.subList(0, tamanioPagina);
+        }
+
+        List<EventoResponse> eventosResponse = new ArrayList<>(eventos.size());
+        for (Evento evento : eventos) {
+            eventosResponse.add(EventoMapper.convertirAResponse(evento));
+        }
+
+        String siguienteCursor = null;
+        if (hayMas) {
+            Evento ultimo = eventos.getLast();
+            siguienteCursor = CursorUtils.codificar(ultimo.getFechaHora(), ultimo.getId());
+        }
+
+        return new EventoPaginaResponse(eventosResponse, siguienteCursor);
+    }
+
+    /**
+     * Método para obtener los eventos creados, modificados y eliminados desde la última
+     * sincronización de la app, de modo que solo se descargue lo que ha cambiado.
+     * Los cambios se leen en orden (instante, id) a partir de la posición que guarda el token,
+     * dejando fuera los de los últimos segundos (margen) para no saltarse las transacciones
+     * que empezaron antes pero todavía no han terminado. El margen se resta a la hora de la base
+     * de datos, que es la que sella los cambios, y no a la de esta instancia. Los tokens más antiguos
+     * que la retención de las marcas de eliminados se rechazan con 410 para que la app vuelva a
+     * descargarlo todo, porque las eliminaciones de ese periodo ya se han podido purgar. Al llegar
+     * a la última página el token se emite en el horizonte de la consulta, de modo que solo caduca
+     * si la app deja de sincronizar durante la retención, no porque el catálogo no cambie.
+     *
+     * @param token Token devuelto en la sincronización anterior, o null para descargar todos los eventos.
+     * @param tamanio Número máximo de cambios a devolver, o null para usar el máximo permitido.
+     * @return Eventos modificados, IDs de los eliminados y token para la siguiente sincronización.
+     */
+    public CambiosEventosResponse obtenerCambios(String token, Integer tamanio) {
+        if (tamanio != null && tamanio < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El tamaño de página debe ser mayor que 0");
+        }
+        int tamanioPagina = tamanio == null ? tamanioCambiosMaximo : Math.min(tamanio, tamanioCambiosMaximo);
+
+        Instant desde = Instant.EPOCH;
+        long idDesde = 0;
+        if (token != null && !token.isBlank()) {
+            CursorUtils.Cursor posicion = decodificarCursor(token);
+            desde = posicion.fechaHora().toInstant(ZoneOffset.UTC);
+            idDesde = posicion.id();
+        }
+        Instant ahora = eventoRepository.obtenerInstanteBaseDatos();
+        if (desde.isAfter(Instant.EPOCH) && desde.isBefore(ahora.minus(antiguedadMaximaCambios))) {
+            throw new ResponseStatusException(HttpStatus.GONE, "El token de sincronización ha caducado, hay que descargar todos los eventos");
+        }
+        Instant hasta = ahora.minus(margenCambios);
+
+        // Se pide un cambio de más en cada tabla para saber si quedan más
+        Limit limite = Limit.of(tamanioPagina + 1);
+        List<Evento> modificados = eventoRepository.findCambiosDespuesDe(desde, idDesde, hasta, limite);
+        List<EventoEliminado> eliminados = eventoEliminadoRepository.findEliminadosDespuesDe(desde, idDesde, hasta, limite);
+
+        // Se mezclan las dos listas, ya ordenadas, hasta completar la página
+        List<EventoResponse> eventosResponse = new ArrayList<>();
+        List<Long> idsEliminados = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i + j < tamanioPagina && (i < modificados.size() || j < eliminados.size())) {
+            boolean siguienteEsModificado = j >= eliminados.size() || (i < modificados.size() && compararPosicion(
+                    modificados.get(i).getActualizadoEn(), modificados.get(i).getId(),
+                    eliminados.get(j).getEliminadoEn(), eliminados.get(j).getIdEvento()) < 0);
+
+            if (siguienteEsModificado) {
+                Evento evento = modificados.get(i++);
+                eventosResponse.add(EventoMapper.convertirAResponse(evento));
+                desde = evento.getActualizadoEn();
+                idDesde = evento.getId();
+            } else {
+                EventoEliminado eliminado = eliminados.get(j++);
+                idsEliminados.add(eliminado.getIdEvento());
+                desde = eliminado.getEliminadoEn();
+                idDesde = eliminado.getIdEvento();
+            }
         }
 
+        boolean hayMas = i < modificados.size() || j < eliminados.size();
+        // En la última página ya se ha leído todo hasta el horizonte, así que el token avanza hasta él.
+        // Si se quedara en el último cambio, un catálogo sin cambios durante la retención dejaría
+        // caducados los tokens de todas las apps, también el recién devuelto al descargarlo todo
+        if (!hayMas && compararPosicion(desde, idDesde, hasta, Long.MAX_VALUE) < 0) {
+            desde = hasta;
+            idDesde = Long.MAX_VALUE;
+        }
+        String siguienteToken = CursorUtils.codificar(LocalDateTime.ofInstant(desde, ZoneOffset.UTC), idDesde);
+
+        return new CambiosEventosResponse(eventosResponse, idsEliminados, siguienteToken, hayMas);
+    }
+
+    /**
+     * Método que borra las marcas de eventos eliminados más antiguas que la retención de los
+     * tokens de sincronización, ya que ningún token aceptado puede pedirlas.
+     *
+     * @return Número de marcas borradas.
+     */
+    public int purgarEliminados() {
+        Instant limite = eventoRepository.obtenerInstanteBaseDatos().minus(antiguedadMaximaCambios);
+        int purgados = eventoEliminadoRepository.eliminarAnterioresA(limite);
+
+        if (purgados > 0) {
+            log.info("Purgadas {} marcas de eventos eliminados anteriores a {}", purgados, limite);
+        }
+        return purgados;
+    }
+
+    /**
+     * Método que programa, al arrancar la aplicación, la purga periódica de las marcas de eventos eliminados.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void programarPurgaEliminados() {
+        long intervalo = intervaloPurgaEliminados.toMillis();
+        planificadorPurga.scheduleWithFixedDelay(() -> {
+            try {
+                purgarEliminados();
+            } catch (RuntimeException e) {
+                log.warn("No se pudieron purgar las marcas de eventos eliminados", e);
+            }
+        }, 0, intervalo, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Método que detiene la purga de marcas de eventos eliminados al cerrar la aplicación.
+     */
+    @PreDestroy
+    public void detenerPurgaEliminados() {
+        planificadorPurga.shutdownNow();
+    }
+
+    /**
+     * Método para obtener los eventos cuya fecha está en el rango [desde, hasta),
+     * opcionalmente filtrados por categoría, ordenados por fecha.
+     *
+     * @param desde Inicio del rango (incluido).
+     * @param hasta Fin del rango (excluido).
+     * @param idCategoria ID de la categoría por la que filtrar, o null para todas.
+     * @return Lista de eventos del rango.
+     */
+    public List<EventoResponse> obtenerEventosEnRango(LocalDateTime desde, LocalDateTime hasta, Long idCategoria) {
+        validarRango(desde, hasta);
+
+        List<Evento> eventos = idCategoria == null
+                ? eventoRepository.findEnRango(desde, hasta)
+                : eventoRepository.findEnRangoPorCategoria(idCategoria, desde, hasta);
+
+        List<EventoResponse> eventosResponse = new ArrayList<>(eventos.size());
         for (Evento evento : eventos) {
             eventosResponse.add(EventoMapper.convertirAResponse(evento));
         }
@@ -57,6 +302,160 @@ public class EventoService {
         return eventosResponse;
     }
 
+    /**
+     * Método para obtener el número de eventos de cada día del rango [desde, hasta),
+     * opcionalmente filtrados por categoría. Los días sin eventos no se incluyen.
+     *
+     * @param desde Inicio del rango (incluido).
+     * @param hasta Fin del rango (excluido).
+     * @param idCategoria ID de la categoría por la que filtrar, o null para todas.
+     * @return Lista con el número de eventos por día, ordenada por día.
+     */
+    public List<EventosDiaResponse> contarEventosPorDia(LocalDateTime desde, LocalDateTime hasta, Long idCategoria) {
+        validarRango(desde, hasta);
+
+        return idCategoria == null
+                ? eventoRepository.contarPorDia(desde, hasta)
+                : eventoRepository.contarPorDiaYCategoria(idCategoria, desde, hasta);
+    }
+
+    /**
+     * Método para obtener los eventos de la zona visible del mapa. Si en la zona hay más eventos
+     * de los que se pueden mostrar como marcadores, se devuelven agrupados en clusters según
+     * una rejilla cuyo tamaño depende del nivel de zoom, de modo que la respuesta siempre es acotada.
+     * Los clusters salen de la rejilla en memoria de ClusterMapaService. Las celdas del borde
+     * pueden tener eventos fuera de la zona, así que la suma de los clusters solo es una cota
+     * superior; si no basta para decidir, se cuentan en la base de datos los eventos de la zona,
+     * como mucho hasta uno más del máximo de marcadores.
+     *
+     * @param latitudMin Latitud del borde sur.
+     * @param latitudMax Latitud del borde norte.
+     * @param longitudMin Longitud del borde oeste.
+     * @param longitudMax Longitud del borde este.
+     * @param zoom Nivel de zoom del mapa (0 a 22).
+     * @return Marcadores de los eventos de la zona o clusters que los agrupan.
+     */
+    public MapaResponse obtenerMapa(double latitudMin, double latitudMax, double longitudMin, double longitudMax, int zoom) {
+        validarRecuadro(latitudMin, latitudMax, longitudMin, longitudMax);
+        if (zoom < 0 || zoom > 22) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El nivel de zoom debe estar entre 0 y 22");
+        }
+
+        List<ClusterMapaResponse> clusters = clusterMapaService.agrupar(latitudMin, latitudMax, longitudMin, longitudMax, zoom);
+        long cotaSuperior = clusters.stream().mapToLong(ClusterMapaResponse::eventos).sum();
+
+        boolean caben = cotaSuperior <= maximoMarcadores
+                || (clusterMapaService.contarEnCeldasInteriores(latitudMin, latitudMax, longitudMin, longitudMax, zoom) <= maximoMarcadores
+                    && eventoRepository.findIdsEnRecuadro(latitudMin, latitudMax, longitudMin, longitudMax, Limit.of(maximoMarcadores + 1)).size() <= maximoMarcadores);
+
+        if (caben) {
+            List<Evento> eventos = eventoRepository.findEnRecuadro(latitudMin, latitudMax, longitudMin, longitudMax, Limit.of(maximoMarcadores));
+            List<EventoResponse> eventosResponse = new ArrayList<>(eventos.size());
+            for (Evento evento : eventos) {
+                eventosResponse.add(EventoMapper.convertirAResponse(evento));
+            }
+            return new MapaResponse(eventosResponse, List.of());
+        }
+
+        return new MapaResponse(List.of(), clusters);
+    }
+
+    /**
+     * Método para obtener los eventos a menos de una distancia de un punto, ordenados
+     * del más cercano al más lejano.
+     *
+     * @param latitud Latitud del punto.
+     * @param longitud Longitud del punto.
+     * @param radioKm Distancia máxima en kilómetros.
+     * @return Lista de eventos dentro del radio.
+     */
+    public List<EventoResponse> obtenerEventosCercanos(double latitud, double longitud, double radioKm) {
+        if (radioKm <= 0 || radioKm > radioMaximoKm) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El radio debe ser mayor que 0 y no superar " + radioMaximoKm + " km");
+        }
+
+        // El recuadro que contiene el círculo se resuelve con el índice y la base de datos devuelve solo los
+        // más cercanos; la distancia exacta se filtra después sobre esos pocos
+        double dLat = GeoUtils.gradosLatitud(radioKm);
+        double dLon = GeoUtils.gradosLongitud(radioKm, latitud);
+        validarRecuadro(latitud - dLat, latitud + dLat, longitud - dLon, longitud + dLon);
+
+        double cos = Math.cos(Math.toRadians(latitud));
+        List<Evento> candidatos = eventoRepository.findCercanosEnRecuadro(latitud, longitud, cos * cos,
+                latitud - dLat, latitud + dLat, longitud - dLon, longitud + dLon, Limit.of(maximoMarcadores));
+
+        return candidatos.stream()
+                .filter(evento -> GeoUtils.distanciaKm(latitud, longitud, evento.getLatitud(), evento.getLongitud()) <= radioKm)
+                .sorted(Comparator.comparingDouble(evento -> GeoUtils.distanciaKm(latitud, longitud, evento.getLatitud(), evento.getLongitud())))
+                .limit(maximoMarcadores)
+                .map(EventoMapper::convertirAResponse)
+                .toList();
+    }
+
+    /**
+     * Método para obtener los eventos que más usuarios han guardado. Lee el contador
+     * materializado de cada evento en el orden del índice, sin agregar "Usuario-Evento".
+     *
+     * @param tamanio Número de eventos a devolver, o null para usar el valor por defecto.
+     * @return Eventos ordenados de más a menos guardados.
+     */
+    public List<EventoResponse> obtenerEventosMasGuardados(Integer tamanio) {
+        List<Evento> eventos = eventoRepository.findAllByOrderByGuardadosDescIdAsc(Limit.of(resolverTamanioPagina(tamanio)));
+
+        List<EventoResponse> eventosResponse = new ArrayList<>(eventos.size());
+        for (Evento evento : eventos) {
+            eventosResponse.add(EventoMapper.convertirAResponse(evento));
+        }
+
+        return eventosResponse;
+    }
+
+    /**
+     * Método para buscar eventos por texto en el título, la localización y la descripción,
+     * ignorando tildes y variaciones de género y número, ordenados por relevancia.
+     *
+     * @param texto Texto a buscar. Admite frases entre comillas, OR y exclusiones con '-'.
+     * @param pagina Número de página, empezando en 0 (opcional).
+     * @param tamanio Número de eventos por página (opcional).
+     * @return Página de eventos encontrados e indicador de si hay más resultados.
+     */
+    public EventoBusquedaResponse buscarEventos(String texto, Integer pagina, Integer tamanio) {
+        if (texto == null || texto.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El texto de búsqueda no puede estar vacío");
+        }
+
+        if (pagina != null && pagina < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El número de página no puede ser negativo");
+        }
+
+        int numeroPagina = pagina == null ? 0 : pagina;
+        int tamanioPagina = resolverTamanioPagina(tamanio);
+
+        // Se pide un ID de más para saber si existe una página siguiente
+        List<Long> ids = eventoRepository.buscarIdsPorTexto(texto.strip(), tamanioPagina + 1, (long) numeroPagina * tamanioPagina);
+
+        boolean hayMas = ids.size() > tamanioPagina;
+        if (hayMas) {
+            ids = ids.subList(0, tamanioPagina);
+        }
+
+        // La carga por IDs no conserva el orden, se recoloca según la relevancia
+        Map<Long, Evento> eventosPorId = new HashMap<>();
+        for (Evento evento : eventoRepository.findByIdIn(ids)) {
+            eventosPorId.put(evento.getId(), evento);
+        }
+
+        List<EventoResponse> eventosResponse = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Evento evento = eventosPorId.get(id);
+            if (evento != null) {
+                eventosResponse.add(EventoMapper.convertirAResponse(evento));
+            }
+        }
+
+        return new EventoBusquedaResponse(eventosResponse, numeroPagina, hayMas);
+    }
+
     /**
      * Método para obtener un evento por su ID.
      *
@@ -64,7 +463,7 @@ public class EventoService {
      * @return Evento encontrado.
      */
     public EventoResponse obtenerEventoPorId(Long id) {
-        Evento eventoObtenido = obtenerEventoPorIdOExcepcion(id, "Error en EventoService.obtenerEventoPorId: No se encontró el evento con id " + id);
+        Evento eventoObtenido = obtenerEventoPorIdOExcepcion(id, "EventoService.obtenerEventoPorId");
         return EventoMapper.convertirAResponse(eventoObtenido);
     }
 
@@ -80,40 +479,54 @@ public class EventoService {
             throw new DataIntegrityViolationException("Ya existe un evento con el título y fecha indicados");
         }
 
-        Usuario usuario = usuarioService.obtenerUsuarioPorIdOExcepcion(eventoRequest.idUsuario(), "Error en EventoService.crearEvento: No se encontró el usuario con id " + eventoRequest.idUsuario());
-        Categoria categoria = categoriaService.obtenerCategoriaPorIdOExcepcion(eventoRequest.idCategoria(), "Error en EventoService.crearEvento: No se encontró la categoría con id " + eventoRequest.idCategoria());
+        Usuario usuario = usuarioService.obtenerUsuarioPorIdOExcepcion(eventoRequest.idUsuario(), "EventoService.crearEvento");
+        Categoria categoria = categoriaService.obtenerCategoriaPorIdOExcepcion(eventoRequest.idCategoria(), "EventoService.crearEvento");
 
-        log.info("antes de convertir a entidad");
         // Se convierte el DTO a entidad
-        Evento eventoNuevo = EventoMapper.convertirAEntidad(eventoRequest, usuario, categoria, storageUploader);
-        log.info("despues de convertir a entidad");
+        Evento eventoNuevo = EventoMapper.convertirAEntidad(eventoRequest, usuario, categoria);
 
         // Se guarda el nuevo evento en la base de datos
         Evento eventoCreado = eventoRepository.save(eventoNuevo);
 
+        // La foto se descarga y se almacena en Supabase en segundo plano
+        ingestaImagenesService.encolar(eventoCreado.getId(), eventoRequest.foto());
+
+        // Las coordenadas de la localización también se obtienen en segundo plano
+        geocodificacionService.encolar(eventoCreado.getId(), eventoCreado.getLocalizacion());
+
         // Se devuelve el evento creado convertido a response
         return EventoMapper.convertirAResponse(eventoCreado);
     }
 
     /**
-     * Método para eliminar un evento por su ID.
+     * Método para eliminar un evento por su ID. Se deja una marca del borrado
+     * para que la app lo quite de su copia local en la siguiente sincronización.
      *
      * @param id ID del evento a eliminar.
      */
+    @Transactional
     public void eliminarEvento(Long id) {
-        Evento evento = obtenerEventoPorIdOExcepcion(id, "Error en EventoService.eliminarEvento: No se encontró el evento con id " + id);
+        Evento evento = obtenerEventoPorIdOExcepcion(id, "EventoService.eliminarEvento");
         eventoRepository.delete(evento);
+        eventoEliminadoRepository.save(new EventoEliminado(id));
+        // Si la transacción se deshace, el evento debe seguir en el mapa
+        ejecutarTrasConfirmar(() -> clusterMapaService.eliminar(id));
     }
 
     /**
      * Método para actualizar un evento existente.
      *
      * @param id ID del evento a actualizar.
+     * El evento se lee y se guarda en la misma transacción para que, con @DynamicUpdate, solo se
+     * escriban las columnas que cambia la petición y no las que actualizan a la vez la ingesta de
+     * imágenes o la geocodificación.
+     *
      * @param eventoRequest Datos actualizados del evento.
      * @return Evento actualizado.
      */
+    @Transactional
     public EventoResponse actualizarEvento(Long id, EventoActualizarRequest eventoRequest) {
-        Evento eventoExistente = obtenerEventoPorIdOExcepcion(id, "Error en EventoService.actualizarEvento: No se encontró el evento con id " + id);
+        Evento eventoExistente = obtenerEventoPorIdOExcepcion(id, "EventoService.actualizarEvento");
 
         // Se actualizan solo los campos que no sean nulos en el request, permitiendo actualizaciones parciales
         if (eventoRequest.titulo() != null) {
@@ -128,29 +541,87 @@ public class EventoService {
             eventoExistente.setFechaHora(eventoRequest.fechaHora());
         }
 
-        if (eventoRequest.localizacion() != null) {
+        boolean localizacionCambiada = eventoRequest.localizacion() != null && !eventoRequest.localizacion().equals(eventoExistente.getLocalizacion());
+        if (localizacionCambiada) {
+            // Las coordenadas anteriores dejan de ser válidas hasta que se geocodifique la nueva localización
             eventoExistente.setLocalizacion(eventoRequest.localizacion());
+            eventoExistente.setLatitud(null);
+            eventoExistente.setLongitud(null);
         }
 
-        if (eventoRequest.foto() != null) {
+        boolean fotoCambiada = eventoRequest.foto() != null && !eventoRequest.foto().equals(eventoExistente.getFoto());
+        if (fotoCambiada) {
+            // Las variantes de la foto anterior dejan de valer hasta que se procese la nueva
             eventoExistente.setFoto(eventoRequest.foto());
+            eventoExistente.setFotoMiniatura(null);
+            eventoExistente.setFotoTarjeta(null);
+            eventoExistente.setEstadoFoto(EstadoFoto.PENDIENTE);
         }
 
         if (eventoRequest.idUsuario() != null) {
-            Usuario usuario = usuarioService.obtenerUsuarioPorIdOExcepcion(eventoRequest.idUsuario(), "Error en EventoService.actualizarEvento: No se encontró el usuario con id " + eventoRequest.idUsuario());
+            Usuario usuario = usuarioService.obtenerUsuarioPorIdOExcepcion(eventoRequest.idUsuario(), "EventoService.actualizarEvento");
             eventoExistente.setUsuario(usuario);
         }
 
         if (eventoRequest.idCategoria() != null) {
-            Categoria categoria = categoriaService.obtenerCategoriaPorIdOExcepcion(eventoRequest.idCategoria(), "Error en EventoService.actualizarEvento: No se encontró la categoría con id " + eventoRequest.idCategoria());
+            Categoria categoria = categoriaService.obtenerCategoriaPorIdOExcepcion(eventoRequest.idCategoria(), "EventoService.actualizarEvento");
             eventoExistente.setCategoria(categoria);
         }
 
-        // Se guarda el evento actualizado en la base de datos
-        Evento eventoActualizado = eventoRepository.save(eventoExistente);
+        // Se guarda el evento actualizado en la base de datos. Se sigue usando eventoExistente, que ya tiene el
+        // usuario y la categoría cargados
+        eventoRepository.save(eventoExistente);
+
+        // La geocodificación y la ingesta leen y actualizan el evento desde otros hilos, comprobando que la
+        // localización o la foto sigan siendo las suyas, así que no se encolan hasta que el cambio esté confirmado
+        if (localizacionCambiada) {
+            String localizacion = eventoExistente.getLocalizacion();
+            ejecutarTrasConfirmar(() -> {
+                clusterMapaService.eliminar(id);
+                geocodificacionService.encolar(id, localizacion);
+            });
+        }
+
+        if (fotoCambiada) {
+            String foto = eventoExistente.getFoto();
+            ejecutarTrasConfirmar(() -> ingestaImagenesService.encolar(id, foto));
+        }
 
         // Se devuelve el evento actualizado convertido a response
-        return EventoMapper.convertirAResponse(eventoActualizado);
+        return EventoMapper.convertirAResponse(eventoExistente);
+    }
+
+    // ===================
+    // Metodos de Versión
+    // ===================
+
+    /**
+     * Método para obtener la versión de los listados de eventos, para los GET condicionales.
+     * Cambia con cada alta, modificación o borrado de un evento y se resuelve con dos lecturas
+     * del máximo de un índice, sin cargar ningún evento.
+     * Como en la sincronización por cambios, una transacción que empiece antes que otra pero
+     * termine después no mueve el máximo; el ETag se corrige con la siguiente modificación.
+     *
+     * @return Versión con el ETag y el instante de la última modificación.
+     */
+    public PeticionCondicionalUtils.Version obtenerVersionEventos() {
+        Instant modificado = Objects.requireNonNullElse(eventoRepository.findMaxActualizadoEn(), Instant.EPOCH);
+        Instant eliminado = Objects.requireNonNullElse(eventoEliminadoRepository.findMaxEliminadoEn(), Instant.EPOCH);
+
+        Instant ultimaModificacion = modificado.isAfter(eliminado) ? modificado : eliminado;
+        return new PeticionCondicionalUtils.Version(PeticionCondicionalUtils.etag("eventos", modificado, eliminado), ultimaModificacion);
+    }
+
+    /**
+     * Método para obtener la versión de un evento, para los GET condicionales.
+     *
+     * @param id ID del evento.
+     * @return Versión del evento, o null si no existe.
+     */
+    public PeticionCondicionalUtils.Version obtenerVersionEvento(Long id) {
+        return eventoRepository.findActualizadoEnById(id)
+                .map(actualizadoEn -> new PeticionCondicionalUtils.Version(PeticionCondicionalUtils.etag("evento", id, actualizadoEn), actualizadoEn))
+                .orElse(null);
     }
 
     // ==================
@@ -162,10 +633,114 @@ public class EventoService {
      * personalizada si no se encuentra.
      *
      * @param id ID del evento a obtener.
-     * @param mensajeError Mensaje de error para la excepción.
+     * @param origen Clase y método que lo pide (por ejemplo "EventoService.obtenerEventoPorId"), para el mensaje de error.
      * @return Evento encontrado.
      */
-    public Evento obtenerEventoPorIdOExcepcion(Long id, String mensajeError) {
-        return eventoRepository.findById(id).orElseThrow(() -> new NoSuchElementException(mensajeError));
+    public Evento obtenerEventoPorIdOExcepcion(Long id, String origen) {
+        return eventoRepository.findById(id).orElseThrow(() -> new RecursoNoEncontradoException(CodigoError.EVENTO_NO_ENCONTRADO, origen, id));
+    }
+
+    /**
+     * Método auxiliar que ejecuta una acción cuando se confirme la transacción en curso,
+     * o en el momento si no hay ninguna.
+     *
+     * @param accion Acción a ejecutar.
+     */
+    private void ejecutarTrasConfirmar(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+
+    /**
+     * Método auxiliar para limitar el tamaño de página solicitado
+     * al rango permitido por la configuración.
+     *
+     * @param tamanio Tamaño de página solicitado, o null.
+     * @return Tamaño de página a utilizar.
+     */
+    private int resolverTamanioPagina(Integer tamanio) {
+        if (tamanio == null) {
+            return tamanioPaginaPorDefecto;
+        }
+
+        if (tamanio < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El tamaño de página debe ser mayor que 0");
+        }
+
+        return Math.min(tamanio, tamanioPaginaMaximo);
+    }
+
+    /**
+     * Método auxiliar para comparar dos posiciones del orden (instante, id) de la sincronización por cambios.
+     *
+     * @param instante1 Instante de la primera posición.
+     * @param id1 ID de la primera posición.
+     * @param instante2 Instante de la segunda posición.
+     * @param id2 ID de la segunda posición.
+     * @return Negativo, cero o positivo si la primera va antes, en el mismo sitio o después de la segunda.
+     */
+    private static int compararPosicion(Instant instante1, Long id1, Instant instante2, Long id2) {
+        int comparacion = instante1.compareTo(instante2);
+        return comparacion != 0 ? comparacion : Long.compare(id1, id2);
+    }
+
+    /**
+     * Método auxiliar para comprobar que el rango de fechas es válido y no supera
+     * la duración máxima configurada, devolviendo un error 400 si no lo es.
+     *
+     * @param desde Inicio del rango.
+     * @param hasta Fin del rango.
+     */
+    private void validarRango(LocalDateTime desde, LocalDateTime hasta) {
+        if (!desde.isBefore(hasta)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La fecha de inicio debe ser anterior a la fecha de fin");
+        }
+
+        if (Duration.between(desde, hasta).toDays() > rangoDiasMaximo) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El rango de fechas no puede superar " + rangoDiasMaximo + " días");
+        }
+    }
+
+    /**
+     * Método auxiliar para comprobar que el recuadro del mapa es válido,
+     * devolviendo un error 400 si no lo es.
+     *
+     * @param latitudMin Latitud del borde sur.
+     * @param latitudMax Latitud del borde norte.
+     * @param longitudMin Longitud del borde oeste.
+     * @param longitudMax Longitud del borde este.
+     */
+    private void validarRecuadro(double latitudMin, double latitudMax, double longitudMin, double longitudMax) {
+        if (latitudMin < -90 || latitudMax > 90 || latitudMin > latitudMax) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Latitudes fuera de rango");
+        }
+
+        if (longitudMin < -180 || longitudMax > 180 || longitudMin > longitudMax) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Longitudes fuera de rango");
+        }
+    }
+
+    /**
+     * Método auxiliar para decodificar el cursor recibido del cliente,
+     * devolviendo un error 400 si no es válido.
+     *
+     * @param cursor Cursor opaco recibido.
+     * @return Posición contenida en el cursor.
+     */
+    private CursorUtils.Cursor decodificarCursor(String cursor) {
+        try {
+            return CursorUtils.decodificar(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor de paginación inválido", e);
+        }
     }
 }
\ No newline at end of file
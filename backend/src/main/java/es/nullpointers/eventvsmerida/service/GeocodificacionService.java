@@ -0,0 +1,178 @@
+package es.nullpointers.eventvsmerida.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import es.nullpointers.eventvsmerida.entity.Evento;
+import es.nullpointers.eventvsmerida.geocodificacion.Coordenadas;
+import es.nullpointers.eventvsmerida.geocodificacion.Geocodificador;
+import es.nullpointers.eventvsmerida.repository.EventoRepository;
+import es.nullpointers.eventvsmerida.utils.TextoUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+/**
+ * Servicio que obtiene en segundo plano las coordenadas de la localización de cada evento,
+ * para poder consultarlos por zona en el mapa. Cada localización se geocodifica una sola vez:
+ * los resultados (también los no encontrados) se guardan en una caché en memoria, y las
+ * peticiones al geocodificador se hacen de una en una respetando un intervalo mínimo.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+@Slf4j
+@Service
+public class GeocodificacionService {
+    private final EventoRepository eventoRepository;
+    private final Geocodificador geocodificador;
+    private final ClusterMapaService clusterMapaService;
+
+    private final Duration intervaloMinimo;
+    private final Cache<String, Optional<Coordenadas>> cache;
+    private final ThreadPoolExecutor ejecutor;
+
+    // Instante de la última petición al geocodificador, solo se usa desde el hilo del ejecutor
+    private long ultimaPeticionNanos;
+
+    // Constructor que con @Value obtiene la configuración del application.properties
+    public GeocodificacionService(
+            EventoRepository eventoRepository,
+            Geocodificador geocodificador,
+            ClusterMapaService clusterMapaService,
+            @Value("${geocodificacion.capacidad-cola:500}") int capacidadCola,
+            @Value("${geocodificacion.intervalo-minimo:1s}") Duration intervaloMinimo,
+            @Value("${geocodificacion.cache.tamanio-maximo:10000}") long tamanioCache,
+            @Value("${geocodificacion.cache.expiracion:30d}") Duration expiracionCache
+    ) {
+        this.eventoRepository = eventoRepository;
+        this.geocodificador = geocodificador;
+        this.clusterMapaService = clusterMapaService;
+        this.intervaloMinimo = intervaloMinimo;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tamanioCache)
+                .expireAfterWrite(expiracionCache)
+                .build();
+
+        // Un solo hilo: las peticiones al geocodificador van en serie para respetar su límite de uso
+        this.ejecutor = new ThreadPoolExecutor(
+                1, 1,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadCola),
+                Thread.ofPlatform().name("geocodificacion").factory()
+        );
+    }
+
+    /**
+     * Método que añade un evento a la cola de geocodificación.
+     * Si la cola está llena, el evento se queda sin coordenadas hasta el siguiente arranque.
+     *
+     * @param idEvento ID del evento.
+     * @param localizacion Localización del evento.
+     */
+    public void encolar(Long idEvento, String localizacion) {
+        try {
+            ejecutor.execute(() -> procesar(idEvento, localizacion));
+        } catch (RejectedExecutionException e) {
+            log.warn("Cola de geocodificación llena, el evento {} se geocodificará en el siguiente arranque", idEvento);
+        }
+    }
+
+    /**
+     * Método que encola, al arrancar la aplicación, los eventos que todavía no tienen coordenadas.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void completarPendientes() {
+        List<Evento> pendientes = eventoRepository.findByLatitudIsNull();
+
+        if (!pendientes.isEmpty()) {
+            log.info("Geocodificando {} eventos sin coordenadas", pendientes.size());
+        }
+
+        for (Evento evento : pendientes) {
+            encolar(evento.getId(), evento.getLocalizacion());
+        }
+    }
+
+    /**
+     * Método que detiene el hilo de la cola al cerrar la aplicación.
+     */
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdownNow();
+    }
+
+    // ================
+    // Métodos Privados
+    // ================
+
+    /**
+     * Método auxiliar que obtiene las coordenadas de la localización, de la caché o del
+     * geocodificador, y las guarda en el evento.
+     *
+     * @param idEvento ID del evento.
+     * @param localizacion Localización del evento.
+     */
+    private void procesar(Long idEvento, String localizacion) {
+        String clave = TextoUtils.normalizarTexto(localizacion);
+        if (clave == null) {
+            return;
+        }
+
+        Optional<Coordenadas> coordenadas = cache.getIfPresent(clave);
+        if (coordenadas == null) {
+            try {
+                coordenadas = consultarGeocodificador(localizacion);
+            } catch (RuntimeException e) {
+                // Los errores no se guardan en caché para volver a intentarlo en otra ocasión
+                log.warn("No se pudo geocodificar la localización del evento {} ({}): {}", idEvento, localizacion, e.getMessage());
+                return;
+            }
+            cache.put(clave, coordenadas);
+        }
+
+        if (coordenadas.isEmpty()) {
+            log.info("No se encontraron coordenadas para la localización del evento {} ({})", idEvento, localizacion);
+            return;
+        }
+
+        // Si la localización ha cambiado mientras tanto, no se actualiza: ya hay otra petición en la cola
+        Coordenadas posicion = coordenadas.get();
+        if (eventoRepository.actualizarCoordenadas(idEvento, localizacion, posicion.latitud(), posicion.longitud()) > 0) {
+            clusterMapaService.actualizar(idEvento, posicion.latitud(), posicion.longitud());
+        }
+    }
+
+    /**
+     * Método auxiliar que llama al geocodificador esperando lo necesario para que entre
+     * dos peticiones pase al menos el intervalo mínimo configurado.
+     *
+     * @param localizacion Localización a geocodificar.
+     * @return Coordenadas encontradas, o vacío si no hay resultados.
+     */
+    private Optional<Coordenadas> consultarGeocodificador(String localizacion) {
+        long espera = ultimaPeticionNanos + intervaloMinimo.toNanos() - System.nanoTime();
+        if (ultimaPeticionNanos != 0 && espera > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(espera);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrumpido esperando para geocodificar", e);
+            }
+        }
+
+        try {
+            return geocodificador.geocodificar(localizacion);
+        } finally {
+            ultimaPeticionNanos = System.nanoTime();
+        }
+    }
+}
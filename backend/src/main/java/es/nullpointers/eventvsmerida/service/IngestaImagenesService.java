@@ -0,0 +1,219 @@
+package es.nullpointers.eventvsmerida.service;
+
+import es.nullpointers.eventvsmerida.entity.EstadoFoto;
+import es.nullpointers.eventvsmerida.entity.Evento;
+import es.nullpointers.eventvsmerida.repository.EventoRepository;
+import es.nullpointers.eventvsmerida.supabase.ImagenAlmacenada;
+import es.nullpointers.eventvsmerida.supabase.SupabaseStorage;
+import es.nullpointers.eventvsmerida.supabase.VarianteImagen;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Servicio que descarga las fotos de los eventos desde su URL de origen y las
+ * almacena en el bucket de Supabase en segundo plano, para que la creación de
+ * un evento no dependa de la latencia de servidores de imágenes de terceros.
+ * Además del original se guardan sus variantes reducidas (miniatura y tarjeta).
+ * Las tareas se procesan en una cola acotada con reintentos y el progreso
+ * queda reflejado en el campo estadoFoto del evento.
+ * Con hilos virtuales cada foto tiene su propio hilo, de modo que un servidor
+ * de imágenes lento no bloquea al resto; un semáforo limita las descargas
+ * simultáneas y otro el total de fotos en curso y en espera.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+@Slf4j
+@Service
+public class IngestaImagenesService {
+    private final EventoRepository eventoRepository;
+    private final SupabaseStorage supabaseStorage;
+
+    private final int maximoIntentos;
+    private final Duration retrasoReintento;
+
+    private final ExecutorService ejecutor;
+    private final ScheduledExecutorService planificadorReintentos;
+
+    // Solo con hilos virtuales: plazas de la cola (fotos en curso y en espera) y descargas simultáneas
+    private final Semaphore plazas;
+    private final Semaphore descargasSimultaneas;
+
+    // Constructor que con @Value obtiene la configuración de la cola del application.properties
+    public IngestaImagenesService(
+            EventoRepository eventoRepository,
+            SupabaseStorage supabaseStorage,
+            @Value("${imagenes.ingesta.hilos:2}") int hilos,
+            @Value("${imagenes.ingesta.capacidad-cola:200}") int capacidadCola,
+            @Value("${imagenes.ingesta.maximo-intentos:3}") int maximoIntentos,
+            @Value("${imagenes.ingesta.retraso-reintento:5s}") Duration retrasoReintento,
+            @Value("${imagenes.ingesta.hilos-virtuales:${spring.threads.virtual.enabled:false}}") boolean hilosVirtuales,
+            @Value("${imagenes.ingesta.descargas-simultaneas:32}") int descargasSimultaneas
+    ) {
+        this.eventoRepository = eventoRepository;
+        this.supabaseStorage = supabaseStorage;
+        this.maximoIntentos = maximoIntentos;
+        this.retrasoReintento = retrasoReintento;
+
+        if (hilosVirtuales) {
+            this.ejecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ingesta-imagen-", 0).factory());
+            this.plazas = new Semaphore(descargasSimultaneas + capacidadCola);
+            this.descargasSimultaneas = new Semaphore(descargasSimultaneas);
+        } else {
+            this.ejecutor = new ThreadPoolExecutor(
+                    hilos, hilos,
+                    0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(capacidadCola),
+                    Thread.ofPlatform().name("ingesta-imagen-", 0).factory()
+            );
+            this.plazas = null;
+            this.descargasSimultaneas = null;
+        }
+        this.planificadorReintentos = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("ingesta-imagen-reintentos").daemon().factory()
+        );
+    }
+
+    /**
+     * Método que añade la foto de un evento a la cola de ingesta.
+     * Si la cola está llena, el evento conserva la URL de origen y se marca con error.
+     *
+     * @param idEvento ID del evento cuya foto se va a almacenar.
+     * @param urlOrigen URL de la imagen que se desea almacenar.
+     */
+    public void encolar(Long idEvento, String urlOrigen) {
+        encolar(idEvento, urlOrigen, 1);
+    }
+
+    /**
+     * Método que vuelve a encolar, al arrancar la aplicación, las fotos
+     * que quedaron pendientes o a medias en una ejecución anterior.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reanudarPendientes() {
+        List<Evento> pendientes = eventoRepository.findByEstadoFotoIn(List.of(EstadoFoto.PENDIENTE, EstadoFoto.PROCESANDO));
+
+        if (!pendientes.isEmpty()) {
+            log.info("Reanudando la ingesta de {} fotos pendientes", pendientes.size());
+        }
+
+        for (Evento evento : pendientes) {
+            encolar(evento.getId(), evento.getFoto());
+        }
+    }
+
+    /**
+     * Método que detiene los hilos de la cola al cerrar la aplicación.
+     * Las tareas sin terminar se reanudan en el siguiente arranque.
+     */
+    @PreDestroy
+    public void detener() {
+        planificadorReintentos.shutdownNow();
+        ejecutor.shutdownNow();
+    }
+
+    // ================
+    // Métodos Privados
+    // ================
+
+    /**
+     * Método auxiliar que envía una tarea a la cola indicando el número de intento.
+     *
+     * @param idEvento ID del evento.
+     * @param urlOrigen URL de la imagen de origen.
+     * @param intento Número de intento, empezando en 1.
+     */
+    private void encolar(Long idEvento, String urlOrigen, int intento) {
+        try {
+            if (plazas == null) {
+                ejecutor.execute(() -> procesar(idEvento, urlOrigen, intento));
+            } else if (plazas.tryAcquire()) {
+                ejecutor.execute(() -> procesarEnHiloVirtual(idEvento, urlOrigen, intento));
+            } else {
+                throw new RejectedExecutionException();
+            }
+        } catch (RejectedExecutionException e) {
+            log.error("Error en IngestaImagenesService.encolar: cola de ingesta llena, no se pudo procesar la foto del evento {}", idEvento);
+            eventoRepository.actualizarEstadoFoto(idEvento, urlOrigen, EstadoFoto.ERROR);
+        }
+    }
+
+    /**
+     * Método auxiliar que procesa la foto en su hilo virtual cuando hay hueco entre las
+     * descargas simultáneas, y libera su plaza de la cola al terminar.
+     *
+     * @param idEvento ID del evento.
+     * @param urlOrigen URL de la imagen de origen.
+     * @param intento Número de intento, empezando en 1.
+     */
+    private void procesarEnHiloVirtual(Long idEvento, String urlOrigen, int intento) {
+        try {
+            descargasSimultaneas.acquire();
+            try {
+                procesar(idEvento, urlOrigen, intento);
+            } finally {
+                descargasSimultaneas.release();
+            }
+        } catch (InterruptedException e) {
+            // La aplicación se está cerrando: la foto sigue pendiente y se reanuda en el siguiente arranque
+            Thread.currentThread().interrupt();
+        } finally {
+            plazas.release();
+        }
+    }
+
+    /**
+     * Método auxiliar que descarga la imagen, la sube al bucket y actualiza la foto del evento.
+     * Si falla, se reintenta con un retraso creciente hasta agotar los intentos.
+     *
+     * @param idEvento ID del evento.
+     * @param urlOrigen URL de la imagen de origen.
+     * @param intento Número de intento, empezando en 1.
+     */
+    private void procesar(Long idEvento, String urlOrigen, int intento) {
+        // Si la foto ha cambiado mientras la tarea esperaba en la cola, la nueva ya tiene su propia tarea
+        if (eventoRepository.actualizarEstadoFoto(idEvento, urlOrigen, EstadoFoto.PROCESANDO) == 0) {
+            log.info("La foto del evento {} ha cambiado o el evento ya no existe, se descarta la tarea de {}", idEvento, urlOrigen);
+            return;
+        }
+
+        try {
+            ImagenAlmacenada imagen = supabaseStorage.subirImagen(urlOrigen);
+            int actualizados = eventoRepository.actualizarFoto(
+                    idEvento,
+                    urlOrigen,
+                    imagen.urlPublica(),
+                    imagen.urlVariante(VarianteImagen.MINIATURA),
+                    imagen.urlVariante(VarianteImagen.TARJETA),
+                    EstadoFoto.COMPLETADA
+            );
+
+            if (actualizados == 0) {
+                log.info("La foto del evento {} ha cambiado durante la ingesta, se descarta la imagen de {}", idEvento, urlOrigen);
+                return;
+            }
+            log.info("Foto del evento {} almacenada en {}", idEvento, imagen.urlPublica());
+        } catch (RuntimeException e) {
+            if (intento >= maximoIntentos) {
+                log.error("Error en IngestaImagenesService.procesar: no se pudo almacenar la foto del evento {} tras {} intentos: {}", idEvento, intento, e.getMessage());
+                eventoRepository.actualizarEstadoFoto(idEvento, urlOrigen, EstadoFoto.ERROR);
+                return;
+            }
+
+            // Retraso exponencial: base, 2 * base, 4 * base...
+            long retraso = retrasoReintento.toMillis() << (intento - 1);
+            log.warn("Fallo al almacenar la foto del evento {} (intento {}), se reintentará en {} ms: {}", idEvento, intento, retraso, e.getMessage());
+            eventoRepository.actualizarEstadoFoto(idEvento, urlOrigen, EstadoFoto.PENDIENTE);
+            planificadorReintentos.schedule(() -> encolar(idEvento, urlOrigen, intento + 1), retraso, TimeUnit.MILLISECONDS);
+        }
+    }
+}
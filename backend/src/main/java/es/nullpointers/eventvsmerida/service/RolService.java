@@ -1,22 +1,30 @@
 package es.nullpointers.eventvsmerida.service;
 
+import es.nullpointers.eventvsmerida.cache.CacheConfig;
 import es.nullpointers.eventvsmerida.dto.request.RolRequest;
 import es.nullpointers.eventvsmerida.dto.response.RolResponse;
 import es.nullpointers.eventvsmerida.entity.Rol;
+import es.nullpointers.eventvsmerida.exception.CodigoError;
+import es.nullpointers.eventvsmerida.exception.RecursoNoEncontradoException;
 import es.nullpointers.eventvsmerida.mapper.RolMapper;
 import es.nullpointers.eventvsmerida.repository.RolRepository;
+import es.nullpointers.eventvsmerida.utils.PeticionCondicionalUtils;
 import jakarta.persistence.NoResultException;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.NoSuchElementException;
 
 /**
  * Servicio para gestionar la logica de negocio relacionada con la
  * entidad Rol.
+ * Las lecturas se sirven desde caché y las escrituras la invalidan.
  *
  * @author Eva Retamar
  * @author David Muñoz
@@ -28,6 +36,10 @@ import java.util.NoSuchElementException;
 public class RolService {
     private final RolRepository rolRepository;
 
+    // Versión del catálogo para los GET condicionales. Las respuestas se guardan en caché por versión:
+    // la versión se lee antes que los datos, así que un ETag nunca acompaña a datos más antiguos que él
+    private final VersionCatalogoService versionCatalogoService;
+
     // ============
     // Metodos CRUD
     // ============
@@ -35,9 +47,11 @@ public class RolService {
     /**
      * Metodo para obtener todos los roles.
      *
+     * @param version Versión del catálogo leída antes de cargar los datos, que identifica la entrada de la caché.
      * @return Lista de roles.
      */
-    public List<RolResponse> obtenerRoles() {
+    @Cacheable(cacheNames = CacheConfig.ROLES_RESPONSE, key = "#version.etag()")
+    public List<RolResponse> obtenerRoles(PeticionCondicionalUtils.Version version) {
         List<Rol> roles = rolRepository.findAll();
         List<RolResponse> rolesResponse = new ArrayList<>();
 
@@ -56,10 +70,12 @@ public class RolService {
      * Metodo para obtener un rol por su ID.
      *
      * @param id ID del rol a obtener.
+     * @param version Versión del catálogo leída antes de cargar los datos, que identifica la entrada de la caché.
      * @return Rol encontrado.
      */
-    public RolResponse obtenerRolPorId(Long id) {
-        Rol rolObtenido = obtenerRolPorIdOExcepcion(id, "Error en RolService.obtenerRolPorId: No se encontró el rol con id " + id);
+    @Cacheable(cacheNames = CacheConfig.ROLES_RESPONSE, key = "#version.etag() + '|' + #id")
+    public RolResponse obtenerRolPorId(Long id, PeticionCondicionalUtils.Version version) {
+        Rol rolObtenido = obtenerRolPorIdOExcepcion(id, "RolService.obtenerRolPorId");
         return RolMapper.convertirAResponse(rolObtenido);
     }
 
@@ -69,9 +85,12 @@ public class RolService {
      * @param rolRequest Datos del rol a crear.
      * @return Rol creado.
      */
+    @CacheEvict(cacheNames = CacheConfig.ROLES_RESPONSE, allEntries = true, beforeInvocation = true)
+    @Transactional
     public RolResponse crearRol(RolRequest rolRequest) {
         Rol rolNuevo = RolMapper.convertirAEntidad(rolRequest);
         Rol rolCreado = rolRepository.save(rolNuevo);
+        versionCatalogoService.incrementar(VersionCatalogoService.ROLES);
         return RolMapper.convertirAResponse(rolCreado);
     }
 
@@ -80,9 +99,15 @@ public class RolService {
      *
      * @param id ID del rol a eliminar.
      */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.ROLES, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.ROLES_RESPONSE, allEntries = true, beforeInvocation = true)
+    })
+    @Transactional
     public void eliminarRol(Long id) {
-        Rol rol = obtenerRolPorIdOExcepcion(id, "Error en RolService.eliminarRol: No se encontró el rol con id " + id);
+        Rol rol = obtenerRolPorIdOExcepcion(id, "RolService.eliminarRol");
         rolRepository.delete(rol);
+        versionCatalogoService.incrementar(VersionCatalogoService.ROLES);
     }
 
     /**
@@ -92,15 +117,31 @@ public class RolService {
      * @param rolRequest Datos actualizados del rol.
      * @return Rol actualizado.
      */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.ROLES, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.ROLES_RESPONSE, allEntries = true, beforeInvocation = true)
+    })
+    @Transactional
     public RolResponse actualizarRol(Long id, RolRequest rolRequest) {
-        Rol rolExistente = obtenerRolPorIdOExcepcion(id, "Error en RolService.actualizarRol: No se encontró el rol con id " + id);
+        Rol rolExistente = obtenerRolPorIdOExcepcion(id, "RolService.actualizarRol");
 
         rolExistente.setNombre(rolRequest.nombre());
         Rol rolActualizado = rolRepository.save(rolExistente);
+        versionCatalogoService.incrementar(VersionCatalogoService.ROLES);
 
         return RolMapper.convertirAResponse(rolActualizado);
     }
 
+    /**
+     * Metodo para obtener la version actual del catalogo de roles, para los GET condicionales.
+     * Sirve tanto para el listado como para cada rol.
+     *
+     * @return Version con el ETag y el instante de la ultima modificacion.
+     */
+    public PeticionCondicionalUtils.Version obtenerVersion() {
+        return versionCatalogoService.obtener(VersionCatalogoService.ROLES);
+    }
+
     // ==================
     // Metodos Auxiliares
     // ==================
@@ -109,10 +150,11 @@ public class RolService {
      * Metodo privado para obtener un rol por su ID o lanzar una excepcion personalizada si no se encuentra.
      *
      * @param id ID del rol a obtener.
-     * @param mensajeError Mensaje de error para la excepcion.
+     * @param origen Clase y método que lo pide, para el mensaje de error.
      * @return Rol encontrado.
      */
-    public Rol obtenerRolPorIdOExcepcion(Long id, String mensajeError) {
-        return rolRepository.findById(id).orElseThrow(() -> new NoSuchElementException(mensajeError));
+    @Cacheable(cacheNames = CacheConfig.ROLES, key = "#id")
+    public Rol obtenerRolPorIdOExcepcion(Long id, String origen) {
+        return rolRepository.findById(id).orElseThrow(() -> new RecursoNoEncontradoException(CodigoError.ROL_NO_ENCONTRADO, origen, id));
     }
 }
\ No newline at end of file
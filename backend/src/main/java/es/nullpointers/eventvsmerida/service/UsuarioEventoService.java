@@ -1,22 +1,34 @@
 package es.nullpointers.eventvsmerida.service;
 
+import es.nullpointers.eventvsmerida.dto.request.LoteGuardadosRequest;
 import es.nullpointers.eventvsmerida.dto.request.UsuarioEventoRequest;
 import es.nullpointers.eventvsmerida.dto.response.EventoResponse;
+import es.nullpointers.eventvsmerida.dto.response.ResultadoGuardadoResponse;
 import es.nullpointers.eventvsmerida.entity.Usuario;
 import es.nullpointers.eventvsmerida.entity.Evento;
 import es.nullpointers.eventvsmerida.entity.UsuarioEvento;
 import es.nullpointers.eventvsmerida.entity.UsuarioEventoId;
+import es.nullpointers.eventvsmerida.exception.CodigoError;
+import es.nullpointers.eventvsmerida.exception.RecursoNoEncontradoException;
 import es.nullpointers.eventvsmerida.mapper.EventoMapper;
 import es.nullpointers.eventvsmerida.repository.UsuarioRepository;
 import es.nullpointers.eventvsmerida.repository.EventoRepository;
+import es.nullpointers.eventvsmerida.repository.UsuarioEventoLoteRepository;
 import es.nullpointers.eventvsmerida.repository.UsuarioEventoRepository;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
  * Servicio para gestionar la logica de negocio relacionada con la
@@ -33,15 +45,19 @@ public class UsuarioEventoService {
     private final UsuarioRepository usuarioRepository;
     private final EventoRepository eventoRepository;
     private final UsuarioEventoRepository usuarioEventoRepository;
+    private final UsuarioEventoLoteRepository usuarioEventoLoteRepository;
 
+    @Value("${usuario-eventos.lote.maximo-operaciones:500}")
+    private int maximoOperacionesLote;
+
+    @Transactional
     public void guardarUsuarioEvento(UsuarioEventoRequest request) {
         // Buscar el usuario por email y el evento por título y fechaHora, lanzando excepciones si no se encuentran
         Usuario usuario = usuarioRepository.findByEmail(request.emailUsuario())
-                .orElseThrow(() -> new NoSuchElementException("Error en UsuarioEventoService.guardarUsuarioEvento: No se encontró el usuario con email " + request.emailUsuario()));
+                .orElseThrow(() -> new RecursoNoEncontradoException(CodigoError.USUARIO_EMAIL_NO_ENCONTRADO, "UsuarioEventoService.guardarUsuarioEvento", request.emailUsuario()));
 
         Evento evento = eventoRepository.findByTituloAndFechaHora(request.tituloEvento(), request.fechaHoraEvento())
-                .orElseThrow(() -> new NoSuchElementException("Error en UsuarioEventoService.guardarUsuarioEvento: No se encontró el evento con título '" + request.tituloEvento()
-                        + "' y fechaHora " + request.fechaHoraEvento()));
+                .orElseThrow(() -> new RecursoNoEncontradoException(CodigoError.EVENTO_TITULO_NO_ENCONTRADO, "UsuarioEventoService.guardarUsuarioEvento", request.tituloEvento(), request.fechaHoraEvento()));
 
         // Verificar si la relación ya existe antes de guardarla, lanzando una excepción si es así
         UsuarioEventoId id = new UsuarioEventoId();
@@ -59,39 +75,128 @@ public class UsuarioEventoService {
         relacion.setEvento(evento);
 
         usuarioEventoRepository.save(relacion);
+
+        // El contador se actualiza en la misma transacción: si la relación falla, no se incrementa
+        eventoRepository.sumarGuardados(evento.getId(), 1);
     }
 
+    @Transactional
     public void eliminarUsuarioEvento(UsuarioEventoRequest request) {
         // Buscar el usuario por email y el evento por título y fechaHora, lanzando excepciones si no se encuentran
         Usuario usuario = usuarioRepository.findByEmail(request.emailUsuario())
-                .orElseThrow(() -> new NoSuchElementException("Error en UsuarioEventoService.eliminarUsuarioEvento: No se encontró el usuario con email " + request.emailUsuario()));
+                .orElseThrow(() -> new RecursoNoEncontradoException(CodigoError.USUARIO_EMAIL_NO_ENCONTRADO, "UsuarioEventoService.eliminarUsuarioEvento", request.emailUsuario()));
 
         Evento evento = eventoRepository.findByTituloAndFechaHora(request.tituloEvento(), request.fechaHoraEvento())
-                .orElseThrow(() -> new NoSuchElementException("Error en UsuarioEventoService.eliminarUsuarioEvento: No se encontró el evento con título '" + request.tituloEvento()
-                        + "' y fechaHora " + request.fechaHoraEvento()));
+                .orElseThrow(() -> new RecursoNoEncontradoException(CodigoError.EVENTO_TITULO_NO_ENCONTRADO, "UsuarioEventoService.eliminarUsuarioEvento", request.tituloEvento(), request.fechaHoraEvento()));
 
-        // Verificar si la relación existe antes de eliminarla, lanzando una excepción si no es así
-        UsuarioEventoId id = new UsuarioEventoId();
-        id.setIdUsuario(usuario.getId());
-        id.setIdEvento(evento.getId());
+        // Se borra la relación con una sola sentencia y solo se resta del contador si se ha borrado una fila:
+        // si dos peticiones quitan el evento a la vez, la segunda no borra nada y no descuenta dos veces
+        if (usuarioEventoRepository.eliminar(usuario.getId(), evento.getId()) == 0) {
+            throw new RecursoNoEncontradoException(CodigoError.EVENTO_NO_GUARDADO, "UsuarioEventoService.eliminarUsuarioEvento");
+        }
+
+        eventoRepository.sumarGuardados(evento.getId(), -1);
+    }
+
+    /**
+     * Metodo para guardar un evento a un usuario a partir de sus IDs, con una única sentencia.
+     * Es idempotente: guardar un evento que ya estaba guardado no hace nada.
+     *
+     * @param idUsuario ID del usuario.
+     * @param idEvento ID del evento.
+     * @return true si el evento se ha guardado ahora, false si ya estaba guardado.
+     */
+    public boolean guardarEventoPorId(Long idUsuario, Long idEvento) {
+        int filas;
+        try {
+            filas = usuarioEventoRepository.guardar(idUsuario, idEvento);
+        } catch (DataIntegrityViolationException e) {
+            // La clave foránea falla si no existe el usuario
+            throw new RecursoNoEncontradoException(CodigoError.USUARIO_O_EVENTO_NO_ENCONTRADO, "UsuarioEventoService.guardarEventoPorId", idUsuario, idEvento);
+        }
+
+        // Si no se ha guardado nada, o ya estaba guardado o el evento no existe
+        if (filas == 0 && !eventoRepository.existsById(idEvento)) {
+            throw new RecursoNoEncontradoException(CodigoError.USUARIO_O_EVENTO_NO_ENCONTRADO, "UsuarioEventoService.guardarEventoPorId", idUsuario, idEvento);
+        }
+
+        return filas > 0;
+    }
+
+    /**
+     * Metodo para quitar un evento guardado de un usuario a partir de sus IDs, con una única sentencia.
+     * Es idempotente: quitar un evento que no estaba guardado no hace nada.
+     *
+     * @param idUsuario ID del usuario.
+     * @param idEvento ID del evento.
+     * @return true si el evento estaba guardado y se ha quitado.
+     */
+    public boolean quitarEventoPorId(Long idUsuario, Long idEvento) {
+        return usuarioEventoRepository.quitar(idUsuario, idEvento) > 0;
+    }
+
+    /**
+     * Metodo para aplicar un lote de operaciones de guardar y quitar eventos de un usuario
+     * en una sola transacción, con lotes JDBC en lugar de una petición por operación.
+     * Las operaciones sobre eventos que no existen se omiten para que no anulen el resto.
+     *
+     * @param idUsuario ID del usuario.
+     * @param request Operaciones a aplicar, en orden.
+     * @return Resultado de cada operación, en el mismo orden.
+     */
+    @Transactional
+    public List<ResultadoGuardadoResponse> aplicarLoteGuardados(Long idUsuario, LoteGuardadosRequest request) {
+        List<LoteGuardadosRequest.Operacion> operaciones = request.operaciones();
+
+        if (operaciones.size() > maximoOperacionesLote) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Un lote no puede tener más de " + maximoOperacionesLote + " operaciones");
+        }
+
+        if (!usuarioRepository.existsById(idUsuario)) {
+            throw new RecursoNoEncontradoException(CodigoError.USUARIO_NO_ENCONTRADO, "UsuarioEventoService.aplicarLoteGuardados", idUsuario);
+        }
+
+        // Se comprueba en una consulta qué eventos existen para informar de los que no. Si alguno se borra
+        // después, la sentencia de guardar lo omite en lugar de abortar toda la transacción
+        Set<Long> idsPedidos = new HashSet<>();
+        for (LoteGuardadosRequest.Operacion operacion : operaciones) {
+            idsPedidos.add(operacion.idEvento());
+        }
+        Set<Long> idsExistentes = new HashSet<>(eventoRepository.findIdsExistentes(idsPedidos));
+
+        List<LoteGuardadosRequest.Operacion> aplicables = new ArrayList<>(operaciones.size());
+        for (LoteGuardadosRequest.Operacion operacion : operaciones) {
+            if (idsExistentes.contains(operacion.idEvento())) {
+                aplicables.add(operacion);
+            }
+        }
 
-        if (!usuarioEventoRepository.existsById(id)) {
-            throw new NoSuchElementException("Error en UsuarioEventoService.eliminarUsuarioEvento: El usuario no tenía guardado este evento");
+        int[] filas = usuarioEventoLoteRepository.aplicar(idUsuario, aplicables);
+
+        List<ResultadoGuardadoResponse> resultados = new ArrayList<>(operaciones.size());
+        int siguiente = 0;
+        for (LoteGuardadosRequest.Operacion operacion : operaciones) {
+            ResultadoGuardadoResponse.Resultado resultado;
+            if (!idsExistentes.contains(operacion.idEvento())) {
+                resultado = ResultadoGuardadoResponse.Resultado.EVENTO_NO_ENCONTRADO;
+            } else {
+                resultado = filas[siguiente++] > 0 ? ResultadoGuardadoResponse.Resultado.APLICADA : ResultadoGuardadoResponse.Resultado.SIN_CAMBIOS;
+            }
+            resultados.add(new ResultadoGuardadoResponse(operacion.idEvento(), operacion.accion(), resultado));
         }
 
-        // Eliminar la relación entre el usuario y el evento de la base de datos
-        usuarioEventoRepository.deleteById(id);
+        return resultados;
     }
 
     public List<EventoResponse> obtenerEventosGuardadosPorUsuario(String emailUsuario) {
         // Buscar el usuario por email, lanzando una excepción si no se encuentra
         Usuario usuario = usuarioRepository.findByEmail(emailUsuario)
-                .orElseThrow(() -> new NoSuchElementException("Error en UsuarioEventoService.obtenerEventosGuardadosPorUsuario: No se encontró el usuario con email " + emailUsuario));
+                .orElseThrow(() -> new RecursoNoEncontradoException(CodigoError.USUARIO_EMAIL_NO_ENCONTRADO, "UsuarioEventoService.obtenerEventosGuardadosPorUsuario", emailUsuario));
 
         // Buscar las relaciones entre el usuario y los eventos guardados, lanzando una excepción si no se encuentran
         List<UsuarioEvento> relaciones = usuarioEventoRepository.findByIdIdUsuario(usuario.getId());
         if (relaciones.isEmpty()) {
-            throw new NoSuchElementException("Error en UsuarioEventoService.obtenerEventosGuardadosPorUsuario: El usuario con email " + emailUsuario + " no tiene eventos guardados");
+            throw new RecursoNoEncontradoException(CodigoError.SIN_EVENTOS_GUARDADOS, "UsuarioEventoService.obtenerEventosGuardadosPorUsuario", emailUsuario);
         }
 
         // Convertir las entidades Evento a DTOs EventoResponse y devolver la lista resultante
@@ -1,22 +1,34 @@
 package es.nullpointers.eventvsmerida.service;
 
+import es.nullpointers.eventvsmerida.cache.CacheConfig;
 import es.nullpointers.eventvsmerida.dto.request.UsuarioActualizarRequest;
 import es.nullpointers.eventvsmerida.dto.request.UsuarioCrearRequest;
+import es.nullpointers.eventvsmerida.dto.response.LoginResponse;
 import es.nullpointers.eventvsmerida.dto.response.UsuarioResponse;
 import es.nullpointers.eventvsmerida.entity.Rol;
 import es.nullpointers.eventvsmerida.entity.Usuario;
+import es.nullpointers.eventvsmerida.exception.CodigoError;
+import es.nullpointers.eventvsmerida.exception.RecursoNoEncontradoException;
 import es.nullpointers.eventvsmerida.mapper.UsuarioMapper;
+import es.nullpointers.eventvsmerida.repository.EventoRepository;
 import es.nullpointers.eventvsmerida.repository.UsuarioRepository;
+import es.nullpointers.eventvsmerida.security.ContraseniaService;
+import es.nullpointers.eventvsmerida.security.LimitadorLogin;
+import es.nullpointers.eventvsmerida.security.TokenService;
 import jakarta.persistence.NoResultException;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.Objects;
 
 /**
  * Servicio para gestionar la logica de negocio relacionada con la
@@ -31,8 +43,12 @@ import java.util.NoSuchElementException;
 @Service
 public class UsuarioService {
     private final UsuarioRepository usuarioRepository;
+    private final EventoRepository eventoRepository;
     private final RolService rolService;
-    private final PasswordEncoder passwordEncoder;
+    private final ContraseniaService contraseniaService;
+    private final LimitadorLogin limitadorLogin;
+    private final CacheManager cacheManager;
+    private final TokenService tokenService;
 
     // ============
     // Metodos CRUD
@@ -65,7 +81,7 @@ public class UsuarioService {
      * @return Usuario encontrado.
      */
     public UsuarioResponse obtenerUsuarioPorId(Long id) {
-        Usuario usuarioObtenido = obtenerUsuarioPorIdOExcepcion(id, "Error en UsuarioService.obtenerUsuarioPorId: No se encontró el usuario con id " + id);
+        Usuario usuarioObtenido = obtenerUsuarioPorIdOExcepcion(id, "UsuarioService.obtenerUsuarioPorId");
         return UsuarioMapper.convertirAResponse(usuarioObtenido);
     }
 
@@ -77,11 +93,11 @@ public class UsuarioService {
      */
     public UsuarioResponse crearUsuario(UsuarioCrearRequest usuarioRequest) {
         // Se hacen las comprobaciones necesarias para evitar errores de integridad de datos
-        Rol rol = rolService.obtenerRolPorIdOExcepcion(usuarioRequest.idRol(), "Error en UsuarioService.crearUsuario: No se encontró el rol con id " + usuarioRequest.idRol());
+        Rol rol = rolService.obtenerRolPorIdOExcepcion(usuarioRequest.idRol(), "UsuarioService.crearUsuario");
 
         // Se convierte el DTO a entidad y se codifica la contraseña
         Usuario usuarioNuevo = UsuarioMapper.convertirAEntidad(usuarioRequest, rol);
-        usuarioNuevo.setPassword(passwordEncoder.encode(usuarioNuevo.getPassword()));
+        usuarioNuevo.setPassword(contraseniaService.codificar(usuarioNuevo.getPassword()));
 
         // Se guarda el nuevo usuario en la base de datos
         Usuario usuarioCreado = usuarioRepository.save(usuarioNuevo);
@@ -95,9 +111,14 @@ public class UsuarioService {
      *
      * @param id ID del usuario a eliminar.
      */
+    @Transactional
     public void eliminarUsuario(Long id) {
-        Usuario usuario = obtenerUsuarioPorIdOExcepcion(id, "Error en UsuarioService.eliminarUsuario: No se encontró el usuario con id " + id);
+        Usuario usuario = obtenerUsuarioPorIdOExcepcion(id, "UsuarioService.eliminarUsuario");
+        // Al borrarlo, la base de datos cambia el organizador de sus eventos sin tocar actualizadoEn,
+        // así que se marcan antes como modificados para que lleguen en la sincronización por cambios
+        eventoRepository.marcarActualizadosPorUsuario(id);
         usuarioRepository.delete(usuario);
+        invalidarAutenticacion(usuario.getEmail());
     }
 
     /**
@@ -108,7 +129,9 @@ public class UsuarioService {
      * @return Usuario actualizado.
      */
     public UsuarioResponse actualizarUsuario(Long id, UsuarioActualizarRequest usuarioRequest) {
-        Usuario usuarioExistente = obtenerUsuarioPorIdOExcepcion(id, "Error en UsuarioService.actualizarUsuario: No se encontró el usuario con id " + id);
+        Usuario usuarioExistente = obtenerUsuarioPorIdOExcepcion(id, "UsuarioService.actualizarUsuario");
+        String emailAnterior = usuarioExistente.getEmail();
+        boolean credencialesCambiadas = false;
 
         // Se actualizan solo los campos que no sean nulos en el request, permitiendo actualizaciones parciales
         if (usuarioRequest.nombre() != null) {
@@ -124,6 +147,7 @@ public class UsuarioService {
         }
 
         if (usuarioRequest.email() != null) {
+            credencialesCambiadas |= !usuarioRequest.email().equals(emailAnterior);
             usuarioExistente.setEmail(usuarioRequest.email());
         }
 
@@ -132,19 +156,38 @@ public class UsuarioService {
         }
 
         if (usuarioRequest.password() != null) {
-            usuarioExistente.setPassword(passwordEncoder.encode(usuarioRequest.password()));
+            usuarioExistente.setPassword(contraseniaService.codificar(usuarioRequest.password()));
+            credencialesCambiadas = true;
         }
 
         if (usuarioRequest.idRol() != null) {
-            Rol rol = rolService.obtenerRolPorIdOExcepcion(usuarioRequest.idRol(), "Error en UsuarioService.actualizarUsuario: No se encontró el rol con id " + usuarioRequest.idRol());
+            Rol rol = rolService.obtenerRolPorIdOExcepcion(usuarioRequest.idRol(), "UsuarioService.actualizarUsuario");
+            credencialesCambiadas |= !Objects.equals(rol.getId(), usuarioExistente.getRol().getId());
             usuarioExistente.setRol(rol);
         }
 
-        // Se guarda el usuario actualizado en la base de datos
-        Usuario usuarioActualizado = usuarioRepository.save(usuarioExistente);
+        // Los tokens de refresco emitidos con las credenciales anteriores dejan de valer
+        if (credencialesCambiadas) {
+            usuarioExistente.setVersionCredenciales(usuarioExistente.getVersionCredenciales() + 1);
+        }
+
+        // Se guarda el usuario actualizado en la base de datos. Se sigue usando usuarioExistente, que ya
+        // tiene el rol cargado: la copia que devuelve save lo tiene sin inicializar fuera de la transacción
+        usuarioRepository.save(usuarioExistente);
+
+        // El email del organizador aparece en sus eventos, que tienen que volver a sincronizarse
+        if (!usuarioExistente.getEmail().equals(emailAnterior)) {
+            eventoRepository.marcarActualizadosPorUsuario(id);
+        }
+
+        // Si cambian los datos de autenticación se descarta la entrada cacheada, también la del email anterior
+        if (credencialesCambiadas) {
+            invalidarAutenticacion(emailAnterior);
+            invalidarAutenticacion(usuarioExistente.getEmail());
+        }
 
         // Se devuelve el usuario actualizado convertido a response
-        return UsuarioMapper.convertirAResponse(usuarioActualizado);
+        return UsuarioMapper.convertirAResponse(usuarioExistente);
     }
 
     // =================
@@ -156,17 +199,48 @@ public class UsuarioService {
      *
      * @param email    Email del usuario a autenticar.
      * @param password Contraseña del usuario a autenticar.
-     * @return Usuario logeado si las credenciales son correctas.
+     * @param ip       Dirección IP desde la que se intenta iniciar sesión.
+     * @return Usuario logeado y sus tokens de acceso y de refresco si las credenciales son correctas.
      */
-    public UsuarioResponse login(String email, String password) {
-        Usuario usuario = usuarioRepository.findByEmail(email).orElseThrow(() -> new NoSuchElementException("Error en UsuarioService.login: No se encontró el usuario con email " + email));
+    public LoginResponse login(String email, String password, String ip) {
+        limitadorLogin.comprobar(email, ip);
+
+        Usuario usuario = usuarioRepository.findByEmail(email).orElseThrow(() -> new RecursoNoEncontradoException(CodigoError.USUARIO_EMAIL_NO_ENCONTRADO, "UsuarioService.login", email));
 
-        if (!passwordEncoder.matches(password, usuario.getPassword())) {
+        if (!contraseniaService.coincide(password, usuario.getPassword())) {
+            limitadorLogin.registrarFallo(email, ip);
             throw new DataIntegrityViolationException("Credenciales inválidas");
         }
 
+        limitadorLogin.registrarExito(email, ip);
+
+        // Si el hash se generó con un coste distinto del configurado, se recalcula ahora que se conoce la contraseña
+        if (contraseniaService.necesitaRehash(usuario.getPassword())) {
+            usuario.setPassword(contraseniaService.codificar(password));
+            usuarioRepository.save(usuario);
+            invalidarAutenticacion(email);
+            log.info("Hash de la contraseña del usuario con email {} actualizado al coste configurado", email);
+        }
+
         log.info("Login exitoso para el usuario con email: {}", email);
-        return UsuarioMapper.convertirAResponse(usuario);
+        return crearLoginResponse(usuario);
+    }
+
+    /**
+     * Metodo para obtener un nuevo par de tokens a partir de un token de refresco válido.
+     * Se vuelve a leer el usuario para que el nuevo token de acceso lleve su rol actual,
+     * y se rechaza el token si el usuario ya no existe o si ha cambiado su email, su
+     * contraseña o su rol después de emitirlo. Cada refresco devuelve un token de refresco nuevo.
+     *
+     * @param tokenRefresco Token de refresco emitido en el login o en el último refresco.
+     * @return Usuario y sus nuevos tokens.
+     */
+    public LoginResponse refrescarSesion(String tokenRefresco) {
+        TokenService.Refresco refresco = tokenService.validarRefresco(tokenRefresco);
+        Usuario usuario = usuarioRepository.findByEmail(refresco.email())
+                .filter(u -> u.getVersionCredenciales() == refresco.versionCredenciales())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Token de refresco revocado"));
+        return crearLoginResponse(usuario);
     }
 
     // ==================
@@ -178,10 +252,34 @@ public class UsuarioService {
      * personalizada si no se encuentra.
      *
      * @param id ID del usuario a obtener.
-     * @param mensajeError Mensaje de error para la excepcion.
+     * @param origen Clase y método que lo pide, para el mensaje de error.
      * @return Usuario encontrado.
      */
-    public Usuario obtenerUsuarioPorIdOExcepcion(Long id, String mensajeError) {
-        return usuarioRepository.findById(id).orElseThrow(() -> new NoSuchElementException(mensajeError));
+    public Usuario obtenerUsuarioPorIdOExcepcion(Long id, String origen) {
+        return usuarioRepository.findById(id).orElseThrow(() -> new RecursoNoEncontradoException(CodigoError.USUARIO_NO_ENCONTRADO, origen, id));
+    }
+
+    /**
+     * Metodo para construir la respuesta del login con el usuario y sus tokens.
+     *
+     * @param usuario Usuario autenticado.
+     * @return Usuario convertido a response y sus tokens.
+     */
+    private LoginResponse crearLoginResponse(Usuario usuario) {
+        UsuarioResponse usuarioResponse = UsuarioMapper.convertirAResponse(usuario);
+        return new LoginResponse(usuarioResponse, tokenService.emitir(usuario.getEmail(), usuario.getRol().getNombre(), usuario.getVersionCredenciales()));
+    }
+
+    /**
+     * Metodo para descartar los datos de autenticación cacheados de un usuario,
+     * de modo que el siguiente inicio de sesión los vuelva a leer de la base de datos.
+     *
+     * @param email Email del usuario.
+     */
+    private void invalidarAutenticacion(String email) {
+        Cache cache = cacheManager.getCache(CacheConfig.USUARIOS_AUTENTICADOS);
+        if (cache != null) {
+            cache.evict(email);
+        }
     }
 }
\ No newline at end of file
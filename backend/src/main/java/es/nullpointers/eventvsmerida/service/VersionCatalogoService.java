@@ -0,0 +1,63 @@
+package es.nullpointers.eventvsmerida.service;
+
+import es.nullpointers.eventvsmerida.entity.VersionCatalogo;
+import es.nullpointers.eventvsmerida.repository.VersionCatalogoRepository;
+import es.nullpointers.eventvsmerida.utils.PeticionCondicionalUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+
+/**
+ * Servicio que mantiene en la base de datos la versión de los catálogos pequeños
+ * (categorías, roles) para los GET condicionales. Cada alta, baja o modificación
+ * incrementa la revisión de su fila, así que todas las instancias dan el mismo ETag
+ * para los mismos datos y ninguna responde 304 a datos cambiados por otra.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+@RequiredArgsConstructor
+@Service
+public class VersionCatalogoService {
+    public static final String CATEGORIAS = "categorias";
+    public static final String ROLES = "roles";
+
+    private final VersionCatalogoRepository versionCatalogoRepository;
+
+    /**
+     * Método que registra una modificación del catálogo. Se llama en la misma transacción
+     * que la escritura, para que los datos y su versión se confirmen a la vez.
+     *
+     * @param recurso Nombre del catálogo.
+     */
+    public void incrementar(String recurso) {
+        if (versionCatalogoRepository.incrementar(recurso) == 0) {
+            // La migración crea las filas; si la base de datos se creó sin ella, se crea aquí la primera vez
+            try {
+                VersionCatalogo version = new VersionCatalogo(recurso);
+                version.setRevision(1);
+                versionCatalogoRepository.saveAndFlush(version);
+            } catch (DataIntegrityViolationException e) {
+                // Otra instancia la ha creado a la vez
+                versionCatalogoRepository.incrementar(recurso);
+            }
+        }
+    }
+
+    /**
+     * Método que devuelve la versión actual del catálogo.
+     *
+     * @param recurso Nombre del catálogo.
+     * @return Versión con el ETag y el instante de la última modificación.
+     */
+    public PeticionCondicionalUtils.Version obtener(String recurso) {
+        return versionCatalogoRepository.findById(recurso)
+                .map(version -> new PeticionCondicionalUtils.Version(
+                        PeticionCondicionalUtils.etag(recurso, version.getActualizadoEn(), version.getRevision()),
+                        version.getActualizadoEn()))
+                .orElseGet(() -> new PeticionCondicionalUtils.Version(PeticionCondicionalUtils.etag(recurso, Instant.EPOCH, 0), Instant.EPOCH));
+    }
+}
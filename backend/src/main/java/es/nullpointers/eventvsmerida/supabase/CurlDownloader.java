@@ -1,27 +1,35 @@
 package es.nullpointers.eventvsmerida.supabase;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Clase que se encarga de la consulta y descarga de la imagen a través del protocolo CURL con una
  * URL recibidd devolviendo la imagen en un array de bytes.
+ * Se activa con imagenes.descargador=curl; por defecto se usa {@link HttpClientDownloader}.
  */
-public final class CurlDownloader {
-    // Constructor vacío
-    private CurlDownloader() {}
+@Component
+@ConditionalOnProperty(name = "imagenes.descargador", havingValue = "curl")
+public final class CurlDownloader implements DescargadorImagenes {
+    private static final Executor LECTOR_STDERR = tarea -> Thread.ofVirtual().name("curl-stderr").start(tarea);
 
     /**
      * Método que con el protocolo CURL realiza la peticion HTTP a la URL de la imagen obteniendo los bytes de esta.
      * @param url URL de la imagen que se quiere descargar,
      * @param timeout Tiempo de respuesta establecido para realizar la acción.
-     * @return
+     * @return Array de bytes con la imagen.
      */
-    public static byte[] download(String url, Duration timeout) {
+    @Override
+    public byte[] download(String url, Duration timeout) {
         // Petición CURL
         // -L sigue redirects
         // -s silent (sin barra de progreso)
@@ -47,9 +55,14 @@ public final class CurlDownloader {
             throw new RuntimeException("No se pudo ejecutar curl. ¿Está instalado en el sistema?", e);
         }
 
+        // stderr se lee en paralelo para que curl no se bloquee si lo llena mientras se lee stdout.
+        // Se lee en un hilo virtual propio: en el ForkJoinPool común la lectura bloqueante ocuparía
+        // uno de sus pocos hilos durante toda la descarga.
+        CompletableFuture<byte[]> stderrFuture = CompletableFuture.supplyAsync(() -> readAllBytes(p.getErrorStream()), LECTOR_STDERR);
+
         // Almacena el resultado obtenido ya sea éxito o error.
         byte[] stdout = readAllBytes(p.getInputStream());
-        byte[] stderr = readAllBytes(p.getErrorStream());
+        byte[] stderr = stderrFuture.join();
 
         // Manejo de excepciones en caso de fallos.
         boolean terminado;
@@ -96,4 +109,4 @@ public final class CurlDownloader {
             throw new RuntimeException("Error leyendo salida de curl", e);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,21 @@
+package es.nullpointers.eventvsmerida.supabase;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Descarga de una imagen en curso, cuyo contenido se consume como flujo
+ * sin cargarlo entero en memoria.
+ *
+ * @param cuerpo Flujo con el contenido de la imagen, limitado al tamaño máximo configurado.
+ * @param contentType Tipo de contenido informado por el origen, o null si no se conoce.
+ * @param tamanio Tamaño declarado en bytes, o -1 si no se conoce.
+ */
+public record DescargaImagen(InputStream cuerpo, String contentType, long tamanio) implements Closeable {
+
+    @Override
+    public void close() throws IOException {
+        cuerpo.close();
+    }
+}
@@ -0,0 +1,38 @@
+package es.nullpointers.eventvsmerida.supabase;
+
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+
+/**
+ * Contrato para descargar una imagen a partir de su URL devolviendo su contenido en bytes.
+ * La implementación se elige con la propiedad imagenes.descargador ("http" por defecto o "curl").
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+public interface DescargadorImagenes {
+
+    /**
+     * Descarga la imagen de la URL indicada.
+     *
+     * @param url URL de la imagen que se quiere descargar.
+     * @param timeout Tiempo máximo para completar la descarga.
+     * @return Array de bytes con la imagen.
+     */
+    byte[] download(String url, Duration timeout);
+
+    /**
+     * Abre la descarga de la imagen de la URL indicada para consumirla como flujo.
+     * Por defecto descarga la imagen completa y la expone como flujo en memoria;
+     * las implementaciones que lo permitan la sirven directamente desde la conexión.
+     *
+     * @param url URL de la imagen que se quiere descargar.
+     * @param timeout Tiempo máximo para completar la descarga, incluida la lectura del cuerpo.
+     * @return Descarga en curso, que debe cerrarse tras consumirla.
+     */
+    default DescargaImagen abrir(String url, Duration timeout) {
+        byte[] bytes = download(url, timeout);
+        return new DescargaImagen(new ByteArrayInputStream(bytes), null, bytes.length);
+    }
+}
@@ -0,0 +1,81 @@
+package es.nullpointers.eventvsmerida.supabase;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flujo de entrada que corta la lectura al vencer un plazo, aunque el origen deje de enviar
+ * datos a mitad del cuerpo. Al vencer se cierra el flujo original, lo que despierta la lectura
+ * que estuviera bloqueada, y a partir de ahí toda lectura lanza una excepción de tiempo agotado.
+ */
+class FlujoConPlazo extends FilterInputStream {
+    private final String url;
+    private final Future<?> vencimiento;
+    private volatile boolean vencido;
+
+    FlujoConPlazo(InputStream in, String url, Duration plazo, ScheduledExecutorService planificador) {
+        super(in);
+        this.url = url;
+        this.vencimiento = planificador.schedule(this::vencer, Math.max(plazo.toNanos(), 0), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int read() throws IOException {
+        comprobarPlazo();
+        try {
+            int b = super.read();
+            comprobarPlazo();
+            return b;
+        } catch (IOException e) {
+            comprobarPlazo();
+            throw e;
+        }
+    }
+
+    @Override
+    public int read(byte[] buf, int off, int len) throws IOException {
+        comprobarPlazo();
+        try {
+            int n = super.read(buf, off, len);
+            // Un flujo cerrado por el plazo puede devolver fin de flujo en lugar de un error
+            comprobarPlazo();
+            return n;
+        } catch (IOException e) {
+            comprobarPlazo();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        vencimiento.cancel(false);
+        super.close();
+    }
+
+    /**
+     * Método que lanza la excepción de tiempo agotado si el plazo ya ha vencido.
+     */
+    private void comprobarPlazo() throws HttpTimeoutException {
+        if (vencido) {
+            throw new HttpTimeoutException("Tiempo agotado leyendo la imagen de " + url);
+        }
+    }
+
+    /**
+     * Método que marca el plazo como vencido y cierra el flujo original para desbloquear la lectura.
+     */
+    private void vencer() {
+        vencido = true;
+        try {
+            in.close();
+        } catch (IOException ignored) {
+            // La descarga ya se da por fallida
+        }
+    }
+}
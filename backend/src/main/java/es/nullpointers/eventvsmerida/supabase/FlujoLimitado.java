@@ -0,0 +1,50 @@
+package es.nullpointers.eventvsmerida.supabase;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Flujo de entrada que lanza una excepción en cuanto se leen más bytes del máximo permitido,
+ * para cortar descargas demasiado grandes sin tener que leerlas enteras.
+ */
+class FlujoLimitado extends FilterInputStream {
+    private final String url;
+    private final long maximo;
+    private long leidos;
+
+    FlujoLimitado(InputStream in, String url, long maximo) {
+        super(in);
+        this.url = url;
+        this.maximo = maximo;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            contar(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buf, int off, int len) throws IOException {
+        int n = super.read(buf, off, len);
+        if (n > 0) {
+            contar(n);
+        }
+        return n;
+    }
+
+    /**
+     * Método que acumula los bytes leídos y corta la lectura al superar el máximo.
+     * @param n Número de bytes leídos en la última operación.
+     */
+    private void contar(int n) {
+        leidos += n;
+        if (leidos > maximo) {
+            throw new RuntimeException("La imagen de " + url + " supera el tamaño máximo de " + maximo + " bytes");
+        }
+    }
+}
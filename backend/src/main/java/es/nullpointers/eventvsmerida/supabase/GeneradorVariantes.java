@@ -0,0 +1,232 @@
+package es.nullpointers.eventvsmerida.supabase;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Clase que genera las variantes reducidas de una imagen (miniatura y tarjeta).
+ * El trabajo se hace en un conjunto acotado de hilos con una cola limitada, para que la
+ * decodificación y el escalado, que consumen CPU y memoria, no se disparen con muchas ingestas a la vez.
+ * La imagen se decodifica una sola vez, submuestreada cuando es mucho mayor que la variante más grande,
+ * y se rechazan las imágenes con más píxeles de los permitidos.
+ */
+@Component
+public class GeneradorVariantes {
+    private static final int ANCHO_VARIANTE_MAYOR = Arrays.stream(VarianteImagen.values())
+            .mapToInt(VarianteImagen::getAnchoMaximo)
+            .max()
+            .orElseThrow();
+
+    private final long maximoPixeles;
+    private final float calidadJpeg;
+    private final ThreadPoolExecutor ejecutor;
+
+    // Constructor que con @Value obtiene las propiedades del application.properties
+    public GeneradorVariantes(
+            @Value("${imagenes.variantes.hilos:2}") int hilos,
+            @Value("${imagenes.variantes.capacidad-cola:20}") int capacidadCola,
+            @Value("${imagenes.variantes.maximo-pixeles:40000000}") long maximoPixeles,
+            @Value("${imagenes.variantes.calidad-jpeg:0.8}") float calidadJpeg
+    ) {
+        this.maximoPixeles = maximoPixeles;
+        this.calidadJpeg = calidadJpeg;
+        this.ejecutor = new ThreadPoolExecutor(
+                hilos, hilos,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadCola),
+                Thread.ofPlatform().name("variantes-imagen-", 0).daemon().factory()
+        );
+    }
+
+    /**
+     * Método que genera las variantes de una imagen en el conjunto de hilos y espera el resultado.
+     * Las variantes cuyo ancho máximo no es menor que el de la imagen no se generan.
+     * @param original Flujo con el contenido de la imagen original, que se consume entero.
+     * @return Variantes generadas.
+     */
+    public Map<VarianteImagen, Variante> generar(InputStream original) {
+        Future<Map<VarianteImagen, Variante>> resultado;
+        try {
+            resultado = ejecutor.submit(() -> procesar(original));
+        } catch (RejectedExecutionException e) {
+            throw new IllegalStateException("Cola de generación de variantes llena", e);
+        }
+
+        try {
+            return resultado.get();
+        } catch (InterruptedException e) {
+            resultado.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido generando las variantes de la imagen", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException("Error generando las variantes de la imagen", e.getCause());
+        }
+    }
+
+    /**
+     * Método que detiene los hilos al cerrar la aplicación.
+     */
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdownNow();
+    }
+
+    // ================
+    // Métodos Privados
+    // ================
+
+    /**
+     * Método auxiliar que decodifica la imagen y genera cada variante.
+     * @param original Flujo con el contenido de la imagen original.
+     * @return Variantes generadas.
+     */
+    private Map<VarianteImagen, Variante> procesar(InputStream original) throws IOException {
+        BufferedImage imagen;
+        int anchoOriginal;
+
+        try (ImageInputStream iis = ImageIO.createImageInputStream(original)) {
+            Iterator<ImageReader> lectores = ImageIO.getImageReaders(iis);
+            if (!lectores.hasNext()) {
+                throw new IllegalArgumentException("Formato de imagen no soportado");
+            }
+
+            ImageReader lector = lectores.next();
+            try {
+                lector.setInput(iis, true, true);
+                anchoOriginal = lector.getWidth(0);
+                long pixeles = (long) anchoOriginal * lector.getHeight(0);
+                if (pixeles > maximoPixeles) {
+                    throw new IllegalArgumentException("La imagen tiene " + pixeles + " píxeles, el máximo es " + maximoPixeles);
+                }
+
+                // Submuestreo al decodificar: se conserva al menos el doble de la variante más grande
+                ImageReadParam param = lector.getDefaultReadParam();
+                int submuestreo = Math.max(1, anchoOriginal / (ANCHO_VARIANTE_MAYOR * 2));
+                param.setSourceSubsampling(submuestreo, submuestreo, 0, 0);
+                imagen = lector.read(0, param);
+            } finally {
+                lector.dispose();
+            }
+        }
+
+        boolean transparente = imagen.getColorModel().hasAlpha();
+        Map<VarianteImagen, Variante> variantes = new EnumMap<>(VarianteImagen.class);
+
+        for (VarianteImagen variante : VarianteImagen.values()) {
+            if (anchoOriginal <= variante.getAnchoMaximo()) {
+                continue;
+            }
+
+            BufferedImage escalada = escalar(imagen, variante.getAnchoMaximo(), transparente);
+            variantes.put(variante, transparente ? codificarPng(escalada) : codificarJpeg(escalada));
+        }
+
+        return variantes;
+    }
+
+    /**
+     * Método auxiliar que reduce la imagen al ancho indicado, a mitades sucesivas con interpolación
+     * bilineal para que el resultado no pierda nitidez al reducir mucho.
+     * @param imagen Imagen de partida.
+     * @param ancho Ancho final.
+     * @param transparente Si la imagen tiene canal alfa.
+     * @return Imagen escalada.
+     */
+    private static BufferedImage escalar(BufferedImage imagen, int ancho, boolean transparente) {
+        int alto = Math.max(1, Math.round((float) imagen.getHeight() * ancho / imagen.getWidth()));
+        int tipo = transparente ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage actual = imagen;
+        int anchoActual = imagen.getWidth();
+        int altoActual = imagen.getHeight();
+
+        do {
+            anchoActual = Math.max(ancho, anchoActual / 2);
+            altoActual = Math.max(alto, altoActual / 2);
+
+            BufferedImage siguiente = new BufferedImage(anchoActual, altoActual, tipo);
+            Graphics2D g = siguiente.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(actual, 0, 0, anchoActual, altoActual, null);
+            } finally {
+                g.dispose();
+            }
+            actual = siguiente;
+        } while (anchoActual > ancho || altoActual > alto);
+
+        return actual;
+    }
+
+    /**
+     * Método auxiliar que codifica la imagen como JPEG con la calidad configurada.
+     * @param imagen Imagen a codificar.
+     * @return Variante codificada.
+     */
+    private Variante codificarJpeg(BufferedImage imagen) throws IOException {
+        ImageWriter escritor = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            escritor.setOutput(ios);
+            ImageWriteParam param = escritor.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(calidadJpeg);
+            escritor.write(null, new IIOImage(imagen, null, null), param);
+        } finally {
+            escritor.dispose();
+        }
+
+        return new Variante(out.toByteArray(), "image/jpeg", ".jpg");
+    }
+
+    /**
+     * Método auxiliar que codifica la imagen como PNG para conservar la transparencia.
+     * @param imagen Imagen a codificar.
+     * @return Variante codificada.
+     */
+    private static Variante codificarPng(BufferedImage imagen) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(imagen, "png", out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Variante(out.toByteArray(), "image/png", ".png");
+    }
+
+    /**
+     * Variante de una imagen ya codificada.
+     *
+     * @param contenido Bytes de la imagen.
+     * @param contentType Tipo de contenido.
+     * @param extension Extensión del fichero, incluido el punto.
+     */
+    public record Variante(byte[] contenido, String contentType, String extension) {}
+}
@@ -0,0 +1,155 @@
+package es.nullpointers.eventvsmerida.supabase;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+/**
+ * Clase que descarga las imágenes con el cliente HTTP de la JVM en lugar de lanzar un proceso CURL.
+ * Usa un único cliente compartido, que reutiliza las conexiones (keep-alive) y negocia HTTP/2,
+ * lee el cuerpo en un buffer con un tamaño máximo y comprueba que el contenido sea una imagen.
+ * El timeout de la petición solo limita la espera de las cabeceras, así que el cuerpo se lee
+ * con un plazo que corta la descarga cuando se agota el tiempo total.
+ */
+@Component
+@ConditionalOnProperty(name = "imagenes.descargador", havingValue = "http", matchIfMissing = true)
+public class HttpClientDownloader implements DescargadorImagenes {
+    private final HttpClient httpClient;
+    private final long tamanioMaximo;
+
+    // Cierra los cuerpos de las descargas que agotan su plazo; las tareas canceladas se quitan de la cola
+    private final ScheduledThreadPoolExecutor planificadorPlazos = new ScheduledThreadPoolExecutor(1,
+            Thread.ofPlatform().name("plazo-descargas").daemon().factory());
+
+    // Constructor que con @Value obtiene las propiedades del application.properties
+    public HttpClientDownloader(
+            @Value("${imagenes.descarga.tamanio-maximo:10MB}") DataSize tamanioMaximo,
+            @Value("${imagenes.descarga.timeout-conexion:10s}") Duration timeoutConexion
+    ) {
+        this.tamanioMaximo = tamanioMaximo.toBytes();
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(timeoutConexion)
+                .build();
+        this.planificadorPlazos.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Método que realiza la petición GET a la URL de la imagen y devuelve su contenido.
+     * @param url URL de la imagen que se quiere descargar.
+     * @param timeout Tiempo máximo para completar la descarga, incluida la lectura del cuerpo.
+     * @return Array de bytes con la imagen.
+     */
+    @Override
+    public byte[] download(String url, Duration timeout) {
+        try (DescargaImagen descarga = abrir(url, timeout)) {
+            int capacidadInicial = (int) Math.min(descarga.tamanio() >= 0 ? descarga.tamanio() : 8192, tamanioMaximo);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(capacidadInicial, 32));
+            descarga.cuerpo().transferTo(out);
+
+            if (out.size() == 0) {
+                throw new RuntimeException("La descarga devolvió 0 bytes para: " + url);
+            }
+
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException("Error leyendo la imagen de " + url + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Método que realiza la petición GET a la URL de la imagen y devuelve el cuerpo como flujo,
+     * limitado al tamaño máximo, sin leerlo todavía.
+     * @param url URL de la imagen que se quiere descargar.
+     * @param timeout Tiempo máximo para completar la descarga, incluida la lectura del cuerpo.
+     * @return Descarga en curso, que debe cerrarse tras consumirla.
+     */
+    @Override
+    public DescargaImagen abrir(String url, Duration timeout) {
+        long inicio = System.nanoTime();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(timeout)
+                .header("Accept", "image/*")
+                .GET()
+                .build();
+
+        HttpResponse<InputStream> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException e) {
+            throw new RuntimeException("Error descargando la imagen de " + url + ": " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrumpido descargando la imagen de " + url, e);
+        }
+
+        try {
+            validarRespuesta(url, response);
+        } catch (RuntimeException e) {
+            cerrarSinErrores(response.body());
+            throw e;
+        }
+
+        String contentType = response.headers().firstValue("Content-Type").orElse(null);
+        long tamanio = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+        Duration restante = timeout.minusNanos(System.nanoTime() - inicio);
+        InputStream cuerpo = new FlujoConPlazo(response.body(), url, restante, planificadorPlazos);
+        return new DescargaImagen(new FlujoLimitado(cuerpo, url, tamanioMaximo), contentType, tamanio);
+    }
+
+    /**
+     * Método que detiene el planificador de los plazos al cerrar la aplicación.
+     */
+    @PreDestroy
+    public void detener() {
+        planificadorPlazos.shutdownNow();
+    }
+
+    /**
+     * Método que comprueba el código de estado, el tipo de contenido y el tamaño declarado de la respuesta.
+     * @param url URL de la imagen.
+     * @param response Respuesta recibida.
+     */
+    private void validarRespuesta(String url, HttpResponse<InputStream> response) {
+        int status = response.statusCode();
+        if (status >= 400) {
+            throw new RuntimeException("La descarga de " + url + " falló con HTTP " + status);
+        }
+
+        String contentType = response.headers().firstValue("Content-Type").orElse("");
+        if (!contentType.toLowerCase().startsWith("image/")) {
+            throw new RuntimeException("La URL " + url + " no devolvió una imagen (Content-Type: " + contentType + ")");
+        }
+
+        OptionalLong contentLength = response.headers().firstValueAsLong("Content-Length");
+        if (contentLength.isPresent() && contentLength.getAsLong() > tamanioMaximo) {
+            throw new RuntimeException("La imagen de " + url + " supera el tamaño máximo de " + tamanioMaximo + " bytes");
+        }
+    }
+
+    /**
+     * Método que cierra el cuerpo de una respuesta descartada, ignorando los errores.
+     * @param in Flujo de entrada del cuerpo.
+     */
+    private static void cerrarSinErrores(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException ignored) {
+            // La respuesta ya se ha descartado
+        }
+    }
+}
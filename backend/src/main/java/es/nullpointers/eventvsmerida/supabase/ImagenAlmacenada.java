@@ -0,0 +1,28 @@
+package es.nullpointers.eventvsmerida.supabase;
+
+import java.util.Map;
+
+/**
+ * Imagen ya almacenada en el bucket, identificada por el resumen SHA-256 de su contenido.
+ *
+ * @param digest Resumen SHA-256 del contenido en hexadecimal.
+ * @param urlPublica URL pública del objeto original en el bucket.
+ * @param tamanio Tamaño de la imagen original en bytes.
+ * @param variantes URL pública de cada variante reducida que se ha almacenado.
+ */
+public record ImagenAlmacenada(String digest, String urlPublica, long tamanio, Map<VarianteImagen, String> variantes) {
+
+    public ImagenAlmacenada {
+        variantes = Map.copyOf(variantes);
+    }
+
+    /**
+     * Método que devuelve la URL de una variante, o la del original si la imagen
+     * ya era más pequeña que la variante o no se pudo generar.
+     * @param variante Variante que se quiere mostrar.
+     * @return URL pública de la variante o del original.
+     */
+    public String urlVariante(VarianteImagen variante) {
+        return variantes.getOrDefault(variante, urlPublica);
+    }
+}
@@ -0,0 +1,101 @@
+package es.nullpointers.eventvsmerida.supabase;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import es.nullpointers.eventvsmerida.dto.response.ImagenesEstadisticasResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Índice local de las imágenes almacenadas en el bucket. Relaciona cada URL de origen con el
+ * resumen de su contenido y cada resumen con el objeto almacenado, de modo que una imagen que
+ * ya se ha subido no se vuelva a descargar ni a subir aunque la enlacen varios eventos.
+ * También lleva la cuenta de los aciertos y de los bytes que se han dejado de transferir.
+ */
+@Component
+public class IndiceImagenes {
+    private final Cache<String, String> digestPorUrl;
+    private final Cache<String, ImagenAlmacenada> imagenPorDigest;
+
+    private final LongAdder consultas = new LongAdder();
+    private final LongAdder aciertosUrl = new LongAdder();
+    private final LongAdder aciertosContenido = new LongAdder();
+    private final LongAdder bytesAhorrados = new LongAdder();
+
+    // Constructor que con @Value obtiene el tamaño del índice del application.properties
+    public IndiceImagenes(@Value("${imagenes.indice.tamanio-maximo:10000}") long tamanioMaximo) {
+        this.digestPorUrl = Caffeine.newBuilder().maximumSize(tamanioMaximo).build();
+        this.imagenPorDigest = Caffeine.newBuilder().maximumSize(tamanioMaximo).build();
+    }
+
+    /**
+     * Método que busca la imagen almacenada para una URL de origen ya procesada.
+     * Cada llamada cuenta como una consulta al índice.
+     * @param urlOrigen URL de la imagen de origen.
+     * @return Imagen almacenada, o vacío si la URL no se ha procesado todavía.
+     */
+    public Optional<ImagenAlmacenada> buscarPorUrl(String urlOrigen) {
+        consultas.increment();
+
+        String digest = digestPorUrl.getIfPresent(urlOrigen);
+        ImagenAlmacenada imagen = digest != null ? imagenPorDigest.getIfPresent(digest) : null;
+
+        if (imagen != null) {
+            aciertosUrl.increment();
+            bytesAhorrados.add(imagen.tamanio());
+        }
+
+        return Optional.ofNullable(imagen);
+    }
+
+    /**
+     * Método que busca una imagen almacenada con el mismo contenido que la recién descargada.
+     * Como la imagen ya se ha descargado, el acierto solo ahorra los bytes que todavía no se
+     * hayan enviado: en streaming el contenido ya se ha subido con un nombre temporal.
+     * @param digest Resumen SHA-256 del contenido en hexadecimal.
+     * @param bytesEvitados Bytes que se dejan de transferir si el contenido ya está almacenado.
+     * @return Imagen almacenada, o vacío si ese contenido no se ha subido todavía.
+     */
+    public Optional<ImagenAlmacenada> buscarPorDigest(String digest, long bytesEvitados) {
+        ImagenAlmacenada imagen = imagenPorDigest.getIfPresent(digest);
+
+        if (imagen != null) {
+            aciertosContenido.increment();
+            bytesAhorrados.add(bytesEvitados);
+        }
+
+        return Optional.ofNullable(imagen);
+    }
+
+    /**
+     * Método que registra la imagen almacenada para una URL de origen.
+     * @param urlOrigen URL de la imagen de origen.
+     * @param imagen Imagen almacenada en el bucket.
+     */
+    public void registrar(String urlOrigen, ImagenAlmacenada imagen) {
+        imagenPorDigest.put(imagen.digest(), imagen);
+        digestPorUrl.put(urlOrigen, imagen.digest());
+    }
+
+    /**
+     * Método que devuelve las estadísticas de deduplicación del índice.
+     * @return Consultas, aciertos por URL y por contenido, tasa de aciertos y bytes ahorrados.
+     */
+    public ImagenesEstadisticasResponse obtenerEstadisticas() {
+        long totalConsultas = consultas.sum();
+        long totalAciertos = aciertosUrl.sum() + aciertosContenido.sum();
+        double tasaAciertos = totalConsultas == 0 ? 0.0 : (double) totalAciertos / totalConsultas;
+
+        return new ImagenesEstadisticasResponse(
+                totalConsultas,
+                aciertosUrl.sum(),
+                aciertosContenido.sum(),
+                tasaAciertos,
+                bytesAhorrados.sum(),
+                imagenPorDigest.estimatedSize()
+        );
+    }
+}
@@ -1,26 +1,50 @@
 package es.nullpointers.eventvsmerida.supabase;
 
+import es.nullpointers.eventvsmerida.metricas.MetricasConfig;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.server.ResponseStatusException;
-import org.springframework.web.util.UriUtils;
+import org.springframework.util.unit.DataSize;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
-import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.EnumMap;
+import java.util.HexFormat;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
- * Clase que se encarga de subir la imagen al bucket de Supabase una vez ha sido descargada con CURL.
+ * Clase que se encarga de subir la imagen al bucket de Supabase una vez ha sido descargada
+ * con el {@link DescargadorImagenes} configurado. Los objetos se nombran con el resumen de su
+ * contenido y se registran en el {@link IndiceImagenes} para no subir dos veces la misma imagen.
+ * La duración y el resultado de las descargas y las subidas se publican como métricas
+ * (imagenes.descarga, imagenes.descarga.bytes e imagenes.subida), con la causa de cada fallo.
  */
+@Slf4j
 @Component
 public class SupabaseStorage {
 
@@ -30,18 +54,39 @@ public class SupabaseStorage {
     private final String bucket = "imagenesEvento";
 
     private final RestClient supabaseClient;
+    private final DescargadorImagenes descargador;
+    private final IndiceImagenes indiceImagenes;
+    private final GeneradorVariantes generadorVariantes;
+    private final MeterRegistry meterRegistry;
+
+    private final boolean subidaStreaming;
+    private final int tamanioBloque;
 
     // Constructor que con @Value obtiene las propiedades del application.properties
     public SupabaseStorage(
             @Value("${supabase.url}") String supabaseUrl,
-            @Value("${supabase.key}") String key
+            @Value("${supabase.key}") String key,
+            @Value("${supabase.subida.streaming:true}") boolean subidaStreaming,
+            @Value("${supabase.subida.tamanio-bloque:64KB}") DataSize tamanioBloque,
+            DescargadorImagenes descargador,
+            IndiceImagenes indiceImagenes,
+            GeneradorVariantes generadorVariantes,
+            MeterRegistry meterRegistry
     ) {
         this.supabaseUrl = supabaseUrl;
         this.key = key;
+        this.subidaStreaming = subidaStreaming;
+        this.tamanioBloque = (int) tamanioBloque.toBytes();
+        this.descargador = descargador;
+        this.indiceImagenes = indiceImagenes;
+        this.generadorVariantes = generadorVariantes;
+        this.meterRegistry = meterRegistry;
 
         // Construye un RestClient para hacer la petición post.
+        // El cliente HTTP de la JVM envía el cuerpo según se escribe, sin acumularlo en memoria.
         this.supabaseClient = RestClient.builder()
                 .baseUrl(supabaseUrl)
+                .requestFactory(new JdkClientHttpRequestFactory())
                 .defaultHeader("apikey", key)
                 .defaultHeader("Authorization", "Bearer " + key)
                 .build();
@@ -49,47 +94,339 @@ public class SupabaseStorage {
 
     /**
      * Método que se encarga de subir la imagen a Supabase.
+     * Los objetos se guardan con el resumen SHA-256 de su contenido como nombre, de modo que
+     * una misma imagen enlazada desde varios eventos se almacena una sola vez. Si la URL de origen
+     * ya se ha procesado, se devuelve la imagen almacenada sin volver a descargarla.
+     * En modo streaming (por defecto) el cuerpo de la descarga se reenvía a Supabase por bloques
+     * según llega, de modo que la memoria usada por subida no depende del tamaño de la imagen.
+     * Junto al original se almacenan sus variantes reducidas ({@link VarianteImagen}).
+     * @param urlOrigen URL de la imagen que se desea almacenar.
+     * @return Imagen almacenada en el bucket, con la URL del original y de sus variantes.
+     */
+    public ImagenAlmacenada subirImagen(String urlOrigen) {
+        Optional<ImagenAlmacenada> indexada = indiceImagenes.buscarPorUrl(urlOrigen);
+        if (indexada.isPresent()) {
+            return indexada.get();
+        }
+
+        Timer.Sample muestra = Timer.start(meterRegistry);
+        try {
+            ImagenAlmacenada imagen = subidaStreaming ? subirEnStreaming(urlOrigen) : subirEnMemoria(urlOrigen);
+            indiceImagenes.registrar(urlOrigen, imagen);
+
+            muestra.stop(temporizador(MetricasConfig.SUBIDA_IMAGENES, null));
+            return imagen;
+        } catch (RuntimeException e) {
+            muestra.stop(temporizador(MetricasConfig.SUBIDA_IMAGENES, e));
+            throw e;
+        }
+    }
+
+    /**
+     * Método que descarga la imagen completa en memoria, calcula su resumen y, si ese contenido
+     * no está ya almacenado, la sube a Supabase con el resumen como nombre.
      * @param urlOrigen URL de la imagen que se desea almacenar.
-     * @return URL de la imagen almacenadad en el bucket.
+     * @return Imagen almacenada.
      */
-    public String subirImagen(String urlOrigen) {
-        // Descarga con curl.
-        byte[] bytes = CurlDownloader.download(urlOrigen, Duration.ofSeconds(30));
+    private ImagenAlmacenada subirEnMemoria(String urlOrigen) {
+        byte[] bytes = medirDescarga(() -> descargador.download(urlOrigen, Duration.ofSeconds(30)));
+        contarBytesDescargados(bytes.length);
         if (bytes.length == 0) {
             throw new IllegalStateException("La URL no devolvió contenido (body vacío): " + urlOrigen);
         }
 
-        // Genera nombre de la imagen.
+        // Genera nombre de la imagen y el Content-Type según sea su extensión.
         String filename = filenameFromUrlOrGenerate(urlOrigen, null);
-        String objectPath = filename; // raíz del bucket
-
-        // Content-Type: se extrae según sea la extensión de la imagen.
         String contentType = contentTypeFromFilename(filename);
 
-        // Normaliza la url del path para evitar caracteres raros.
-        String encodedPath = UriUtils.encodePath(objectPath, StandardCharsets.UTF_8);
+        String digest = HexFormat.of().formatHex(nuevoDigest().digest(bytes));
+        // Con el contenido repetido se evita la subida, no la descarga
+        Optional<ImagenAlmacenada> existente = indiceImagenes.buscarPorDigest(digest, bytes.length);
+        if (existente.isPresent()) {
+            return existente.get();
+        }
+
+        String nombre = digest + extensionDe(filename);
+        enviarObjeto(nombre, contentType, bytes.length, out -> out.write(bytes));
+        Map<VarianteImagen, String> variantes = subirVariantes(digest, new ByteArrayInputStream(bytes));
+
+        return new ImagenAlmacenada(digest, urlPublica(nombre), bytes.length, variantes);
+    }
+
+    /**
+     * Método que reenvía el cuerpo de la descarga a Supabase por bloques de tamaño fijo,
+     * calculando su resumen a la vez. Como el resumen solo se conoce al terminar, la imagen se sube
+     * con un nombre temporal y después se mueve a su nombre definitivo, o se borra si ese
+     * contenido ya estaba almacenado. El tamaño máximo de la imagen lo impone el flujo de la descarga.
+     * @param urlOrigen URL de la imagen que se desea almacenar.
+     * @return Imagen almacenada.
+     */
+    private ImagenAlmacenada subirEnStreaming(String urlOrigen) {
+        try (DescargaImagen descarga = medirDescarga(() -> descargador.abrir(urlOrigen, Duration.ofSeconds(30)))) {
+            MediaType mediaType = mediaTypeDe(descarga.contentType());
+            String filename = filenameFromUrlOrGenerate(urlOrigen, mediaType);
+
+            // Content-Type: el informado por el origen o, si no es una imagen, según la extensión.
+            String contentType = mediaType != null && "image".equals(mediaType.getType())
+                    ? descarga.contentType()
+                    : contentTypeFromFilename(filename);
+
+            MessageDigest md = nuevoDigest();
+            InputStream cuerpo = new DigestInputStream(descarga.cuerpo(), md);
+            AtomicLong total = new AtomicLong();
+
+            String temporal = "tmp-" + UUID.randomUUID() + extensionDe(filename);
+            enviarObjeto(temporal, contentType, descarga.tamanio(), out -> {
+                byte[] bloque = new byte[tamanioBloque];
+                int n;
+                while ((n = cuerpo.read(bloque)) >= 0) {
+                    out.write(bloque, 0, n);
+                    total.addAndGet(n);
+                }
+
+                if (total.get() == 0) {
+                    throw new IllegalStateException("La URL no devolvió contenido (body vacío): " + urlOrigen);
+                }
+            });
+
+            contarBytesDescargados(total.get());
+
+            String digest = HexFormat.of().formatHex(md.digest());
+            // En streaming el contenido ya se ha descargado y subido: el acierto no ahorra bytes
+            Optional<ImagenAlmacenada> existente = indiceImagenes.buscarPorDigest(digest, 0);
+            if (existente.isPresent()) {
+                eliminarObjeto(temporal);
+                return existente.get();
+            }
+
+            String nombre = digest + extensionDe(filename);
+            moverObjeto(temporal, nombre);
+
+            // El original no se ha guardado en memoria: las variantes se generan leyéndolo del bucket
+            Map<VarianteImagen, String> variantes;
+            try (DescargaImagen almacenada = descargador.abrir(urlPublica(nombre), Duration.ofSeconds(30))) {
+                variantes = subirVariantes(digest, almacenada.cuerpo());
+            } catch (RuntimeException e) {
+                log.warn("No se pudo leer la imagen {} para generar sus variantes: {}", nombre, e.getMessage());
+                variantes = Map.of();
+            }
+
+            return new ImagenAlmacenada(digest, urlPublica(nombre), total.get(), variantes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error cerrando la descarga de " + urlOrigen, e);
+        }
+    }
+
+    /**
+     * Método que mide la descarga de la imagen de origen en la métrica imagenes.descarga.
+     * En modo streaming se mide hasta que llega la respuesta, porque el cuerpo se reenvía a
+     * Supabase según se lee y ese tiempo ya se cuenta en imagenes.subida.
+     * @param descarga Llamada al descargador.
+     * @return Resultado de la descarga.
+     */
+    private <T> T medirDescarga(Supplier<T> descarga) {
+        Timer.Sample muestra = Timer.start(meterRegistry);
+        try {
+            T resultado = descarga.get();
+            muestra.stop(temporizador(MetricasConfig.DESCARGA_IMAGENES, null));
+            return resultado;
+        } catch (RuntimeException e) {
+            muestra.stop(temporizador(MetricasConfig.DESCARGA_IMAGENES, e));
+            throw e;
+        }
+    }
+
+    /**
+     * Método que registra el tamaño de una imagen descargada en la métrica imagenes.descarga.bytes.
+     * @param bytes Bytes descargados.
+     */
+    private void contarBytesDescargados(long bytes) {
+        DistributionSummary.builder(MetricasConfig.BYTES_DESCARGA_IMAGENES)
+                .baseUnit("bytes")
+                .tag("descargador", descargador.getClass().getSimpleName())
+                .register(meterRegistry)
+                .record(bytes);
+    }
+
+    /**
+     * Método que obtiene el temporizador de una descarga o una subida, etiquetado con el
+     * descargador, el modo de subida y la causa del fallo ("ninguna" si ha ido bien).
+     * @param nombre Nombre de la métrica.
+     * @param error Excepción con la que ha fallado, o null.
+     * @return Temporizador registrado.
+     */
+    private Timer temporizador(String nombre, RuntimeException error) {
+        return Timer.builder(nombre)
+                .tag("descargador", descargador.getClass().getSimpleName())
+                .tag("modo", subidaStreaming ? "streaming" : "memoria")
+                .tag("causa", causaDe(error))
+                .register(meterRegistry);
+    }
+
+    /**
+     * Método que resume la causa de un fallo para etiquetar las métricas con pocos valores distintos:
+     * el estado HTTP si lo ha rechazado un servidor o, si no, la clase de la excepción. Los descargadores
+     * envuelven los errores de E/S en RuntimeException, así que en ese caso se usa la de la causa.
+     * @param error Excepción con la que ha fallado, o null.
+     * @return Causa del fallo, o "ninguna".
+     */
+    private static String causaDe(RuntimeException error) {
+        if (error == null) {
+            return "ninguna";
+        }
+        if (error instanceof RestClientResponseException respuesta) {
+            return "http_" + respuesta.getStatusCode().value();
+        }
+        if (error instanceof ResponseStatusException respuesta) {
+            return "http_" + respuesta.getStatusCode().value();
+        }
+        Throwable causa = error.getClass() == RuntimeException.class && error.getCause() != null ? error.getCause() : error;
+        return causa.getClass().getSimpleName();
+    }
+
+    /**
+     * Método que genera las variantes reducidas de la imagen y las sube junto al original,
+     * con el nombre {@code <digest>-<sufijo>}. Si no se pueden generar, la imagen se queda
+     * solo con el original, que se usará en lugar de las variantes.
+     * @param digest Resumen SHA-256 del original.
+     * @param original Flujo con el contenido del original.
+     * @return URL pública de cada variante almacenada.
+     */
+    private Map<VarianteImagen, String> subirVariantes(String digest, InputStream original) {
+        Map<VarianteImagen, String> urls = new EnumMap<>(VarianteImagen.class);
 
-        // Petición POST para almacenar la imagen
+        try {
+            for (Map.Entry<VarianteImagen, GeneradorVariantes.Variante> entrada : generadorVariantes.generar(original).entrySet()) {
+                GeneradorVariantes.Variante variante = entrada.getValue();
+                String nombre = digest + "-" + entrada.getKey().getSufijo() + variante.extension();
+
+                enviarObjeto(nombre, variante.contentType(), variante.contenido().length, out -> out.write(variante.contenido()));
+                urls.put(entrada.getKey(), urlPublica(nombre));
+            }
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron generar las variantes de la imagen {}: {}", digest, e.getMessage());
+        }
+
+        return urls;
+    }
+
+    /**
+     * Método que realiza la petición POST para almacenar la imagen en el bucket.
+     * @param nombre Nombre del objeto en el bucket.
+     * @param contentType Tipo de imagen.
+     * @param longitud Tamaño del cuerpo en bytes, o -1 si no se conoce (se envía por bloques).
+     * @param cuerpo Escritor del cuerpo de la petición.
+     */
+    private void enviarObjeto(String nombre, String contentType, long longitud, StreamingHttpOutputMessage.Body cuerpo) {
         try {
             supabaseClient.post()
                     .uri(uriBuilder -> uriBuilder
                             .path("/storage/v1/object/{bucket}/{path}")
                             .queryParam("upsert", true)
-                            .build(Map.of("bucket", bucket, "path", encodedPath)))
+                            .build(Map.of("bucket", bucket, "path", nombre)))
                     .contentType(MediaType.parseMediaType(contentType))
-                    .body(bytes)
+                    .headers(headers -> {
+                        if (longitud >= 0) {
+                            headers.setContentLength(longitud);
+                        }
+                    })
+                    .body(cuerpo)
                     .retrieve()
                     .toBodilessEntity();
         } catch (HttpClientErrorException e) {
-            String body = e.getResponseBodyAsString();
-            boolean duplicate = body != null && body.contains("\"error\":\"Duplicate\"");
-            if (duplicate) {
+            if (esDuplicado(e)) {
                 throw new ResponseStatusException(HttpStatus.CONFLICT, "Esta imagen ya está almacenada", e);
             }
             throw e;
         }
+    }
+
+    /**
+     * Método que mueve un objeto del bucket a su nombre definitivo. Si ya existe un objeto con
+     * ese nombre, tiene el mismo contenido, así que se conserva y se borra el temporal.
+     * @param origen Nombre actual del objeto.
+     * @param destino Nombre definitivo del objeto.
+     */
+    private void moverObjeto(String origen, String destino) {
+        try {
+            supabaseClient.post()
+                    .uri("/storage/v1/object/move")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Map.of("bucketId", bucket, "sourceKey", origen, "destinationKey", destino))
+                    .retrieve()
+                    .toBodilessEntity();
+        } catch (HttpClientErrorException e) {
+            eliminarObjeto(origen);
+            if (!esDuplicado(e)) {
+                throw e;
+            }
+        }
+    }
 
-        return supabaseUrl + "/storage/v1/object/public/" + bucket + "/" + encodedPath;
+    /**
+     * Método que borra un objeto del bucket.
+     * @param nombre Nombre del objeto en el bucket.
+     */
+    private void eliminarObjeto(String nombre) {
+        supabaseClient.delete()
+                .uri("/storage/v1/object/{bucket}/{path}", bucket, nombre)
+                .retrieve()
+                .toBodilessEntity();
+    }
+
+    /**
+     * Método que comprueba si Supabase ha rechazado la petición porque el objeto ya existe.
+     * @param e Excepción con la respuesta de Supabase.
+     * @return true si la respuesta indica un objeto duplicado.
+     */
+    private static boolean esDuplicado(HttpClientErrorException e) {
+        String body = e.getResponseBodyAsString();
+        return body != null && body.contains("\"error\":\"Duplicate\"");
+    }
+
+    /**
+     * Método que construye la URL pública de un objeto del bucket.
+     * @param nombre Nombre del objeto en el bucket.
+     * @return URL pública del objeto.
+     */
+    private String urlPublica(String nombre) {
+        return supabaseUrl + "/storage/v1/object/public/" + bucket + "/" + nombre;
+    }
+
+    /**
+     * Método que crea el calculador del resumen SHA-256 con el que se nombran los objetos.
+     * @return Instancia nueva de MessageDigest.
+     */
+    private static MessageDigest nuevoDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no está disponible en la JVM", e);
+        }
+    }
+
+    /**
+     * Método que devuelve la extensión del nombre de un fichero, incluido el punto.
+     * @param filename Nombre del fichero.
+     * @return Extensión, o cadena vacía si no tiene.
+     */
+    private static String extensionDe(String filename) {
+        int punto = filename.lastIndexOf('.');
+        return punto >= 0 ? filename.substring(punto).toLowerCase() : "";
+    }
+
+    /**
+     * Método que interpreta el Content-Type informado por el origen.
+     * @param contentType Content-Type de la respuesta, o null.
+     * @return Tipo de contenido, o null si no se informó o no es válido.
+     */
+    private static MediaType mediaTypeDe(String contentType) {
+        if (contentType == null) return null;
+        try {
+            return MediaType.parseMediaType(contentType);
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
     }
 
     /**
@@ -0,0 +1,26 @@
+package es.nullpointers.eventvsmerida.supabase;
+
+/**
+ * Variantes reducidas que se generan de cada foto de evento, además del original a tamaño completo.
+ * Cada variante limita el ancho de la imagen conservando su proporción.
+ */
+public enum VarianteImagen {
+    MINIATURA("miniatura", 200),
+    TARJETA("tarjeta", 800);
+
+    private final String sufijo;
+    private final int anchoMaximo;
+
+    VarianteImagen(String sufijo, int anchoMaximo) {
+        this.sufijo = sufijo;
+        this.anchoMaximo = anchoMaximo;
+    }
+
+    public String getSufijo() {
+        return sufijo;
+    }
+
+    public int getAnchoMaximo() {
+        return anchoMaximo;
+    }
+}
@@ -0,0 +1,62 @@
+package es.nullpointers.eventvsmerida.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Clase de utilidades para codificar y decodificar los cursores opacos
+ * usados en la paginacion por clave (keyset) de los eventos.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+public class CursorUtils {
+    private static final String SEPARADOR = "|";
+
+    /**
+     * Posicion de un evento dentro del orden (fechaHora, id).
+     *
+     * @param fechaHora Fecha y hora del ultimo evento devuelto.
+     * @param id ID del ultimo evento devuelto.
+     */
+    public record Cursor(LocalDateTime fechaHora, Long id) {}
+
+    /**
+     * Codifica la posicion de un evento en un cursor opaco seguro para URLs.
+     *
+     * @param fechaHora Fecha y hora del ultimo evento devuelto.
+     * @param id ID del ultimo evento devuelto.
+     * @return Cursor codificado en Base64.
+     */
+    public static String codificar(LocalDateTime fechaHora, Long id) {
+        String valor = fechaHora + SEPARADOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un cursor opaco generado por {@link #codificar(LocalDateTime, Long)}.
+     *
+     * @param cursor Cursor codificado en Base64.
+     * @return Posicion contenida en el cursor.
+     * @throws IllegalArgumentException si el cursor no tiene un formato valido.
+     */
+    public static Cursor decodificar(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = valor.lastIndexOf(SEPARADOR);
+
+            if (separador < 0) {
+                throw new IllegalArgumentException("Cursor sin separador: " + cursor);
+            }
+
+            LocalDateTime fechaHora = LocalDateTime.parse(valor.substring(0, separador));
+            Long id = Long.valueOf(valor.substring(separador + 1));
+            return new Cursor(fechaHora, id);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor de paginación inválido: " + cursor, e);
+        }
+    }
+}
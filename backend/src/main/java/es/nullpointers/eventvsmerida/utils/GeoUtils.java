@@ -0,0 +1,52 @@
+package es.nullpointers.eventvsmerida.utils;
+
+/**
+ * Clase de utilidades para cálculos con coordenadas geográficas.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+public class GeoUtils {
+    private static final double RADIO_TIERRA_KM = 6371.0088;
+    private static final double KM_POR_GRADO_LATITUD = 111.32;
+
+    /**
+     * Calcula la distancia entre dos puntos sobre la superficie terrestre con la fórmula del haversine.
+     *
+     * @param latitud1 Latitud del primer punto.
+     * @param longitud1 Longitud del primer punto.
+     * @param latitud2 Latitud del segundo punto.
+     * @param longitud2 Longitud del segundo punto.
+     * @return Distancia en kilómetros.
+     */
+    public static double distanciaKm(double latitud1, double longitud1, double latitud2, double longitud2) {
+        double dLat = Math.toRadians(latitud2 - latitud1);
+        double dLon = Math.toRadians(longitud2 - longitud1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(latitud1)) * Math.cos(Math.toRadians(latitud2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * RADIO_TIERRA_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Calcula cuántos grados de latitud equivalen a una distancia.
+     *
+     * @param km Distancia en kilómetros.
+     * @return Grados de latitud.
+     */
+    public static double gradosLatitud(double km) {
+        return km / KM_POR_GRADO_LATITUD;
+    }
+
+    /**
+     * Calcula cuántos grados de longitud equivalen a una distancia a una latitud dada.
+     *
+     * @param km Distancia en kilómetros.
+     * @param latitud Latitud a la que se mide la distancia.
+     * @return Grados de longitud.
+     */
+    public static double gradosLongitud(double km, double latitud) {
+        double cos = Math.cos(Math.toRadians(latitud));
+        return cos < 1e-6 ? 180 : Math.min(180, km / (KM_POR_GRADO_LATITUD * cos));
+    }
+}
@@ -0,0 +1,69 @@
+package es.nullpointers.eventvsmerida.utils;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.StringJoiner;
+import java.util.function.Supplier;
+
+/**
+ * Clase de utilidades para responder a las peticiones GET condicionales
+ * (If-None-Match / If-Modified-Since) con ETag y Last-Modified.
+ * La versión de cada recurso se obtiene de un sello barato (instantes de última
+ * modificación, contadores), nunca serializando el cuerpo para calcular un hash.
+ *
+ * @author Eva Retamar
+ * @author David Muñoz
+ * @author Adrián Pérez
+ */
+public class PeticionCondicionalUtils {
+    /**
+     * Versión de un recurso.
+     *
+     * @param etag ETag débil del recurso.
+     * @param ultimaModificacion Instante de la última modificación, para Last-Modified.
+     */
+    public record Version(String etag, Instant ultimaModificacion) {}
+
+    /**
+     * Construye un ETag débil a partir de las partes que identifican la versión.
+     * Los instantes se escriben en microsegundos, la precisión con la que los guarda la base de datos.
+     *
+     * @param partes Nombre del recurso, instantes, contadores...
+     * @return ETag débil, por ejemplo W/"eventos-1767294000000000-0".
+     */
+    public static String etag(Object... partes) {
+        StringJoiner valor = new StringJoiner("-", "W/\"", "\"");
+        for (Object parte : partes) {
+            valor.add(parte instanceof Instant instante ? String.valueOf(ChronoUnit.MICROS.between(Instant.EPOCH, instante)) : String.valueOf(parte));
+        }
+        return valor.toString();
+    }
+
+    /**
+     * Responde 304 Not Modified si el cliente ya tiene la versión actual del recurso,
+     * sin llegar a cargar el cuerpo. Si no, carga el cuerpo y responde 200 con ETag y Last-Modified.
+     *
+     * @param request Petición, con las cabeceras condicionales del cliente.
+     * @param version Versión actual del recurso, o null si no se conoce (por ejemplo, si no existe).
+     * @param cuerpo Función que carga el cuerpo de la respuesta, solo si hace falta.
+     * @return Respuesta 304 sin cuerpo o 200 con el cuerpo.
+     */
+    public static <T> ResponseEntity<T> responder(WebRequest request, Version version, Supplier<T> cuerpo) {
+        if (version == null) {
+            return ResponseEntity.ok(cuerpo.get());
+        }
+
+        // checkNotModified añade ETag y Last-Modified a la respuesta en ambos casos
+        if (request.checkNotModified(version.etag(), version.ultimaModificacion().toEpochMilli())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CacheControl.noCache()).build();
+        }
+
+        // no-cache: el cliente puede guardar la respuesta, pero debe revalidarla antes de usarla
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(cuerpo.get());
+    }
+}
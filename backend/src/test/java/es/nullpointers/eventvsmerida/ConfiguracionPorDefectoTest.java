@@ -0,0 +1,42 @@
+package es.nullpointers.eventvsmerida;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+/**
+ * Comprueba que el contexto de las pruebas arranca con los valores por defecto de
+ * valores-por-defecto.properties, igual que la aplicación: sin open-in-view y con el
+ * pool de conexiones dimensionado para los hilos virtuales.
+ */
+@SpringBootTest(properties = {"supabase.url=http://localhost", "supabase.key=clave"})
+class ConfiguracionPorDefectoTest {
+
+    @Autowired
+    private ApplicationContext contexto;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void arrancaSinOpenInView() {
+        assertEquals("false", contexto.getEnvironment().getProperty("spring.jpa.open-in-view"));
+        assertEquals(0, contexto.getBeanNamesForType(OpenEntityManagerInViewInterceptor.class).length);
+    }
+
+    @Test
+    void usaElPoolDeConexionesConfigurado() {
+        HikariDataSource hikari = assertInstanceOf(HikariDataSource.class, dataSource);
+
+        assertEquals(20, hikari.getMaximumPoolSize());
+        assertEquals(5000, hikari.getConnectionTimeout());
+    }
+}
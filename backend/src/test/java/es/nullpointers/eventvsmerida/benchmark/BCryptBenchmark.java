@@ -0,0 +1,48 @@
+package es.nullpointers.eventvsmerida.benchmark;
+
+import es.nullpointers.eventvsmerida.security.ContraseniaService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide el codificador de contraseñas de la aplicación, ContraseniaService, con distintos costes:
+ * codificar es lo que paga el registro y comprobar lo que paga cada login.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BCryptBenchmark {
+    private static final String CONTRASENIA = "Contraseña-Segura-2026";
+
+    @Param({"10", "12"})
+    private int coste;
+
+    private ContraseniaService passwordEncoder;
+    private String hash;
+
+    @Setup
+    public void preparar() {
+        passwordEncoder = new ContraseniaService(coste, 1, 1, Duration.ofSeconds(30));
+        hash = passwordEncoder.encode(CONTRASENIA);
+    }
+
+    @TearDown
+    public void detener() {
+        passwordEncoder.detener();
+    }
+
+    @Benchmark
+    public String codificar() {
+        return passwordEncoder.encode(CONTRASENIA);
+    }
+
+    @Benchmark
+    public boolean comprobar() {
+        return passwordEncoder.matches(CONTRASENIA, hash);
+    }
+}
@@ -0,0 +1,88 @@
+package es.nullpointers.eventvsmerida.benchmark;
+
+import es.nullpointers.eventvsmerida.dto.response.ClusterMapaResponse;
+import es.nullpointers.eventvsmerida.service.ClusterMapaService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide cuánto tarda la rejilla en memoria en agrupar la zona visible del mapa de un móvil
+ * (unos 400 x 800 px) con distintos niveles de zoom, cuánto en contar los eventos de sus celdas
+ * interiores (la cota inferior con la que EventoService decide si caben los marcadores) y
+ * cuánto cuesta mover un evento.
+ * Los eventos se reparten alrededor de Mérida: la mitad en unos pocos focos y el resto
+ * uniformemente por la provincia.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClusterMapaBenchmark {
+    private static final double LATITUD_MERIDA = 38.9161;
+    private static final double LONGITUD_MERIDA = -6.3437;
+
+    @Param({"100000", "1000000"})
+    private int eventos;
+
+    @Param({"10", "13", "16"})
+    private int zoom;
+
+    private ClusterMapaService clusterMapaService;
+    private SplittableRandom random;
+    private double latitudMin;
+    private double latitudMax;
+    private double longitudMin;
+    private double longitudMax;
+
+    @Setup
+    public void preparar() {
+        clusterMapaService = new ClusterMapaService(null, 16, 4);
+        random = new SplittableRandom(42);
+
+        for (long i = 0; i < eventos; i++) {
+            if (i % 2 == 0) {
+                double focoLatitud = LATITUD_MERIDA + (i % 10) * 0.01;
+                double focoLongitud = LONGITUD_MERIDA + (i % 10) * 0.01;
+                clusterMapaService.actualizar(i, focoLatitud + gauss() * 0.005, focoLongitud + gauss() * 0.005);
+            } else {
+                clusterMapaService.actualizar(i, LATITUD_MERIDA + random.nextDouble(-1, 1), LONGITUD_MERIDA + random.nextDouble(-1, 1));
+            }
+        }
+
+        // Una tesela de 256 px abarca 360 / 2^zoom grados de longitud
+        double gradosPorPixel = 360.0 / (1L << zoom) / 256;
+        latitudMin = LATITUD_MERIDA - 400 * gradosPorPixel;
+        latitudMax = LATITUD_MERIDA + 400 * gradosPorPixel;
+        longitudMin = LONGITUD_MERIDA - 200 * gradosPorPixel;
+        longitudMax = LONGITUD_MERIDA + 200 * gradosPorPixel;
+    }
+
+    @Benchmark
+    public List<ClusterMapaResponse> agrupar() {
+        return clusterMapaService.agrupar(latitudMin, latitudMax, longitudMin, longitudMax, zoom);
+    }
+
+    @Benchmark
+    public long contarEnCeldasInteriores() {
+        return clusterMapaService.contarEnCeldasInteriores(latitudMin, latitudMax, longitudMin, longitudMax, zoom);
+    }
+
+    @Benchmark
+    public void moverEvento() {
+        clusterMapaService.actualizar(random.nextLong(eventos), LATITUD_MERIDA + random.nextDouble(-1, 1), LONGITUD_MERIDA + random.nextDouble(-1, 1));
+    }
+
+    private double gauss() {
+        // Aproximación de una normal estándar sumando uniformes (teorema central del límite)
+        double suma = 0;
+        for (int i = 0; i < 12; i++) {
+            suma += random.nextDouble();
+        }
+        return suma - 6;
+    }
+}
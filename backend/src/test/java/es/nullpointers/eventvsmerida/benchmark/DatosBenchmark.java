@@ -0,0 +1,50 @@
+package es.nullpointers.eventvsmerida.benchmark;
+
+import es.nullpointers.eventvsmerida.entity.Categoria;
+import es.nullpointers.eventvsmerida.entity.EstadoFoto;
+import es.nullpointers.eventvsmerida.entity.Evento;
+import es.nullpointers.eventvsmerida.entity.Rol;
+import es.nullpointers.eventvsmerida.entity.Usuario;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Entidades de ejemplo con datos de tamaño realista para los benchmarks.
+ */
+final class DatosBenchmark {
+    private DatosBenchmark() {}
+
+    static Usuario usuario(long id) {
+        Usuario usuario = new Usuario();
+        usuario.setId(id);
+        usuario.setNombre("María José");
+        usuario.setApellidos("Fernández de la Cruz");
+        usuario.setFechaNacimiento(LocalDate.of(1990, 5, 17));
+        usuario.setEmail("organizador" + id + "@eventvsmerida.es");
+        usuario.setTelefono("6" + String.format("%08d", id));
+        usuario.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOHiJ3Qe6xkz5Y8yq7e2XUd7Kx6rCwH9e");
+        usuario.setRol(new Rol(2L, "Usuario"));
+        return usuario;
+    }
+
+    static Evento evento(long id, Usuario organizador, Categoria categoria) {
+        Evento evento = new Evento();
+        evento.setId(id);
+        evento.setTitulo("Concierto en el Teatro Romano " + id);
+        evento.setDescripcion("Noche de música en directo en el Teatro Romano de Mérida, con entrada libre hasta completar aforo. "
+                + "Se recomienda llegar con antelación; el acceso se hace por la calle José Ramón Mélida.");
+        evento.setFechaHora(LocalDateTime.of(2026, 7, 1, 22, 0).plusHours(id % 2000));
+        evento.setLocalizacion("Teatro Romano de Mérida, Plaza Margarita Xirgu, 06800 Mérida, Badajoz");
+        evento.setLatitud(38.9161 + (id % 100) * 0.0001);
+        evento.setLongitud(-6.3437 + (id % 100) * 0.0001);
+        evento.setFoto("https://xyz.supabase.co/storage/v1/object/public/eventos/" + id + ".jpg");
+        evento.setFotoMiniatura("https://xyz.supabase.co/storage/v1/object/public/eventos/" + id + "-miniatura.webp");
+        evento.setFotoTarjeta("https://xyz.supabase.co/storage/v1/object/public/eventos/" + id + "-tarjeta.webp");
+        evento.setEstadoFoto(EstadoFoto.COMPLETADA);
+        evento.setGuardados((int) (id % 250));
+        evento.setUsuario(organizador);
+        evento.setCategoria(categoria);
+        return evento;
+    }
+}
@@ -0,0 +1,69 @@
+package es.nullpointers.eventvsmerida.benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+import es.nullpointers.eventvsmerida.supabase.CurlDownloader;
+import es.nullpointers.eventvsmerida.supabase.DescargadorImagenes;
+import es.nullpointers.eventvsmerida.supabase.HttpClientDownloader;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara la latencia por imagen del descargador HTTP de la JVM con la del proceso CURL
+ * contra un servidor HTTP local, para aislar el coste de cada implementación de la red.
+ * Para comparar también el consumo de CPU (incluido el de los procesos curl hijos)
+ * se puede añadir el perfilador de JMH: -Djmh.filtro="DescargadorImagenesBenchmark -prof perfnorm".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DescargadorImagenesBenchmark {
+
+    @Param({"http", "curl"})
+    private String implementacion;
+
+    @Param({"65536", "1048576"})
+    private int tamanioImagen;
+
+    private HttpServer servidor;
+    private DescargadorImagenes descargador;
+    private String url;
+
+    @Setup
+    public void arrancar() throws IOException {
+        byte[] imagen = new byte[tamanioImagen];
+
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        servidor.createContext("/imagen.jpg", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "image/jpeg");
+            exchange.sendResponseHeaders(200, imagen.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(imagen);
+            }
+        });
+        servidor.start();
+
+        url = "http://127.0.0.1:" + servidor.getAddress().getPort() + "/imagen.jpg";
+        descargador = implementacion.equals("curl")
+                ? new CurlDownloader()
+                : new HttpClientDownloader(DataSize.ofMegabytes(10), Duration.ofSeconds(5));
+    }
+
+    @TearDown
+    public void parar() {
+        servidor.stop(0);
+    }
+
+    @Benchmark
+    public byte[] descargar() {
+        return descargador.download(url, Duration.ofSeconds(10));
+    }
+}
@@ -0,0 +1,65 @@
+package es.nullpointers.eventvsmerida.benchmark;
+
+import es.nullpointers.eventvsmerida.exception.ManejadorGlobalExcepciones;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide lo que cuesta en el manejador global localizar la clase y el método de la aplicación
+ * en el stack trace de una excepción, y lo que cuesta capturar ese stack trace al crearla.
+ * La pila sintética imita la de una petición real: unos marcos de la excepción, el servicio,
+ * el controlador y la cadena de filtros de Spring y Tomcat.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ManejadorExcepcionesBenchmark {
+
+    @Param({"100"})
+    private int profundidad;
+
+    private StackTraceElement[] pilaConAplicacion;
+    private StackTraceElement[] pilaSinAplicacion;
+
+    @Setup
+    public void preparar() {
+        pilaConAplicacion = new StackTraceElement[profundidad];
+        pilaSinAplicacion = new StackTraceElement[profundidad];
+
+        for (int i = 0; i < profundidad; i++) {
+            StackTraceElement marco = new StackTraceElement("org.springframework.web.filter.OncePerRequestFilter", "doFilter", "OncePerRequestFilter.java", 116);
+            pilaConAplicacion[i] = marco;
+            pilaSinAplicacion[i] = marco;
+        }
+
+        pilaConAplicacion[0] = new StackTraceElement("java.util.Optional", "orElseThrow", "Optional.java", 403);
+        pilaConAplicacion[1] = new StackTraceElement("es.nullpointers.eventvsmerida.service.EventoService$$SpringCGLIB$$0", "obtenerEventoPorId", null, -1);
+        pilaConAplicacion[2] = new StackTraceElement("es.nullpointers.eventvsmerida.service.EventoService", "obtenerEventoPorIdOExcepcion", "EventoService.java", 412);
+        pilaConAplicacion[3] = new StackTraceElement("es.nullpointers.eventvsmerida.controller.EventoController", "obtenerEventoPorId", "EventoController.java", 198);
+    }
+
+    @Benchmark
+    public String buscarClaseMetodo() {
+        return ManejadorGlobalExcepciones.obtenerClaseMetodoDesdeStackTrace(pilaConAplicacion);
+    }
+
+    @Benchmark
+    public String buscarClaseMetodoSinCoincidencia() {
+        return ManejadorGlobalExcepciones.obtenerClaseMetodoDesdeStackTrace(pilaSinAplicacion);
+    }
+
+    @Benchmark
+    public StackTraceElement[] crearExcepcionYObtenerStackTrace() {
+        return lanzarDesde(profundidad).getStackTrace();
+    }
+
+    private static NoSuchElementException lanzarDesde(int profundidad) {
+        // Se baja en la pila para que el coste de capturarla sea el de una petición real
+        return profundidad <= 1 ? new NoSuchElementException("No se encontró el evento") : lanzarDesde(profundidad - 1);
+    }
+}
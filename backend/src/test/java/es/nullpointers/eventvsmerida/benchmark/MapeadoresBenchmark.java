@@ -0,0 +1,43 @@
+package es.nullpointers.eventvsmerida.benchmark;
+
+import es.nullpointers.eventvsmerida.dto.response.EventoResponse;
+import es.nullpointers.eventvsmerida.dto.response.UsuarioResponse;
+import es.nullpointers.eventvsmerida.entity.Categoria;
+import es.nullpointers.eventvsmerida.entity.Evento;
+import es.nullpointers.eventvsmerida.entity.Usuario;
+import es.nullpointers.eventvsmerida.mapper.EventoMapper;
+import es.nullpointers.eventvsmerida.mapper.UsuarioMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide la conversión de entidades a DTO de respuesta, que se ejecuta una vez por
+ * evento o usuario en cada listado.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapeadoresBenchmark {
+    private Evento evento;
+    private Usuario usuario;
+
+    @Setup
+    public void preparar() {
+        usuario = DatosBenchmark.usuario(1);
+        evento = DatosBenchmark.evento(1, usuario, new Categoria(3L, "Música"));
+    }
+
+    @Benchmark
+    public EventoResponse eventoAResponse() {
+        return EventoMapper.convertirAResponse(evento);
+    }
+
+    @Benchmark
+    public UsuarioResponse usuarioAResponse() {
+        return UsuarioMapper.convertirAResponse(usuario);
+    }
+}
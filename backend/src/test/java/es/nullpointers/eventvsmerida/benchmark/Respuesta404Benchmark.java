@@ -0,0 +1,98 @@
+package es.nullpointers.eventvsmerida.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import es.nullpointers.eventvsmerida.exception.CodigoError;
+import es.nullpointers.eventvsmerida.exception.ErrorResponse;
+import es.nullpointers.eventvsmerida.exception.ManejadorGlobalExcepciones;
+import es.nullpointers.eventvsmerida.exception.RecursoNoEncontradoException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide lo que cuesta responder un 404 de /api/eventos/{id} desde que el servicio lanza la
+ * excepción hasta que el manejador global construye la respuesta, antes y después de las
+ * excepciones de dominio: antes, una NoSuchElementException con el mensaje concatenado y el
+ * stack trace completo; después, una RecursoNoEncontradoException sin stack trace y con el
+ * mensaje formateado solo para la respuesta. La excepción se lanza desde una pila tan profunda
+ * como la de una petición real y se captura arriba, como hace Spring. El log del manejador se
+ * apaga para no medir la escritura en consola.
+ * Los benchmarks "encontrado" miden el caso sin error de obtenerEventoPorIdOExcepcion, en el
+ * que antes el mensaje se concatenaba igualmente en cada llamada.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Respuesta404Benchmark {
+
+    @Param({"100"})
+    private int profundidad;
+
+    private ManejadorGlobalExcepciones manejador;
+    private long id;
+
+    @Setup
+    public void preparar() {
+        ((Logger) LoggerFactory.getLogger(ManejadorGlobalExcepciones.class)).setLevel(Level.OFF);
+        manejador = new ManejadorGlobalExcepciones(new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorResponse> antes() {
+        try {
+            lanzarAntes(profundidad, ++id);
+            throw new IllegalStateException();
+        } catch (NoSuchElementException e) {
+            return manejador.manejadorNoSuchElementException(e);
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorResponse> despues() {
+        try {
+            lanzarDespues(profundidad, ++id);
+            throw new IllegalStateException();
+        } catch (RecursoNoEncontradoException e) {
+            return manejador.manejadorExcepcionDominio(e);
+        }
+    }
+
+    @Benchmark
+    public Object encontradoAntes() {
+        // Como obtenerEventoPorIdOExcepcion(id, "Error en ...: No se encontró el evento con id " + id)
+        return buscar(++id, "Error en EventoService.obtenerEventoPorId: No se encontró el evento con id " + id);
+    }
+
+    @Benchmark
+    public Object encontradoDespues() {
+        return buscar(++id, "EventoService.obtenerEventoPorId");
+    }
+
+    private static void lanzarAntes(int profundidad, long id) {
+        if (profundidad <= 1) {
+            throw new NoSuchElementException("Error en EventoService.obtenerEventoPorId: No se encontró el evento con id " + id);
+        }
+        lanzarAntes(profundidad - 1, id);
+    }
+
+    private static void lanzarDespues(int profundidad, long id) {
+        if (profundidad <= 1) {
+            throw new RecursoNoEncontradoException(CodigoError.EVENTO_NO_ENCONTRADO, "EventoService.obtenerEventoPorId", id);
+        }
+        lanzarDespues(profundidad - 1, id);
+    }
+
+    @CompilerControl(CompilerControl.Mode.DONT_INLINE)
+    private static Object buscar(long id, String mensajeError) {
+        // El evento existe: el mensaje de error no se usa
+        return mensajeError.length() > 0 ? id : null;
+    }
+}
@@ -0,0 +1,60 @@
+package es.nullpointers.eventvsmerida.benchmark;
+
+import es.nullpointers.eventvsmerida.dto.response.EventoResponse;
+import es.nullpointers.eventvsmerida.entity.Categoria;
+import es.nullpointers.eventvsmerida.entity.Usuario;
+import es.nullpointers.eventvsmerida.mapper.EventoMapper;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide la serialización a JSON de listados de eventos con Jackson, como la que hace
+ * Spring MVC al escribir la respuesta de /api/eventos/all. Se escribe en un flujo
+ * descartado para medir solo Jackson, y también a un array para ver el coste de
+ * tener la respuesta entera en memoria.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializacionEventosBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int eventos;
+
+    private JsonMapper jsonMapper;
+    private List<EventoResponse> listado;
+
+    @Setup
+    public void preparar() {
+        jsonMapper = JsonMapper.builder().build();
+
+        // Unos cientos de organizadores y una docena de categorías, como en producción
+        listado = new ArrayList<>(eventos);
+        for (long i = 0; i < eventos; i++) {
+            Usuario organizador = DatosBenchmark.usuario(i % 300);
+            Categoria categoria = new Categoria(i % 12, "Categoría " + (i % 12));
+            listado.add(EventoMapper.convertirAResponse(DatosBenchmark.evento(i, organizador, categoria)));
+        }
+
+        // Se serializa una vez para que la primera medida no incluya la introspección de EventoResponse
+        jsonMapper.writeValue(OutputStream.nullOutputStream(), listado);
+    }
+
+    @Benchmark
+    public void serializarEnFlujo() {
+        jsonMapper.writeValue(OutputStream.nullOutputStream(), listado);
+    }
+
+    @Benchmark
+    public byte[] serializarEnArray() {
+        return jsonMapper.writeValueAsBytes(listado);
+    }
+}
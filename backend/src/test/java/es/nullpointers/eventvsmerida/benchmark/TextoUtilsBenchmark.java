@@ -0,0 +1,32 @@
+package es.nullpointers.eventvsmerida.benchmark;
+
+import es.nullpointers.eventvsmerida.utils.TextoUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide la normalización y la capitalización de textos con la longitud de un nombre
+ * y con la de un título largo de evento.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TextoUtilsBenchmark {
+
+    @Param({"  maría josé  ", "gran concierto de primavera en el teatro romano de mérida con la orquesta de extremadura"})
+    private String texto;
+
+    @Benchmark
+    public String normalizarTexto() {
+        return TextoUtils.normalizarTexto(texto);
+    }
+
+    @Benchmark
+    public String capitalizarTexto() {
+        return TextoUtils.capitalizarTexto(texto);
+    }
+}
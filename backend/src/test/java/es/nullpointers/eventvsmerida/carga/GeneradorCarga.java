@@ -0,0 +1,188 @@
+package es.nullpointers.eventvsmerida.carga;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Clase que lanza peticiones HTTP contra cada escenario a un ritmo fijo (modelo abierto):
+ * cada petición sale en su instante programado aunque las anteriores no hayan terminado,
+ * y su latencia se mide desde ese instante. Así, si el servidor se atasca, las peticiones
+ * que esperan en cola cuentan con su espera real y los percentiles no quedan maquillados.
+ */
+class GeneradorCarga {
+    private static final Duration TIMEOUT_PETICION = Duration.ofSeconds(10);
+
+    private final HttpClient httpClient;
+
+    GeneradorCarga(HttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * Endpoint sometido a carga.
+     *
+     * @param nombre Nombre del endpoint, el mismo que usan sus objetivos en slo.properties.
+     * @param rps Peticiones por segundo que se lanzan.
+     * @param peticion Generador de peticiones; se llama una vez por petición para variar los parámetros.
+     */
+    record Escenario(String nombre, double rps, Supplier<HttpRequest.Builder> peticion) {}
+
+    /**
+     * Resultado de un escenario durante el periodo de medición (sin el calentamiento).
+     *
+     * @param nombre Nombre del endpoint.
+     * @param rpsObjetivo Peticiones por segundo que se lanzaron.
+     * @param peticiones Peticiones completadas.
+     * @param errores Peticiones con estado HTTP 4xx/5xx o que fallaron sin respuesta.
+     * @param rendimiento Peticiones completadas por segundo.
+     * @param p50 Latencia del percentil 50, en milisegundos.
+     * @param p95 Latencia del percentil 95, en milisegundos.
+     * @param p99 Latencia del percentil 99, en milisegundos.
+     * @param maximo Latencia máxima, en milisegundos.
+     */
+    record Resultado(String nombre, double rpsObjetivo, long peticiones, long errores, double rendimiento,
+                     double p50, double p95, double p99, double maximo) {
+        double tasaErrores() {
+            return peticiones == 0 ? 0 : (double) errores / peticiones;
+        }
+    }
+
+    /**
+     * Método que ejecuta todos los escenarios a la vez durante el calentamiento y la medición.
+     *
+     * @param escenarios Escenarios que se ejecutan en paralelo.
+     * @param calentamiento Tiempo inicial cuyas peticiones se lanzan pero no se miden.
+     * @param duracion Tiempo de medición.
+     * @return El resultado de cada escenario, en el mismo orden.
+     */
+    Map<String, Resultado> ejecutar(List<Escenario> escenarios, Duration calentamiento, Duration duracion) {
+        long inicio = System.nanoTime() + Duration.ofMillis(100).toNanos();
+        long inicioMedicion = inicio + calentamiento.toNanos();
+        long fin = inicioMedicion + duracion.toNanos();
+
+        Map<String, Registro> registros = new LinkedHashMap<>();
+        List<Thread> lanzadores = new ArrayList<>();
+
+        try (ExecutorService peticiones = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Escenario escenario : escenarios) {
+                Registro registro = new Registro();
+                registros.put(escenario.nombre(), registro);
+                lanzadores.add(Thread.ofPlatform().name("carga-" + escenario.nombre()).start(
+                        () -> lanzar(escenario, registro, peticiones, inicio, inicioMedicion, fin)
+                ));
+            }
+
+            for (Thread lanzador : lanzadores) {
+                lanzador.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Prueba de carga interrumpida", e);
+        }
+        // Al cerrar el ejecutor se espera a las peticiones que seguían en curso
+
+        Map<String, Resultado> resultados = new LinkedHashMap<>();
+        double segundos = duracion.toNanos() / 1e9;
+        for (Escenario escenario : escenarios) {
+            resultados.put(escenario.nombre(), registros.get(escenario.nombre()).resumir(escenario, segundos));
+        }
+        return resultados;
+    }
+
+    // ================
+    // Métodos Privados
+    // ================
+
+    /**
+     * Método auxiliar que programa las peticiones de un escenario a intervalos fijos hasta el final de la prueba.
+     */
+    private void lanzar(Escenario escenario, Registro registro, ExecutorService peticiones, long inicio, long inicioMedicion, long fin) {
+        long intervalo = (long) (1e9 / escenario.rps());
+
+        for (long programada = inicio; programada < fin; programada += intervalo) {
+            long espera = programada - System.nanoTime();
+            if (espera > 0) {
+                LockSupport.parkNanos(espera);
+            }
+
+            long instante = programada;
+            boolean medir = programada >= inicioMedicion;
+            HttpRequest peticion = escenario.peticion().get().timeout(TIMEOUT_PETICION).build();
+            peticiones.submit(() -> enviar(peticion, instante, medir, registro));
+        }
+    }
+
+    /**
+     * Método auxiliar que envía una petición y anota su latencia desde el instante programado.
+     */
+    private void enviar(HttpRequest peticion, long programada, boolean medir, Registro registro) {
+        boolean error;
+        try {
+            HttpResponse<Void> respuesta = httpClient.send(peticion, HttpResponse.BodyHandlers.discarding());
+            error = respuesta.statusCode() >= 400;
+        } catch (Exception e) {
+            error = true;
+        }
+
+        if (medir) {
+            registro.anotar(System.nanoTime() - programada, error);
+        }
+    }
+
+    /**
+     * Latencias y errores medidos de un escenario.
+     */
+    private static final class Registro {
+        private long[] latencias = new long[1024];
+        private int peticiones;
+        private long errores;
+
+        synchronized void anotar(long latenciaNanos, boolean error) {
+            if (peticiones == latencias.length) {
+                latencias = Arrays.copyOf(latencias, peticiones * 2);
+            }
+            latencias[peticiones++] = latenciaNanos;
+            if (error) {
+                errores++;
+            }
+        }
+
+        synchronized Resultado resumir(Escenario escenario, double segundos) {
+            long[] ordenadas = Arrays.copyOf(latencias, peticiones);
+            Arrays.sort(ordenadas);
+            return new Resultado(
+                    escenario.nombre(),
+                    escenario.rps(),
+                    peticiones,
+                    errores,
+                    peticiones / segundos,
+                    percentil(ordenadas, 50),
+                    percentil(ordenadas, 95),
+                    percentil(ordenadas, 99),
+                    ordenadas.length == 0 ? 0 : ordenadas[ordenadas.length - 1] / 1e6
+            );
+        }
+
+        /**
+         * Percentil por el método del rango más cercano, en milisegundos.
+         */
+        private static double percentil(long[] ordenadas, double percentil) {
+            if (ordenadas.length == 0) {
+                return 0;
+            }
+            int indice = (int) Math.ceil(percentil / 100 * ordenadas.length) - 1;
+            return ordenadas[Math.max(indice, 0)] / 1e6;
+        }
+    }
+}
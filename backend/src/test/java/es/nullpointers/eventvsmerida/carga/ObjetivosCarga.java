@@ -0,0 +1,113 @@
+package es.nullpointers.eventvsmerida.carga;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Clase que lee el fichero de objetivos de la prueba de carga (volúmenes, RPS y SLO de cada
+ * endpoint) y comprueba los resultados contra ellos.
+ */
+class ObjetivosCarga {
+    private static final String[] PERCENTILES = {"p50", "p95", "p99"};
+
+    private final Properties propiedades;
+
+    private ObjetivosCarga(Properties propiedades) {
+        this.propiedades = propiedades;
+    }
+
+    /**
+     * Método que carga los objetivos desde el classpath.
+     *
+     * @param recurso Ruta del fichero en el classpath, por ejemplo carga/slo.properties.
+     * @return Los objetivos leídos.
+     */
+    static ObjetivosCarga cargar(String recurso) {
+        Properties propiedades = new Properties();
+        try (InputStream in = ObjetivosCarga.class.getClassLoader().getResourceAsStream(recurso)) {
+            if (in == null) {
+                throw new IllegalStateException("No se encuentra el fichero de objetivos " + recurso);
+            }
+            propiedades.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el fichero de objetivos " + recurso, e);
+        }
+        return new ObjetivosCarga(propiedades);
+    }
+
+    int entero(String clave) {
+        return Integer.parseInt(obligatoria(clave));
+    }
+
+    Duration duracion(String clave) {
+        return DurationStyle.detectAndParse(obligatoria(clave));
+    }
+
+    /**
+     * Método que devuelve las RPS de un endpoint: las suyas si las tiene o las generales (carga.rps).
+     *
+     * @param endpoint Nombre del endpoint.
+     * @return Peticiones por segundo.
+     */
+    double rps(String endpoint) {
+        return Double.parseDouble(propiedades.getProperty(endpoint + ".rps", obligatoria("carga.rps")));
+    }
+
+    /**
+     * Método que compara cada resultado con los objetivos de su endpoint.
+     * Los objetivos que no aparecen en el fichero no se comprueban.
+     *
+     * @param resultados Resultados de la prueba por endpoint.
+     * @return Descripción de cada objetivo incumplido; vacía si se cumplen todos.
+     */
+    List<String> comprobar(Map<String, GeneradorCarga.Resultado> resultados) {
+        List<String> incumplidos = new ArrayList<>();
+        double rendimientoMinimo = Double.parseDouble(propiedades.getProperty("carga.rendimiento-minimo", "0"));
+
+        for (GeneradorCarga.Resultado resultado : resultados.values()) {
+            String endpoint = resultado.nombre();
+            double[] latencias = {resultado.p50(), resultado.p95(), resultado.p99()};
+
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                String objetivo = propiedades.getProperty(endpoint + "." + PERCENTILES[i]);
+                if (objetivo != null && latencias[i] > Double.parseDouble(objetivo)) {
+                    incumplidos.add(String.format(Locale.ROOT, "%s: %s de %.1f ms supera el objetivo de %s ms",
+                            endpoint, PERCENTILES[i], latencias[i], objetivo));
+                }
+            }
+
+            String errores = propiedades.getProperty(endpoint + ".errores");
+            if (errores != null && resultado.tasaErrores() > Double.parseDouble(errores)) {
+                incumplidos.add(String.format(Locale.ROOT, "%s: tasa de errores de %.4f supera el objetivo de %s (%d de %d peticiones)",
+                        endpoint, resultado.tasaErrores(), errores, resultado.errores(), resultado.peticiones()));
+            }
+
+            if (resultado.rendimiento() < resultado.rpsObjetivo() * rendimientoMinimo) {
+                incumplidos.add(String.format(Locale.ROOT, "%s: rendimiento de %.1f peticiones/s por debajo del %.0f%% de las %.1f RPS objetivo",
+                        endpoint, resultado.rendimiento(), rendimientoMinimo * 100, resultado.rpsObjetivo()));
+            }
+        }
+        return incumplidos;
+    }
+
+    // ================
+    // Métodos Privados
+    // ================
+
+    private String obligatoria(String clave) {
+        String valor = propiedades.getProperty(clave);
+        if (valor == null) {
+            throw new IllegalStateException("Falta la propiedad " + clave + " en el fichero de objetivos");
+        }
+        return valor.trim();
+    }
+}
@@ -0,0 +1,177 @@
+package es.nullpointers.eventvsmerida.carga;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prueba de carga de extremo a extremo: arranca la aplicación completa contra un PostgreSQL
+ * local en Docker, lo siembra con un volumen realista de datos y lanza peticiones a ritmo fijo
+ * contra los endpoints de eventos, login y eventos guardados. Informa de la latencia p50/p95/p99,
+ * el rendimiento y la tasa de errores de cada endpoint y falla si se incumple algún objetivo de
+ * carga/slo.properties. Solo se ejecuta con el perfil carga (mvn -Pcarga test).
+ */
+@Slf4j
+@Tag("carga")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.hibernate.ddl-auto=create",
+        // Las fotos sembradas ya están completadas, así que Supabase no llega a usarse
+        "supabase.url=http://localhost",
+        "supabase.key=carga",
+        // Todas las peticiones llegan desde 127.0.0.1, así que se quita el límite de intentos por IP
+        "seguridad.login.intentos-por-ip=100000000"
+})
+class PruebaCargaTest {
+    private static final String FICHERO_OBJETIVOS = "carga/slo.properties";
+    private static final List<String> TERMINOS_BUSQUEDA = List.of("concierto", "teatro romano", "exposicion", "flamenco", "taller infantil", "mercado");
+
+    // Se arranca antes que el contexto de Spring, que se crea junto a la instancia de la prueba
+    @ServiceConnection
+    static PostgreSQLContainer postgres = new PostgreSQLContainer("postgres:17-alpine");
+
+    static {
+        postgres.start();
+    }
+
+    @LocalServerPort
+    private int puerto;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private final ObjetivosCarga objetivos = ObjetivosCarga.cargar(FICHERO_OBJETIVOS);
+    private SembradorCarga.DatosSembrados datos;
+
+    @BeforeAll
+    void sembrarDatos() {
+        datos = new SembradorCarga(jdbcTemplate).sembrar(
+                objetivos.entero("datos.usuarios"),
+                objetivos.entero("datos.categorias"),
+                objetivos.entero("datos.eventos"),
+                objetivos.entero("datos.guardados"),
+                passwordEncoder.encode(SembradorCarga.PASSWORD)
+        );
+    }
+
+    @Test
+    void losEndpointsCumplenSusObjetivosDeLatencia() throws IOException {
+        HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        GeneradorCarga generador = new GeneradorCarga(httpClient);
+
+        Map<String, GeneradorCarga.Resultado> resultados = generador.ejecutar(
+                escenarios(),
+                objetivos.duracion("carga.calentamiento"),
+                objetivos.duracion("carga.duracion")
+        );
+        List<String> incumplidos = objetivos.comprobar(resultados);
+
+        informar(resultados, incumplidos);
+        assertTrue(incumplidos.isEmpty(), "Objetivos de carga incumplidos:\n" + String.join("\n", incumplidos));
+    }
+
+    // ================
+    // Métodos Privados
+    // ================
+
+    /**
+     * Método auxiliar que define los escenarios, cada uno con parámetros aleatorios
+     * sobre los datos sembrados para no leer siempre las mismas filas.
+     */
+    private List<GeneradorCarga.Escenario> escenarios() {
+        LocalDateTime hoy = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS);
+
+        return List.of(
+                escenario("eventos-feed", () -> get("/api/eventos/feed?tamanio=20")),
+                escenario("eventos-id", () -> get("/api/eventos/" + aleatorio(datos.idsEvento()))),
+                escenario("eventos-rango", () -> {
+                    LocalDateTime desde = hoy.plusDays(ThreadLocalRandom.current().nextInt(-180, 180));
+                    return get("/api/eventos/rango?desde=" + desde + "&hasta=" + desde.plusDays(7));
+                }),
+                escenario("eventos-buscar", () -> get("/api/eventos/buscar?q=" + URLEncoder.encode(aleatorio(TERMINOS_BUSQUEDA), StandardCharsets.UTF_8))),
+                escenario("eventos-mas-guardados", () -> get("/api/eventos/mas-guardados")),
+                escenario("usuarios-login", () -> {
+                    String cuerpo = "{\"email\":\"" + aleatorio(datos.emailsUsuario()) + "\",\"password\":\"" + SembradorCarga.PASSWORD + "\"}";
+                    return peticion("/api/usuarios/login")
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(cuerpo));
+                }),
+                escenario("usuario-eventos-guardar", () -> peticion("/api/usuario-eventos/" + aleatorio(datos.idsUsuario()) + "/" + aleatorio(datos.idsEvento()))
+                        .PUT(HttpRequest.BodyPublishers.noBody())),
+                escenario("usuario-eventos-quitar", () -> peticion("/api/usuario-eventos/" + aleatorio(datos.idsUsuario()) + "/" + aleatorio(datos.idsEvento()))
+                        .DELETE()),
+                escenario("usuario-eventos-guardados", () -> get("/api/usuario-eventos/guardados?emailUsuario=" + URLEncoder.encode(aleatorio(datos.emailsUsuario()), StandardCharsets.UTF_8)))
+        );
+    }
+
+    private GeneradorCarga.Escenario escenario(String nombre, Supplier<HttpRequest.Builder> peticion) {
+        return new GeneradorCarga.Escenario(nombre, objetivos.rps(nombre), peticion);
+    }
+
+    private HttpRequest.Builder peticion(String ruta) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + puerto + ruta));
+    }
+
+    private HttpRequest.Builder get(String ruta) {
+        return peticion(ruta).GET();
+    }
+
+    private static <T> T aleatorio(List<T> valores) {
+        return valores.get(ThreadLocalRandom.current().nextInt(valores.size()));
+    }
+
+    /**
+     * Método auxiliar que muestra la tabla de resultados y la guarda en JSON junto con los
+     * objetivos incumplidos, en la ruta de la propiedad carga.resultados.
+     */
+    private void informar(Map<String, GeneradorCarga.Resultado> resultados, List<String> incumplidos) throws IOException {
+        StringBuilder tabla = new StringBuilder(String.format(Locale.ROOT, "%n%-28s %8s %8s %10s %9s %9s %9s %9s%n",
+                "endpoint", "rps", "errores", "tasa err", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+        for (GeneradorCarga.Resultado r : resultados.values()) {
+            tabla.append(String.format(Locale.ROOT, "%-28s %8.1f %8d %10.4f %9.1f %9.1f %9.1f %9.1f%n",
+                    r.nombre(), r.rendimiento(), r.errores(), r.tasaErrores(), r.p50(), r.p95(), r.p99(), r.maximo()));
+        }
+        log.info("Resultados de la prueba de carga:{}", tabla);
+
+        Map<String, Object> informe = new LinkedHashMap<>();
+        informe.put("resultados", resultados.values());
+        informe.put("incumplidos", incumplidos);
+
+        Path fichero = Path.of(System.getProperty("carga.resultados", "target/carga-resultados.json"));
+        Files.createDirectories(fichero.toAbsolutePath().getParent());
+        JsonMapper.builder().build().writerWithDefaultPrettyPrinter().writeValue(fichero.toFile(), informe);
+        log.info("Informe de la prueba de carga guardado en {}", fichero.toAbsolutePath());
+    }
+}
@@ -0,0 +1,141 @@
+package es.nullpointers.eventvsmerida.carga;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Clase que siembra la base de datos de la prueba de carga con un volumen realista de
+ * roles, categorías, usuarios, eventos y eventos guardados. Los datos se generan en el
+ * propio PostgreSQL con generate_series, de modo que sembrar decenas de miles de filas
+ * tarda segundos, y después se aplican las migraciones de db/migraciones para que los
+ * índices, la búsqueda de texto y los contadores de guardados sean los de producción.
+ */
+@Slf4j
+class SembradorCarga {
+    static final String PASSWORD = "Carga2026";
+
+    private static final Path DIRECTORIO_MIGRACIONES = Path.of("db", "migraciones");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    SembradorCarga(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Datos sembrados que necesitan los escenarios para construir las peticiones.
+     *
+     * @param idsUsuario IDs de los usuarios, en el mismo orden que sus emails.
+     * @param emailsUsuario Emails de los usuarios, todos con la contraseña {@link #PASSWORD}.
+     * @param idsEvento IDs de los eventos.
+     */
+    record DatosSembrados(List<Long> idsUsuario, List<String> emailsUsuario, List<Long> idsEvento) {}
+
+    /**
+     * Método que siembra las tablas recién creadas por Hibernate y aplica las migraciones.
+     *
+     * @param usuarios Número de usuarios.
+     * @param categorias Número de categorías.
+     * @param eventos Número de eventos.
+     * @param guardados Número aproximado de eventos guardados (se descartan los repetidos).
+     * @param hashPassword Hash BCrypt de {@link #PASSWORD}, compartido por todos los usuarios.
+     * @return Los IDs y emails sembrados.
+     */
+    DatosSembrados sembrar(int usuarios, int categorias, int eventos, int guardados, String hashPassword) {
+        long inicio = System.nanoTime();
+
+        jdbcTemplate.update("INSERT INTO \"Rol\" (nombre) VALUES ('Administrador'), ('Usuario')");
+
+        jdbcTemplate.update("""
+                INSERT INTO "Categoria" (nombre)
+                SELECT 'Categoría ' || n FROM generate_series(1, ?) n
+                """, categorias);
+
+        jdbcTemplate.update("""
+                INSERT INTO "Usuario" (nombre, apellidos, fecha_nacimiento, email, telefono, password, id_rol)
+                SELECT 'Usuario' || n, 'Carga ' || n, DATE '1970-01-01' + (n * 37 % 15000),
+                       'usuario' || n || '@carga.eventvsmerida.es', (600000000 + n)::text, ?,
+                       (SELECT id FROM "Rol" WHERE nombre = 'Usuario')
+                FROM generate_series(1, ?) n
+                """, hashPassword, usuarios);
+
+        // Las tablas se acaban de crear, así que los IDs de cada tabla son consecutivos desde su mínimo.
+        // Organiza eventos uno de cada veinte usuarios y las fechas se reparten en el año alrededor de hoy.
+        jdbcTemplate.update("""
+                WITH u AS (SELECT min(id) AS base, count(*) AS total FROM "Usuario"),
+                     c AS (SELECT min(id) AS base, count(*) AS total FROM "Categoria")
+                INSERT INTO "Evento" (titulo, descripcion, fecha_hora, localizacion, latitud, longitud, guardados,
+                                      actualizado_en, foto, foto_miniatura, foto_tarjeta, estado_foto, id_usuario, id_categoria)
+                SELECT (ARRAY['Concierto', 'Teatro', 'Exposición', 'Taller', 'Ruta', 'Festival', 'Mercado', 'Cine', 'Conferencia', 'Partido'])[1 + n % 10]
+                           || ' ' || (ARRAY['de jazz', 'clásico', 'en el Teatro Romano', 'infantil', 'de fotografía', 'gastronómico', 'de flamenco', 'al aire libre', 'de primavera', 'solidario'])[1 + (n / 10) % 10]
+                           || ' ' || n,
+                       'Actividad ' || n || ' de la agenda de Mérida. ' || repeat('Entrada libre hasta completar aforo, con actividades para todos los públicos. ', 1 + n % 4),
+                       date_trunc('hour', localtimestamp) - INTERVAL '180 days' + (n * 7919 % 525600) * INTERVAL '1 minute',
+                       (ARRAY['Teatro Romano', 'Plaza de España', 'Templo de Diana', 'Acueducto de los Milagros', 'Puente Romano', 'Alcazaba'])[1 + n % 6] || ', Mérida',
+                       38.9161 + (n * 31 % 1000 - 500) * 0.00004,
+                       -6.3437 + (n * 17 % 1000 - 500) * 0.00005,
+                       0, now(),
+                       'https://picsum.photos/seed/' || n || '/1200/800',
+                       'https://picsum.photos/seed/' || n || '/200/200',
+                       'https://picsum.photos/seed/' || n || '/600/400',
+                       'COMPLETADA',
+                       u.base + n % greatest(u.total / 20, 1),
+                       c.base + n % c.total
+                FROM generate_series(1, ?) n, u, c
+                """, eventos);
+
+        // Unos pocos eventos concentran la mayoría de los guardados, como ocurre con los más populares
+        jdbcTemplate.update("""
+                WITH u AS (SELECT min(id) AS base, count(*) AS total FROM "Usuario"),
+                     e AS (SELECT min(id) AS base, count(*) AS total FROM "Evento")
+                INSERT INTO "Usuario-Evento" (id_usuario, id_evento)
+                SELECT u.base + floor(random() * u.total)::bigint,
+                       e.base + floor(e.total * power(random(), 3))::bigint
+                FROM generate_series(1, ?) n, u, e
+                ON CONFLICT DO NOTHING
+                """, guardados);
+
+        aplicarMigraciones();
+        jdbcTemplate.execute("ANALYZE");
+
+        DatosSembrados datos = new DatosSembrados(
+                jdbcTemplate.queryForList("SELECT id FROM \"Usuario\" ORDER BY id", Long.class),
+                jdbcTemplate.queryForList("SELECT email FROM \"Usuario\" ORDER BY id", String.class),
+                jdbcTemplate.queryForList("SELECT id FROM \"Evento\" ORDER BY id", Long.class)
+        );
+
+        log.info("Base de datos sembrada en {} ms: {} usuarios, {} eventos y {} guardados",
+                (System.nanoTime() - inicio) / 1_000_000, datos.idsUsuario().size(), datos.idsEvento().size(),
+                jdbcTemplate.queryForObject("SELECT count(*) FROM \"Usuario-Evento\"", Long.class));
+        return datos;
+    }
+
+    // ================
+    // Métodos Privados
+    // ================
+
+    /**
+     * Método auxiliar que aplica en orden las migraciones de db/migraciones. Todas son idempotentes,
+     * así que las columnas que ya ha creado Hibernate se respetan, y al ejecutarse tras la siembra
+     * rellenan la columna de búsqueda y recalculan el contador de guardados de cada evento.
+     * Cada fichero se envía entero, porque el driver de PostgreSQL ya separa sus sentencias
+     * respetando los bloques $$.
+     */
+    private void aplicarMigraciones() {
+        try (Stream<Path> ficheros = Files.list(DIRECTORIO_MIGRACIONES)) {
+            for (Path fichero : ficheros.filter(f -> f.toString().endsWith(".sql")).sorted().toList()) {
+                jdbcTemplate.execute(Files.readString(fichero));
+                log.info("Migración aplicada: {}", fichero.getFileName());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudieron leer las migraciones de " + DIRECTORIO_MIGRACIONES.toAbsolutePath(), e);
+        }
+    }
+}
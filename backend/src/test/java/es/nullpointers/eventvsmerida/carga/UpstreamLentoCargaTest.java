@@ -0,0 +1,182 @@
+package es.nullpointers.eventvsmerida.carga;
+
+import com.sun.net.httpserver.HttpServer;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.AbstractProtocol;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.boot.tomcat.autoconfigure.TomcatVirtualThreadsWebServerFactoryCustomizer;
+import org.springframework.boot.tomcat.servlet.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prueba de carga de las peticiones que se quedan bloqueadas esperando a un servidor de imágenes
+ * lento, antes y después de activar spring.threads.virtual.enabled. Arranca un Tomcat embebido
+ * con un servlet que, como la descarga de imágenes, espera la respuesta del servidor lento, y lo
+ * carga primero con hilos de plataforma y después con hilos virtuales, configurado igual que
+ * Spring Boot. Con hilos de plataforma la concurrencia se queda en el número de hilos de Tomcat
+ * y las peticiones se acumulan; con hilos virtuales cada petición espera en su propio hilo.
+ * Solo se ejecuta con el perfil carga (mvn -Pcarga test).
+ */
+@Slf4j
+@Tag("carga")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class UpstreamLentoCargaTest {
+    private static final String FICHERO_OBJETIVOS = "carga/upstream-lento.properties";
+    private static final byte[] IMAGEN = new byte[8 * 1024];
+
+    private final ObjetivosCarga objetivos = ObjetivosCarga.cargar(FICHERO_OBJETIVOS);
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    private HttpServer upstream;
+
+    @BeforeAll
+    void arrancarUpstream() throws IOException {
+        long retraso = objetivos.duracion("upstream.retraso").toMillis();
+
+        upstream = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        upstream.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        upstream.createContext("/imagen.jpg", exchange -> {
+            try {
+                Thread.sleep(retraso);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.getResponseHeaders().set("Content-Type", "image/jpeg");
+            exchange.sendResponseHeaders(200, IMAGEN.length);
+            exchange.getResponseBody().write(IMAGEN);
+            exchange.close();
+        });
+        upstream.start();
+    }
+
+    @AfterAll
+    void detenerUpstream() {
+        upstream.stop(0);
+    }
+
+    @Test
+    void conHilosVirtualesLasPeticionesNoEsperanPorElPoolDeTomcat() throws IOException {
+        GeneradorCarga.Resultado plataforma = cargar("hilos-plataforma", false);
+        GeneradorCarga.Resultado virtuales = cargar("hilos-virtuales", true);
+
+        Map<String, GeneradorCarga.Resultado> resultados = new LinkedHashMap<>();
+        resultados.put(plataforma.nombre(), plataforma);
+        resultados.put(virtuales.nombre(), virtuales);
+        List<String> incumplidos = objetivos.comprobar(Map.of(virtuales.nombre(), virtuales));
+
+        informar(resultados, incumplidos);
+        assertTrue(incumplidos.isEmpty(), "Objetivos de carga incumplidos:\n" + String.join("\n", incumplidos));
+        assertTrue(virtuales.p99() < plataforma.p99(), "Con hilos virtuales el p99 debería bajar respecto a los hilos de plataforma");
+    }
+
+    // ================
+    // Métodos Privados
+    // ================
+
+    /**
+     * Método auxiliar que arranca Tomcat en el modo indicado, lo somete a carga y lo detiene.
+     */
+    private GeneradorCarga.Resultado cargar(String nombre, boolean hilosVirtuales) {
+        TomcatServletWebServerFactory factoria = new TomcatServletWebServerFactory(0);
+        if (hilosVirtuales) {
+            // Lo mismo que aplica Spring Boot con spring.threads.virtual.enabled=true
+            new TomcatVirtualThreadsWebServerFactoryCustomizer().customize(factoria);
+        } else {
+            int hilos = objetivos.entero("tomcat.hilos");
+            factoria.addConnectorCustomizers(conector -> ((AbstractProtocol<?>) conector.getProtocolHandler()).setMaxThreads(hilos));
+        }
+
+        URI imagen = URI.create("http://127.0.0.1:" + upstream.getAddress().getPort() + "/imagen.jpg");
+        WebServer servidor = factoria.getWebServer(contexto -> contexto.addServlet("imagen", new ServletImagen(httpClient, imagen)).addMapping("/imagen"));
+        servidor.start();
+
+        try {
+            URI uri = URI.create("http://127.0.0.1:" + servidor.getPort() + "/imagen");
+            GeneradorCarga.Escenario escenario = new GeneradorCarga.Escenario(nombre, objetivos.rps(nombre), () -> HttpRequest.newBuilder(uri).GET());
+
+            return new GeneradorCarga(httpClient)
+                    .ejecutar(List.of(escenario), objetivos.duracion("carga.calentamiento"), objetivos.duracion("carga.duracion"))
+                    .get(nombre);
+        } finally {
+            servidor.stop();
+        }
+    }
+
+    /**
+     * Método auxiliar que muestra la comparación y la guarda en JSON junto con los objetivos
+     * incumplidos, en la ruta de la propiedad carga.resultados.
+     */
+    private void informar(Map<String, GeneradorCarga.Resultado> resultados, List<String> incumplidos) throws IOException {
+        StringBuilder tabla = new StringBuilder(String.format(Locale.ROOT, "%n%-20s %8s %8s %10s %9s %9s %9s %9s%n",
+                "modo", "rps", "errores", "tasa err", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+        for (GeneradorCarga.Resultado r : resultados.values()) {
+            tabla.append(String.format(Locale.ROOT, "%-20s %8.1f %8d %10.4f %9.1f %9.1f %9.1f %9.1f%n",
+                    r.nombre(), r.rendimiento(), r.errores(), r.tasaErrores(), r.p50(), r.p95(), r.p99(), r.maximo()));
+        }
+        log.info("Resultados con un servidor de imágenes lento:{}", tabla);
+
+        Map<String, Object> informe = new LinkedHashMap<>();
+        informe.put("resultados", resultados.values());
+        informe.put("incumplidos", incumplidos);
+
+        Path fichero = Path.of(System.getProperty("carga.resultados", "target/carga-resultados.json"))
+                .resolveSibling("carga-upstream-lento.json");
+        Files.createDirectories(fichero.toAbsolutePath().getParent());
+        JsonMapper.builder().build().writerWithDefaultPrettyPrinter().writeValue(fichero.toFile(), informe);
+        log.info("Informe de la prueba con un servidor de imágenes lento guardado en {}", fichero.toAbsolutePath());
+    }
+
+    /**
+     * Servlet que, como la descarga de imágenes de SupabaseStorage, bloquea su hilo
+     * hasta recibir la imagen del servidor de origen y la devuelve.
+     */
+    private static final class ServletImagen extends HttpServlet {
+        private final transient HttpClient httpClient;
+        private final URI imagen;
+
+        private ServletImagen(HttpClient httpClient, URI imagen) {
+            this.httpClient = httpClient;
+            this.imagen = imagen;
+        }
+
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            try {
+                HttpResponse<byte[]> descarga = httpClient.send(
+                        HttpRequest.newBuilder(imagen).timeout(Duration.ofSeconds(10)).build(),
+                        HttpResponse.BodyHandlers.ofByteArray()
+                );
+                response.setContentType("image/jpeg");
+                response.getOutputStream().write(descarga.body());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            }
+        }
+    }
+}
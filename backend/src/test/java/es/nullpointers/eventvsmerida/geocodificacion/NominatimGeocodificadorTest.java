@@ -0,0 +1,68 @@
+package es.nullpointers.eventvsmerida.geocodificacion;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del geocodificador contra un servidor local que imita la API de búsqueda de Nominatim.
+ */
+class NominatimGeocodificadorTest {
+    private HttpServer servidor;
+    private NominatimGeocodificador geocodificador;
+    private volatile String ultimaConsulta;
+    private volatile String ultimoUserAgent;
+
+    @BeforeEach
+    void arrancarServidor() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        servidor.createContext("/search", exchange -> {
+            ultimaConsulta = URLDecoder.decode(exchange.getRequestURI().getRawQuery(), StandardCharsets.UTF_8);
+            ultimoUserAgent = exchange.getRequestHeaders().getFirst("User-Agent");
+
+            String json = ultimaConsulta.contains("q=Teatro Romano")
+                    ? "[{\"place_id\":1,\"lat\":\"38.9157\",\"lon\":\"-6.3383\",\"display_name\":\"Teatro Romano, Mérida\"}]"
+                    : "[]";
+            byte[] cuerpo = json.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, cuerpo.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(cuerpo);
+            }
+        });
+        servidor.start();
+
+        String url = "http://127.0.0.1:" + servidor.getAddress().getPort();
+        geocodificador = new NominatimGeocodificador(url, "EventvsMerida-test", Duration.ofSeconds(2));
+    }
+
+    @AfterEach
+    void pararServidor() {
+        servidor.stop(0);
+    }
+
+    @Test
+    void devuelveLasCoordenadasDelPrimerResultado() {
+        Optional<Coordenadas> coordenadas = geocodificador.geocodificar("Teatro Romano");
+
+        assertEquals(Optional.of(new Coordenadas(38.9157, -6.3383)), coordenadas);
+        assertTrue(ultimaConsulta.contains("countrycodes=es"));
+        assertEquals("EventvsMerida-test", ultimoUserAgent);
+    }
+
+    @Test
+    void devuelveVacioSiNoHayResultados() {
+        assertTrue(geocodificador.geocodificar("Lugar inexistente").isEmpty());
+    }
+}
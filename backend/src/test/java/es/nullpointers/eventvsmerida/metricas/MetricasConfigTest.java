@@ -0,0 +1,69 @@
+package es.nullpointers.eventvsmerida.metricas;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba que el filtro de métricas añade las cubetas del histograma solo a las métricas previstas.
+ */
+class MetricasConfigTest {
+    private final SimpleMeterRegistry registro = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void configurarRegistro() {
+        registro.config().meterFilter(new MetricasConfig().histogramasMetricas());
+    }
+
+    @Test
+    void lasPeticionesHttpTienenHistogramaDeLatencia() {
+        Timer timer = Timer.builder(MetricasConfig.PETICIONES_HTTP).tag("uri", "/api/eventos/feed").register(registro);
+
+        timer.record(Duration.ofMillis(30));
+        timer.record(Duration.ofMillis(300));
+
+        CountAtBucket[] cubetas = timer.takeSnapshot().histogramCounts();
+        assertEquals(12, cubetas.length);
+        // 30 ms cae en la cubeta de 50 ms y 300 ms en la de 500 ms
+        assertEquals(1, contarHasta(cubetas, 50));
+        assertEquals(2, contarHasta(cubetas, 500));
+    }
+
+    @Test
+    void losBytesDescargadosTienenHistogramaDeTamanio() {
+        DistributionSummary bytes = DistributionSummary.builder(MetricasConfig.BYTES_DESCARGA_IMAGENES).register(registro);
+
+        bytes.record(100 * 1024);
+
+        CountAtBucket[] cubetas = bytes.takeSnapshot().histogramCounts();
+        assertEquals(8, cubetas.length);
+        assertEquals(1, cubetas[2].count());
+    }
+
+    @Test
+    void elRestoDeTemporizadoresNoTieneHistograma() {
+        Timer timer = Timer.builder("otra.metrica").register(registro);
+
+        timer.record(Duration.ofMillis(30));
+
+        assertTrue(timer.takeSnapshot().histogramCounts().length == 0);
+    }
+
+    private static double contarHasta(CountAtBucket[] cubetas, long milisegundos) {
+        for (CountAtBucket cubeta : cubetas) {
+            if (cubeta.bucket(TimeUnit.MILLISECONDS) == milisegundos) {
+                return cubeta.count();
+            }
+        }
+        throw new AssertionError("No hay cubeta de " + milisegundos + " ms");
+    }
+}
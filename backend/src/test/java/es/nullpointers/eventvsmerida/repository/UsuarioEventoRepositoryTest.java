@@ -0,0 +1,186 @@
+package es.nullpointers.eventvsmerida.repository;
+
+import es.nullpointers.eventvsmerida.dto.request.LoteGuardadosRequest;
+import es.nullpointers.eventvsmerida.dto.request.LoteGuardadosRequest.Accion;
+import es.nullpointers.eventvsmerida.dto.request.LoteGuardadosRequest.Operacion;
+import es.nullpointers.eventvsmerida.dto.response.ResultadoGuardadoResponse;
+import es.nullpointers.eventvsmerida.dto.response.ResultadoGuardadoResponse.Resultado;
+import es.nullpointers.eventvsmerida.entity.*;
+import es.nullpointers.eventvsmerida.exception.RecursoNoEncontradoException;
+import es.nullpointers.eventvsmerida.service.UsuarioEventoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de las sentencias de guardar y quitar eventos de UsuarioEventoRepository, sueltas y en
+ * lotes JDBC, que usan CTE y ON CONFLICT de PostgreSQL y no se pueden ejecutar en H2. Se lanzan
+ * contra un PostgreSQL local en Docker y sin transacción de prueba, para que cada llamada se
+ * confirme como en una petición real. Solo se ejecutan con el perfil postgres (mvn -Ppostgres test).
+ */
+@Tag("postgres")
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({UsuarioEventoService.class, UsuarioEventoLoteRepository.class})
+class UsuarioEventoRepositoryTest {
+
+    @ServiceConnection
+    static PostgreSQLContainer postgres = new PostgreSQLContainer("postgres:17-alpine");
+
+    static {
+        postgres.start();
+    }
+
+    @Autowired
+    private UsuarioEventoService usuarioEventoService;
+
+    @Autowired
+    private UsuarioEventoRepository usuarioEventoRepository;
+
+    @Autowired
+    private UsuarioEventoLoteRepository usuarioEventoLoteRepository;
+
+    @Autowired
+    private EventoRepository eventoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private RolRepository rolRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long idUsuario;
+    private Long idEvento;
+
+    @BeforeEach
+    void prepararDatos() {
+        jdbcTemplate.execute("TRUNCATE \"Usuario-Evento\", \"Evento\", \"Usuario\", \"Categoria\", \"Rol\" RESTART IDENTITY CASCADE");
+
+        Rol rol = rolRepository.save(new Rol(null, "Usuario"));
+        Categoria categoria = categoriaRepository.save(new Categoria(null, "Conciertos"));
+
+        Usuario usuario = new Usuario();
+        usuario.setNombre("Ana");
+        usuario.setApellidos("García");
+        usuario.setFechaNacimiento(LocalDate.of(1990, 1, 1));
+        usuario.setEmail("ana@eventvsmerida.es");
+        usuario.setTelefono("600000000");
+        usuario.setPassword("hash");
+        usuario.setRol(rol);
+        idUsuario = usuarioRepository.save(usuario).getId();
+
+        Evento evento = new Evento();
+        evento.setTitulo("Concierto en el Teatro Romano");
+        evento.setDescripcion("Concierto");
+        evento.setFechaHora(LocalDateTime.of(2026, 7, 1, 22, 0));
+        evento.setLocalizacion("Teatro Romano, Mérida");
+        evento.setFoto("https://example.com/concierto.png");
+        evento.setEstadoFoto(EstadoFoto.COMPLETADA);
+        evento.setUsuario(usuario);
+        evento.setCategoria(categoria);
+        idEvento = eventoRepository.save(evento).getId();
+    }
+
+    @Test
+    void guardarDosVecesSoloSumaUnaVezAlContador() {
+        assertTrue(usuarioEventoService.guardarEventoPorId(idUsuario, idEvento));
+        assertFalse(usuarioEventoService.guardarEventoPorId(idUsuario, idEvento));
+
+        assertEquals(1, guardados());
+        assertEquals(1, usuarioEventoRepository.count());
+    }
+
+    @Test
+    void quitarDosVecesSoloRestaUnaVezAlContador() {
+        usuarioEventoService.guardarEventoPorId(idUsuario, idEvento);
+
+        assertTrue(usuarioEventoService.quitarEventoPorId(idUsuario, idEvento));
+        assertFalse(usuarioEventoService.quitarEventoPorId(idUsuario, idEvento));
+
+        assertEquals(0, guardados());
+        assertEquals(0, usuarioEventoRepository.count());
+    }
+
+    @Test
+    void quitarUnEventoNoGuardadoNoDejaElContadorEnNegativo() {
+        assertFalse(usuarioEventoService.quitarEventoPorId(idUsuario, idEvento));
+
+        assertEquals(0, guardados());
+    }
+
+    @Test
+    void guardarUnEventoQueNoExisteDevuelveNoEncontrado() {
+        assertThrows(RecursoNoEncontradoException.class, () -> usuarioEventoService.guardarEventoPorId(idUsuario, idEvento + 1));
+
+        assertEquals(0, usuarioEventoRepository.count());
+        assertEquals(0, guardados());
+    }
+
+    @Test
+    void guardarActualizaElInstanteDeModificacion() {
+        Instant antes = eventoRepository.findById(idEvento).orElseThrow().getActualizadoEn();
+
+        usuarioEventoService.guardarEventoPorId(idUsuario, idEvento);
+
+        assertTrue(eventoRepository.findById(idEvento).orElseThrow().getActualizadoEn().isAfter(antes));
+    }
+
+    @Test
+    void elLoteAplicaLasOperacionesEnOrdenYOmiteLosEventosQueNoExisten() {
+        List<ResultadoGuardadoResponse> resultados = usuarioEventoService.aplicarLoteGuardados(idUsuario, new LoteGuardadosRequest(List.of(
+                new Operacion(idEvento, Accion.GUARDAR),
+                new Operacion(idEvento + 1, Accion.GUARDAR),
+                new Operacion(idEvento, Accion.GUARDAR),
+                new Operacion(idEvento, Accion.QUITAR),
+                new Operacion(idEvento, Accion.GUARDAR)
+        )));
+
+        assertEquals(List.of(Resultado.APLICADA, Resultado.EVENTO_NO_ENCONTRADO, Resultado.SIN_CAMBIOS, Resultado.APLICADA, Resultado.APLICADA),
+                resultados.stream().map(ResultadoGuardadoResponse::resultado).toList());
+        assertEquals(1, guardados());
+        assertEquals(1, usuarioEventoRepository.count());
+    }
+
+    @Test
+    void unEventoQueNoExisteNoAbortaElLote() {
+        // Como si el evento se hubiera borrado después de comprobar cuáles existen
+        int[] filas = usuarioEventoLoteRepository.aplicar(idUsuario, List.of(
+                new Operacion(idEvento + 1, Accion.GUARDAR),
+                new Operacion(idEvento, Accion.GUARDAR)
+        ));
+
+        assertArrayEquals(new int[]{0, 1}, filas);
+        assertEquals(1, guardados());
+    }
+
+    // ================
+    // Métodos Privados
+    // ================
+
+    private int guardados() {
+        return jdbcTemplate.queryForObject("SELECT guardados FROM \"Evento\" WHERE id = ?", Integer.class, idEvento);
+    }
+}
@@ -0,0 +1,145 @@
+package es.nullpointers.eventvsmerida.security;
+
+import es.nullpointers.eventvsmerida.exception.DemasiadasPeticionesException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas del grupo de hilos acotado de BCrypt y del limitador de intentos de login.
+ */
+class ContraseniaServiceTest {
+    private ContraseniaService contraseniaService;
+
+    @AfterEach
+    void detener() {
+        if (contraseniaService != null) {
+            contraseniaService.detener();
+        }
+    }
+
+    @Test
+    void codificaYVerificaLasContrasenias() {
+        contraseniaService = new ContraseniaService(new BCryptPasswordEncoder(4), 4, 1, 1, Duration.ofSeconds(5));
+
+        String hash = contraseniaService.codificar("Secreta123");
+
+        assertTrue(contraseniaService.coincide("Secreta123", hash));
+        assertFalse(contraseniaService.coincide("Otra123", hash));
+    }
+
+    @Test
+    void detectaLosHashesConUnCosteMenorQueElConfigurado() {
+        String hashAntiguo = new BCryptPasswordEncoder(4).encode("Secreta123");
+        contraseniaService = new ContraseniaService(new BCryptPasswordEncoder(5), 5, 1, 1, Duration.ofSeconds(5));
+
+        assertTrue(contraseniaService.necesitaRehash(hashAntiguo));
+        assertFalse(contraseniaService.necesitaRehash(contraseniaService.codificar("Secreta123")));
+    }
+
+    @Test
+    void detectaLosHashesConUnCosteMayorQueElConfigurado() {
+        String hashCostoso = new BCryptPasswordEncoder(6).encode("Secreta123");
+        contraseniaService = new ContraseniaService(new BCryptPasswordEncoder(5), 5, 1, 1, Duration.ofSeconds(5));
+
+        assertTrue(contraseniaService.necesitaRehash(hashCostoso));
+        assertTrue(contraseniaService.upgradeEncoding(hashCostoso));
+    }
+
+    @Test
+    void springSecurityVerificaEnElGrupoDeHilos() throws InterruptedException {
+        CountDownLatch bloqueo = new CountDownLatch(1);
+        PasswordEncoder lento = mock(PasswordEncoder.class);
+        when(lento.matches(anyString(), anyString())).thenAnswer(invocacion -> {
+            bloqueo.await();
+            return true;
+        });
+        contraseniaService = new ContraseniaService(lento, 4, 1, 1, Duration.ofSeconds(5));
+
+        Thread primera = Thread.ofVirtual().start(() -> contraseniaService.matches("a", "hash"));
+        Thread segunda = Thread.ofVirtual().start(() -> contraseniaService.matches("b", "hash"));
+        Thread.sleep(200);
+
+        // Con el grupo saturado, el formulario de login y HTTP Basic reciben un fallo de autenticación
+        assertThrows(AuthenticationServiceException.class, () -> contraseniaService.matches("c", "hash"));
+
+        bloqueo.countDown();
+        primera.join();
+        segunda.join();
+    }
+
+    @Test
+    void rechazaConUn429CuandoLaColaEstaLlena() throws InterruptedException {
+        CountDownLatch bloqueo = new CountDownLatch(1);
+        PasswordEncoder lento = mock(PasswordEncoder.class);
+        when(lento.encode(anyString())).thenAnswer(invocacion -> {
+            bloqueo.await();
+            return "hash";
+        });
+        contraseniaService = new ContraseniaService(lento, 4, 1, 1, Duration.ofSeconds(5));
+
+        // Un hilo ocupado y una tarea en cola: la tercera ya no cabe
+        Thread primera = Thread.ofVirtual().start(() -> contraseniaService.codificar("a"));
+        Thread segunda = Thread.ofVirtual().start(() -> contraseniaService.codificar("b"));
+        Thread.sleep(200);
+
+        DemasiadasPeticionesException e = assertThrows(DemasiadasPeticionesException.class, () -> contraseniaService.codificar("c"));
+        assertEquals(429, e.getStatusCode().value());
+        assertEquals("5", e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+        bloqueo.countDown();
+        primera.join();
+        segunda.join();
+    }
+
+    @Test
+    void limitaLosFallosPorCuentaYLosIntentosPorIp() {
+        LimitadorLogin limitador = new LimitadorLogin(2, 5, Duration.ofMinutes(5), 100);
+
+        limitador.comprobar("ana@eventvsmerida.es", "10.0.0.1");
+        limitador.registrarFallo("ana@eventvsmerida.es", "10.0.0.1");
+        limitador.comprobar("ana@eventvsmerida.es", "10.0.0.1");
+        limitador.registrarFallo("ana@eventvsmerida.es", "10.0.0.1");
+
+        // La cuenta está bloqueada desde la IP que ha fallado
+        assertThrows(DemasiadasPeticionesException.class, () -> limitador.comprobar("ana@eventvsmerida.es", "10.0.0.1"));
+
+        // La IP 10.0.0.1 lleva tres intentos: admite dos más con otras cuentas y rechaza el sexto
+        limitador.comprobar("luis@eventvsmerida.es", "10.0.0.1");
+        limitador.comprobar("eva@eventvsmerida.es", "10.0.0.1");
+        assertThrows(DemasiadasPeticionesException.class, () -> limitador.comprobar("pepe@eventvsmerida.es", "10.0.0.1"));
+    }
+
+    @Test
+    void losFallosDesdeOtraIpNoBloqueanLaCuenta() {
+        LimitadorLogin limitador = new LimitadorLogin(2, 100, Duration.ofMinutes(5), 100);
+
+        limitador.registrarFallo("ana@eventvsmerida.es", "10.0.0.1");
+        limitador.registrarFallo("ana@eventvsmerida.es", "10.0.0.1");
+
+        // Quien falla la contraseña de otro no puede dejar sin acceso al dueño de la cuenta
+        assertThrows(DemasiadasPeticionesException.class, () -> limitador.comprobar("ana@eventvsmerida.es", "10.0.0.1"));
+        assertDoesNotThrow(() -> limitador.comprobar("ana@eventvsmerida.es", "10.0.0.2"));
+    }
+
+    @Test
+    void unLoginCorrectoReiniciaLosFallosDeLaCuenta() {
+        LimitadorLogin limitador = new LimitadorLogin(1, 100, Duration.ofMinutes(5), 100);
+
+        limitador.registrarFallo("ana@eventvsmerida.es", "10.0.0.1");
+        limitador.registrarExito("ana@eventvsmerida.es", "10.0.0.1");
+
+        assertDoesNotThrow(() -> limitador.comprobar("ana@eventvsmerida.es", "10.0.0.1"));
+    }
+}
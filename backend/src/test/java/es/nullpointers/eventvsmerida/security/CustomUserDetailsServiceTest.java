@@ -0,0 +1,75 @@
+package es.nullpointers.eventvsmerida.security;
+
+import es.nullpointers.eventvsmerida.cache.CacheConfig;
+import es.nullpointers.eventvsmerida.entity.Rol;
+import es.nullpointers.eventvsmerida.entity.Usuario;
+import es.nullpointers.eventvsmerida.repository.UsuarioRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas de la caché de usuarios autenticados.
+ */
+class CustomUserDetailsServiceTest {
+    private final UsuarioRepository usuarioRepository = mock(UsuarioRepository.class);
+    private final CacheManager cacheManager = new CacheConfig().cacheManager(500, Duration.ofMinutes(10), 100, Duration.ofMinutes(5));
+    private final CustomUserDetailsService servicio = new CustomUserDetailsService(usuarioRepository, cacheManager);
+
+    @Test
+    void consultaLaBaseDeDatosSoloLaPrimeraVez() {
+        when(usuarioRepository.findByEmail("ana@eventvsmerida.es")).thenReturn(Optional.of(usuario("ana@eventvsmerida.es")));
+
+        servicio.loadUserByUsername("ana@eventvsmerida.es");
+        UserDetails segundo = servicio.loadUserByUsername("ana@eventvsmerida.es");
+
+        assertEquals("Administrador", segundo.getAuthorities().iterator().next().getAuthority());
+        verify(usuarioRepository, times(1)).findByEmail("ana@eventvsmerida.es");
+    }
+
+    @Test
+    void borrarLaContraseniaDevueltaNoAfectaALaCache() {
+        when(usuarioRepository.findByEmail("ana@eventvsmerida.es")).thenReturn(Optional.of(usuario("ana@eventvsmerida.es")));
+
+        // ProviderManager borra las credenciales del usuario tras autenticarlo
+        ((User) servicio.loadUserByUsername("ana@eventvsmerida.es")).eraseCredentials();
+
+        assertEquals("hash", servicio.loadUserByUsername("ana@eventvsmerida.es").getPassword());
+    }
+
+    @Test
+    void invalidarLaEntradaObligaAVolverACargarla() {
+        when(usuarioRepository.findByEmail("ana@eventvsmerida.es")).thenReturn(Optional.of(usuario("ana@eventvsmerida.es")));
+
+        servicio.loadUserByUsername("ana@eventvsmerida.es");
+        cacheManager.getCache(CacheConfig.USUARIOS_AUTENTICADOS).evict("ana@eventvsmerida.es");
+        servicio.loadUserByUsername("ana@eventvsmerida.es");
+
+        verify(usuarioRepository, times(2)).findByEmail("ana@eventvsmerida.es");
+    }
+
+    @Test
+    void noCacheaLosUsuariosInexistentes() {
+        when(usuarioRepository.findByEmail("nadie@eventvsmerida.es")).thenReturn(Optional.empty());
+
+        assertThrows(UsernameNotFoundException.class, () -> servicio.loadUserByUsername("nadie@eventvsmerida.es"));
+        assertThrows(UsernameNotFoundException.class, () -> servicio.loadUserByUsername("nadie@eventvsmerida.es"));
+        verify(usuarioRepository, times(2)).findByEmail("nadie@eventvsmerida.es");
+    }
+
+    private static Usuario usuario(String email) {
+        Usuario usuario = new Usuario();
+        usuario.setEmail(email);
+        usuario.setPassword("hash");
+        usuario.setRol(new Rol(1L, "Administrador"));
+        return usuario;
+    }
+}
@@ -0,0 +1,79 @@
+package es.nullpointers.eventvsmerida.security;
+
+import es.nullpointers.eventvsmerida.dto.response.TokensResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la emisión y verificación de los tokens de la autenticación sin sesión.
+ */
+class TokenServiceTest {
+    private static final String SECRETO = Base64.getEncoder().encodeToString("una-clave-de-pruebas-de-32-bytes".getBytes());
+
+    private final TokenService tokenService = new TokenService(SECRETO, Duration.ofMinutes(15), Duration.ofDays(7), "token");
+
+    @Test
+    void elTokenDeAccesoLlevaElEmailYElRol() {
+        TokensResponse tokens = tokenService.emitir("ana@eventvsmerida.es", "Administrador", 0);
+
+        Jwt jwt = tokenService.getDecodificadorAcceso().decode(tokens.tokenAcceso());
+
+        assertEquals("ana@eventvsmerida.es", jwt.getSubject());
+        assertEquals(List.of("Administrador"), jwt.getClaimAsStringList(TokenService.CLAIM_ROLES));
+        assertEquals(900, tokens.expiraEn());
+    }
+
+    @Test
+    void otraInstanciaConElMismoSecretoVerificaLosTokens() {
+        TokensResponse tokens = tokenService.emitir("ana@eventvsmerida.es", "Usuario", 0);
+        TokenService otraInstancia = new TokenService(SECRETO, Duration.ofMinutes(15), Duration.ofDays(7), "token");
+
+        assertEquals("ana@eventvsmerida.es", otraInstancia.getDecodificadorAcceso().decode(tokens.tokenAcceso()).getSubject());
+        assertEquals(new TokenService.Refresco("ana@eventvsmerida.es", 0), otraInstancia.validarRefresco(tokens.tokenRefresco()));
+    }
+
+    @Test
+    void elTokenDeRefrescoLlevaLaVersionDeLasCredenciales() {
+        TokensResponse tokens = tokenService.emitir("ana@eventvsmerida.es", "Usuario", 3);
+
+        assertEquals(3, tokenService.validarRefresco(tokens.tokenRefresco()).versionCredenciales());
+    }
+
+    @Test
+    void noSeAceptaUnTokenEnLugarDelOtro() {
+        TokensResponse tokens = tokenService.emitir("ana@eventvsmerida.es", "Usuario", 0);
+
+        assertThrows(JwtException.class, () -> tokenService.getDecodificadorAcceso().decode(tokens.tokenRefresco()));
+        assertThrows(ResponseStatusException.class, () -> tokenService.validarRefresco(tokens.tokenAcceso()));
+    }
+
+    @Test
+    void enModoTokenNoArrancaSinSecreto() {
+        assertThrows(IllegalStateException.class, () -> new TokenService("", Duration.ofMinutes(15), Duration.ofDays(7), "token"));
+    }
+
+    @Test
+    void rechazaLosTokensCaducadosOFirmadosConOtraClave() {
+        // Tokens emitidos hace una hora, con 15 minutos de validez
+        Clock haceUnaHora = Clock.offset(Clock.systemUTC(), Duration.ofHours(-1));
+        TokenService caducado = new TokenService(SECRETO, Duration.ofMinutes(15), Duration.ofMinutes(15), haceUnaHora, true);
+        TokenService otraClave = new TokenService("", Duration.ofMinutes(15), Duration.ofDays(7), "sesion");
+
+        String tokenCaducado = caducado.emitir("ana@eventvsmerida.es", "Usuario", 0).tokenAcceso();
+        String refrescoCaducado = caducado.emitir("ana@eventvsmerida.es", "Usuario", 0).tokenRefresco();
+        String tokenAjeno = otraClave.emitir("ana@eventvsmerida.es", "Usuario", 0).tokenAcceso();
+
+        assertThrows(JwtException.class, () -> tokenService.getDecodificadorAcceso().decode(tokenCaducado));
+        assertThrows(ResponseStatusException.class, () -> tokenService.validarRefresco(refrescoCaducado));
+        assertThrows(JwtException.class, () -> tokenService.getDecodificadorAcceso().decode(tokenAjeno));
+    }
+}
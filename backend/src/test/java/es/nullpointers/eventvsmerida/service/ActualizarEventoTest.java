@@ -0,0 +1,129 @@
+package es.nullpointers.eventvsmerida.service;
+
+import es.nullpointers.eventvsmerida.cache.CacheConfig;
+import es.nullpointers.eventvsmerida.dto.request.EventoActualizarRequest;
+import es.nullpointers.eventvsmerida.dto.response.EventoResponse;
+import es.nullpointers.eventvsmerida.entity.EstadoFoto;
+import es.nullpointers.eventvsmerida.entity.Evento;
+import es.nullpointers.eventvsmerida.entity.Rol;
+import es.nullpointers.eventvsmerida.repository.EventoRepository;
+import es.nullpointers.eventvsmerida.security.ContraseniaService;
+import es.nullpointers.eventvsmerida.security.LimitadorLogin;
+import es.nullpointers.eventvsmerida.security.TokenService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static es.nullpointers.eventvsmerida.service.DatosPrueba.crearEventos;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Pruebas de la actualización de eventos de EventoService.
+ */
+@DataJpaTest
+@Import({EventoService.class, ClusterMapaService.class, UsuarioService.class, CategoriaService.class, RolService.class, VersionCatalogoService.class, CacheConfig.class, TokenService.class})
+class ActualizarEventoTest {
+
+    @MockitoBean
+    private IngestaImagenesService ingestaImagenesService;
+
+    @MockitoBean
+    private GeocodificacionService geocodificacionService;
+
+    @MockitoBean
+    private ContraseniaService contraseniaService;
+
+    @MockitoBean
+    private LimitadorLogin limitadorLogin;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EventoService eventoService;
+
+    @Autowired
+    private EventoRepository eventoRepository;
+
+    @BeforeEach
+    void prepararDatos() {
+        Rol rol = new Rol(null, "Usuario");
+        entityManager.persist(rol);
+        crearEventos(entityManager, rol, 0);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void cambiarLaFotoDescartaLasVariantesYLaEncolaAlConfirmar() {
+        Evento evento = entityManager.createQuery("SELECT e FROM Evento e WHERE e.titulo = 'Evento 0'", Evento.class).getSingleResult();
+        evento.setFotoMiniatura("https://supabase.example.com/miniatura.webp");
+        evento.setFotoTarjeta("https://supabase.example.com/tarjeta.webp");
+        entityManager.flush();
+        entityManager.clear();
+
+        EventoResponse actualizado = eventoService.actualizarEvento(evento.getId(),
+                new EventoActualizarRequest(null, null, null, null, "https://example.com/nueva.png", null, null));
+
+        assertEquals(EstadoFoto.PENDIENTE, actualizado.estadoFoto());
+        Evento guardado = entityManager.find(Evento.class, evento.getId());
+        assertNull(guardado.getFotoMiniatura());
+        assertNull(guardado.getFotoTarjeta());
+        // La ingesta no se encola hasta que se confirma la transacción
+        verify(ingestaImagenesService, never()).encolar(any(), any());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(ingestaImagenesService).encolar(evento.getId(), "https://example.com/nueva.png");
+    }
+
+    @Test
+    void laIngestaDeLaFotoAnteriorNoSobrescribeLaNueva() {
+        Evento evento = entityManager.createQuery("SELECT e FROM Evento e WHERE e.titulo = 'Evento 0'", Evento.class).getSingleResult();
+        eventoService.actualizarEvento(evento.getId(),
+                new EventoActualizarRequest(null, null, null, null, "https://example.com/nueva.png", null, null));
+        entityManager.flush();
+
+        // La tarea de la foto anterior termina después del cambio
+        int actualizados = eventoRepository.actualizarFoto(evento.getId(), "https://example.com/0.png",
+                "https://supabase.example.com/0.png", "https://supabase.example.com/0-miniatura.webp",
+                "https://supabase.example.com/0-tarjeta.webp", EstadoFoto.COMPLETADA);
+        entityManager.clear();
+
+        assertEquals(0, actualizados);
+        Evento guardado = entityManager.find(Evento.class, evento.getId());
+        assertEquals("https://example.com/nueva.png", guardado.getFoto());
+        assertEquals(EstadoFoto.PENDIENTE, guardado.getEstadoFoto());
+        assertNull(guardado.getFotoMiniatura());
+    }
+
+    @Test
+    void actualizarEventoNoPisaLasColumnasActualizadasEnSegundoPlano() {
+        Long id = entityManager.createQuery("SELECT e.id FROM Evento e WHERE e.titulo = 'Evento 0'", Long.class).getSingleResult();
+        // El evento ya está leído cuando la ingesta y la geocodificación escriben sus columnas
+        entityManager.find(Evento.class, id);
+        entityManager.createNativeQuery("""
+                        UPDATE "Evento" SET foto_miniatura = 'https://supabase.example.com/0-miniatura.webp', latitud = 40.0
+                        WHERE id = ?""")
+                .setParameter(1, id)
+                .executeUpdate();
+
+        eventoService.actualizarEvento(id, new EventoActualizarRequest("Nuevo título", null, null, null, null, null, null));
+        entityManager.flush();
+        entityManager.clear();
+
+        Evento guardado = entityManager.find(Evento.class, id);
+        assertEquals("Nuevo título", guardado.getTitulo());
+        assertEquals("https://supabase.example.com/0-miniatura.webp", guardado.getFotoMiniatura());
+        assertEquals(40.0, guardado.getLatitud());
+    }
+}
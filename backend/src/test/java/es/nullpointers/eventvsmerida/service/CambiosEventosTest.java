@@ -0,0 +1,171 @@
+package es.nullpointers.eventvsmerida.service;
+
+import es.nullpointers.eventvsmerida.cache.CacheConfig;
+import es.nullpointers.eventvsmerida.dto.response.CambiosEventosResponse;
+import es.nullpointers.eventvsmerida.dto.response.EventoResponse;
+import es.nullpointers.eventvsmerida.entity.EventoEliminado;
+import es.nullpointers.eventvsmerida.entity.Rol;
+import es.nullpointers.eventvsmerida.security.ContraseniaService;
+import es.nullpointers.eventvsmerida.security.LimitadorLogin;
+import es.nullpointers.eventvsmerida.security.TokenService;
+import es.nullpointers.eventvsmerida.utils.CursorUtils;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static es.nullpointers.eventvsmerida.service.DatosPrueba.NUMERO_EVENTOS;
+import static es.nullpointers.eventvsmerida.service.DatosPrueba.crearEventos;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la sincronización por cambios de EventoService: las páginas de eventos
+ * modificados y eliminados, la caducidad de los tokens y la purga de las marcas de eliminados.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "eventos.cambios.margen=0s"
+})
+@Import({EventoService.class, ClusterMapaService.class, UsuarioService.class, CategoriaService.class, RolService.class, VersionCatalogoService.class, CacheConfig.class, TokenService.class})
+class CambiosEventosTest {
+
+    @MockitoBean
+    private IngestaImagenesService ingestaImagenesService;
+
+    @MockitoBean
+    private GeocodificacionService geocodificacionService;
+
+    @MockitoBean
+    private ContraseniaService contraseniaService;
+
+    @MockitoBean
+    private LimitadorLogin limitadorLogin;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EventoService eventoService;
+
+    private Statistics estadisticas;
+
+    @BeforeEach
+    void prepararDatos() {
+        Rol rol = new Rol(null, "Usuario");
+        entityManager.persist(rol);
+        crearEventos(entityManager, rol, 0);
+        entityManager.flush();
+        entityManager.clear();
+
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+    }
+
+    @Test
+    void obtenerCambiosDevuelveLosEventosYLosEliminadosPorPaginas() {
+        // En H2 no se puede borrar un evento guardado (ON DELETE SET DEFAULT sin valor por defecto),
+        // así que la marca se crea directamente para un evento que ya no existe
+        Long idEliminado = 1_000_000L;
+        entityManager.persist(new EventoEliminado(idEliminado));
+        entityManager.flush();
+        estadisticas.clear();
+
+        List<EventoResponse> eventos = new ArrayList<>();
+        List<Long> eliminados = new ArrayList<>();
+        String token = null;
+        int paginas = 0;
+        CambiosEventosResponse cambios;
+        do {
+            cambios = eventoService.obtenerCambios(token, 4);
+            eventos.addAll(cambios.eventos());
+            eliminados.addAll(cambios.eliminados());
+            token = cambios.token();
+            paginas++;
+        } while (cambios.hayMas());
+
+        assertEquals(NUMERO_EVENTOS, eventos.size());
+        assertEquals(List.of(idEliminado), eliminados);
+        assertEquals(3, paginas);
+        // La hora de la base de datos, una consulta de eventos y otra de eliminados por página, sin N+1
+        assertEquals(3L * paginas, estadisticas.getPrepareStatementCount());
+
+        // Con el último token ya no queda nada por sincronizar
+        CambiosEventosResponse sinCambios = eventoService.obtenerCambios(token, 4);
+        assertTrue(sinCambios.eventos().isEmpty());
+        assertTrue(sinCambios.eliminados().isEmpty());
+        assertFalse(sinCambios.hayMas());
+    }
+
+    @Test
+    void unCatalogoSinCambiosDuranteLaRetencionNoDejaCaducarElToken() {
+        // Ningún evento ha cambiado desde hace más que la retención de las marcas de eliminados
+        entityManager.createNativeQuery("UPDATE \"Evento\" SET actualizado_en = ?")
+                .setParameter(1, Instant.now().minus(Duration.ofDays(31)))
+                .executeUpdate();
+        entityManager.clear();
+
+        CambiosEventosResponse todos = eventoService.obtenerCambios(null, null);
+        assertEquals(NUMERO_EVENTOS, todos.eventos().size());
+        assertFalse(todos.hayMas());
+
+        // El token apunta al horizonte de la descarga y no al último cambio, así que sigue valiendo
+        CambiosEventosResponse sinCambios = eventoService.obtenerCambios(todos.token(), null);
+        assertTrue(sinCambios.eventos().isEmpty());
+        assertTrue(sinCambios.eliminados().isEmpty());
+    }
+
+    @Test
+    void obtenerCambiosRechazaTokensInvalidos() {
+        assertThrows(ResponseStatusException.class, () -> eventoService.obtenerCambios("no-es-un-token", null));
+    }
+
+    @Test
+    void obtenerCambiosRechazaLosTokensMasAntiguosQueLaRetencionDeEliminados() {
+        String tokenAntiguo = CursorUtils.codificar(LocalDateTime.now(ZoneOffset.UTC).minusDays(31), 0L);
+
+        ResponseStatusException excepcion = assertThrows(ResponseStatusException.class, () -> eventoService.obtenerCambios(tokenAntiguo, null));
+
+        assertEquals(HttpStatus.GONE, excepcion.getStatusCode());
+    }
+
+    @Test
+    void eliminarEventoDejaUnaMarcaParaLaSincronizacion() {
+        Long idEvento = entityManager.createQuery("SELECT e.id FROM Evento e WHERE e.titulo = 'Evento 0'", Long.class).getSingleResult();
+        eventoService.eliminarEvento(idEvento);
+
+        assertNotNull(entityManager.find(EventoEliminado.class, idEvento));
+    }
+
+    @Test
+    void purgarEliminadosSoloBorraLasMarcasFueraDeLaRetencion() {
+        entityManager.persist(new EventoEliminado(1_000_000L));
+        entityManager.persist(new EventoEliminado(1_000_001L));
+        entityManager.flush();
+        entityManager.createNativeQuery("UPDATE \"EventoEliminado\" SET eliminado_en = ? WHERE id_evento = 1000000")
+                .setParameter(1, Instant.now().minus(Duration.ofDays(31)))
+                .executeUpdate();
+        entityManager.clear();
+
+        assertEquals(1, eventoService.purgarEliminados());
+        assertNull(entityManager.find(EventoEliminado.class, 1_000_000L));
+        assertNotNull(entityManager.find(EventoEliminado.class, 1_000_001L));
+    }
+}
@@ -0,0 +1,63 @@
+package es.nullpointers.eventvsmerida.service;
+
+import es.nullpointers.eventvsmerida.cache.CacheConfig;
+import es.nullpointers.eventvsmerida.dto.response.CategoriaResponse;
+import es.nullpointers.eventvsmerida.entity.Categoria;
+import es.nullpointers.eventvsmerida.repository.CategoriaRepository;
+import es.nullpointers.eventvsmerida.repository.VersionCatalogoRepository;
+import es.nullpointers.eventvsmerida.utils.PeticionCondicionalUtils;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Comprueba que la caché de respuestas de las categorías no sirve datos anteriores a la
+ * versión del catálogo, aunque el cambio se haga en otra instancia y no vacíe esta caché.
+ */
+@DataJpaTest
+@Import({CategoriaService.class, VersionCatalogoService.class, CacheConfig.class})
+class CategoriaServiceTest {
+
+    @Autowired
+    private CategoriaService categoriaService;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private VersionCatalogoRepository versionCatalogoRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void unCambioDeOtraInstanciaNoSeSirveConElEtagNuevoYLosDatosAntiguos() {
+        Categoria categoria = categoriaRepository.save(new Categoria(null, "Conciertos"));
+        assertEquals(List.of("Conciertos"), nombres(leer()));
+
+        // Otra instancia cambia la categoría y la versión sin pasar por la caché de esta
+        categoria.setNombre("Teatro");
+        categoriaRepository.save(categoria);
+        new VersionCatalogoService(versionCatalogoRepository).incrementar(VersionCatalogoService.CATEGORIAS);
+
+        assertEquals(List.of("Teatro"), nombres(leer()));
+    }
+
+    // Cada petición lee la versión y después el cuerpo, como CategoriaController
+    private List<CategoriaResponse> leer() {
+        entityManager.flush();
+        entityManager.clear();
+        PeticionCondicionalUtils.Version version = categoriaService.obtenerVersion();
+        return categoriaService.obtenerCategorias(version);
+    }
+
+    private static List<String> nombres(List<CategoriaResponse> categorias) {
+        return categorias.stream().map(CategoriaResponse::nombre).toList();
+    }
+}
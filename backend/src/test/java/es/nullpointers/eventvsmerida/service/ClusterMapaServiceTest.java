@@ -0,0 +1,84 @@
+package es.nullpointers.eventvsmerida.service;
+
+import es.nullpointers.eventvsmerida.dto.response.ClusterMapaResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la rejilla en memoria que agrupa los eventos del mapa.
+ */
+class ClusterMapaServiceTest {
+    private final ClusterMapaService clusterMapaService = new ClusterMapaService(null, 16, 4);
+
+    @Test
+    void cadaNivelContieneTodosLosEventos() {
+        for (long i = 0; i < 50; i++) {
+            clusterMapaService.actualizar(i, 38.90 + i * 0.001, -6.36 + i * 0.002);
+        }
+
+        for (int zoom = 0; zoom <= 16; zoom++) {
+            assertEquals(50, total(clusterMapaService.agrupar(-90, 90, -180, 180, zoom)), "zoom " + zoom);
+        }
+        // Con zoom 0 todos los eventos caen en la misma celda y el centro es la media de las coordenadas
+        List<ClusterMapaResponse> mundo = clusterMapaService.agrupar(-90, 90, -180, 180, 0);
+        assertEquals(1, mundo.size());
+        assertEquals(38.9245, mundo.getFirst().latitud(), 1e-9);
+    }
+
+    @Test
+    void moverUnEventoLoSacaDeSuCeldaAnterior() {
+        clusterMapaService.actualizar(1L, 38.9161, -6.3437);
+        clusterMapaService.actualizar(2L, 38.9161, -6.3437);
+
+        clusterMapaService.actualizar(1L, 40.4168, -3.7038);
+
+        assertEquals(1, total(clusterMapaService.agrupar(38.9, 38.93, -6.35, -6.33, 14)));
+        assertEquals(1, total(clusterMapaService.agrupar(40.4, 40.43, -3.71, -3.69, 14)));
+        assertEquals(2, total(clusterMapaService.agrupar(-90, 90, -180, 180, 2)));
+    }
+
+    @Test
+    void eliminarUnEventoBorraLasCeldasVacias() {
+        clusterMapaService.actualizar(1L, 38.9161, -6.3437);
+        clusterMapaService.eliminar(1L);
+        clusterMapaService.eliminar(99L);
+
+        for (int zoom = 0; zoom <= 16; zoom++) {
+            assertTrue(clusterMapaService.agrupar(-90, 90, -180, 180, zoom).isEmpty());
+        }
+    }
+
+    @Test
+    void soloDevuelveLasCeldasDelRecuadro() {
+        clusterMapaService.actualizar(1L, 38.9161, -6.3437);
+        clusterMapaService.actualizar(2L, 38.9161, -6.2437);
+
+        // Recuadro pequeño (se recorren sus celdas) y recuadro enorme (se recorren las celdas ocupadas)
+        assertEquals(1, total(clusterMapaService.agrupar(38.91, 38.92, -6.35, -6.34, 16)));
+        assertEquals(1, total(clusterMapaService.agrupar(30, 50, -6.3, 0, 16)));
+    }
+
+    @Test
+    void contarEnCeldasInterioresNoCuentaLasCeldasDelBorde() {
+        clusterMapaService.actualizar(1L, 38.9161, -6.3437);
+        // En el borde norte del recuadro: su celda solo queda dentro en parte
+        clusterMapaService.actualizar(2L, 38.92, -6.3437);
+        // Eventos lejanos para que haya más celdas ocupadas que celdas en el recuadro pequeño
+        for (long i = 0; i < 100; i++) {
+            clusterMapaService.actualizar(100 + i, 40.4168 + i * 0.01, -3.7038);
+        }
+
+        // Recuadro pequeño (se recorren sus celdas) y recuadro grande (se recorren las celdas ocupadas)
+        assertEquals(1, clusterMapaService.contarEnCeldasInteriores(38.912, 38.92, -6.348, -6.339, 16));
+        assertEquals(1, clusterMapaService.contarEnCeldasInteriores(38.0, 38.92, -7.0, -6.0, 16));
+        // Un recuadro de una sola celda no tiene celdas interiores
+        assertEquals(0, clusterMapaService.contarEnCeldasInteriores(38.9161, 38.9161, -6.3437, -6.3437, 16));
+    }
+
+    private static long total(List<ClusterMapaResponse> clusters) {
+        return clusters.stream().mapToLong(ClusterMapaResponse::eventos).sum();
+    }
+}
@@ -0,0 +1,201 @@
+package es.nullpointers.eventvsmerida.service;
+
+import es.nullpointers.eventvsmerida.cache.CacheConfig;
+import es.nullpointers.eventvsmerida.dto.request.UsuarioEventoRequest;
+import es.nullpointers.eventvsmerida.dto.response.EventoPaginaResponse;
+import es.nullpointers.eventvsmerida.dto.response.EventoResponse;
+import es.nullpointers.eventvsmerida.dto.response.EventosDiaResponse;
+import es.nullpointers.eventvsmerida.entity.*;
+import es.nullpointers.eventvsmerida.exception.RecursoNoEncontradoException;
+import es.nullpointers.eventvsmerida.repository.UsuarioEventoLoteRepository;
+import es.nullpointers.eventvsmerida.security.ContraseniaService;
+import es.nullpointers.eventvsmerida.security.LimitadorLogin;
+import es.nullpointers.eventvsmerida.security.TokenService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static es.nullpointers.eventvsmerida.service.DatosPrueba.NUMERO_EVENTOS;
+import static es.nullpointers.eventvsmerida.service.DatosPrueba.crearEventos;
+import static es.nullpointers.eventvsmerida.service.DatosPrueba.crearUsuario;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Comprueba que los listados de eventos se resuelven con una unica sentencia SQL,
+ * independientemente del numero de eventos, organizadores y categorias distintos.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({EventoService.class, ClusterMapaService.class, UsuarioService.class, CategoriaService.class, RolService.class, VersionCatalogoService.class, UsuarioEventoService.class, UsuarioEventoLoteRepository.class, CacheConfig.class, TokenService.class})
+class ConsultasListadoEventosTest {
+
+    @MockitoBean
+    private IngestaImagenesService ingestaImagenesService;
+
+    @MockitoBean
+    private GeocodificacionService geocodificacionService;
+
+    @MockitoBean
+    private ContraseniaService contraseniaService;
+
+    @MockitoBean
+    private LimitadorLogin limitadorLogin;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EventoService eventoService;
+
+    @Autowired
+    private UsuarioEventoService usuarioEventoService;
+
+    private Statistics estadisticas;
+    private Usuario usuarioConGuardados;
+
+    @BeforeEach
+    void prepararDatos() {
+        Rol rol = new Rol(null, "Usuario");
+        entityManager.persist(rol);
+
+        usuarioConGuardados = crearUsuario(entityManager, "guardados@eventvsmerida.es", "600000000", rol);
+
+        // Todos los eventos los guarda usuarioConGuardados
+        for (Evento evento : crearEventos(entityManager, rol, 1)) {
+            UsuarioEventoId id = new UsuarioEventoId();
+            id.setIdUsuario(usuarioConGuardados.getId());
+            id.setIdEvento(evento.getId());
+
+            UsuarioEvento guardado = new UsuarioEvento();
+            guardado.setId(id);
+            guardado.setUsuario(usuarioConGuardados);
+            guardado.setEvento(evento);
+            entityManager.persist(guardado);
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+    }
+
+    @Test
+    void obtenerEventosEjecutaUnaSolaSentencia() {
+        List<EventoResponse> eventos = eventoService.obtenerEventos();
+
+        assertEquals(NUMERO_EVENTOS, eventos.size());
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void obtenerPaginaEventosEjecutaUnaSolaSentencia() {
+        EventoPaginaResponse primeraPagina = eventoService.obtenerPaginaEventos(null, 4);
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+
+        estadisticas.clear();
+        EventoPaginaResponse segundaPagina = eventoService.obtenerPaginaEventos(primeraPagina.siguienteCursor(), 4);
+
+        assertEquals(4, segundaPagina.eventos().size());
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void obtenerEventosGuardadosNoDependeDelNumeroDeEventos() {
+        List<EventoResponse> eventos = usuarioEventoService.obtenerEventosGuardadosPorUsuario(usuarioConGuardados.getEmail());
+
+        // Una sentencia para resolver el usuario por email y otra para los eventos guardados
+        assertEquals(NUMERO_EVENTOS, eventos.size());
+        assertEquals(2, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void obtenerEventosEnRangoEjecutaUnaSolaSentencia() {
+        // Eventos de los días 3 a 6 de enero (el fin del rango queda excluido)
+        List<EventoResponse> eventos = eventoService.obtenerEventosEnRango(
+                LocalDateTime.of(2026, 1, 3, 0, 0), LocalDateTime.of(2026, 1, 7, 0, 0), null);
+
+        assertEquals(List.of("Evento 2", "Evento 3", "Evento 4", "Evento 5"), eventos.stream().map(EventoResponse::titulo).toList());
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void obtenerEventosEnRangoFiltraPorCategoria() {
+        Long idCategoria = entityManager.createQuery("SELECT c.id FROM Categoria c WHERE c.nombre = 'Categoria 4'", Long.class).getSingleResult();
+        estadisticas.clear();
+
+        List<EventoResponse> eventos = eventoService.obtenerEventosEnRango(
+                LocalDateTime.of(2026, 1, 1, 0, 0), LocalDateTime.of(2026, 2, 1, 0, 0), idCategoria);
+
+        assertEquals(List.of("Evento 4"), eventos.stream().map(EventoResponse::titulo).toList());
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void contarEventosPorDiaAgrupaEnLaBaseDeDatos() {
+        List<EventosDiaResponse> conteos = eventoService.contarEventosPorDia(
+                LocalDateTime.of(2026, 1, 1, 0, 0), LocalDateTime.of(2026, 1, 4, 0, 0), null);
+
+        assertEquals(List.of(
+                new EventosDiaResponse(LocalDate.of(2026, 1, 1), 1),
+                new EventosDiaResponse(LocalDate.of(2026, 1, 2), 1),
+                new EventosDiaResponse(LocalDate.of(2026, 1, 3), 1)
+        ), conteos);
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void rechazaRangosInvalidos() {
+        LocalDateTime inicio = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+        assertThrows(ResponseStatusException.class, () -> eventoService.obtenerEventosEnRango(inicio, inicio, null));
+        assertThrows(ResponseStatusException.class, () -> eventoService.contarEventosPorDia(inicio, inicio.plusYears(1), null));
+    }
+
+    @Test
+    void guardarYQuitarUnEventoActualizanElContadorYElRanking() {
+        Rol rol = entityManager.createQuery("SELECT r FROM Rol r", Rol.class).getSingleResult();
+        Usuario otroUsuario = crearUsuario(entityManager, "otro@eventvsmerida.es", "600000099", rol);
+        UsuarioEventoRequest request = new UsuarioEventoRequest(otroUsuario.getEmail(), "Evento 7", LocalDateTime.of(2026, 1, 8, 20, 0));
+
+        usuarioEventoService.guardarUsuarioEvento(request);
+
+        estadisticas.clear();
+        List<EventoResponse> masGuardados = eventoService.obtenerEventosMasGuardados(3);
+        assertEquals("Evento 7", masGuardados.getFirst().titulo());
+        assertEquals(2, masGuardados.getFirst().guardados());
+        assertEquals(1, masGuardados.get(1).guardados());
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+
+        usuarioEventoService.eliminarUsuarioEvento(request);
+
+        assertEquals(1, eventoService.obtenerEventosMasGuardados(1).getFirst().guardados());
+    }
+
+    @Test
+    void quitarUnEventoYaQuitadoNoRestaDelContador() {
+        UsuarioEventoRequest request = new UsuarioEventoRequest(usuarioConGuardados.getEmail(), "Evento 3", LocalDateTime.of(2026, 1, 4, 20, 0));
+
+        usuarioEventoService.eliminarUsuarioEvento(request);
+
+        // Como una segunda petición concurrente que llega cuando la relación ya está borrada
+        assertThrows(RecursoNoEncontradoException.class, () -> usuarioEventoService.eliminarUsuarioEvento(request));
+        entityManager.clear();
+        assertEquals(0, entityManager.createQuery("SELECT e.guardados FROM Evento e WHERE e.titulo = 'Evento 3'", Integer.class).getSingleResult());
+    }
+}
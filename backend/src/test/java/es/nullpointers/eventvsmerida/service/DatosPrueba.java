@@ -0,0 +1,63 @@
+package es.nullpointers.eventvsmerida.service;
+
+import es.nullpointers.eventvsmerida.entity.Categoria;
+import es.nullpointers.eventvsmerida.entity.EstadoFoto;
+import es.nullpointers.eventvsmerida.entity.Evento;
+import es.nullpointers.eventvsmerida.entity.Rol;
+import es.nullpointers.eventvsmerida.entity.Usuario;
+import jakarta.persistence.EntityManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Datos de prueba de los servicios sobre H2: eventos en fila hacia el este, separados unos
+ * 870 m, y cada uno con su propio organizador y categoría para forzar el peor caso de N+1.
+ */
+final class DatosPrueba {
+    static final int NUMERO_EVENTOS = 10;
+
+    private DatosPrueba() {}
+
+    static Usuario crearUsuario(EntityManager entityManager, String email, String telefono, Rol rol) {
+        Usuario usuario = new Usuario();
+        usuario.setNombre("Nombre");
+        usuario.setApellidos("Apellidos");
+        usuario.setFechaNacimiento(LocalDate.of(2000, 1, 1));
+        usuario.setEmail(email);
+        usuario.setTelefono(telefono);
+        usuario.setPassword("hash");
+        usuario.setRol(rol);
+        entityManager.persist(usuario);
+        return usuario;
+    }
+
+    static List<Evento> crearEventos(EntityManager entityManager, Rol rol, int guardados) {
+        List<Evento> eventos = new ArrayList<>();
+
+        for (int i = 0; i < NUMERO_EVENTOS; i++) {
+            Usuario organizador = crearUsuario(entityManager, "organizador" + i + "@eventvsmerida.es", "6000000" + (10 + i), rol);
+            Categoria categoria = new Categoria(null, "Categoria " + i);
+            entityManager.persist(categoria);
+
+            Evento evento = new Evento();
+            evento.setTitulo("Evento " + i);
+            evento.setDescripcion("Descripcion " + i);
+            evento.setFechaHora(LocalDateTime.of(2026, 1, 1, 20, 0).plusDays(i));
+            evento.setLocalizacion("Mérida");
+            evento.setLatitud(38.9161);
+            evento.setLongitud(-6.3437 + i * 0.01);
+            evento.setFoto("https://example.com/" + i + ".png");
+            evento.setEstadoFoto(EstadoFoto.COMPLETADA);
+            evento.setGuardados(guardados);
+            evento.setUsuario(organizador);
+            evento.setCategoria(categoria);
+            entityManager.persist(evento);
+            eventos.add(evento);
+        }
+
+        return eventos;
+    }
+}
@@ -0,0 +1,137 @@
+package es.nullpointers.eventvsmerida.service;
+
+import es.nullpointers.eventvsmerida.entity.EstadoFoto;
+import es.nullpointers.eventvsmerida.repository.EventoRepository;
+import es.nullpointers.eventvsmerida.supabase.ImagenAlmacenada;
+import es.nullpointers.eventvsmerida.supabase.SupabaseStorage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas de la cola de ingesta de imágenes con un servidor de imágenes lento, simulado con
+ * un SupabaseStorage que tarda en cada subida. Se comprueba cuántas fotos se procesan a la
+ * vez con el pool de hilos de plataforma y con hilos virtuales.
+ */
+class IngestaImagenesServiceTest {
+    private static final Duration RETRASO_SUBIDA = Duration.ofMillis(100);
+
+    private final EventoRepository eventoRepository = mock(EventoRepository.class);
+    private final SupabaseStorage supabaseStorage = mock(SupabaseStorage.class);
+
+    private final AtomicInteger enCurso = new AtomicInteger();
+    private final AtomicInteger maximoEnCurso = new AtomicInteger();
+
+    private IngestaImagenesService servicio;
+
+    @BeforeEach
+    void configurar() {
+        // Por defecto la foto del evento sigue siendo la de la tarea
+        when(eventoRepository.actualizarEstadoFoto(anyLong(), anyString(), any())).thenReturn(1);
+        when(eventoRepository.actualizarFoto(anyLong(), anyString(), anyString(), anyString(), anyString(), any())).thenReturn(1);
+    }
+
+    @AfterEach
+    void detener() {
+        servicio.detener();
+    }
+
+    @Test
+    void conHilosDePlataformaSoloSeProcesanTantasFotosComoHilos() {
+        subidaLenta();
+        servicio = crearServicio(false, 2, 200, 0);
+
+        encolar(20);
+
+        verify(eventoRepository, timeout(5000).times(20)).actualizarFoto(anyLong(), anyString(), anyString(), anyString(), anyString(), eq(EstadoFoto.COMPLETADA));
+        assertEquals(2, maximoEnCurso.get());
+    }
+
+    @Test
+    void conHilosVirtualesSeProcesanTantasFotosComoDescargasSimultaneas() {
+        subidaLenta();
+        servicio = crearServicio(true, 2, 200, 16);
+
+        encolar(64);
+
+        // Con 2 hilos de plataforma tardaría 64 / 2 * 100 ms = 3,2 s; con 16 descargas, unos 400 ms
+        verify(eventoRepository, timeout(2000).times(64)).actualizarFoto(anyLong(), anyString(), anyString(), anyString(), anyString(), eq(EstadoFoto.COMPLETADA));
+        assertEquals(16, maximoEnCurso.get());
+    }
+
+    @Test
+    void conHilosVirtualesSeRechazanLasFotosQueNoCabenEnLaCola() throws InterruptedException {
+        CountDownLatch liberarSubidas = new CountDownLatch(1);
+        when(supabaseStorage.subirImagen(any())).thenAnswer(invocacion -> {
+            liberarSubidas.await();
+            return imagen();
+        });
+        // 1 descarga en curso y 2 en espera
+        servicio = crearServicio(true, 2, 2, 1);
+
+        encolar(5);
+
+        verify(eventoRepository).actualizarEstadoFoto(4L, "https://imagenes.example.com/4.jpg", EstadoFoto.ERROR);
+        verify(eventoRepository).actualizarEstadoFoto(5L, "https://imagenes.example.com/5.jpg", EstadoFoto.ERROR);
+
+        liberarSubidas.countDown();
+        verify(eventoRepository, timeout(2000).times(3)).actualizarFoto(anyLong(), anyString(), anyString(), anyString(), anyString(), eq(EstadoFoto.COMPLETADA));
+        verify(eventoRepository, never()).actualizarEstadoFoto(eq(1L), anyString(), eq(EstadoFoto.ERROR));
+    }
+
+    @Test
+    void unaTareaDeUnaFotoQueYaHaCambiadoNoSeDescarga() {
+        String fotoAnterior = "https://imagenes.example.com/1.jpg";
+        // Cuando la tarea empieza, el evento ya tiene otra foto
+        when(eventoRepository.actualizarEstadoFoto(1L, fotoAnterior, EstadoFoto.PROCESANDO)).thenReturn(0);
+        servicio = crearServicio(false, 1, 10, 0);
+
+        servicio.encolar(1L, fotoAnterior);
+
+        verify(eventoRepository, timeout(2000)).actualizarEstadoFoto(1L, fotoAnterior, EstadoFoto.PROCESANDO);
+        verify(supabaseStorage, after(200).never()).subirImagen(any());
+        verify(eventoRepository, never()).actualizarFoto(anyLong(), anyString(), anyString(), anyString(), anyString(), any());
+    }
+
+    // ================
+    // Métodos Privados
+    // ================
+
+    private IngestaImagenesService crearServicio(boolean hilosVirtuales, int hilos, int capacidadCola, int descargasSimultaneas) {
+        return new IngestaImagenesService(eventoRepository, supabaseStorage, hilos, capacidadCola, 1, Duration.ofSeconds(1), hilosVirtuales, descargasSimultaneas);
+    }
+
+    private void subidaLenta() {
+        when(supabaseStorage.subirImagen(any())).thenAnswer(invocacion -> {
+            maximoEnCurso.accumulateAndGet(enCurso.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(RETRASO_SUBIDA);
+                return imagen();
+            } finally {
+                enCurso.decrementAndGet();
+            }
+        });
+    }
+
+    private void encolar(int fotos) {
+        for (long id = 1; id <= fotos; id++) {
+            servicio.encolar(id, "https://imagenes.example.com/" + id + ".jpg");
+        }
+    }
+
+    private static ImagenAlmacenada imagen() {
+        return new ImagenAlmacenada("digest", "https://supabase.example.com/imagen.jpg", 1024, Map.of());
+    }
+}
@@ -0,0 +1,77 @@
+package es.nullpointers.eventvsmerida.service;
+
+import es.nullpointers.eventvsmerida.dto.request.LoteGuardadosRequest;
+import es.nullpointers.eventvsmerida.dto.request.LoteGuardadosRequest.Accion;
+import es.nullpointers.eventvsmerida.dto.request.LoteGuardadosRequest.Operacion;
+import es.nullpointers.eventvsmerida.dto.response.ResultadoGuardadoResponse;
+import es.nullpointers.eventvsmerida.dto.response.ResultadoGuardadoResponse.Resultado;
+import es.nullpointers.eventvsmerida.exception.RecursoNoEncontradoException;
+import es.nullpointers.eventvsmerida.repository.EventoRepository;
+import es.nullpointers.eventvsmerida.repository.UsuarioEventoLoteRepository;
+import es.nullpointers.eventvsmerida.repository.UsuarioEventoRepository;
+import es.nullpointers.eventvsmerida.repository.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas de la aplicación de lotes de eventos guardados. Las sentencias SQL del lote
+ * son propias de PostgreSQL, así que aquí se comprueba cómo se reparten las operaciones
+ * y cómo se traducen las filas afectadas a resultados.
+ */
+class LoteGuardadosTest {
+    private final UsuarioRepository usuarioRepository = mock(UsuarioRepository.class);
+    private final EventoRepository eventoRepository = mock(EventoRepository.class);
+    private final UsuarioEventoLoteRepository loteRepository = mock(UsuarioEventoLoteRepository.class);
+    private final UsuarioEventoService servicio = new UsuarioEventoService(usuarioRepository, eventoRepository, mock(UsuarioEventoRepository.class), loteRepository);
+
+    @BeforeEach
+    void configurar() {
+        ReflectionTestUtils.setField(servicio, "maximoOperacionesLote", 3);
+        when(usuarioRepository.existsById(1L)).thenReturn(true);
+    }
+
+    @Test
+    void devuelveUnResultadoPorOperacionEnElMismoOrden() {
+        when(eventoRepository.findIdsExistentes(any())).thenReturn(List.of(10L, 20L));
+        when(loteRepository.aplicar(eq(1L), anyList())).thenReturn(new int[]{1, 0});
+
+        List<ResultadoGuardadoResponse> resultados = servicio.aplicarLoteGuardados(1L, new LoteGuardadosRequest(List.of(
+                new Operacion(10L, Accion.GUARDAR),
+                new Operacion(99L, Accion.GUARDAR),
+                new Operacion(20L, Accion.QUITAR)
+        )));
+
+        assertEquals(List.of(Resultado.APLICADA, Resultado.EVENTO_NO_ENCONTRADO, Resultado.SIN_CAMBIOS),
+                resultados.stream().map(ResultadoGuardadoResponse::resultado).toList());
+        assertEquals(List.of(10L, 99L, 20L), resultados.stream().map(ResultadoGuardadoResponse::idEvento).toList());
+        // Al lote JDBC solo llegan las operaciones sobre eventos que existen
+        verify(loteRepository).aplicar(1L, List.of(new Operacion(10L, Accion.GUARDAR), new Operacion(20L, Accion.QUITAR)));
+    }
+
+    @Test
+    void rechazaLosLotesDemasiadoGrandes() {
+        List<Operacion> operaciones = Collections.nCopies(4, new Operacion(10L, Accion.GUARDAR));
+
+        assertThrows(ResponseStatusException.class, () -> servicio.aplicarLoteGuardados(1L, new LoteGuardadosRequest(operaciones)));
+        verifyNoInteractions(loteRepository);
+    }
+
+    @Test
+    void fallaSiElUsuarioNoExiste() {
+        LoteGuardadosRequest request = new LoteGuardadosRequest(List.of(new Operacion(10L, Accion.GUARDAR)));
+
+        assertThrows(RecursoNoEncontradoException.class, () -> servicio.aplicarLoteGuardados(2L, request));
+        verifyNoInteractions(loteRepository);
+    }
+}
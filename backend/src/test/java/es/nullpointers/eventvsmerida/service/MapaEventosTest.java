@@ -0,0 +1,148 @@
+package es.nullpointers.eventvsmerida.service;
+
+import es.nullpointers.eventvsmerida.cache.CacheConfig;
+import es.nullpointers.eventvsmerida.dto.response.ClusterMapaResponse;
+import es.nullpointers.eventvsmerida.dto.response.EventoResponse;
+import es.nullpointers.eventvsmerida.dto.response.MapaResponse;
+import es.nullpointers.eventvsmerida.entity.Evento;
+import es.nullpointers.eventvsmerida.entity.Rol;
+import es.nullpointers.eventvsmerida.security.ContraseniaService;
+import es.nullpointers.eventvsmerida.security.LimitadorLogin;
+import es.nullpointers.eventvsmerida.security.TokenService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static es.nullpointers.eventvsmerida.service.DatosPrueba.NUMERO_EVENTOS;
+import static es.nullpointers.eventvsmerida.service.DatosPrueba.crearEventos;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas de las consultas del mapa de EventoService: los marcadores y los clusters de la
+ * rejilla de ClusterMapaService para una zona, y los eventos cercanos a un punto.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "eventos.mapa.maximo-marcadores=5"
+})
+@Import({EventoService.class, ClusterMapaService.class, UsuarioService.class, CategoriaService.class, RolService.class, VersionCatalogoService.class, CacheConfig.class, TokenService.class})
+class MapaEventosTest {
+
+    @MockitoBean
+    private IngestaImagenesService ingestaImagenesService;
+
+    @MockitoBean
+    private GeocodificacionService geocodificacionService;
+
+    @MockitoBean
+    private ContraseniaService contraseniaService;
+
+    @MockitoBean
+    private LimitadorLogin limitadorLogin;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EventoService eventoService;
+
+    @Autowired
+    private ClusterMapaService clusterMapaService;
+
+    private Statistics estadisticas;
+
+    @BeforeEach
+    void prepararDatos() {
+        Rol rol = new Rol(null, "Usuario");
+        entityManager.persist(rol);
+        crearEventos(entityManager, rol, 0);
+        entityManager.flush();
+        entityManager.clear();
+
+        clusterMapaService.reconstruir();
+
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+    }
+
+    @Test
+    void obtenerMapaDevuelveMarcadoresSiCabenEnLaZona() {
+        MapaResponse mapa = eventoService.obtenerMapa(38.9, 38.93, -6.35, -6.31, 15);
+
+        // Eventos 0 a 3, entre -6.3437 y -6.3137
+        assertEquals(4, mapa.eventos().size());
+        assertTrue(mapa.clusters().isEmpty());
+        // El recuento sale de la rejilla en memoria; solo se consultan los marcadores
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void obtenerMapaAgrupaLosEventosSiSonDemasiados() {
+        // Con zoom 10 cada celda mide 360 / 1024 / 4 ≈ 0.088 grados: los 10 eventos caben en una o dos celdas
+        MapaResponse mapa = eventoService.obtenerMapa(38.0, 40.0, -7.0, -6.0, 10);
+
+        assertTrue(mapa.eventos().isEmpty());
+        assertEquals(NUMERO_EVENTOS, mapa.clusters().stream().mapToLong(ClusterMapaResponse::eventos).sum());
+        assertTrue(mapa.clusters().size() <= 2);
+        assertEquals(0, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void obtenerMapaSoloCuentaLosEventosDentroDeLaZona() {
+        // Zona con los eventos 0 a 4; a zoom 10 sus celdas también contienen los eventos 5 a 9
+        MapaResponse mapa = eventoService.obtenerMapa(38.91, 38.92, -6.345, -6.30, 10);
+
+        assertTrue(mapa.clusters().isEmpty());
+        assertEquals(Set.of("Evento 0", "Evento 1", "Evento 2", "Evento 3", "Evento 4"), mapa.eventos().stream().map(EventoResponse::titulo).collect(Collectors.toSet()));
+    }
+
+    @Test
+    void obtenerMapaReflejaLosEventosEliminados() {
+        Long idEvento = entityManager.createQuery("SELECT e.id FROM Evento e WHERE e.titulo = 'Evento 0'", Long.class).getSingleResult();
+        eventoService.eliminarEvento(idEvento);
+
+        // Hasta que se confirma el borrado, el evento sigue en la rejilla
+        assertEquals(NUMERO_EVENTOS, eventoService.obtenerMapa(38.0, 40.0, -7.0, -6.0, 10).clusters().stream().mapToLong(ClusterMapaResponse::eventos).sum());
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        MapaResponse mapa = eventoService.obtenerMapa(38.0, 40.0, -7.0, -6.0, 10);
+
+        assertEquals(NUMERO_EVENTOS - 1, mapa.clusters().stream().mapToLong(ClusterMapaResponse::eventos).sum());
+    }
+
+    @Test
+    void obtenerEventosCercanosOrdenaPorDistancia() {
+        // Punto junto al evento 5; con 2 km de radio entran los eventos 3 a 7
+        List<EventoResponse> eventos = eventoService.obtenerEventosCercanos(38.9161, -6.2937, 2);
+
+        assertEquals("Evento 5", eventos.getFirst().titulo());
+        assertEquals(Set.of("Evento 3", "Evento 4", "Evento 5", "Evento 6", "Evento 7"), eventos.stream().map(EventoResponse::titulo).collect(Collectors.toSet()));
+    }
+
+    @Test
+    void obtenerEventosCercanosSoloCargaLosMasCercanos() {
+        // Punto junto al evento 0; con 20 km de radio entran los 10 eventos, pero solo se cargan 5
+        List<EventoResponse> eventos = eventoService.obtenerEventosCercanos(38.9161, -6.3437, 20);
+
+        assertEquals(List.of("Evento 0", "Evento 1", "Evento 2", "Evento 3", "Evento 4"), eventos.stream().map(EventoResponse::titulo).toList());
+        assertEquals(5, estadisticas.getEntityStatistics(Evento.class.getName()).getLoadCount());
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+}
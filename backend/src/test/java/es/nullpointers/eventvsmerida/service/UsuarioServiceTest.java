@@ -0,0 +1,76 @@
+package es.nullpointers.eventvsmerida.service;
+
+import es.nullpointers.eventvsmerida.cache.CacheConfig;
+import es.nullpointers.eventvsmerida.dto.request.UsuarioActualizarRequest;
+import es.nullpointers.eventvsmerida.entity.Rol;
+import es.nullpointers.eventvsmerida.entity.Usuario;
+import es.nullpointers.eventvsmerida.security.ContraseniaService;
+import es.nullpointers.eventvsmerida.security.LimitadorLogin;
+import es.nullpointers.eventvsmerida.security.TokenService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.web.server.ResponseStatusException;
+
+import static es.nullpointers.eventvsmerida.service.DatosPrueba.crearUsuario;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas de las sesiones de UsuarioService: los tokens de refresco dejan de valer
+ * cuando cambian las credenciales del usuario.
+ */
+@DataJpaTest
+@Import({UsuarioService.class, RolService.class, VersionCatalogoService.class, CacheConfig.class, TokenService.class})
+class UsuarioServiceTest {
+
+    @MockitoBean
+    private ContraseniaService contraseniaService;
+
+    @MockitoBean
+    private LimitadorLogin limitadorLogin;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private TokenService tokenService;
+
+    private Usuario usuario;
+
+    @BeforeEach
+    void prepararDatos() {
+        Rol rol = new Rol(null, "Usuario");
+        entityManager.persist(rol);
+        usuario = crearUsuario(entityManager, "ana@eventvsmerida.es", "600000000", rol);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void cambiarLaContraseniaRevocaLosTokensDeRefrescoAnteriores() {
+        when(contraseniaService.codificar(any())).thenReturn("hash-nuevo");
+        String refrescoAnterior = tokenService.emitir(usuario.getEmail(), "Usuario", 0).tokenRefresco();
+
+        usuarioService.actualizarUsuario(usuario.getId(), new UsuarioActualizarRequest(null, null, null, null, null, "NuevaClave1", null));
+        entityManager.flush();
+        entityManager.clear();
+
+        ResponseStatusException error = assertThrows(ResponseStatusException.class, () -> usuarioService.refrescarSesion(refrescoAnterior));
+        assertEquals(HttpStatus.UNAUTHORIZED, error.getStatusCode());
+
+        String refrescoNuevo = tokenService.emitir(usuario.getEmail(), "Usuario", 1).tokenRefresco();
+        assertNotNull(usuarioService.refrescarSesion(refrescoNuevo).tokens().tokenRefresco());
+    }
+}
@@ -0,0 +1,57 @@
+package es.nullpointers.eventvsmerida.service;
+
+import es.nullpointers.eventvsmerida.repository.VersionCatalogoRepository;
+import es.nullpointers.eventvsmerida.utils.PeticionCondicionalUtils;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Comprueba que la versión de los catálogos se guarda en la base de datos: dos servicios sobre
+ * la misma base de datos, como dos instancias de la aplicación, ven siempre el mismo ETag.
+ */
+@DataJpaTest
+class VersionCatalogoServiceTest {
+
+    @Autowired
+    private VersionCatalogoRepository versionCatalogoRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void unaEscrituraEnUnaInstanciaCambiaElEtagDeLaOtra() {
+        VersionCatalogoService instanciaA = new VersionCatalogoService(versionCatalogoRepository);
+        VersionCatalogoService instanciaB = new VersionCatalogoService(versionCatalogoRepository);
+
+        instanciaA.incrementar(VersionCatalogoService.CATEGORIAS);
+        PeticionCondicionalUtils.Version anterior = leer(instanciaB, VersionCatalogoService.CATEGORIAS);
+
+        instanciaA.incrementar(VersionCatalogoService.CATEGORIAS);
+        PeticionCondicionalUtils.Version actual = leer(instanciaB, VersionCatalogoService.CATEGORIAS);
+
+        assertNotEquals(anterior.etag(), actual.etag());
+        assertEquals(actual.etag(), leer(instanciaA, VersionCatalogoService.CATEGORIAS).etag());
+    }
+
+    @Test
+    void cadaCatalogoTieneSuPropiaVersion() {
+        VersionCatalogoService servicio = new VersionCatalogoService(versionCatalogoRepository);
+        PeticionCondicionalUtils.Version roles = leer(servicio, VersionCatalogoService.ROLES);
+
+        servicio.incrementar(VersionCatalogoService.CATEGORIAS);
+
+        assertEquals(roles.etag(), leer(servicio, VersionCatalogoService.ROLES).etag());
+    }
+
+    // Cada petición usa su propio contexto de persistencia
+    private PeticionCondicionalUtils.Version leer(VersionCatalogoService servicio, String recurso) {
+        entityManager.flush();
+        entityManager.clear();
+        return servicio.obtener(recurso);
+    }
+}
@@ -0,0 +1,73 @@
+package es.nullpointers.eventvsmerida.supabase;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la generación de variantes reducidas de las imágenes.
+ */
+class GeneradorVariantesTest {
+    private final GeneradorVariantes generador = new GeneradorVariantes(1, 4, 10_000_000, 0.8f);
+
+    @AfterEach
+    void detener() {
+        generador.detener();
+    }
+
+    @Test
+    void reduceCadaVarianteConservandoLaProporcion() throws IOException {
+        Map<VarianteImagen, GeneradorVariantes.Variante> variantes = generador.generar(imagen(2400, 1200, BufferedImage.TYPE_INT_RGB, "jpg"));
+
+        BufferedImage miniatura = leer(variantes.get(VarianteImagen.MINIATURA));
+        BufferedImage tarjeta = leer(variantes.get(VarianteImagen.TARJETA));
+
+        assertEquals(200, miniatura.getWidth());
+        assertEquals(100, miniatura.getHeight());
+        assertEquals(800, tarjeta.getWidth());
+        assertEquals(400, tarjeta.getHeight());
+        assertEquals("image/jpeg", variantes.get(VarianteImagen.TARJETA).contentType());
+    }
+
+    @Test
+    void noAmpliaLasImagenesPequenias() throws IOException {
+        Map<VarianteImagen, GeneradorVariantes.Variante> variantes = generador.generar(imagen(600, 400, BufferedImage.TYPE_INT_RGB, "png"));
+
+        assertEquals(".jpg", variantes.get(VarianteImagen.MINIATURA).extension());
+        assertFalse(variantes.containsKey(VarianteImagen.TARJETA));
+    }
+
+    @Test
+    void conservaLaTransparenciaEnPng() throws IOException {
+        Map<VarianteImagen, GeneradorVariantes.Variante> variantes = generador.generar(imagen(1000, 1000, BufferedImage.TYPE_INT_ARGB, "png"));
+
+        GeneradorVariantes.Variante miniatura = variantes.get(VarianteImagen.MINIATURA);
+        assertEquals("image/png", miniatura.contentType());
+        assertTrue(leer(miniatura).getColorModel().hasAlpha());
+    }
+
+    @Test
+    void rechazaLasImagenesConDemasiadosPixeles() throws IOException {
+        ByteArrayInputStream enorme = imagen(4000, 3000, BufferedImage.TYPE_INT_RGB, "png");
+
+        assertThrows(IllegalArgumentException.class, () -> generador.generar(enorme));
+    }
+
+    private static ByteArrayInputStream imagen(int ancho, int alto, int tipo, String formato) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(ancho, alto, tipo), formato, out);
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    private static BufferedImage leer(GeneradorVariantes.Variante variante) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(variante.contenido()));
+    }
+}
@@ -0,0 +1,128 @@
+package es.nullpointers.eventvsmerida.supabase;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del descargador HTTP contra un servidor HTTP local que simula un host de imágenes.
+ */
+class HttpClientDownloaderTest {
+    private static final byte[] IMAGEN = new byte[64 * 1024];
+
+    private HttpServer servidor;
+    private String urlBase;
+    private HttpClientDownloader descargador;
+
+    @BeforeEach
+    void arrancarServidor() throws IOException {
+        Arrays.fill(IMAGEN, (byte) 7);
+
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        servidor.createContext("/imagen.png", exchange -> responder(exchange, 200, "image/png", IMAGEN, true));
+        servidor.createContext("/sin-longitud.png", exchange -> responder(exchange, 200, "image/png", IMAGEN, false));
+        servidor.createContext("/pagina.html", exchange -> responder(exchange, 200, "text/html", "<html></html>".getBytes(), true));
+        servidor.createContext("/no-existe.png", exchange -> responder(exchange, 404, "text/plain", "no".getBytes(), true));
+        servidor.createContext("/lenta.png", HttpClientDownloaderTest::responderLento);
+        // Cada petición en su hilo, para que una respuesta lenta no retenga las siguientes
+        servidor.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        servidor.start();
+
+        urlBase = "http://127.0.0.1:" + servidor.getAddress().getPort();
+        descargador = new HttpClientDownloader(DataSize.ofKilobytes(128), Duration.ofSeconds(2));
+    }
+
+    @AfterEach
+    void pararServidor() {
+        servidor.stop(0);
+    }
+
+    @Test
+    void descargaLaImagenCompleta() {
+        byte[] bytes = descargador.download(urlBase + "/imagen.png", Duration.ofSeconds(5));
+
+        assertArrayEquals(IMAGEN, bytes);
+    }
+
+    @Test
+    void rechazaContenidoQueNoEsImagen() {
+        RuntimeException e = assertThrows(RuntimeException.class, () -> descargador.download(urlBase + "/pagina.html", Duration.ofSeconds(5)));
+
+        assertTrue(e.getMessage().contains("no devolvió una imagen"));
+    }
+
+    @Test
+    void rechazaRespuestasDeError() {
+        RuntimeException e = assertThrows(RuntimeException.class, () -> descargador.download(urlBase + "/no-existe.png", Duration.ofSeconds(5)));
+
+        assertTrue(e.getMessage().contains("HTTP 404"));
+    }
+
+    @Test
+    void cortaLaDescargaAlSuperarElTamanioMaximo() {
+        HttpClientDownloader descargadorPequenio = new HttpClientDownloader(DataSize.ofKilobytes(16), Duration.ofSeconds(2));
+
+        // Con Content-Length se rechaza antes de leer y sin él se corta durante la lectura
+        assertThrows(RuntimeException.class, () -> descargadorPequenio.download(urlBase + "/imagen.png", Duration.ofSeconds(5)));
+        RuntimeException e = assertThrows(RuntimeException.class, () -> descargadorPequenio.download(urlBase + "/sin-longitud.png", Duration.ofSeconds(5)));
+
+        assertTrue(e.getMessage().contains("tamaño máximo"));
+    }
+
+    @Test
+    void cortaLaDescargaCuandoElCuerpoLlegaMasLentoQueElPlazo() {
+        long inicio = System.nanoTime();
+        RuntimeException e = assertThrows(RuntimeException.class, () -> descargador.download(urlBase + "/lenta.png", Duration.ofSeconds(1)));
+
+        assertTrue(e.getMessage().contains("Tiempo agotado"));
+        // El servidor tardaría 4 s en enviar el cuerpo completo
+        assertTrue(Duration.ofNanos(System.nanoTime() - inicio).compareTo(Duration.ofSeconds(3)) < 0);
+    }
+
+    @Test
+    void cortaLaLecturaEnStreamingCuandoSeAgotaElPlazo() {
+        long inicio = System.nanoTime();
+        assertThrows(IOException.class, () -> {
+            try (DescargaImagen descarga = descargador.abrir(urlBase + "/lenta.png", Duration.ofSeconds(1))) {
+                descarga.cuerpo().transferTo(OutputStream.nullOutputStream());
+            }
+        });
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - inicio).compareTo(Duration.ofSeconds(3)) < 0);
+    }
+
+    private static void responder(HttpExchange exchange, int status, String contentType, byte[] cuerpo, boolean conLongitud) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, conLongitud ? cuerpo.length : 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(cuerpo);
+        }
+    }
+
+    // Envía las cabeceras enseguida y el cuerpo en 8 trozos, uno cada 500 ms
+    private static void responderLento(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "image/png");
+        exchange.sendResponseHeaders(200, 8 * 1024);
+        try (OutputStream out = exchange.getResponseBody()) {
+            for (int i = 0; i < 8; i++) {
+                out.write(IMAGEN, 0, 1024);
+                out.flush();
+                Thread.sleep(500);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package es.nullpointers.eventvsmerida.supabase;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import es.nullpointers.eventvsmerida.dto.response.ImagenesEstadisticasResponse;
+import es.nullpointers.eventvsmerida.metricas.MetricasConfig;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la subida de imágenes contra un servidor local que hace de origen de las imágenes
+ * y de API de almacenamiento de Supabase.
+ */
+class SupabaseStorageTest {
+    private static final byte[] IMAGEN = new byte[512 * 1024];
+    private static final String PREFIJO_BUCKET = "/storage/v1/object/imagenesEvento/";
+
+    private final GeneradorVariantes generador = new GeneradorVariantes(1, 4, 40_000_000, 0.8f);
+
+    private HttpServer servidor;
+    private String urlBase;
+    private String nombreImagen;
+
+    // Objetos almacenados en el bucket, por nombre
+    private final Map<String, byte[]> objetos = new ConcurrentHashMap<>();
+    private volatile String contentLengthUltimaSubida;
+    private final AtomicInteger descargas = new AtomicInteger();
+    private final AtomicInteger subidas = new AtomicInteger();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void arrancarServidor() throws IOException, NoSuchAlgorithmException {
+        new Random(42).nextBytes(IMAGEN);
+        nombreImagen = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(IMAGEN)) + ".jpg";
+
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        servidor.createContext("/origen/cartel.jpg", exchange -> servirImagen(exchange, true));
+        servidor.createContext("/origen/copia.jpg", exchange -> servirImagen(exchange, true));
+        servidor.createContext("/origen/sin-longitud.jpg", exchange -> servirImagen(exchange, false));
+        servidor.createContext("/origen/foto.png", this::servirFoto);
+        servidor.createContext("/storage/v1/object/move", this::moverObjeto);
+        servidor.createContext("/storage/v1/object/public/imagenesEvento/", this::servirObjeto);
+        servidor.createContext(PREFIJO_BUCKET, this::gestionarObjeto);
+        servidor.start();
+
+        urlBase = "http://127.0.0.1:" + servidor.getAddress().getPort();
+    }
+
+    @AfterEach
+    void pararServidor() {
+        servidor.stop(0);
+        generador.detener();
+    }
+
+    @Test
+    void subeEnStreamingConLongitudConocida() {
+        SupabaseStorage storage = crearStorage(true, DataSize.ofMegabytes(1));
+
+        String url = storage.subirImagen(urlBase + "/origen/cartel.jpg").urlPublica();
+
+        // El objeto se nombra con el SHA-256 del contenido y el temporal desaparece tras moverlo
+        assertEquals(urlBase + "/storage/v1/object/public/imagenesEvento/" + nombreImagen, url);
+        assertEquals(Map.of(nombreImagen, IMAGEN).keySet(), objetos.keySet());
+        assertArrayEquals(IMAGEN, objetos.get(nombreImagen));
+        assertEquals(String.valueOf(IMAGEN.length), contentLengthUltimaSubida);
+    }
+
+    @Test
+    void subeEnStreamingPorBloquesSinLongitudConocida() {
+        SupabaseStorage storage = crearStorage(true, DataSize.ofMegabytes(1));
+
+        storage.subirImagen(urlBase + "/origen/sin-longitud.jpg");
+
+        // Sin Content-Length el cuerpo se reenvía por bloques según llega del origen
+        assertArrayEquals(IMAGEN, objetos.get(nombreImagen));
+        assertNull(contentLengthUltimaSubida);
+    }
+
+    @Test
+    void cortaLaSubidaEnStreamingAlSuperarElTamanioMaximo() {
+        SupabaseStorage storage = crearStorage(true, DataSize.ofKilobytes(256));
+
+        assertThrows(RuntimeException.class, () -> storage.subirImagen(urlBase + "/origen/sin-longitud.jpg"));
+        assertTrue(objetos.isEmpty());
+    }
+
+    @Test
+    void subeEnMemoria() {
+        SupabaseStorage storage = crearStorage(false, DataSize.ofMegabytes(1));
+
+        String url = storage.subirImagen(urlBase + "/origen/cartel.jpg").urlPublica();
+
+        assertEquals(urlBase + "/storage/v1/object/public/imagenesEvento/" + nombreImagen, url);
+        assertArrayEquals(IMAGEN, objetos.get(nombreImagen));
+    }
+
+    @Test
+    void noVuelveADescargarUnaUrlYaAlmacenada() {
+        IndiceImagenes indice = new IndiceImagenes(100);
+        SupabaseStorage storage = crearStorage(true, DataSize.ofMegabytes(1), indice);
+
+        String primera = storage.subirImagen(urlBase + "/origen/cartel.jpg").urlPublica();
+        String segunda = storage.subirImagen(urlBase + "/origen/cartel.jpg").urlPublica();
+
+        assertEquals(primera, segunda);
+        assertEquals(1, descargas.get());
+        assertEquals(1, subidas.get());
+
+        ImagenesEstadisticasResponse estadisticas = indice.obtenerEstadisticas();
+        assertEquals(2, estadisticas.consultas());
+        assertEquals(1, estadisticas.aciertosUrl());
+        assertEquals(0.5, estadisticas.tasaAciertos());
+        assertEquals(IMAGEN.length, estadisticas.bytesAhorrados());
+    }
+
+    @Test
+    void almacenaUnaSolaVezElMismoContenidoDesdeDistintasUrls() {
+        IndiceImagenes indice = new IndiceImagenes(100);
+        SupabaseStorage storage = crearStorage(false, DataSize.ofMegabytes(1), indice);
+
+        String primera = storage.subirImagen(urlBase + "/origen/cartel.jpg").urlPublica();
+        String segunda = storage.subirImagen(urlBase + "/origen/copia.jpg").urlPublica();
+
+        // La segunda imagen se descarga, pero al tener el mismo contenido no se sube
+        assertEquals(primera, segunda);
+        assertEquals(2, descargas.get());
+        assertEquals(1, subidas.get());
+        assertEquals(1, indice.obtenerEstadisticas().aciertosContenido());
+        // Solo se ha evitado la subida de la segunda
+        assertEquals(IMAGEN.length, indice.obtenerEstadisticas().bytesAhorrados());
+    }
+
+    @Test
+    void enStreamingUnContenidoRepetidoNoCuentaBytesAhorrados() {
+        IndiceImagenes indice = new IndiceImagenes(100);
+        SupabaseStorage storage = crearStorage(true, DataSize.ofMegabytes(1), indice);
+
+        storage.subirImagen(urlBase + "/origen/cartel.jpg");
+        storage.subirImagen(urlBase + "/origen/copia.jpg");
+
+        // La segunda ya se ha descargado y subido con un nombre temporal cuando se detecta el acierto
+        assertEquals(1, indice.obtenerEstadisticas().aciertosContenido());
+        assertEquals(0, indice.obtenerEstadisticas().bytesAhorrados());
+    }
+
+    @Test
+    void conservaElObjetoExistenteAlMoverUnContenidoRepetido() {
+        SupabaseStorage storage = crearStorage(true, DataSize.ofMegabytes(1));
+        objetos.put(nombreImagen, IMAGEN);
+
+        String url = storage.subirImagen(urlBase + "/origen/cartel.jpg").urlPublica();
+
+        // Supabase responde Duplicate al mover: se conserva el existente y se borra el temporal
+        assertEquals(urlBase + "/storage/v1/object/public/imagenesEvento/" + nombreImagen, url);
+        assertEquals(Map.of(nombreImagen, IMAGEN).keySet(), objetos.keySet());
+    }
+
+    @Test
+    void almacenaLasVariantesJuntoAlOriginal() {
+        SupabaseStorage storage = crearStorage(true, DataSize.ofMegabytes(1));
+
+        ImagenAlmacenada imagen = storage.subirImagen(urlBase + "/origen/foto.png");
+
+        // Las variantes se generan leyendo el original del bucket y se nombran a partir de su resumen
+        String miniatura = imagen.digest() + "-miniatura.jpg";
+        String tarjeta = imagen.digest() + "-tarjeta.jpg";
+        assertEquals(urlBase + "/storage/v1/object/public/imagenesEvento/" + miniatura, imagen.urlVariante(VarianteImagen.MINIATURA));
+        assertEquals(urlBase + "/storage/v1/object/public/imagenesEvento/" + tarjeta, imagen.urlVariante(VarianteImagen.TARJETA));
+        assertTrue(objetos.containsKey(imagen.digest() + ".png"));
+        assertTrue(objetos.get(miniatura).length < objetos.get(tarjeta).length);
+    }
+
+    @Test
+    void usaElOriginalSiNoSePuedenGenerarLasVariantes() {
+        SupabaseStorage storage = crearStorage(false, DataSize.ofMegabytes(1));
+
+        // El contenido de prueba no es una imagen decodificable
+        ImagenAlmacenada imagen = storage.subirImagen(urlBase + "/origen/cartel.jpg");
+
+        assertEquals(imagen.urlPublica(), imagen.urlVariante(VarianteImagen.MINIATURA));
+        assertEquals(imagen.urlPublica(), imagen.urlVariante(VarianteImagen.TARJETA));
+        assertEquals(1, objetos.size());
+    }
+
+    @Test
+    void registraLaDuracionYLosBytesDeLaDescargaYLaSubida() {
+        SupabaseStorage storage = crearStorage(false, DataSize.ofMegabytes(1));
+
+        storage.subirImagen(urlBase + "/origen/cartel.jpg");
+
+        assertEquals(1, meterRegistry.get(MetricasConfig.DESCARGA_IMAGENES).tag("descargador", "HttpClientDownloader").tag("causa", "ninguna").timer().count());
+        assertEquals(1, meterRegistry.get(MetricasConfig.SUBIDA_IMAGENES).tag("modo", "memoria").tag("causa", "ninguna").timer().count());
+        assertEquals(IMAGEN.length, meterRegistry.get(MetricasConfig.BYTES_DESCARGA_IMAGENES).summary().totalAmount());
+    }
+
+    @Test
+    void registraLaCausaDeUnaDescargaFallida() {
+        SupabaseStorage storage = crearStorage(true, DataSize.ofMegabytes(1));
+
+        assertThrows(RuntimeException.class, () -> storage.subirImagen(urlBase + "/origen/no-existe.jpg"));
+
+        // El fallo se cuenta con su causa tanto en la descarga como en la subida
+        Timer descarga = meterRegistry.get(MetricasConfig.DESCARGA_IMAGENES).timer();
+        String causa = descarga.getId().getTag("causa");
+        assertNotEquals("ninguna", causa);
+        assertEquals(1, descarga.count());
+        assertEquals(1, meterRegistry.get(MetricasConfig.SUBIDA_IMAGENES).tag("causa", causa).timer().count());
+    }
+
+    private SupabaseStorage crearStorage(boolean streaming, DataSize tamanioMaximo) {
+        return crearStorage(streaming, tamanioMaximo, new IndiceImagenes(100));
+    }
+
+    private SupabaseStorage crearStorage(boolean streaming, DataSize tamanioMaximo, IndiceImagenes indice) {
+        HttpClientDownloader descargador = new HttpClientDownloader(tamanioMaximo, Duration.ofSeconds(2));
+        return new SupabaseStorage(urlBase, "clave", streaming, DataSize.ofKilobytes(16), descargador, indice, generador, meterRegistry);
+    }
+
+    private void servirImagen(HttpExchange exchange, boolean conLongitud) throws IOException {
+        descargas.incrementAndGet();
+        exchange.getResponseHeaders().add("Content-Type", "image/jpeg");
+        exchange.sendResponseHeaders(200, conLongitud ? IMAGEN.length : 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(IMAGEN);
+        }
+    }
+
+    private void servirFoto(HttpExchange exchange) throws IOException {
+        BufferedImage imagen = new BufferedImage(1600, 900, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = imagen.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, Color.ORANGE, 1600, 900, Color.BLUE));
+        g.fillRect(0, 0, 1600, 900);
+        g.dispose();
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(imagen, "png", png);
+
+        exchange.getResponseHeaders().add("Content-Type", "image/png");
+        exchange.sendResponseHeaders(200, png.size());
+        try (OutputStream out = exchange.getResponseBody()) {
+            png.writeTo(out);
+        }
+    }
+
+    private void servirObjeto(HttpExchange exchange) throws IOException {
+        String nombre = exchange.getRequestURI().getPath().substring("/storage/v1/object/public/imagenesEvento/".length());
+        byte[] objeto = objetos.get(nombre);
+        if (objeto == null) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+
+        exchange.getResponseHeaders().add("Content-Type", nombre.endsWith(".png") ? "image/png" : "image/jpeg");
+        exchange.sendResponseHeaders(200, objeto.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(objeto);
+        }
+    }
+
+    private void gestionarObjeto(HttpExchange exchange) throws IOException {
+        String nombre = exchange.getRequestURI().getPath().substring(PREFIJO_BUCKET.length());
+
+        if ("DELETE".equals(exchange.getRequestMethod())) {
+            objetos.remove(nombre);
+            responder(exchange, 200, "[]");
+            return;
+        }
+
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] cuerpo = in.readAllBytes();
+            objetos.put(nombre, cuerpo);
+            contentLengthUltimaSubida = exchange.getRequestHeaders().getFirst("Content-Length");
+            subidas.incrementAndGet();
+        } catch (IOException e) {
+            // Subida abortada por el cliente: no se almacena nada
+            exchange.close();
+            return;
+        }
+
+        responder(exchange, 200, "{\"Key\":\"imagenesEvento/" + nombre + "\"}");
+    }
+
+    private void moverObjeto(HttpExchange exchange) throws IOException {
+        String cuerpo = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        String origen = campoJson(cuerpo, "sourceKey");
+        String destino = campoJson(cuerpo, "destinationKey");
+
+        if (objetos.containsKey(destino)) {
+            responder(exchange, 400, "{\"statusCode\":\"409\",\"error\":\"Duplicate\",\"message\":\"The resource already exists\"}");
+            return;
+        }
+
+        objetos.put(destino, objetos.remove(origen));
+        responder(exchange, 200, "{\"message\":\"Successfully moved\"}");
+    }
+
+    private static String campoJson(String json, String campo) {
+        Matcher matcher = Pattern.compile("\"" + campo + "\"\\s*:\\s*\"([^\"]*)\"").matcher(json);
+        assertTrue(matcher.find(), "Falta el campo " + campo + " en " + json);
+        return matcher.group(1);
+    }
+
+    private static void responder(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] respuesta = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, respuesta.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(respuesta);
+        }
+    }
+}
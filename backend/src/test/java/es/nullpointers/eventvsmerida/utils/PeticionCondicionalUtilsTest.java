@@ -0,0 +1,74 @@
+package es.nullpointers.eventvsmerida.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de las respuestas a los GET condicionales.
+ */
+class PeticionCondicionalUtilsTest {
+    private static final Instant MODIFICADO = Instant.parse("2026-05-01T10:00:00.123456Z");
+
+    private final AtomicInteger cargas = new AtomicInteger();
+
+    @Test
+    void sinCabecerasCondicionalesDevuelveElCuerpoConEtag() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        PeticionCondicionalUtils.Version version = new PeticionCondicionalUtils.Version(PeticionCondicionalUtils.etag("eventos", MODIFICADO, 0), MODIFICADO);
+
+        ResponseEntity<String> respuesta = PeticionCondicionalUtils.responder(peticion(null, response), version, this::cargar);
+
+        assertEquals(HttpStatus.OK, respuesta.getStatusCode());
+        assertEquals("cuerpo", respuesta.getBody());
+        assertEquals("W/\"eventos-1777629600123456-0\"", response.getHeader("ETag"));
+        assertNotNull(response.getHeader("Last-Modified"));
+    }
+
+    @Test
+    void conElMismoEtagResponde304SinCargarElCuerpo() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        PeticionCondicionalUtils.Version version = new PeticionCondicionalUtils.Version(PeticionCondicionalUtils.etag("eventos", MODIFICADO, 0), MODIFICADO);
+
+        ResponseEntity<String> respuesta = PeticionCondicionalUtils.responder(peticion(version.etag(), response), version, this::cargar);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, respuesta.getStatusCode());
+        assertNull(respuesta.getBody());
+        assertEquals(0, cargas.get());
+    }
+
+    @Test
+    void unaModificacionCambiaElEtag() {
+        PeticionCondicionalUtils.Version anterior = new PeticionCondicionalUtils.Version(PeticionCondicionalUtils.etag("categorias", MODIFICADO, 1), MODIFICADO);
+        Instant modificado = MODIFICADO.plusMillis(1);
+        PeticionCondicionalUtils.Version actual = new PeticionCondicionalUtils.Version(PeticionCondicionalUtils.etag("categorias", modificado, 2), modificado);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ResponseEntity<String> respuesta = PeticionCondicionalUtils.responder(peticion(anterior.etag(), response), actual, this::cargar);
+
+        assertNotEquals(anterior.etag(), actual.etag());
+        assertEquals(HttpStatus.OK, respuesta.getStatusCode());
+        assertEquals(1, cargas.get());
+    }
+
+    private String cargar() {
+        cargas.incrementAndGet();
+        return "cuerpo";
+    }
+
+    private static ServletWebRequest peticion(String ifNoneMatch, MockHttpServletResponse response) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/eventos/all");
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        return new ServletWebRequest(request, response);
+    }
+}
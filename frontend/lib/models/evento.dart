@@ -1,31 +1,50 @@
 class Evento {
+  final int? id;
   final String titulo;
   final String descripcion;
   final DateTime fechaHora;
   final String localizacion;
+  final double? latitud;
+  final double? longitud;
   final String foto;
+  final String fotoMiniatura;
+  final String fotoTarjeta;
   final String emailUsuario;
   final String nombreCategoria;
+  final int guardados;
 
   Evento({
+    this.id,
     required this.titulo,
     required this.descripcion,
     required this.fechaHora,
     required this.localizacion,
+    this.latitud,
+    this.longitud,
     required this.foto,
+    required this.fotoMiniatura,
+    required this.fotoTarjeta,
     required this.emailUsuario,
     required this.nombreCategoria,
+    this.guardados = 0,
   });
 
   factory Evento.fromJson(Map<String, dynamic> json) {
     return Evento(
+      id: json['id'] as int?,
       titulo: json['titulo'] ?? '',
       descripcion: json['descripcion'] ?? '',
       fechaHora: DateTime.parse(json['fechaHora'].toString()),
       localizacion: json['localizacion'] ?? '',
+      latitud: (json['latitud'] as num?)?.toDouble(),
+      longitud: (json['longitud'] as num?)?.toDouble(),
       foto: json['foto'] ?? '',
+      // Las variantes reducidas caen en la foto original si la API no las envía
+      fotoMiniatura: json['fotoMiniatura'] ?? json['foto'] ?? '',
+      fotoTarjeta: json['fotoTarjeta'] ?? json['foto'] ?? '',
       emailUsuario: json['emailUsuario'] ?? '',
       nombreCategoria: json['nombreCategoria'] ?? '',
+      guardados: json['guardados'] ?? 0,
     );
   }
 }
\ No newline at end of file
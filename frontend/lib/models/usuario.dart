@@ -1,4 +1,6 @@
 class Usuario {
+  // Puede faltar en los usuarios guardados por versiones anteriores de la app
+  final int? id;
   final String nombre;
   final String apellidos;
   final DateTime fechaNacimiento;
@@ -7,6 +9,7 @@ class Usuario {
   final String rol;
 
   Usuario({
+    this.id,
     required this.nombre,
     required this.apellidos,
     required this.fechaNacimiento,
@@ -16,6 +19,7 @@ class Usuario {
   });
 
   Map<String, dynamic> toJson() => {
+    'id': id,
     'nombre': nombre,
     'apellidos': apellidos,
     'fechaNacimiento': fechaNacimiento.toIso8601String(),
@@ -25,6 +29,7 @@ class Usuario {
   };
 
   factory Usuario.fromJson(Map<String, dynamic> json) => Usuario(
+    id: json['id'] as int?,
     nombre: json['nombre'] as String,
     apellidos: json['apellidos'] as String,
     fechaNacimiento: DateTime.parse(json['fechaNacimiento']),
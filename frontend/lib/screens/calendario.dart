@@ -56,7 +56,7 @@ class _CalendarioState extends State<Calendario> {
 
   Future<void> _cargarEventos() async {
     try {
-      final mapa = await ApiService.obtenerEventosParaCalendario();
+      final mapa = await ApiService.obtenerEventosParaCalendario(_focusedDay);
       setState(() {
         _eventosMap = mapa;
       });
@@ -136,6 +136,7 @@ class _CalendarioState extends State<Calendario> {
                   _focusedDay = nuevaFecha;
                   _selectedDay = nuevaFecha;
                 });
+                _cargarEventos();
               },
             ),
             const SizedBox(width: 15),
@@ -160,6 +161,7 @@ class _CalendarioState extends State<Calendario> {
                   _focusedDay = nuevaFecha;
                   _selectedDay = nuevaFecha;
                 });
+                _cargarEventos();
               },
             ),
           ],
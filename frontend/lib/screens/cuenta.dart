@@ -119,6 +119,7 @@ class _CuentaState extends State<Cuenta> {
                   SharedPreferencesService.usuarioSesionActual = null;
                   await SharedPreferencesService.borrarAutoLoginKey();
                   await SharedPreferencesService.borrarUsuarioKey();
+                  await SharedPreferencesService.borrarTokens();
                   context.go('/eventos');
                 },
               ),
@@ -124,7 +124,7 @@ class _EventosState extends State<Eventos> {
                           child: AspectRatio(
                             aspectRatio: 16 / 9,
                             child: Image.network(
-                              evento.foto,
+                              evento.fotoTarjeta,
                               fit: BoxFit.cover,
                               alignment:
                                   .topCenter,
@@ -554,11 +554,7 @@ class _EventosState extends State<Eventos> {
   }
 
   Future<String> _guardarEvento(Evento evento, Usuario usuario) async {
-    final respuesta = await ApiService.guardarEventoUsuario(
-      usuario.email,
-      evento.titulo,
-      evento.fechaHora,
-    );
+    final respuesta = await ApiService.guardarEventoUsuario(usuario, evento);
 
     if (respuesta == 'Evento guardado correctamente') {
       setState(() {
@@ -576,11 +572,7 @@ class _EventosState extends State<Eventos> {
   }
 
   Future<String> _eliminarEvento(Evento evento, Usuario usuario) async {
-    final respuesta = await ApiService.eliminarEventoUsuario(
-      usuario.email,
-      evento.titulo,
-      evento.fechaHora,
-    );
+    final respuesta = await ApiService.eliminarEventoUsuario(usuario, evento);
 
     if (respuesta == 'Evento eliminado correctamente') {
       setState(() {
@@ -34,11 +34,7 @@ class _EventosGuardadosState extends State<EventosGuardados> {
   }
 
   Future<void> _borrarEvento(Evento evento) async {
-    String mensaje = await ApiService.eliminarEventoUsuario(
-      _usuario!.email,
-      evento.titulo,
-      evento.fechaHora,
-    );
+    String mensaje = await ApiService.eliminarEventoUsuario(_usuario!, evento);
 
     if (mensaje == "Evento eliminado correctamente") {
       setState(() {
@@ -166,7 +162,7 @@ class _EventosGuardadosState extends State<EventosGuardados> {
                               bottomLeft: Radius.circular(18),
                             ),
                             child: Image.network(
-                              evento.foto,
+                              evento.fotoMiniatura,
                               width: 100,
                               height: 90,
                               fit: BoxFit.cover,
@@ -3,11 +3,15 @@ import 'dart:convert';
 import 'dart:io';
 import '../models/evento.dart';
 import '../models/usuario.dart';
+import 'shared_preferences_service.dart';
 import 'package:http/http.dart' as http;
 
 class ApiService {
   static const String baseUrl = "https://eventvsmerida.onrender.com/api";
 
+  // Última respuesta de cada URL con su ETag, para las peticiones condicionales
+  static final Map<Uri, ({String etag, List<int> cuerpo})> _respuestasConEtag = {};
+
   static Future<Map<String, dynamic>> registrar(Map userData) async {
     try {
       final url = Uri.parse("$baseUrl/usuarios/add");
@@ -48,12 +52,15 @@ class ApiService {
       );
 
       if (respuesta.statusCode == 200) {
+        // La respuesta trae el usuario y los tokens de acceso y de refresco
         final data = jsonDecode(respuesta.body);
-        final usuario = Usuario.fromJson(data);
+        final usuario = Usuario.fromJson(data['usuario']);
+        await SharedPreferencesService.guardarTokens(data['tokens']['tokenAcceso'], data['tokens']['tokenRefresco']);
         return {'mensaje': "Login exitoso", 'usuario': usuario};
       } else {
         String msg = "Error en el servidor: ${respuesta.statusCode}";
         if (respuesta.statusCode == 404 || respuesta.statusCode == 400) msg = "Credenciales inválidas";
+        if (respuesta.statusCode == 429) msg = "Demasiados intentos, inténtalo más tarde";
         return {'mensaje': msg, 'usuario': null};
       }
     } catch (e) {
@@ -61,8 +68,186 @@ class ApiService {
     }
   }
 
+  // Pide un nuevo par de tokens con el token de refresco; devuelve false si ha caducado y hay que volver a iniciar sesión
+  static Future<bool> refrescarSesion() async {
+    final tokenRefresco = await SharedPreferencesService.cargarTokenRefresco();
+    if (tokenRefresco == null) return false;
+
+    final url = Uri.parse("$baseUrl/usuarios/refresh");
+
+    try {
+      final respuesta = await http.post(
+        url,
+        headers: {'Content-Type': 'application/json'},
+        body: jsonEncode({'tokenRefresco': tokenRefresco}),
+      );
+
+      if (respuesta.statusCode != 200) {
+        await SharedPreferencesService.borrarTokens();
+        return false;
+      }
+
+      final data = jsonDecode(respuesta.body);
+      await SharedPreferencesService.guardarTokens(data['tokens']['tokenAcceso'], data['tokens']['tokenRefresco']);
+      return true;
+    } catch (e) {
+      return false;
+    }
+  }
+
+  // GET condicional: si el servidor responde 304 se reutiliza el cuerpo guardado,
+  // así que quien llama siempre recibe una respuesta 200 con los datos
+  static Future<http.Response> _getCondicional(Uri url) async {
+    final guardada = _respuestasConEtag[url];
+    final respuesta = await http.get(url, headers: {
+      if (guardada != null) 'If-None-Match': guardada.etag,
+    });
+
+    if (respuesta.statusCode == 304 && guardada != null) {
+      return http.Response.bytes(guardada.cuerpo, 200, headers: {'content-type': 'application/json; charset=utf-8'});
+    }
+
+    final etag = respuesta.headers['etag'];
+    if (respuesta.statusCode == 200 && etag != null) {
+      _respuestasConEtag[url] = (etag: etag, cuerpo: respuesta.bodyBytes);
+    }
+    return respuesta;
+  }
+
+  static Future<Map<String, dynamic>> obtenerPaginaEventos({String? cursor, int tamanio = 50}) async {
+    final parametros = {'tamanio': '$tamanio'};
+    if (cursor != null) parametros['cursor'] = cursor;
+
+    final url = Uri.parse("$baseUrl/eventos/feed").replace(queryParameters: parametros);
+    final respuesta = await _getCondicional(url);
+
+    if (respuesta.statusCode == 200) {
+      final data = jsonDecode(respuesta.body);
+      final List<dynamic> eventos = data['eventos'];
+      return {
+        'eventos': eventos.map((json) => Evento.fromJson(json)).toList(),
+        'siguienteCursor': data['siguienteCursor'],
+      };
+    } else {
+      throw Exception('Error al cargar los eventos');
+    }
+  }
+
+  static Future<Map<String, dynamic>> buscarEventos(String texto, {int pagina = 0, int tamanio = 20}) async {
+    final url = Uri.parse("$baseUrl/eventos/buscar").replace(queryParameters: {
+      'q': texto,
+      'pagina': '$pagina',
+      'tamanio': '$tamanio',
+    });
+    final respuesta = await _getCondicional(url);
+
+    if (respuesta.statusCode == 200) {
+      final data = jsonDecode(respuesta.body);
+      final List<dynamic> eventos = data['eventos'];
+      return {
+        'eventos': eventos.map((json) => Evento.fromJson(json)).toList(),
+        'hayMas': data['hayMas'] as bool,
+      };
+    } else {
+      throw Exception('Error al buscar eventos');
+    }
+  }
+
+  // Devuelve todos los eventos a partir de la copia local, descargando solo los que
+  // han cambiado desde la última sincronización. La primera vez se descargan todos
   static Future<List<Evento>> obtenerEventos() async {
-    final respuesta = await http.get(Uri.parse("$baseUrl/eventos/all"));
+    var eventosJson = await SharedPreferencesService.cargarEventos();
+    var token = await SharedPreferencesService.cargarTokenCambios();
+
+    Map<String, dynamic> cambios;
+    try {
+      cambios = await obtenerCambiosEventos(token);
+    } on FormatException {
+      // El servidor no reconoce el token: se descarta la copia local y se empieza de cero
+      await SharedPreferencesService.borrarEventos();
+      eventosJson = {};
+      token = null;
+      cambios = await obtenerCambiosEventos(null);
+    }
+
+    while (true) {
+      for (final evento in cambios['eventos'] as List<dynamic>) {
+        eventosJson['${evento['id']}'] = evento;
+      }
+      for (final id in cambios['eliminados'] as List<dynamic>) {
+        eventosJson.remove('$id');
+      }
+      token = cambios['token'] as String;
+
+      if (cambios['hayMas'] != true) break;
+      cambios = await obtenerCambiosEventos(token);
+    }
+
+    await SharedPreferencesService.guardarEventos(eventosJson, token!);
+
+    final eventos = eventosJson.values.map((json) => Evento.fromJson(json as Map<String, dynamic>)).toList();
+    eventos.sort((a, b) {
+      final comparacion = a.fechaHora.compareTo(b.fechaHora);
+      return comparacion != 0 ? comparacion : (a.id ?? 0).compareTo(b.id ?? 0);
+    });
+    return eventos;
+  }
+
+  // Pide los eventos creados, modificados y eliminados desde el token indicado
+  static Future<Map<String, dynamic>> obtenerCambiosEventos(String? token) async {
+    final url = Uri.parse("$baseUrl/eventos/cambios").replace(queryParameters: {
+      if (token != null) 'token': token,
+    });
+
+    final respuesta = await http.get(url);
+
+    if (respuesta.statusCode == 200) {
+      return jsonDecode(respuesta.body) as Map<String, dynamic>;
+    } else if ((respuesta.statusCode == 400 || respuesta.statusCode == 410) && token != null) {
+      throw const FormatException("Token de sincronización inválido o caducado");
+    } else {
+      throw Exception("Error en el servidor: ${respuesta.statusCode}");
+    }
+  }
+
+  static Future<Map<String, dynamic>> obtenerMapa({
+    required double latitudMin,
+    required double latitudMax,
+    required double longitudMin,
+    required double longitudMax,
+    required int zoom,
+  }) async {
+    final url = Uri.parse("$baseUrl/eventos/mapa").replace(queryParameters: {
+      'latitudMin': '$latitudMin',
+      'latitudMax': '$latitudMax',
+      'longitudMin': '$longitudMin',
+      'longitudMax': '$longitudMax',
+      'zoom': '$zoom',
+    });
+    final respuesta = await _getCondicional(url);
+
+    if (respuesta.statusCode == 200) {
+      final data = jsonDecode(respuesta.body);
+      final List<dynamic> eventos = data['eventos'];
+      // Cada cluster es un mapa con latitud, longitud y el número de eventos que agrupa
+      return {
+        'eventos': eventos.map((json) => Evento.fromJson(json)).toList(),
+        'clusters': List<Map<String, dynamic>>.from(data['clusters']),
+      };
+    } else {
+      throw Exception('Error al cargar el mapa');
+    }
+  }
+
+  static Future<List<Evento>> obtenerEventosEnRango(DateTime desde, DateTime hasta, {int? idCategoria}) async {
+    final parametros = {
+      'desde': desde.toIso8601String(),
+      'hasta': hasta.toIso8601String(),
+    };
+    if (idCategoria != null) parametros['idCategoria'] = '$idCategoria';
+
+    final url = Uri.parse("$baseUrl/eventos/rango").replace(queryParameters: parametros);
+    final respuesta = await _getCondicional(url);
 
     if (respuesta.statusCode == 200) {
       final List<dynamic> eventos = jsonDecode(respuesta.body);
@@ -72,8 +257,24 @@ class ApiService {
     }
   }
 
-  static Future<Map<DateTime, List<Evento>>> obtenerEventosParaCalendario() async {
-    List<Evento> datos = await obtenerEventos();
+  static Future<List<Evento>> obtenerEventosMasGuardados({int tamanio = 10}) async {
+    final url = Uri.parse("$baseUrl/eventos/mas-guardados").replace(queryParameters: {'tamanio': '$tamanio'});
+    final respuesta = await _getCondicional(url);
+
+    if (respuesta.statusCode == 200) {
+      final List<dynamic> eventos = jsonDecode(respuesta.body);
+      return eventos.map((json) => Evento.fromJson(json)).toList();
+    } else {
+      throw Exception('Error al cargar los eventos más guardados');
+    }
+  }
+
+  static Future<Map<DateTime, List<Evento>>> obtenerEventosParaCalendario(DateTime mes) async {
+    // Se piden solo los eventos del mes visible, con una semana de margen
+    // para los días de los meses contiguos que también muestra el calendario
+    final desde = DateTime(mes.year, mes.month, 1).subtract(const Duration(days: 7));
+    final hasta = DateTime(mes.year, mes.month + 1, 1).add(const Duration(days: 7));
+    List<Evento> datos = await obtenerEventosEnRango(desde, hasta);
     Map<DateTime, List<Evento>> mapa = {};
 
     for (var evento in datos) {
@@ -91,17 +292,22 @@ class ApiService {
     return mapa;
   }
 
-  static Future<String> guardarEventoUsuario(String emailUsuario, String tituloEvento, DateTime fechaHora) async {
-    final url = Uri.parse("$baseUrl/usuario-eventos/guardar");
-
+  static Future<String> guardarEventoUsuario(Usuario usuario, Evento evento) async {
     try {
-      final respuesta = await http.post(
-        url,
-        headers: {'Content-Type': 'application/json'},
-        body: jsonEncode({'emailUsuario': emailUsuario, 'tituloEvento': tituloEvento, 'fechaHoraEvento': fechaHora.toIso8601String()}),
-      );
+      final http.Response respuesta;
 
-      if (respuesta.statusCode == 200) {
+      // Con los IDs basta una petición idempotente; sin ellos se usa el endpoint por email, título y fecha
+      if (usuario.id != null && evento.id != null) {
+        respuesta = await http.put(Uri.parse("$baseUrl/usuario-eventos/${usuario.id}/${evento.id}"));
+      } else {
+        respuesta = await http.post(
+          Uri.parse("$baseUrl/usuario-eventos/guardar"),
+          headers: {'Content-Type': 'application/json'},
+          body: jsonEncode({'emailUsuario': usuario.email, 'tituloEvento': evento.titulo, 'fechaHoraEvento': evento.fechaHora.toIso8601String()}),
+        );
+      }
+
+      if (respuesta.statusCode == 200 || respuesta.statusCode == 204) {
         return "Evento guardado correctamente";
       } else {
         return "Error en el servidor: ${respuesta.statusCode}";
@@ -111,15 +317,19 @@ class ApiService {
     }
   }
 
-  static Future<String> eliminarEventoUsuario(String emailUsuario, String tituloEvento, DateTime fechaHora) async {
-    final url = Uri.parse("$baseUrl/usuario-eventos/eliminar");
-
+  static Future<String> eliminarEventoUsuario(Usuario usuario, Evento evento) async {
     try {
-      final respuesta = await http.delete(
-        url,
-        headers: {'Content-Type': 'application/json'},
-        body: jsonEncode({'emailUsuario': emailUsuario, 'tituloEvento': tituloEvento, 'fechaHoraEvento': fechaHora.toIso8601String()}),
-      );
+      final http.Response respuesta;
+
+      if (usuario.id != null && evento.id != null) {
+        respuesta = await http.delete(Uri.parse("$baseUrl/usuario-eventos/${usuario.id}/${evento.id}"));
+      } else {
+        respuesta = await http.delete(
+          Uri.parse("$baseUrl/usuario-eventos/eliminar"),
+          headers: {'Content-Type': 'application/json'},
+          body: jsonEncode({'emailUsuario': usuario.email, 'tituloEvento': evento.titulo, 'fechaHoraEvento': evento.fechaHora.toIso8601String()}),
+        );
+      }
 
       if (respuesta.statusCode == 204) {
         return "Evento eliminado correctamente";
@@ -131,6 +341,30 @@ class ApiService {
     }
   }
 
+  // Envía en una sola petición las operaciones pendientes sobre los eventos guardados.
+  // Cada operación es un mapa con 'idEvento' y 'accion' ('GUARDAR' o 'QUITAR').
+  // Devuelve el resultado de cada operación en el mismo orden
+  static Future<List<Map<String, dynamic>>> sincronizarEventosGuardados(int idUsuario, List<Map<String, dynamic>> operaciones) async {
+    final url = Uri.parse("$baseUrl/usuario-eventos/$idUsuario/lote");
+
+    try {
+      final respuesta = await http.post(
+        url,
+        headers: {'Content-Type': 'application/json'},
+        body: jsonEncode({'operaciones': operaciones}),
+      );
+
+      if (respuesta.statusCode == 200) {
+        List<dynamic> datos = jsonDecode(respuesta.body);
+        return datos.cast<Map<String, dynamic>>();
+      } else {
+        throw Exception("Error en el servidor: ${respuesta.statusCode}");
+      }
+    } catch (e) {
+      throw Exception("Error desconocido");
+    }
+  }
+
   static Future<List<Evento>> obtenerEventosGuardados(String emailUsuario) async {
     final url = Uri.parse("$baseUrl/usuario-eventos/guardados?emailUsuario=$emailUsuario");
 
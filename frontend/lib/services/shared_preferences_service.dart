@@ -5,6 +5,10 @@ import '../models/usuario.dart';
 class SharedPreferencesService {
   static const String usuarioKey = 'usuario_data';
   static const String autoLoginKey = 'autologin_data';
+  static const String tokenAccesoKey = 'token_acceso';
+  static const String tokenRefrescoKey = 'token_refresco';
+  static const String eventosKey = 'eventos_data';
+  static const String tokenCambiosKey = 'token_cambios_eventos';
   static Usuario? usuarioSesionActual;
 
   // Guardar un usuario
@@ -47,6 +51,60 @@ class SharedPreferencesService {
     await prefs.remove(autoLoginKey);
   }
 
+  // Guardar los tokens recibidos en el login
+  static Future<void> guardarTokens(String tokenAcceso, String tokenRefresco) async {
+    final prefs = await SharedPreferences.getInstance();
+    await prefs.setString(tokenAccesoKey, tokenAcceso);
+    await prefs.setString(tokenRefrescoKey, tokenRefresco);
+  }
+
+  // Cargar el token de acceso (o null si no hay sesión)
+  static Future<String?> cargarTokenAcceso() async {
+    final prefs = await SharedPreferences.getInstance();
+    return prefs.getString(tokenAccesoKey);
+  }
+
+  // Cargar el token de refresco (o null si no hay sesión)
+  static Future<String?> cargarTokenRefresco() async {
+    final prefs = await SharedPreferences.getInstance();
+    return prefs.getString(tokenRefrescoKey);
+  }
+
+  // Eliminar los tokens (logout)
+  static Future<void> borrarTokens() async {
+    final prefs = await SharedPreferences.getInstance();
+    await prefs.remove(tokenAccesoKey);
+    await prefs.remove(tokenRefrescoKey);
+  }
+
+  // Guardar la copia local de los eventos (JSON por ID) y el token de la última sincronización
+  static Future<void> guardarEventos(Map<String, dynamic> eventos, String token) async {
+    final prefs = await SharedPreferences.getInstance();
+    await prefs.setString(eventosKey, jsonEncode(eventos));
+    await prefs.setString(tokenCambiosKey, token);
+  }
+
+  // Cargar la copia local de los eventos (vacía si no hay datos)
+  static Future<Map<String, dynamic>> cargarEventos() async {
+    final prefs = await SharedPreferences.getInstance();
+    final json = prefs.getString(eventosKey);
+    if (json == null) return {};
+    return jsonDecode(json) as Map<String, dynamic>;
+  }
+
+  // Cargar el token de la última sincronización (o null si nunca se ha sincronizado)
+  static Future<String?> cargarTokenCambios() async {
+    final prefs = await SharedPreferences.getInstance();
+    return prefs.getString(tokenCambiosKey);
+  }
+
+  // Eliminar la copia local de los eventos, para volver a descargarlos todos
+  static Future<void> borrarEventos() async {
+    final prefs = await SharedPreferences.getInstance();
+    await prefs.remove(eventosKey);
+    await prefs.remove(tokenCambiosKey);
+  }
+
   static Future<Usuario?> cargarUsuario() async {
     final autoLogin = await SharedPreferencesService.cargarAutoLoginKey();
 